@@ -1,9 +1,17 @@
 package com.saucelabs.sauce_ondemand.driver;
 
 import com.saucelabs.saucerest.SauceREST;
+import com.saucelabs.selenium.client.factory.SessionJournal;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.DriverCommand;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
 import org.openqa.selenium.remote.SessionId;
 import sun.misc.BASE64Encoder;
 
@@ -19,7 +27,7 @@ import java.util.Map;
 /**
  * @author Ross Rowe
  */
-public class RemoteWebDriverImpl extends RemoteWebDriver implements WebDriver, SauceOnDemandSelenium {
+public class RemoteWebDriverImpl extends RemoteWebDriver implements WebDriver, SauceOnDemandSelenium, Reclaimable {
     private SessionId lastSessionId;
 
     private String jobName;
@@ -34,6 +42,7 @@ public class RemoteWebDriverImpl extends RemoteWebDriver implements WebDriver, S
         super(url, capabilities);
         this.credential = credential;
         this.jobName = jobName;
+        SessionJournal.getDefault().opened(SessionJournal.WEBDRIVER, getSessionId().toString(), url.toString());
     }
 
     @Override
@@ -42,6 +51,44 @@ public class RemoteWebDriverImpl extends RemoteWebDriver implements WebDriver, S
         dumpSessionId();
     }
 
+    @Override
+    public void quit() {
+        long start = System.nanoTime();
+        SessionId id = getSessionId();
+        try {
+            super.quit();
+        } finally {
+            MetricsRegistry.forUri("sauce-ondemand:").quitEnded(start);
+            SessionRegistry.ended(this);
+            if (id != null)
+                SessionJournal.getDefault().closed(id.toString());
+        }
+    }
+
+    @Override
+    protected Response execute(String driverCommand, Map<String, ?> parameters) {
+        SessionRegistry.touch(this);
+        return super.execute(driverCommand, parameters);
+    }
+
+    public Runnable getReclaimer() {
+        return createReclaimer(getCommandExecutor(), getSessionId());
+    }
+
+    private static Runnable createReclaimer(final CommandExecutor executor, final SessionId id) {
+        return new Runnable() {
+            public void run() {
+                try {
+                    executor.execute(new Command(id, DriverCommand.QUIT));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to quit session " + id, e);
+                } finally {
+                    SessionJournal.getDefault().closed(id.toString());
+                }
+            }
+        };
+    }
+
     @Override
     public void get(String url) {
         super.get(url);
@@ -23,6 +23,8 @@
  */
 package com.saucelabs.sauce_ondemand.driver;
 
+import com.saucelabs.selenium.client.factory.CreationResult;
+import com.saucelabs.selenium.client.factory.CreationStream;
 import com.saucelabs.selenium.client.factory.SeleniumFactory;
 import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
 import com.thoughtworks.selenium.Selenium;
@@ -31,6 +33,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxProfile;
 import org.openqa.selenium.remote.CapabilityType;
@@ -42,7 +45,6 @@ import java.net.URL;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.*;
 
 /**
  * {@link SeleniumFactorySPI} that talks to Sauce OnDemand.
@@ -80,8 +82,8 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
             throw new IllegalArgumentException("Missing '?':" + factory.getUri());
         Map<String, List<String>> paramMap = populateParameterMap(uri);
 
-        String host = readPropertyOrEnv("SELENIUM_HOST", DEFAULT_SELENIUM_HOST);
-        String portAsString = readPropertyOrEnv("SELENIUM_PORT", null);
+        String host = readSetting(factory, SELENIUM_HOST, DEFAULT_SELENIUM_HOST);
+        String portAsString = readSetting(factory, SELENIUM_PORT, null);
         int port;
         if (portAsString == null || portAsString.equals("")) {
             port = DEFAULT_SELENIUM_PORT;
@@ -137,11 +139,11 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
         uri = uri.substring(SCHEME.length());
         if (!uri.startsWith("?"))
             throw new IllegalArgumentException("Missing '?':" + factory.getUri());
-        return createWebDriver(browserURL, capabilities, uri);
+        return createWebDriver(factory, browserURL, capabilities, uri);
 
     }
 
-    private WebDriver createWebDriver(String browserURL, DesiredCapabilities capabilities, String uri) {
+    private WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities, String uri) {
         // massage parameter into JSON format
         Map<String, List<String>> paramMap = populateParameterMap(uri);
 
@@ -150,7 +152,7 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
                 hasParameter(paramMap, BROWSER) &&
                 hasParameter(paramMap, BROWSER_VERSION)) {
             String browser = getFirstParameter(paramMap, BROWSER);
-            desiredCapabilities = new DesiredCapabilities(capabilities);
+            desiredCapabilities = new DesiredCapabilities((Capabilities) capabilities);
             desiredCapabilities.setBrowserName(browser);
             desiredCapabilities.setVersion(getFirstParameter(paramMap, BROWSER_VERSION));
             desiredCapabilities.setCapability(CapabilityType.PLATFORM, getFirstParameter(paramMap, OS));
@@ -160,13 +162,14 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
             populateDesiredCapabilities(paramMap, desiredCapabilities);
         } else {
             //use Firefox as a default
-            desiredCapabilities = capabilities;
+            // work on a copy, as the capabilities may be shared by drivers being created concurrently
+            desiredCapabilities = new DesiredCapabilities((Capabilities) capabilities);
             desiredCapabilities.merge(DesiredCapabilities.firefox());
             setFirefoxProfile(paramMap, desiredCapabilities);
         }
-        String host = readPropertyOrEnv(SELENIUM_HOST, DEFAULT_WEBDRIVER_HOST);
+        String host = readSetting(factory, SELENIUM_HOST, DEFAULT_WEBDRIVER_HOST);
 
-        String portAsString = readPropertyOrEnv(SELENIUM_PORT, null);
+        String portAsString = readSetting(factory, SELENIUM_PORT, null);
 
         if (portAsString == null || portAsString.equals("")) {
             portAsString = DEFAULT_WEBDRIVER_PORT;
@@ -220,6 +223,11 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
         return uri.startsWith(SCHEME);
     }
 
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("sauce-ondemand");
+    }
+
     /**
      * Try to find the name of the test as best we can.
      */
@@ -275,6 +283,19 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
 
     private static final String SCHEME = "sauce-ondemand:";
 
+    /**
+     * Reads one of {@link SeleniumFactory#ENDPOINT_SETTINGS}, preferring the value that a
+     * {@linkplain SeleniumFactory#snapshot() snapshot} resolved into the factory properties,
+     * where the empty string means the setting isn't defined.
+     */
+    private static String readSetting(SeleniumFactory factory, String key, String defaultValue) {
+        Object v = factory.getProperty(key);
+        if (v == null)
+            return readPropertyOrEnv(key, defaultValue);
+        String s = v.toString();
+        return s.length() == 0 ? defaultValue : s;
+    }
+
     private static String readPropertyOrEnv(String key, String defaultValue) {
         String v = System.getProperty(key);
         if (v == null)
@@ -288,60 +309,57 @@ public class SauceOnDemandSPIImpl extends SeleniumFactorySPI {
      * Creates a list of WebDriver instances based on the contents of a SAUCE_ONDEMAND_BROWSERS environment variable (typically set
      * by the Sauce Jenkins plugin).
      *
+     * <p>
+     * The drivers are created in parallel by {@link SeleniumFactory#createWebDriverInstances(List, String, DesiredCapabilities)}.
+     * If any of them fails to start, the ones that did start are quit.
+     *
      * @param seleniumFactory
      * @param browserURL
      * @return
      */
     @Override
     public List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, final String browserURL) {
+        if (!canHandle(seleniumFactory.getUri()))
+            return null; // not ours
+
+        return CreationResult.getAll(seleniumFactory.createWebDriverInstances(getBrowserUris(), browserURL, null));
+    }
+
+    /**
+     * Starts creating WebDrivers for all the browsers listed in the SAUCE_ONDEMAND_BROWSERS environment variable,
+     * and hands out each one as soon as it becomes ready.
+     *
+     * <p>
+     * Unlike {@link #createWebDrivers(SeleniumFactory, String)}, a slow or failing browser doesn't hold up the others.
+     */
+    public CreationStream<WebDriver> streamWebDrivers(SeleniumFactory seleniumFactory, String browserURL) {
+        return seleniumFactory.streamWebDriverInstances(getBrowserUris(), browserURL, null);
+    }
 
-        List<WebDriver> webDrivers = new ArrayList<WebDriver>();
+    /**
+     * Parses the SAUCE_ONDEMAND_BROWSERS environment variable into the list of driver URIs.
+     */
+    private List<String> getBrowserUris() {
         String browserJson = readPropertyOrEnv("SAUCE_ONDEMAND_BROWSERS", null);
         if (browserJson == null) {
             throw new IllegalArgumentException("Unable to find SAUCE_ONDEMAND_BROWSERS environment variable");
         }
-        //parse JSON and extract the browser urls, so that we know how many threads to schedule
+        // the drivers are created on other threads, which can't see who's calling us
+        String jobName = getJobName();
+
         List<String> browsers = new ArrayList<String>();
         try {
             JSONArray array = new JSONArray(new JSONTokener(browserJson));
             for (int i = 0; i < array.length(); i++) {
                 JSONObject object = array.getJSONObject(i);
                 String uri = object.getString("url");
-                if (!uri.startsWith(SCHEME))
-                    return null; // not ours
-
-                uri = uri.substring(SCHEME.length());
-                if (!uri.startsWith("?"))
-                    throw new IllegalArgumentException("Missing '?':" + uri);
+                if (uri.startsWith(SCHEME + "?") && jobName != null && !uri.contains("job-name="))
+                    uri += "&job-name=" + jobName;
                 browsers.add(uri);
             }
         } catch (JSONException e) {
             throw new IllegalArgumentException("Error parsing JSON", e);
         }
-
-        //create a fixed thread pool for the number of browser
-        ExecutorService service = Executors.newFixedThreadPool(browsers.size());
-        List<Callable<WebDriver>> callables = new ArrayList<Callable<WebDriver>>();
-        for (final String browser : browsers) {
-            callables.add(new Callable<WebDriver>() {
-                public WebDriver call() throws Exception {
-                    return createWebDriver(browserURL, null, browser);
-                }
-            });
-        }
-        //invoke all the callables, and wait for each thread to return
-        try {
-            List<Future<WebDriver>> futures = service.invokeAll(callables);
-            for (Future<WebDriver> future : futures) {
-                webDrivers.add(future.get());
-            }
-        } catch (InterruptedException e) {
-            throw new IllegalArgumentException("Error retrieving webdriver", e);
-        } catch (ExecutionException e) {
-            throw new IllegalArgumentException("Error retrieving webdriver", e);
-        }
-        service.shutdown();
-
-        return Collections.unmodifiableList(webDrivers);
+        return browsers;
     }
 }
@@ -24,6 +24,11 @@
 package com.saucelabs.sauce_ondemand.driver;
 
 import com.saucelabs.saucerest.SauceREST;
+import com.saucelabs.selenium.client.factory.SessionJournal;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
+import com.thoughtworks.selenium.CommandProcessor;
 import com.thoughtworks.selenium.DefaultSelenium;
 import com.thoughtworks.selenium.Selenium;
 import sun.misc.BASE64Encoder;
@@ -41,7 +46,7 @@ import java.util.Map;
 /**
  * @author Kohsuke Kawaguchi
  */
-class SeleniumImpl extends DefaultSelenium implements SauceOnDemandSelenium, Selenium {
+class SeleniumImpl extends DefaultSelenium implements SauceOnDemandSelenium, Selenium, Reclaimable {
     /**
      * {@link DefaultSelenium} throw away the session ID as soon as the {@link #stop()}
      * is called, so we'll  store it aside.
@@ -52,10 +57,16 @@ class SeleniumImpl extends DefaultSelenium implements SauceOnDemandSelenium, Sel
 
     private final Credential credential;
 
+    /**
+     * URL of the Selenium RC server, to end the session with if this JVM gets killed.
+     */
+    private final String endpoint;
+
     SeleniumImpl(String serverHost, int serverPort, String browserStartCommand, String browserURL, Credential credential, String jobName) {
         super(serverHost, serverPort, browserStartCommand, browserURL);
         this.credential = credential;
         this.jobName = jobName;
+        this.endpoint = "http://" + serverHost + ":" + serverPort;
     }
 
     @Override
@@ -76,21 +87,59 @@ class SeleniumImpl extends DefaultSelenium implements SauceOnDemandSelenium, Sel
         dumpSessionId();
     }
 
+    @Override
+    public void stop() {
+        long start = System.nanoTime();
+        String id = getSessionId(commandProcessor);
+        try {
+            super.stop();
+        } finally {
+            MetricsRegistry.forUri("sauce-ondemand:").quitEnded(start);
+            SessionRegistry.ended(this);
+            SessionJournal.getDefault().closed(id);
+        }
+    }
+
+    public Runnable getReclaimer() {
+        return createReclaimer(commandProcessor);
+    }
+
+    private static Runnable createReclaimer(final CommandProcessor processor) {
+        return new Runnable() {
+            public void run() {
+                String id = getSessionId(processor);
+                try {
+                    processor.stop();
+                } finally {
+                    SessionJournal.getDefault().closed(id);
+                }
+            }
+        };
+    }
+
     /**
      * Dump the session ID, so that it can be captured by the CI server.
      */
     private void dumpSessionId() {
         lastSessionId = getSessionId();
         System.out.println("SauceOnDemandSessionID=" + lastSessionId + " job-name=" + jobName);
+        SessionJournal.getDefault().opened(SessionJournal.SELENIUM_RC, getSessionId(commandProcessor), endpoint);
     }
 
     public String getSessionId() {
+        String id = getSessionId(commandProcessor);
+        return id != null ? id : lastSessionId;
+    }
+
+    /**
+     * @return null if the session isn't running, or if the ID can't be retrieved.
+     */
+    private static String getSessionId(CommandProcessor processor) {
         try {
-            Field f = commandProcessor.getClass().getDeclaredField("sessionId");
+            Field f = processor.getClass().getDeclaredField("sessionId");
             f.setAccessible(true);
-            Object id = f.get(commandProcessor);
+            Object id = f.get(processor);
             if (id != null) return id.toString();
-            return lastSessionId;
         } catch (NoSuchFieldException e) {
             // failed to retrieve the session ID
         } catch (IllegalAccessException e) {
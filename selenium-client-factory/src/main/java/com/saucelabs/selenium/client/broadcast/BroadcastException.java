@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import org.openqa.selenium.WebDriverException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown from a {@link BroadcastWebDriver} when a command fails in some of the browsers,
+ * or when the browsers disagree in a way that can't be represented by a single return value.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class BroadcastException extends WebDriverException {
+    private final List<BroadcastResult<Object>> results;
+
+    public BroadcastException(String message, List<BroadcastResult<Object>> results) {
+        super(message + describe(results), firstFailure(results));
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    /**
+     * How the command went in each browser.
+     */
+    public List<BroadcastResult<Object>> getResults() {
+        return results;
+    }
+
+    private static String describe(List<BroadcastResult<Object>> results) {
+        StringBuilder buf = new StringBuilder();
+        for (BroadcastResult<Object> r : results)
+            buf.append("\n  ").append(r);
+        return buf.toString();
+    }
+
+    private static Throwable firstFailure(List<BroadcastResult<Object>> results) {
+        for (BroadcastResult<Object> r : results)
+            if (!r.isSuccess())
+                return r.getFailure();
+        return null;
+    }
+}
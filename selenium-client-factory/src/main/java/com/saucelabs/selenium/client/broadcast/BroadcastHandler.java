@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import com.saucelabs.selenium.client.factory.spi.DriverProxies;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the method invocations on a proxy to the corresponding objects of all the browsers in parallel,
+ * such as the {@link WebElement}s that were found in each browser.
+ *
+ * <p>
+ * Objects returned from the browsers are wrapped into another proxy, so that the commands sent to them
+ * are broadcast as well. Other return values come from the first browser.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+class BroadcastHandler implements InvocationHandler {
+    /**
+     * The handler of the {@link BroadcastWebDriver} this object came from.
+     */
+    final BroadcastWebDriverHandler root;
+    /**
+     * One for each browser, in the same order as {@link BroadcastWebDriverHandler#getDriverUris()}.
+     */
+    final List<?> targets;
+
+    BroadcastHandler(BroadcastWebDriverHandler root, List<?> targets) {
+        this.root = root == null ? (BroadcastWebDriverHandler) this : root;
+        this.targets = targets;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            String n = method.getName();
+            if (n.equals("equals"))     return proxy == args[0];
+            if (n.equals("hashCode"))   return System.identityHashCode(proxy);
+            return toString();
+        }
+        return merge(method, invokeAll(method, args));
+    }
+
+    List<BroadcastResult<Object>> invokeAll(final Method method, Object[] args) {
+        List<Callable<Object>> calls = new ArrayList<Callable<Object>>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            final Object target = targets.get(i);
+            final Object[] a = unwrap(args, i);
+            calls.add(new Callable<Object>() {
+                public Object call() throws Exception {
+                    try {
+                        return method.invoke(target, a);
+                    } catch (InvocationTargetException e) {
+                        Throwable t = e.getTargetException();   // unwrap exception
+                        if (t instanceof Error)
+                            throw (Error) t;
+                        throw (Exception) t;
+                    }
+                }
+            });
+        }
+        return run(calls);
+    }
+
+    /**
+     * Replaces the broadcast objects among the arguments by those of the given browser.
+     */
+    private Object[] unwrap(Object[] args, int index) {
+        if (args == null)
+            return null;
+        Object[] r = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            Object a = args[i];
+            if (a != null && a.getClass() == Object[].class)  // such as the arguments of executeScript
+                a = unwrap((Object[]) a, index);
+            else
+                a = unwrap(a, index);
+            r[i] = a;
+        }
+        return r;
+    }
+
+    private Object unwrap(Object o, int index) {
+        if (o != null && Proxy.isProxyClass(o.getClass())) {
+            InvocationHandler h = Proxy.getInvocationHandler(o);
+            if (h instanceof BroadcastHandler && ((BroadcastHandler) h).root == root)
+                return ((BroadcastHandler) h).targets.get(index);
+        }
+        return o;
+    }
+
+    /**
+     * Turns the results from all the browsers into the return value of the proxy.
+     */
+    private Object merge(Method method, List<BroadcastResult<Object>> results) {
+        int failures = 0;
+        for (BroadcastResult<Object> r : results)
+            if (!r.isSuccess())
+                failures++;
+        if (failures > 0)
+            throw new BroadcastException(method.getName() + " failed in " + failures + " of " + results.size() + " browsers:", results);
+
+        Class<?> type = method.getReturnType();
+        if (type == void.class)
+            return null;
+
+        List<Object> values = new ArrayList<Object>(results.size());
+        int nulls = 0;
+        for (BroadcastResult<Object> r : results) {
+            values.add(r.getValue());
+            if (r.getValue() == null)
+                nulls++;
+        }
+        Object first = values.get(0);
+
+        if (isSame(values, root.targets))
+            return root.proxy;  // such as switchTo().window(...)
+        if (type.isInterface() && !type.getName().startsWith("java.")) {
+            if (nulls == values.size())
+                return null;
+            if (nulls > 0)
+                throw new BroadcastException(method.getName() + " returned null only in some browsers:", results);
+            return wrap(values, type);
+        }
+        if (first instanceof List && isListOfElements(values)) {
+            List<?> l = (List<?>) first;
+            for (Object v : values)
+                if (((List<?>) v).size() != l.size())
+                    throw new BroadcastException(method.getName() + " returned different numbers of elements:", results);
+
+            // pair up the elements in the same positions
+            List<Object> r = new ArrayList<Object>(l.size());
+            for (int i = 0; i < l.size(); i++) {
+                List<Object> column = new ArrayList<Object>(values.size());
+                for (Object v : values)
+                    column.add(((List<?>) v).get(i));
+                r.add(wrap(column, WebElement.class));
+            }
+            return r;
+        }
+        return first;
+    }
+
+    private static boolean isSame(List<?> a, List<?> b) {
+        for (int i = 0; i < a.size(); i++)
+            if (a.get(i) != b.get(i))
+                return false;
+        return true;
+    }
+
+    private static boolean isListOfElements(List<Object> values) {
+        for (Object v : values)
+            for (Object e : (List<?>) v)
+                if (!(e instanceof WebElement))
+                    return false;
+        return true;
+    }
+
+    private Object wrap(List<Object> values, Class<?> type) {
+        return DriverProxies.wrapAll(values, new BroadcastHandler(root, values), type);
+    }
+
+    /**
+     * Runs the given tasks, one for each browser, in parallel, and waits for all of them.
+     */
+    static <T> List<BroadcastResult<T>> run(BroadcastWebDriverHandler root, List<Callable<T>> calls) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(calls.size());
+        // the calling thread takes care of the first browser
+        for (int i = 1; i < calls.size(); i++)
+            futures.add(EXECUTOR.submit(calls.get(i)));
+
+        List<BroadcastResult<T>> results = new ArrayList<BroadcastResult<T>>(calls.size());
+        try {
+            results.add(result(root, 0, calls.get(0).call(), null));
+        } catch (Throwable t) {
+            results.add(result(root, 0, (T) null, t));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(result(root, i + 1, futures.get(i).get(), null));
+            } catch (ExecutionException e) {
+                results.add(result(root, i + 1, (T) null, e.getCause()));
+            } catch (InterruptedException e) {
+                for (Future<T> f : futures)
+                    f.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("Interrupted while waiting for the browsers", e);
+            }
+        }
+        return results;
+    }
+
+    private List<BroadcastResult<Object>> run(List<Callable<Object>> calls) {
+        return run(root, calls);
+    }
+
+    private static <T> BroadcastResult<T> result(BroadcastWebDriverHandler root, int index, T value, Throwable failure) {
+        return new BroadcastResult<T>(index, root.getDriverUris().get(index), value, failure);
+    }
+
+    @Override
+    public String toString() {
+        return "Broadcast of " + targets;
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Broadcast WebDriver command #" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+}
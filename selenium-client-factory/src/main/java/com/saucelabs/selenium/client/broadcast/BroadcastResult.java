@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Outcome of a command in one of the browsers of a {@link BroadcastWebDriver}.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class BroadcastResult<T> {
+    private final int index;
+    private final String driverUri;
+    private final T value;
+    private final Throwable failure;
+
+    BroadcastResult(int index, String driverUri, T value, Throwable failure) {
+        this.index = index;
+        this.driverUri = driverUri;
+        this.value = value;
+        this.failure = failure;
+    }
+
+    /**
+     * Position of the browser in {@link BroadcastWebDriver#getWebDrivers()}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * The URI of the driver of the browser.
+     */
+    public String getDriverUri() {
+        return driverUri;
+    }
+
+    /**
+     * @return null if the command failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return null if the command succeeded.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the value, or throws the problem that the command ran into.
+     */
+    public T get() {
+        if (failure == null)
+            return value;
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+        throw new WebDriverException("Failed in " + driverUri, failure);
+    }
+
+    @Override
+    public String toString() {
+        return driverUri + (failure == null ? " -> " + value : " failed: " + failure);
+    }
+}
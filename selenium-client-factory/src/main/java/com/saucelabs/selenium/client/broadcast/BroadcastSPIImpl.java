@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import com.saucelabs.selenium.client.factory.DriverConfigurationException;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+import com.thoughtworks.selenium.Selenium;
+import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SeleniumFactorySPI} that handles "broadcast:...".
+ *
+ * <p>
+ * "broadcast:&lt;driverURL1>|&lt;driverURL2>|..." creates all the drivers in parallel, and returns a {@link WebDriver}
+ * that sends every command to all of them at the same time. A cross-browser check then takes about as long
+ * as it takes in the slowest browser, instead of the sum of all of them. For example,
+ * "broadcast:sauce-ondemand:?browser=firefox|sauce-ondemand:?browser=chrome".
+ *
+ * <p>
+ * A command that fails in any of the browsers throws {@link BroadcastException}, which reports the outcome in every
+ * browser. Objects returned from the browsers, such as {@link org.openqa.selenium.WebElement}s, broadcast the commands
+ * sent to them as well, but other return values, such as the title of the page, are those of the first browser.
+ * Use {@link BroadcastWebDriver#execute(BroadcastWebDriver.Command)} to get the values from all the browsers.
+ *
+ * <p>
+ * The returned driver implements {@link BroadcastWebDriver}, as well as the interfaces that all the drivers implement.
+ * Only {@link WebDriver} is supported. If any of the drivers fails to be created, the others are quit.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+@MetaInfServices
+public class BroadcastSPIImpl extends SeleniumFactorySPI {
+    @Override
+    public Selenium createSelenium(SeleniumFactory factory, String browserURL) {
+        if (!canHandle(factory.getUri()))  return null;    // not our URL
+
+        throw new DriverConfigurationException("broadcast: only supports WebDriver");
+    }
+
+    @Override
+    public WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        List<String> uris = new ArrayList<String>();
+        for (String u : uri.substring(SCHEME.length()).split("\\|")) {
+            if (u.trim().length() > 0)
+                uris.add(u.trim());
+        }
+        if (uris.isEmpty())
+            throw new DriverConfigurationException("No driver URI in " + uri);
+
+        // the others get created in the background, while the first one is created on this thread,
+        // where it counts as part of the broadcast driver, such as for the admission scheduler
+        List<Future<WebDriver>> others = new ArrayList<Future<WebDriver>>();
+        for (String u : uris.subList(1, uris.size()))
+            others.add(factory.clone().setUri(u).createWebDriverAsync(browserURL, copy(capabilities), EXECUTOR));
+
+        List<WebDriver> drivers = new ArrayList<WebDriver>();
+        RuntimeException failure = null;
+        try {
+            drivers.add(factory.clone().setUri(uris.get(0)).createWebDriverInstance(browserURL, copy(capabilities)));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int i = 0; i < others.size(); i++) {
+            try {
+                drivers.add(others.get(i).get());
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = wrap(uris.get(i + 1), e.getCause());
+            } catch (InterruptedException e) {
+                // abandoned creations get disposed, but those that are already done need to be quit
+                for (Future<WebDriver> f : others.subList(i, others.size())) {
+                    if (!f.cancel(true)) {
+                        WebDriver d = getQuietly(f);
+                        if (d != null)
+                            drivers.add(d);
+                    }
+                }
+                Thread.currentThread().interrupt();
+                failure = new IllegalArgumentException("Interrupted while creating " + uri, e);
+                break;
+            }
+        }
+
+        if (failure != null) {
+            for (WebDriver d : drivers)
+                quitQuietly(d);
+            throw failure;
+        }
+        return (WebDriver) new BroadcastWebDriverHandler(drivers, uris).proxy;
+    }
+
+    private static RuntimeException wrap(String uri, Throwable t) {
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        return new IllegalArgumentException("Failed to instantiate " + uri, t);
+    }
+
+    /**
+     * Drivers may modify the capabilities they are given, so each one gets its own copy.
+     */
+    private static DesiredCapabilities copy(DesiredCapabilities capabilities) {
+        return capabilities == null ? null : new DesiredCapabilities((Capabilities) capabilities);
+    }
+
+    private static WebDriver getQuietly(Future<WebDriver> f) {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            return null;    // failed to start, so nothing to quit
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);    // impossible, since the creation is already done
+        }
+    }
+
+    private static void quitQuietly(WebDriver d) {
+        try {
+            d.quit();
+        } catch (RuntimeException e) {
+            // we are already reporting a more important problem
+        }
+    }
+
+    @Override
+    public boolean canHandle(String uri) {
+        return uri.startsWith(SCHEME);
+    }
+
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("broadcast");
+    }
+
+    private static final String SCHEME = "broadcast:";
+
+    /**
+     * The other drivers are created here rather than on {@link SeleniumFactory#getExecutor()}, because
+     * the broadcast creation that's waiting for them may itself be running on that bounded pool.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "SeleniumFactory broadcast creation #" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+}
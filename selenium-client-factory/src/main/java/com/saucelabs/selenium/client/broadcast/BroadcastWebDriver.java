@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+
+/**
+ * {@link WebDriver} returned from "broadcast:..." URI will implement this interface
+ * to let you reach the individual browsers.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public interface BroadcastWebDriver {
+    /**
+     * The drivers that the commands are sent to, in the order of the driver URIs.
+     */
+    List<WebDriver> getWebDrivers();
+
+    /**
+     * The URIs that the drivers were created from.
+     */
+    List<String> getDriverUris();
+
+    /**
+     * Runs the given command against all the browsers in parallel, and reports how it went for each one of them.
+     * Unlike the methods of {@link WebDriver}, a failure in one browser doesn't throw an exception.
+     *
+     * @return
+     *      Results in the same order as the drivers.
+     */
+    <T> List<BroadcastResult<T>> execute(Command<T> command);
+
+    /**
+     * Something to be done with one browser.
+     */
+    interface Command<T> {
+        T execute(WebDriver driver);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.spi.DriverProxies;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Implements the behavior of the {@link WebDriver} handed out from "broadcast:...".
+ *
+ * @author Kohsuke Kawaguchi
+ */
+class BroadcastWebDriverHandler extends BroadcastHandler implements BroadcastWebDriver {
+    private final List<WebDriver> drivers;
+    private final List<String> uris;
+    /**
+     * The {@link BroadcastWebDriver} that the application holds.
+     */
+    final Object proxy;
+
+    BroadcastWebDriverHandler(List<WebDriver> drivers, List<String> uris) {
+        super(null, drivers);
+        this.drivers = Collections.unmodifiableList(new ArrayList<WebDriver>(drivers));
+        this.uris = Collections.unmodifiableList(new ArrayList<String>(uris));
+        this.proxy = DriverProxies.wrapAll(drivers, this, BroadcastWebDriver.class, WebDriver.class);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == BroadcastWebDriver.class) {
+            // handle it by ourselves
+            try {
+                return method.invoke(this, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();   // unwrap exception
+            }
+        }
+
+        if (method.getName().equals("quit") && method.getParameterTypes().length == 0)
+            SessionRegistry.ended(proxy);
+        else if (method.getDeclaringClass() != Object.class)
+            SessionRegistry.touch(proxy);
+        return super.invoke(proxy, method, args);
+    }
+
+    public List<WebDriver> getWebDrivers() {
+        return drivers;
+    }
+
+    public List<String> getDriverUris() {
+        return uris;
+    }
+
+    public <T> List<BroadcastResult<T>> execute(final Command<T> command) {
+        List<Callable<T>> calls = new ArrayList<Callable<T>>(drivers.size());
+        for (final WebDriver d : drivers) {
+            calls.add(new Callable<T>() {
+                public T call() {
+                    return command.execute(d);
+                }
+            });
+        }
+        return run(this, calls);
+    }
+
+    @Override
+    public String toString() {
+        return "Broadcast WebDriver to " + uris;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.saucelabs.selenium.client.factory.jmx.Admission;
+import com.saucelabs.selenium.client.factory.jmx.Management;
+import com.saucelabs.selenium.client.factory.metrics.Histogram;
+
+import java.io.File;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Limits the number of sessions that are open at the same time, such as to stay within the concurrency quota
+ * of a cloud account, by making the driver creations wait in line on the client side.
+ *
+ * <p>
+ * When a scheduler is {@linkplain SeleniumFactory#setAdmissionScheduler(AdmissionScheduler) set on the factory},
+ * every driver creation first takes a permit, and the permit is given back when the session ends,
+ * which is when the driver is quit or stopped, when it is garbage collected, or when the creation fails.
+ * When no permit is available, creations wait in a fair queue: those with a higher priority go first
+ * (see the "admission.priority" factory property), and those with the same priority go in the order they came.
+ * A creation that waits longer than {@linkplain #setTimeout(long, TimeUnit) the timeout}
+ * fails with {@link IllegalArgumentException}.
+ *
+ * <p>
+ * A permit covers all the sessions that a driver opens to do its job, such as the one behind "log:...",
+ * and a session of "pool:..." holds its permit for as long as the pool keeps it, even while it's idle in the pool,
+ * so handing out an idle session from the pool doesn't take a permit. Drivers that don't report their quit to
+ * {@link SessionRegistry#ended(Object)} only give their permit back when they are garbage collected.
+ *
+ * <p>
+ * A scheduler is thread-safe, and meant to be shared by all the factories that talk to the same account.
+ * Setting the 'SELENIUM_MAX_SESSIONS' system property or the environment variable to the number of permits
+ * gives every factory the {@linkplain #getDefault() default scheduler}. Additionally setting 'SELENIUM_SESSION_SLOTS'
+ * to a directory {@linkplain #setSharedDirectory(File) shares the permits} with the other JVMs that do the same.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class AdmissionScheduler {
+    private int permits;
+    private int inUse;
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<Waiter>();
+    private long sequence;
+    private volatile long timeout = TimeUnit.MINUTES.toMillis(10);
+    /**
+     * Non-null to share the permits with other JVMs.
+     */
+    private volatile SessionSlots slots;
+
+    private final Histogram queueTime = new Histogram();
+    private long admitted;
+    private long timedOut;
+
+    public AdmissionScheduler(int permits) {
+        setPermits(permits);
+    }
+
+    /**
+     * Number of sessions allowed to be open at the same time.
+     */
+    public synchronized int getPermits() {
+        return permits;
+    }
+
+    /**
+     * Changes the number of permits. Lowering it doesn't affect the sessions that are already open,
+     * but new creations wait until enough of them end.
+     */
+    public synchronized void setPermits(int permits) {
+        if (permits < 1)
+            throw new IllegalArgumentException("Invalid number of permits: " + permits);
+        this.permits = permits;
+        grant();
+    }
+
+    public synchronized int getAvailablePermits() {
+        return Math.max(permits - inUse, 0);
+    }
+
+    /**
+     * Number of creations waiting for a permit.
+     */
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * @return milliseconds, or 0 to wait forever.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets how long a creation waits for a permit before it fails. Defaults to 10 minutes.
+     *
+     * @param timeout
+     *      0 to wait forever.
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public AdmissionScheduler setTimeout(long timeout, TimeUnit unit) {
+        this.timeout = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Gets the directory set by {@link #setSharedDirectory(File)}.
+     *
+     * @return null if the permits aren't shared with other JVMs.
+     */
+    public File getSharedDirectory() {
+        SessionSlots s = slots;
+        return s != null ? s.getDirectory() : null;
+    }
+
+    /**
+     * Shares the permits with the other JVMs on the same machine that use the same directory,
+     * such as the JVMs forked by a build to run tests in parallel, so that all of them together stay within the quota.
+     *
+     * <p>
+     * Each permit is a lock file in the directory, which is held until the session ends, or the JVM dies.
+     * The JVMs should agree on the {@linkplain #getPermits() number of permits}. Within a JVM, creations still go
+     * through the queue of this scheduler first, then wait for a lock file along with the creations of other JVMs.
+     *
+     * @param dir
+     *      null to stop sharing. Only affects the permits handed out afterward.
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public AdmissionScheduler setSharedDirectory(File dir) {
+        this.slots = dir != null ? SessionSlots.forDirectory(dir) : null;
+        return this;
+    }
+
+    /**
+     * How long the creations waited for their permits, including those that gave up.
+     */
+    public Histogram getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Number of permits handed out so far.
+     */
+    public synchronized long getAdmittedCount() {
+        return admitted;
+    }
+
+    /**
+     * Number of creations that gave up waiting for a permit.
+     */
+    public synchronized long getTimedOutCount() {
+        return timedOut;
+    }
+
+    /**
+     * Waits for a permit with {@linkplain #getTimeout() the default timeout}.
+     *
+     * @see #acquire(int, long, TimeUnit)
+     */
+    public Permit acquire(int priority) {
+        return acquire(priority, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits for a permit.
+     *
+     * @param priority
+     *      Higher priority goes first. Creations with the same priority are served in the order they came.
+     * @param timeout
+     *      0 to wait forever.
+     * @return never null
+     * @throws AdmissionException
+     *      if no permit became available within the timeout, or the thread was interrupted.
+     */
+    public Permit acquire(int priority, long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        try {
+            admit(priority, timeout, unit, deadline);
+
+            SessionSlots slots = this.slots;
+            if (slots == null)
+                return new Permit(null, -1);
+            // the permit of this JVM is ours, now take one of the slots shared with other JVMs
+            int slot;
+            try {
+                slot = slots.acquire(getPermits(), timeout > 0 ? deadline : 0);
+            } catch (InterruptedException e) {
+                release();
+                Thread.currentThread().interrupt();
+                throw new AdmissionException("Interrupted while waiting for a session slot in " + slots.getDirectory(), e);
+            }
+            if (slot < 0) {
+                synchronized (this) {
+                    timedOut++;
+                }
+                release();
+                throw new AdmissionException("Timed out waiting " + unit.toMillis(timeout)
+                        + "ms for one of the " + getPermits() + " session slots in " + slots.getDirectory());
+            }
+            return new Permit(slots, slot);
+        } finally {
+            queueTime.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Waits for a permit of this JVM.
+     */
+    private synchronized void admit(int priority, long timeout, TimeUnit unit, long deadline) {
+        Waiter w = new Waiter(priority, sequence++);
+        queue.add(w);
+        grant();
+        try {
+            while (!w.granted) {
+                if (timeout <= 0) {
+                    wait();
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    queue.remove(w);
+                    timedOut++;
+                    throw new AdmissionException("Timed out waiting " + unit.toMillis(timeout)
+                            + "ms for one of the " + permits + " session permits");
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            if (w.granted)
+                release();
+            else
+                queue.remove(w);
+            Thread.currentThread().interrupt();
+            throw new AdmissionException("Interrupted while waiting for a session permit", e);
+        }
+        admitted++;
+    }
+
+    /**
+     * Hands out the available permits to the waiters in the order of the queue.
+     * Waiters behind the head of the queue never overtake it, which keeps the queue fair.
+     */
+    private void grant() {
+        boolean granted = false;
+        while (inUse < permits && !queue.isEmpty()) {
+            queue.poll().granted = true;
+            inUse++;
+            granted = true;
+        }
+        if (granted)
+            notifyAll();
+    }
+
+    private synchronized void release() {
+        inUse--;
+        grant();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdmissionScheduler[" + inUse + "/" + permits + " in use, " + queue.size() + " waiting]";
+    }
+
+    /**
+     * Right to have one session open. Given back when the session ends.
+     */
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final SessionSlots slots;
+        private final int slot;
+
+        private Permit(SessionSlots slots, int slot) {
+            this.slots = slots;
+            this.slot = slot;
+        }
+
+        public AdmissionScheduler getScheduler() {
+            return AdmissionScheduler.this;
+        }
+
+        /**
+         * Gives the permit back. Calling this more than once is a no-op.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                if (slots != null)
+                    slots.release(slot);
+                AdmissionScheduler.this.release();
+            }
+        }
+    }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        final int priority;
+        final long sequence;
+        boolean granted;
+
+        Waiter(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(Waiter that) {
+            if (this.priority != that.priority)
+                return this.priority > that.priority ? -1 : 1;
+            return this.sequence < that.sequence ? -1 : this.sequence == that.sequence ? 0 : 1;
+        }
+    }
+
+    /**
+     * Gets the scheduler that factories use unless told otherwise.
+     *
+     * @return null unless the 'SELENIUM_MAX_SESSIONS' system property or the environment variable is set.
+     */
+    public static AdmissionScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    private static AdmissionScheduler createDefault() {
+        String v = readPropertyOrEnv("SELENIUM_MAX_SESSIONS");
+        if (v == null || v.trim().length() == 0)
+            return null;
+
+        AdmissionScheduler s;
+        try {
+            s = new AdmissionScheduler(Integer.parseInt(v.trim()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included. Failing here would break every factory in the JVM
+            LOGGER.log(WARNING, "Ignoring invalid SELENIUM_MAX_SESSIONS: " + v, e);
+            return null;
+        }
+        s.setTimeout(Long.getLong(AdmissionScheduler.class.getName() + ".timeout", s.getTimeout()), TimeUnit.MILLISECONDS);
+        String dir = readPropertyOrEnv("SELENIUM_SESSION_SLOTS");
+        if (dir != null && dir.trim().length() > 0)
+            s.setSharedDirectory(new File(dir.trim()));
+        Management.register("AdmissionScheduler", null, new Admission(s));
+        return s;
+    }
+
+    private static String readPropertyOrEnv(String key) {
+        String v = System.getProperty(key);
+        return v != null ? v : System.getenv(key);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(AdmissionScheduler.class.getName());
+
+    private static final AdmissionScheduler DEFAULT = createDefault();
+}
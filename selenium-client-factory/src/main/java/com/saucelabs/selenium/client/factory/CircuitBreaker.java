@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+/**
+ * Stops sending session requests to an endpoint that keeps failing, to give it a chance to recover.
+ *
+ * <p>
+ * After a number of consecutive failures, the breaker opens, and requests fail right away without
+ * reaching the endpoint. After a while, the breaker lets one trial request through. If that succeeds,
+ * the breaker closes and the traffic resumes. Otherwise it opens again.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see RetryPolicy#getCircuitBreaker(String)
+ */
+public final class CircuitBreaker {
+    public enum State {
+        /**
+         * Requests go through.
+         */
+        CLOSED,
+        /**
+         * Requests fail right away.
+         */
+        OPEN,
+        /**
+         * One trial request is allowed to find out if the endpoint has recovered.
+         */
+        HALF_OPEN
+    }
+
+    private final String endpoint;
+    private final int failureThreshold;
+    private final long openTime;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    CircuitBreaker(String endpoint, int failureThreshold, long openTime) {
+        this.endpoint = endpoint;
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil)
+            return State.HALF_OPEN;
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Asks if a request can be sent to the endpoint now. If true, the caller must report
+     * the outcome through one of {@link #onSuccess()}, {@link #onFailure()}, and {@link #onIgnored()}.
+     */
+    public synchronized boolean allowRequest() {
+        switch (getState()) {
+        case CLOSED:
+            return true;
+        case OPEN:
+            return false;
+        default:
+            state = State.HALF_OPEN;
+            if (trialInFlight)
+                return false;
+            trialInFlight = true;
+            return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + openTime;
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * Reports that the request ended in a way that says nothing about the health of the endpoint.
+     */
+    public synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    @Override
+    public String toString() {
+        return "Circuit breaker for " + endpoint + " (" + getState() + ")";
+    }
+}
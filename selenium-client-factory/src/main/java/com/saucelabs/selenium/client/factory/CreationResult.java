@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of creating one of the drivers requested through
+ * {@link SeleniumFactory#createWebDriverInstances(List, String, org.openqa.selenium.remote.DesiredCapabilities)}.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class CreationResult<T> {
+    private final int index;
+    private final String driverUri;
+    private final T driver;
+    private final Throwable failure;
+
+    CreationResult(int index, String driverUri, T driver, Throwable failure) {
+        this.index = index;
+        this.driverUri = driverUri;
+        this.driver = driver;
+        this.failure = failure;
+    }
+
+    /**
+     * Position of the driver URI in the list of requested driver URIs.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * The URI of the requested driver.
+     */
+    public String getDriverUri() {
+        return driverUri;
+    }
+
+    /**
+     * @return null if the driver failed to instantiate.
+     */
+    public T getDriver() {
+        return driver;
+    }
+
+    /**
+     * @return null if the driver was instantiated successfully.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the driver, or throws the problem that prevented it from being instantiated.
+     *
+     * @throws IllegalArgumentException if the driver failed to instantiate.
+     */
+    public T get() {
+        if (failure == null)
+            return driver;
+        if (failure instanceof IllegalArgumentException)
+            throw (IllegalArgumentException) failure;
+        throw new IllegalArgumentException("Failed to instantiate " + driverUri, failure);
+    }
+
+    @Override
+    public String toString() {
+        return driverUri + (failure == null ? " -> " + driver : " failed: " + failure);
+    }
+
+    /**
+     * Returns all the drivers, or fails if any one of them failed to instantiate.
+     * In that case, the drivers that did get instantiated are disposed.
+     *
+     * @throws IllegalArgumentException if any of the drivers failed to instantiate.
+     */
+    public static <T> List<T> getAll(List<CreationResult<T>> results) {
+        List<T> drivers = new ArrayList<T>(results.size());
+        for (CreationResult<T> r : results) {
+            if (r.isSuccess()) {
+                drivers.add(r.getDriver());
+                continue;
+            }
+
+            for (CreationResult<T> s : results)
+                if (s.isSuccess())
+                    DriverFuture.dispose(s.getDriver());
+            r.get();    // throws the failure
+        }
+        return Collections.unmodifiableList(drivers);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drivers being created in parallel, which {@link #next() come out} in the order they become ready.
+ *
+ * <p>
+ * This lets the application start using fast drivers while slow ones are still starting.
+ * Use {@link SeleniumFactory#streamWebDriverInstances(List, String, org.openqa.selenium.remote.DesiredCapabilities)}
+ * to obtain one.
+ *
+ * <p>
+ * If the application stops consuming the stream before reaching the end, it should call {@link #cancel()}
+ * so that the drivers that nobody is going to use are disposed.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class CreationStream<T> implements Iterator<CreationResult<T>> {
+    private final List<Task> tasks = new ArrayList<Task>();
+    private final BlockingQueue<Task> completed = new LinkedBlockingQueue<Task>();
+    private int remaining;
+    private volatile boolean abandoned;
+
+    CreationStream(Executor executor, List<String> driverUris, List<Callable<T>> creations) {
+        for (int i = 0; i < creations.size(); i++)
+            tasks.add(new Task(i, driverUris.get(i), creations.get(i)));
+        remaining = tasks.size();
+        for (Task t : tasks)
+            executor.execute(t);
+    }
+
+    /**
+     * Number of drivers that haven't come out of this stream yet.
+     */
+    public synchronized int getRemaining() {
+        return remaining;
+    }
+
+    public synchronized boolean hasNext() {
+        return remaining > 0;
+    }
+
+    /**
+     * Waits for the next driver to become ready.
+     *
+     * @throws NoSuchElementException if all the drivers have already come out.
+     * @throws IllegalArgumentException if the calling thread is interrupted while waiting.
+     */
+    public CreationResult<T> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        try {
+            return toResult(completed.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Interrupted while waiting for drivers to be instantiated", e);
+        }
+    }
+
+    /**
+     * Waits up to the given time for the next driver to become ready.
+     *
+     * @return null if no driver became ready within the given time.
+     * @throws NoSuchElementException if all the drivers have already come out.
+     */
+    public CreationResult<T> next(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Task t = completed.poll(timeout, unit);
+        return t == null ? null : toResult(t);
+    }
+
+    private CreationResult<T> toResult(Task t) {
+        synchronized (this) {
+            remaining--;
+        }
+        try {
+            return new CreationResult<T>(t.index, t.driverUri, t.get(), null);
+        } catch (ExecutionException e) {
+            return new CreationResult<T>(t.index, t.driverUri, null, e.getCause());
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);    // impossible, since the task is already done
+        }
+    }
+
+    /**
+     * Gives up on the drivers that haven't come out of this stream yet.
+     * Those that are already created are disposed, and those being created will be disposed
+     * as soon as they are created.
+     */
+    public void cancel() {
+        synchronized (this) {
+            remaining = 0;
+        }
+        abandoned = true;
+        for (Task t : tasks) {
+            if (!t.cancel(false))
+                t.disposeUnclaimed();
+        }
+    }
+
+    /**
+     * Drains all the remaining drivers.
+     *
+     * @return results in the order of the driver URIs, not the completion order.
+     * @throws IllegalArgumentException
+     *      if the calling thread is interrupted while waiting, in which case all the drivers are disposed.
+     */
+    List<CreationResult<T>> toList() {
+        List<CreationResult<T>> r = new ArrayList<CreationResult<T>>(tasks.size());
+        for (Task t : tasks)
+            r.add(null);
+        try {
+            while (hasNext()) {
+                CreationResult<T> c = next();
+                r.set(c.getIndex(), c);
+            }
+        } catch (IllegalArgumentException e) {
+            cancel();
+            for (CreationResult<T> c : r)
+                if (c != null && c.isSuccess())
+                    DriverFuture.dispose(c.getDriver());
+            throw e;
+        }
+        return r;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private final class Task extends DriverFuture<T> {
+        private final int index;
+        private final String driverUri;
+
+        Task(int index, String driverUri, Callable<T> callable) {
+            super(callable);
+            this.index = index;
+            this.driverUri = driverUri;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled())
+                return;
+            completed.add(this);
+            if (abandoned)
+                disposeUnclaimed();   // raced with cancel()
+        }
+
+        /**
+         * Disposes the driver if nobody has taken it out of the stream yet.
+         */
+        void disposeUnclaimed() {
+            if (!completed.remove(this))
+                return;
+            try {
+                DriverFuture.dispose(get());
+            } catch (ExecutionException e) {
+                // nothing to dispose
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);    // impossible, since the task is already done
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * {@link FutureTask} that creates a driver, and disposes of it if the task gets cancelled
+ * before the creation completes.
+ *
+ * <p>
+ * A session handshake can't always be interrupted, so cancelling a creation in progress
+ * lets the creation run to the end and then immediately ends the session that nobody is going to use.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+class DriverFuture<T> extends FutureTask<T> {
+    DriverFuture(Callable<T> callable) {
+        super(callable);
+    }
+
+    @Override
+    protected void set(T v) {
+        super.set(v);
+        // if the task was cancelled first, the value was ignored and nobody else will ever see it
+        if (isCancelled() && v != null)
+            dispose(v);
+    }
+
+    /**
+     * Ends the session of a driver.
+     */
+    static void dispose(Object driver) {
+        try {
+            if (driver instanceof WebDriver)
+                ((WebDriver) driver).quit();
+            else if (driver instanceof Selenium)
+                ((Selenium) driver).stop();
+        } catch (RuntimeException e) {
+            LOGGER.log(FINE, "Failed to dispose " + driver, e);
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(DriverFuture.class.getName());
+}
@@ -0,0 +1,49 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+/**
+ * Thrown when the driver was recognized, but the endpoint behind it failed to create a session,
+ * or is being given a break by its {@link CircuitBreaker}.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see RetryPolicy
+ */
+public class EndpointFailureException extends IllegalArgumentException {
+    private final String endpoint;
+
+    public EndpointFailureException(String endpoint, String message, Throwable cause) {
+        super(message, cause);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * The endpoint that failed, as identified by {@link RetryPolicy#getEndpoint(String)}.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable configuration of {@link SeleniumFactory}, obtained from {@link SeleniumFactory#snapshot()}.
+ *
+ * <p>
+ * The driver URI, the properties, the policies, the starting URL, and the
+ * {@linkplain SeleniumFactory#ENDPOINT_SETTINGS endpoint settings} are all resolved when the snapshot is taken,
+ * so any number of threads can create drivers from one snapshot at the same time, without locking
+ * and without looking up system properties and environment variables over and over again.
+ * The endpoint settings become properties of the snapshot, which drivers prefer over
+ * the system properties and environment variables of the same name.
+ *
+ * <p>
+ * The {@code withXyz} methods derive a new snapshot that differs in one aspect, leaving this one intact.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class FactorySnapshot {
+    private final String uri;
+    private final ClassLoader cl;
+    /**
+     * Never modified, possibly shared with {@link SeleniumFactory} instances that copy it before modification.
+     */
+    private final Map<String, Object> properties;
+    private final String startingUrl;
+    private final HedgingPolicy hedgingPolicy;
+    private final RetryPolicy retryPolicy;
+    private final AdmissionScheduler admissionScheduler;
+
+    FactorySnapshot(String uri, ClassLoader cl, Map<String, Object> properties, String startingUrl, HedgingPolicy hedgingPolicy, RetryPolicy retryPolicy, AdmissionScheduler admissionScheduler) {
+        this.uri = uri;
+        this.cl = cl;
+        this.properties = properties;
+        this.startingUrl = startingUrl;
+        this.hedgingPolicy = hedgingPolicy;
+        this.retryPolicy = retryPolicy;
+        this.admissionScheduler = admissionScheduler;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public ClassLoader getClassLoader() {
+        return cl;
+    }
+
+    public Object getProperty(String key) {
+        return properties.get(key);
+    }
+
+    /**
+     * @return never null, and read-only.
+     */
+    public Map<String, Object> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * The starting URL used when the browser URL isn't given explicitly.
+     *
+     * @return null if none was set.
+     */
+    public String getStartingUrl() {
+        return startingUrl;
+    }
+
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public AdmissionScheduler getAdmissionScheduler() {
+        return admissionScheduler;
+    }
+
+    public FactorySnapshot withUri(String uri) {
+        return new FactorySnapshot(uri, cl, properties, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    public FactorySnapshot withClassLoader(ClassLoader cl) {
+        return new FactorySnapshot(uri, cl, properties, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    public FactorySnapshot withProperty(String key, Object value) {
+        Map<String, Object> m = new HashMap<String, Object>(properties);
+        m.put(key, value);
+        return new FactorySnapshot(uri, cl, m, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    public FactorySnapshot withStartingUrl(String startingUrl) {
+        return new FactorySnapshot(uri, cl, properties, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    public FactorySnapshot withHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        return new FactorySnapshot(uri, cl, properties, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    public FactorySnapshot withRetryPolicy(RetryPolicy retryPolicy) {
+        return new FactorySnapshot(uri, cl, properties, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    public FactorySnapshot withAdmissionScheduler(AdmissionScheduler admissionScheduler) {
+        return new FactorySnapshot(uri, cl, properties, startingUrl, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    /**
+     * Creates a new factory configured like this snapshot, which the caller is free to modify.
+     */
+    public SeleniumFactory toFactory() {
+        return new SeleniumFactory(uri, cl, properties, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    /**
+     * Instantiates a Selenium driver against the {@linkplain #getStartingUrl() starting URL}.
+     *
+     * @see SeleniumFactory#createSelenium(String)
+     */
+    public Selenium createSelenium() {
+        return createSelenium(startingUrl);
+    }
+
+    /**
+     * @see SeleniumFactory#createSelenium(String)
+     */
+    public Selenium createSelenium(String browserURL) {
+        return toFactory().createSelenium(browserURL);
+    }
+
+    /**
+     * Instantiates a WebDriver against the {@linkplain #getStartingUrl() starting URL}.
+     *
+     * @see SeleniumFactory#createWebDriverInstance(String, DesiredCapabilities)
+     */
+    public WebDriver createWebDriver(DesiredCapabilities capabilities) {
+        return createWebDriver(startingUrl, capabilities);
+    }
+
+    /**
+     * @see SeleniumFactory#createWebDriverInstance(String, DesiredCapabilities)
+     */
+    public WebDriver createWebDriver(String browserURL, DesiredCapabilities capabilities) {
+        return toFactory().createWebDriverInstance(browserURL, capabilities);
+    }
+}
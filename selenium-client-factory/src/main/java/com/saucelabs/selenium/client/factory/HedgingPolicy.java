@@ -0,0 +1,322 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hedges driver creation against the long tail of remote session startup.
+ *
+ * <p>
+ * Most remote sessions come up in a few seconds, but some take a minute or more. When a policy is
+ * {@linkplain SeleniumFactory#setHedgingPolicy(HedgingPolicy) set on the factory}, a creation that
+ * hasn't completed within the {@linkplain #getDelay() hedging delay} gets a second, identical request.
+ * Whichever comes up first is used, and the other one is quit as soon as it comes up.
+ *
+ * <p>
+ * The delay tracks the given percentile of the recently observed creation times, so only the slowest
+ * creations get hedged. The number of extra requests in flight is capped, so that hedging doesn't
+ * exhaust the concurrency quota of the grid.
+ *
+ * <p>
+ * A policy is thread-safe, and meant to be shared by all the factories that talk to the same grid.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class HedgingPolicy {
+    private volatile double percentile = 0.95;
+    private volatile long initialDelay = TimeUnit.SECONDS.toMillis(30);
+    private volatile long minDelay = TimeUnit.SECONDS.toMillis(1);
+    private volatile int maxExtraInFlight = 2;
+
+    /**
+     * Recent creation times in milliseconds, as a ring buffer.
+     */
+    private final long[] samples;
+    private int sampleCount, samplePos;
+
+    private final AtomicInteger extraInFlight = new AtomicInteger();
+
+    /**
+     * Creates a policy that hedges at the 95th percentile of the last 100 creations,
+     * with at most 2 extra requests in flight.
+     */
+    public HedgingPolicy() {
+        this(100);
+    }
+
+    /**
+     * @param window
+     *      Number of recent creation times to compute the percentile from.
+     */
+    public HedgingPolicy(int window) {
+        if (window <= 0)
+            throw new IllegalArgumentException("Invalid window size: " + window);
+        this.samples = new long[window];
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Sets the percentile of the recent creation times to wait before hedging, such as 0.95.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public HedgingPolicy setPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 1)
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Sets the delay used until enough creation times are observed. Defaults to 30 seconds.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public HedgingPolicy setInitialDelay(long delay, TimeUnit unit) {
+        this.initialDelay = unit.toMillis(delay);
+        return this;
+    }
+
+    /**
+     * Sets the lower bound of the delay, so that a burst of fast creations doesn't cause
+     * every creation to be hedged. Defaults to 1 second.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public HedgingPolicy setMinDelay(long delay, TimeUnit unit) {
+        this.minDelay = unit.toMillis(delay);
+        return this;
+    }
+
+    public int getMaxExtraInFlight() {
+        return maxExtraInFlight;
+    }
+
+    /**
+     * Sets the maximum number of hedging requests that can be in flight at the same time across
+     * all the creations that share this policy. When the cap is reached, creations just keep waiting
+     * for their first request. Defaults to 2.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public HedgingPolicy setMaxExtraInFlight(int n) {
+        this.maxExtraInFlight = n;
+        return this;
+    }
+
+    /**
+     * Number of hedging requests currently in flight.
+     */
+    public int getExtraInFlight() {
+        return extraInFlight.get();
+    }
+
+    /**
+     * Records the time it took to create a driver.
+     */
+    public void record(long millis) {
+        synchronized (samples) {
+            samples[samplePos] = millis;
+            samplePos = (samplePos + 1) % samples.length;
+            if (sampleCount < samples.length)
+                sampleCount++;
+        }
+    }
+
+    /**
+     * Computes how long a creation is allowed to run before it gets hedged.
+     *
+     * @return milliseconds.
+     */
+    public long getDelay() {
+        long[] s;
+        synchronized (samples) {
+            // too few samples for the percentile to mean anything
+            if (sampleCount < Math.min(samples.length, MIN_SAMPLES))
+                return Math.max(initialDelay, minDelay);
+            s = Arrays.copyOf(samples, sampleCount);
+        }
+        Arrays.sort(s);
+        int i = (int) Math.ceil(percentile * s.length) - 1;
+        return Math.max(s[Math.max(i, 0)], minDelay);
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int n = extraInFlight.get();
+            if (n >= maxExtraInFlight)
+                return false;
+            if (extraInFlight.compareAndSet(n, n + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Runs the creation, and if it takes longer than the delay, races it against another identical creation.
+     *
+     * @param primary
+     *      The creation to run.
+     * @param hedge
+     *      The identical creation to run in case the primary is slow.
+     * @throws IllegalArgumentException
+     *      if all the attempts failed, or the calling thread is interrupted.
+     */
+    <T> T create(Callable<T> primary, Callable<T> hedge) {
+        BlockingQueue<Attempt<T>> completed = new LinkedBlockingQueue<Attempt<T>>();
+        List<Attempt<T>> attempts = new ArrayList<Attempt<T>>(2);
+        attempts.add(start(new Attempt<T>(primary, completed, false)));
+
+        Throwable failure = null;
+        try {
+            Attempt<T> a = completed.poll(getDelay(), TimeUnit.MILLISECONDS);
+            if (a == null && tryAcquire())
+                attempts.add(start(new Attempt<T>(hedge, completed, true)));
+
+            for (int done = 0; done < attempts.size(); done++) {
+                if (a == null)
+                    a = completed.take();
+                try {
+                    T v = a.get();
+                    abandon(attempts);
+                    return v;
+                } catch (ExecutionException e) {
+                    // wait for the other one
+                    failure = e.getCause();
+                }
+                a = null;
+            }
+        } catch (InterruptedException e) {
+            abandon(attempts);
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Interrupted while waiting for a driver to be instantiated", e);
+        }
+
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+        throw new IllegalArgumentException("Failed to instantiate a driver", failure);
+    }
+
+    private <T> Attempt<T> start(Attempt<T> a) {
+        EXECUTOR.execute(a);
+        return a;
+    }
+
+    /**
+     * Disposes the losing attempts, now or when they complete.
+     */
+    private <T> void abandon(List<Attempt<T>> attempts) {
+        for (Attempt<T> a : attempts) {
+            a.abandoned = true;
+            a.cancel(false);
+            a.disposeUnclaimed();
+        }
+    }
+
+    private final class Attempt<T> extends DriverFuture<T> {
+        private final BlockingQueue<Attempt<T>> completed;
+        private final boolean extra;
+        private final long start = System.currentTimeMillis();
+        private volatile boolean abandoned;
+
+        Attempt(Callable<T> callable, BlockingQueue<Attempt<T>> completed, boolean extra) {
+            super(callable);
+            this.completed = completed;
+            this.extra = extra;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                // cancel(false) doesn't stop a running attempt, so it holds onto its slot until it really ends
+                if (extra)
+                    extraInFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        protected void set(T v) {
+            record(System.currentTimeMillis() - start);
+            super.set(v);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled())
+                return;
+            completed.add(this);
+            if (abandoned)
+                disposeUnclaimed();     // lost the race
+        }
+
+        /**
+         * Disposes the driver if the creation is done and nobody has taken it.
+         */
+        void disposeUnclaimed() {
+            if (!completed.remove(this))
+                return;
+            try {
+                DriverFuture.dispose(get());
+            } catch (ExecutionException e) {
+                // nothing to dispose
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);    // impossible, since the attempt is already done
+            }
+        }
+    }
+
+    private static final int MIN_SAMPLES = 10;
+
+    /**
+     * Attempts run here rather than on {@link SeleniumFactory#getExecutor()}, because the creation
+     * that's waiting for them may itself be running on that bounded pool.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "SeleniumFactory hedged creation #" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Starts {@link WebDriver} sessions in the background as soon as {@link SeleniumFactory} is loaded,
+ * so that {@link SeleniumFactory#createWebDriver()} can hand out a session that's already up.
+ *
+ * <p>
+ * The number of sessions is specified by the 'SELENIUM_PREWARM' system property or the environment variable.
+ * Sessions are created with the driver and the starting URL that {@link SeleniumFactory#createWebDriver()}
+ * would use, and sessions nobody took are quit when the JVM exits.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+final class Prewarmer {
+    private final String uri;
+    private final String browserURL;
+    private final Queue<Future<WebDriver>> sessions = new ConcurrentLinkedQueue<Future<WebDriver>>();
+
+    private Prewarmer(String uri, String browserURL) {
+        this.uri = uri;
+        this.browserURL = browserURL;
+    }
+
+    /**
+     * Takes a session that's already started, if there is one.
+     *
+     * @return null if no session is ready, or if the caller is asking for a different driver
+     *      from what was pre-warmed.
+     */
+    WebDriver take(String uri, String browserURL) {
+        if (!equals(this.uri, uri) || !equals(this.browserURL, browserURL))
+            return null;
+
+        for (Future<WebDriver> f : sessions) {
+            if (!f.isDone() || !sessions.remove(f))
+                continue;   // not ready yet, or somebody else took it
+
+            try {
+                return f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                LOGGER.log(FINE, "Pre-warmed session for " + uri + " failed to start", e.getCause());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quits all the sessions that nobody took.
+     */
+    void shutdown() {
+        Future<WebDriver> f;
+        while ((f = sessions.poll()) != null) {
+            if (f.cancel(true))
+                continue;   // the session will be disposed when the creation completes
+            try {
+                DriverFuture.dispose(f.get());
+            } catch (InterruptedException e) {
+                return;
+            } catch (ExecutionException e) {
+                // failed to start, so nothing to clean up
+            }
+        }
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Starts pre-warming if it's requested.
+     *
+     * @return null if pre-warming is not requested.
+     */
+    static Prewarmer start(String n) {
+        if (n == null)
+            return null;
+
+        int count;
+        try {
+            count = Integer.parseInt(n.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.log(WARNING, "Ignoring invalid SELENIUM_PREWARM value: " + n);
+            return null;
+        }
+        if (count <= 0)
+            return null;
+
+        SeleniumFactory factory = new SeleniumFactory();
+        final Prewarmer p = new Prewarmer(factory.getUri(), SeleniumFactory.readStartingUrl());
+        for (int i = 0; i < count; i++)
+            p.sessions.add(factory.createWebDriverAsync(p.browserURL, null));
+
+        Runtime.getRuntime().addShutdownHook(new Thread("SeleniumFactory pre-warmed session cleanup") {
+            @Override
+            public void run() {
+                p.shutdown();
+            }
+        });
+        LOGGER.fine("Pre-warming " + count + " sessions of " + p.uri);
+        return p;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(Prewarmer.class.getName());
+}
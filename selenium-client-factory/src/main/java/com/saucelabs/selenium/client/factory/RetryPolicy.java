@@ -0,0 +1,265 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * Retries failed WebDriver session creations without piling onto an endpoint that's struggling.
+ *
+ * <p>
+ * When a policy is {@linkplain SeleniumFactory#setRetryPolicy(RetryPolicy) set on the factory},
+ * session creation is protected in three ways:
+ *
+ * <ul>
+ * <li>Each endpoint has a {@link CircuitBreaker}, which fails requests right away while the endpoint keeps failing.
+ * <li>Failed creations are retried after an exponentially growing delay with full jitter, so that
+ *     clients that failed at the same time don't all come back at the same time.
+ * <li>Retries are capped to a fraction of the requests (10% by default) by a retry budget,
+ *     so that an outage doesn't multiply the traffic.
+ * </ul>
+ *
+ * <p>
+ * Failures that say nothing about the endpoint are neither retried nor counted by the breaker, and are thrown
+ * as they are: configuration errors such as {@link UnrecognizedDriverException}, {@link DriverConfigurationException}
+ * and a malformed URL, and an {@link AdmissionException} from waiting for a permit to create a session.
+ * All the other failures are reported as {@link EndpointFailureException}.
+ *
+ * <p>
+ * Breakers are per the endpoint that's actually connected to, so "log:http://hubA/..." and "http://hubA/..."
+ * share one. See {@link SeleniumFactorySPI#getDelegateUri(String)}.
+ *
+ * <p>
+ * A policy is thread-safe, and meant to be shared by all the factories in the JVM, so that they see
+ * the same breakers and the same budget.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class RetryPolicy {
+    private volatile int maxAttempts = 3;
+    private volatile long baseDelay = TimeUnit.SECONDS.toMillis(1);
+    private volatile long maxDelay = TimeUnit.SECONDS.toMillis(30);
+    private volatile int failureThreshold = 5;
+    private volatile long openTime = TimeUnit.SECONDS.toMillis(30);
+    private volatile double budgetRatio = 0.1;
+    private volatile int budgetCapacity = 10;
+
+    /**
+     * Retries that can be made right now. Each request adds {@link #budgetRatio}, and each retry takes 1.
+     */
+    private double budget = budgetCapacity;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+    private final Random random = new Random();
+
+    /**
+     * Sets the maximum number of attempts per creation, including the first one. Defaults to 3.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public RetryPolicy setMaxAttempts(int n) {
+        if (n < 1)
+            throw new IllegalArgumentException("Invalid number of attempts: " + n);
+        this.maxAttempts = n;
+        return this;
+    }
+
+    /**
+     * Sets the delay before the first retry, which doubles with each retry up to the given maximum.
+     * The actual delay is picked randomly between 0 and that. Defaults to 1 second and 30 seconds.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public RetryPolicy setBackoff(long base, long max, TimeUnit unit) {
+        this.baseDelay = unit.toMillis(base);
+        this.maxDelay = unit.toMillis(max);
+        return this;
+    }
+
+    /**
+     * Sets the number of consecutive failures that opens the circuit breaker of an endpoint,
+     * and how long it stays open. Defaults to 5 failures and 30 seconds.
+     * Only affects the breakers created afterward.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public RetryPolicy setCircuitBreaker(int failureThreshold, long openTime, TimeUnit unit) {
+        this.failureThreshold = failureThreshold;
+        this.openTime = unit.toMillis(openTime);
+        return this;
+    }
+
+    /**
+     * Sets the retry budget. In the long run, retries are limited to the given fraction of the requests,
+     * but up to the given capacity of retries can be made in a burst. Defaults to 0.1 and 10.
+     *
+     * @return 'this' instance to facilitate the fluent API pattern.
+     */
+    public synchronized RetryPolicy setBudget(double ratio, int capacity) {
+        this.budgetRatio = ratio;
+        this.budgetCapacity = capacity;
+        this.budget = Math.min(budget, capacity);
+        return this;
+    }
+
+    /**
+     * Number of retries that can be made right now.
+     */
+    public synchronized int getAvailableRetries() {
+        return (int) budget;
+    }
+
+    /**
+     * Identifies the endpoint of a driver URI, which is the URI without its query parameters.
+     * For example, all the "sauce-ondemand:?..." URIs share one endpoint.
+     */
+    public static String getEndpoint(String uri) {
+        int idx = uri.indexOf('?');
+        return idx < 0 ? uri : uri.substring(0, idx);
+    }
+
+    /**
+     * Gets the circuit breaker of the given endpoint, creating one if necessary.
+     */
+    public CircuitBreaker getCircuitBreaker(String endpoint) {
+        CircuitBreaker b = breakers.get(endpoint);
+        if (b == null) {
+            CircuitBreaker n = new CircuitBreaker(endpoint, failureThreshold, openTime);
+            b = breakers.putIfAbsent(endpoint, n);
+            if (b == null)
+                b = n;
+        }
+        return b;
+    }
+
+    /**
+     * Returns all the circuit breakers created so far.
+     */
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<CircuitBreaker>(breakers.values());
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(budget + budgetRatio, budgetCapacity);
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1)
+            return false;
+        budget--;
+        return true;
+    }
+
+    /**
+     * Computes the delay before the given retry.
+     *
+     * @param retry
+     *      1 for the first retry.
+     */
+    long getDelay(int retry) {
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(retry - 1, 30));
+        synchronized (random) {
+            return (long) (random.nextDouble() * ceiling);
+        }
+    }
+
+    /**
+     * Tells the failures of the endpoint from those that say nothing about it.
+     */
+    static boolean isEndpointFailure(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof UnrecognizedDriverException || t instanceof DriverConfigurationException
+             || t instanceof AdmissionException || t instanceof MalformedURLException || t instanceof URISyntaxException)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs the creation against the driver URI, retrying as the policy allows.
+     *
+     * @param uri
+     *      URI of the driver that's actually connected to, which identifies the circuit breaker.
+     * @throws IllegalArgumentException if the creation failed for a reason that says nothing about the endpoint.
+     * @throws EndpointFailureException if the creation failed for good.
+     */
+    <T> T create(String uri, Callable<T> creation) {
+        String endpoint = getEndpoint(uri);
+        CircuitBreaker breaker = getCircuitBreaker(endpoint);
+        deposit();
+
+        Exception failure = null;
+        for (int attempt = 1; ; attempt++) {
+            if (!breaker.allowRequest())
+                throw new EndpointFailureException(endpoint, "Not sending a request to " + endpoint + " since it keeps failing", failure);
+
+            boolean reported = false;
+            try {
+                T v = creation.call();
+                breaker.onSuccess();
+                reported = true;
+                return v;
+            } catch (Exception e) {
+                if (e instanceof RuntimeException && !isEndpointFailure(e))
+                    throw (RuntimeException) e;
+                breaker.onFailure();
+                reported = true;
+                failure = e;
+            } finally {
+                // such as an Error, which would otherwise leave the trial of a half-open breaker in flight for good
+                if (!reported)
+                    breaker.onIgnored();
+            }
+
+            if (attempt >= maxAttempts)
+                throw new EndpointFailureException(endpoint, "Failed to create a driver with " + endpoint + " after " + attempt + " attempt(s)", failure);
+            if (!withdraw())
+                throw new EndpointFailureException(endpoint, "Failed to create a driver with " + endpoint + ", and the retry budget is exhausted", failure);
+
+            long delay = getDelay(attempt);
+            LOGGER.log(FINE, "Retrying " + endpoint + " in " + delay + "ms", failure);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EndpointFailureException(endpoint, "Interrupted while waiting to retry " + endpoint, failure);
+            }
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(RetryPolicy.class.getName());
+}
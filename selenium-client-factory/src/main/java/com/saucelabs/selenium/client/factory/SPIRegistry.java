@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Set of {@link SeleniumFactorySPI}s discovered in a {@link ClassLoader}.
+ *
+ * <p>
+ * Scanning META-INF/services and instantiating the SPIs is done only once per {@link ClassLoader},
+ * and the resulting SPI instances are reused by all the subsequent driver creations.
+ * SPIs are indexed by the URI schemes they declare, so that finding the SPI for a driver URI
+ * is a hash lookup. Conflicting scheme declarations are reported once, when the registry is built.
+ * Registries are weakly keyed by the {@link ClassLoader}, so that a discarded class loader
+ * (for example when a web container redeploys an application) can still be garbage collected.
+ *
+ * <p>
+ * If jars are added to the class loader after the first lookup, call {@link #refresh()}
+ * to have the SPIs rediscovered.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class SPIRegistry {
+    private final List<SeleniumFactorySPI> spis;
+
+    /**
+     * SPIs that declared their schemes via {@link SeleniumFactorySPI#getSchemes()}, keyed by the scheme.
+     */
+    private final Map<String, SeleniumFactorySPI> byScheme = new HashMap<String, SeleniumFactorySPI>();
+
+    /**
+     * SPIs that didn't declare any scheme, which need to be probed by {@link SeleniumFactorySPI#canHandle(String)}.
+     */
+    private final List<SeleniumFactorySPI> undeclared = new ArrayList<SeleniumFactorySPI>();
+
+    private SPIRegistry(List<SeleniumFactorySPI> spis) {
+        this.spis = Collections.unmodifiableList(spis);
+
+        for (SeleniumFactorySPI spi : spis) {
+            List<String> schemes = spi.getSchemes();
+            if (schemes.isEmpty()) {
+                undeclared.add(spi);
+                continue;
+            }
+            for (String scheme : schemes) {
+                SeleniumFactorySPI existing = byScheme.get(scheme);
+                if (existing != null) {
+                    // the one that comes first in the classpath wins, just like the linear probing did
+                    LOGGER.log(WARNING, "Both " + existing.getClass().getName() + " and " + spi.getClass().getName()
+                            + " claim the '" + scheme + ":' driver URI scheme. Using " + existing.getClass().getName());
+                    continue;
+                }
+                byScheme.put(scheme, spi);
+            }
+        }
+    }
+
+    /**
+     * All the SPIs found in the class loader, in the order they are listed in the classpath.
+     *
+     * @return never null
+     */
+    public List<SeleniumFactorySPI> getAll() {
+        return spis;
+    }
+
+    /**
+     * Finds the SPI that handles the given driver URI.
+     *
+     * @return null if no SPI recognizes the URI.
+     */
+    public SeleniumFactorySPI find(String uri) {
+        int idx = uri.indexOf(':');
+        if (idx > 0) {
+            SeleniumFactorySPI spi = byScheme.get(uri.substring(0, idx));
+            if (spi != null)
+                return spi;
+        }
+
+        for (SeleniumFactorySPI spi : undeclared) {
+            if (spi.canHandle(uri))
+                return spi;
+        }
+        return null;
+    }
+
+    /**
+     * URI schemes claimed by the SPIs in this registry.
+     *
+     * @return never null
+     */
+    public Set<String> getSchemes() {
+        return Collections.unmodifiableSet(byScheme.keySet());
+    }
+
+    /**
+     * Obtains the registry for the given class loader, scanning it if this is the first time.
+     *
+     * @param cl
+     *      If null, the class loader that loaded the factory is used.
+     * @throws IllegalArgumentException
+     *      if the class loader fails to list the service definitions.
+     */
+    public static SPIRegistry get(ClassLoader cl) {
+        if (cl == null)
+            cl = SPIRegistry.class.getClassLoader();
+
+        synchronized (REGISTRIES) {
+            SoftReference<SPIRegistry> ref = REGISTRIES.get(cl);
+            SPIRegistry r = ref != null ? ref.get() : null;
+            if (r != null)
+                return r;
+        }
+
+        // scan outside the lock so that a slow class loader doesn't block the other ones.
+        // two threads may end up scanning the same class loader, but the result is the same
+        SPIRegistry r = new SPIRegistry(scan(cl));
+        synchronized (REGISTRIES) {
+            REGISTRIES.put(cl, new SoftReference<SPIRegistry>(r));
+        }
+        return r;
+    }
+
+    /**
+     * Discards all the cached registries, so that the next driver creation rescans the class loaders.
+     */
+    public static void refresh() {
+        synchronized (REGISTRIES) {
+            REGISTRIES.clear();
+        }
+    }
+
+    /**
+     * Discards the cached registry of the specific class loader.
+     */
+    public static void refresh(ClassLoader cl) {
+        synchronized (REGISTRIES) {
+            REGISTRIES.remove(cl);
+        }
+    }
+
+    private static List<SeleniumFactorySPI> scan(ClassLoader cl) {
+        List<SeleniumFactorySPI> r = new ArrayList<SeleniumFactorySPI>();
+        try {
+            Enumeration<URL> e = cl.getResources("META-INF/services/" + SeleniumFactorySPI.class.getName());
+            while (e.hasMoreElements()) {
+                URL url = e.nextElement();
+                LOGGER.fine("Reading " + url + " looking for " + SeleniumFactorySPI.class.getName());
+                BufferedReader in = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        line = line.trim();
+                        if (line.startsWith("#") || line.length() == 0) continue;   // comment
+
+                        // otherwise treat this as FQCN
+                        LOGGER.fine("Found " + line);
+                        try {
+                            Class<?> c = cl.loadClass(line);
+                            LOGGER.fine("Loaded " + c);
+
+                            Object _spi = c.newInstance();
+                            if (_spi instanceof SeleniumFactorySPI) {
+                                r.add((SeleniumFactorySPI) _spi);
+                            } else {
+                                URL img = c.getClassLoader().getResource(SeleniumFactorySPI.class.getName().replace('.', '/') + ".class");
+                                LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class isn't assignable to " + SeleniumFactorySPI.class + ". It's loading SPI from " + img);
+                            }
+                        } catch (ClassNotFoundException x) {
+                            LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class failed to load", x);
+                        } catch (InstantiationException x) {
+                            LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class failed to instantiate", x);
+                        } catch (IllegalAccessException x) {
+                            LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class failed to instantiate", x);
+                        }
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } catch (IOException x) {
+            throw new IllegalArgumentException("Failed to instantiate the driver", x);
+        }
+        return r;
+    }
+
+    /**
+     * Values are soft-referenced because the SPI instances strongly refer to their class loader,
+     * which would otherwise keep the weak key reachable forever.
+     */
+    private static final Map<ClassLoader, SoftReference<SPIRegistry>> REGISTRIES = new WeakHashMap<ClassLoader, SoftReference<SPIRegistry>>();
+
+    private static final Logger LOGGER = Logger.getLogger(SPIRegistry.class.getName());
+}
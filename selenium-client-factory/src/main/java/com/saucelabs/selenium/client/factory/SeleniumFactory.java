@@ -23,25 +23,32 @@
  */
 package com.saucelabs.selenium.client.factory;
 
+import com.saucelabs.selenium.client.factory.jmx.Management;
+import com.saucelabs.selenium.client.factory.metrics.DriverMetrics;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
 import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
 import com.thoughtworks.selenium.DefaultSelenium;
 import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
-import java.net.URL;
 import java.sql.DriverManager;
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
-
-import static java.util.logging.Level.WARNING;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Factory of {@link Selenium}.
@@ -55,6 +62,10 @@ import static java.util.logging.Level.WARNING;
  * <p/>
  * This is analogous to how you connect to JDBC &mdash; you normally don't directly
  * instantiate a specific driver, and instead you do {@link DriverManager#getConnection(String)}.
+ * <p/>
+ * <p/>
+ * A factory is meant to be configured and used by one thread. To share a configuration among
+ * many threads, take its {@link #snapshot()}.
  *
  * @author Kohsuke Kawaguchi
  */
@@ -82,13 +93,23 @@ public class SeleniumFactory {
      * <p/>
      * <p/>
      * This is just a convenient short-cut for {@code new SeleniumFactory().createWebDriver()}.
+     * <p/>
+     * <p/>
+     * If sessions are pre-warmed through the 'SELENIUM_PREWARM' system property or the environment variable,
+     * this method hands out one of them when it's ready, and otherwise creates a new session.
      */
     public static WebDriver createWebDriver() {
-        return new SeleniumFactory().createWebDriverInstance(null);
+        SeleniumFactory f = new SeleniumFactory();
+        if (PREWARMER != null) {
+            WebDriver d = PREWARMER.take(f.getUri(), readStartingUrl());
+            if (d != null)
+                return d;
+        }
+        return f.createWebDriverInstance(null);
     }
 
     public static List<WebDriver> createWebDrivers() {
-        String url = readPropertyOrEnv("SELENIUM_STARTING_URL", readPropertyOrEnv("DEFAULT_SELENIUM_STARTING_URL", null));
+        String url = readStartingUrl();
         return new SeleniumFactory().createWebDriverInstances(url);
     }
 
@@ -109,6 +130,36 @@ public class SeleniumFactory {
         return new SeleniumFactory().createWebDriverInstance(capabilities);
     }
 
+    /**
+     * Uses the specified drivers and the test domain and create WebDriver instances in parallel.
+     * <p/>
+     * <p/>
+     * This is just a convenient short-cut for {@code new SeleniumFactory().createWebDriverInstances(driverUris, browserURL, capabilities)}.
+     *
+     * @param driverUris   The URIs indicating the drivers to be instantiated.
+     * @param browserURL   This specifies the domain name in the format of "http://foo.example.com" where the test occurs.
+     * @param capabilities The desired driver capabilities to use, browser, browser version and os will be override.
+     * @return Results in the same order as the driver URIs, each of which carries either a driver or the failure.
+     */
+    public static List<CreationResult<WebDriver>> createWebDrivers(List<String> driverUris, String browserURL, DesiredCapabilities capabilities) {
+        return new SeleniumFactory().createWebDriverInstances(driverUris, browserURL, capabilities);
+    }
+
+    /**
+     * Uses the specified drivers and the test domain and create WebDriver instances in parallel,
+     * handing out each one as soon as it becomes ready.
+     * <p/>
+     * <p/>
+     * This is just a convenient short-cut for {@code new SeleniumFactory().streamWebDriverInstances(driverUris, browserURL, capabilities)}.
+     *
+     * @param driverUris   The URIs indicating the drivers to be instantiated.
+     * @param browserURL   This specifies the domain name in the format of "http://foo.example.com" where the test occurs.
+     * @param capabilities The desired driver capabilities to use, browser, browser version and os will be override.
+     */
+    public static CreationStream<WebDriver> streamWebDrivers(List<String> driverUris, String browserURL, DesiredCapabilities capabilities) {
+        return new SeleniumFactory().streamWebDriverInstances(driverUris, browserURL, capabilities);
+    }
+
     /**
      * Uses a driver specified by the 'SELENIUM_DRIVER' system property or the environment variable,
      * and run the test against the specified domain.
@@ -170,12 +221,46 @@ public class SeleniumFactory {
     private String uri;
     private ClassLoader cl = Thread.currentThread().getContextClassLoader();
     private Map<String, Object> properties = new HashMap<String, Object>();
+    /**
+     * True if {@link #properties} is shared with other factories or snapshots, and needs to be copied before modification.
+     */
+    private boolean propertiesShared;
+    /**
+     * True if {@link #properties} has been handed out by {@link #getProperties()}, and can change behind our back.
+     */
+    private boolean propertiesEscaped;
+    private HedgingPolicy hedgingPolicy;
+    private RetryPolicy retryPolicy;
+    private AdmissionScheduler admissionScheduler = AdmissionScheduler.getDefault();
 
     public SeleniumFactory() {
         // use the embedded RC as the default, since this is the least environment dependent.
         uri = readPropertyOrEnv("SELENIUM_DRIVER", readPropertyOrEnv("DEFAULT_SELENIUM_DRIVER", "embedded-rc:"));
     }
 
+    /**
+     * Creates a factory with the given configuration without looking at the environment.
+     *
+     * @param properties
+     *      Shared with the caller. Copied before the first modification.
+     */
+    SeleniumFactory(String uri, ClassLoader cl, Map<String, Object> properties, HedgingPolicy hedgingPolicy, RetryPolicy retryPolicy, AdmissionScheduler admissionScheduler) {
+        this.uri = uri;
+        this.cl = cl;
+        this.properties = properties;
+        this.propertiesShared = true;
+        this.hedgingPolicy = hedgingPolicy;
+        this.retryPolicy = retryPolicy;
+        this.admissionScheduler = admissionScheduler;
+    }
+
+    /**
+     * Reads the 'SELENIUM_STARTING_URL' system property or the environment variable.
+     */
+    static String readStartingUrl() {
+        return readPropertyOrEnv("SELENIUM_STARTING_URL", readPropertyOrEnv("DEFAULT_SELENIUM_STARTING_URL", null));
+    }
+
     private static String readPropertyOrEnv(String key, String defaultValue) {
         String v = System.getProperty(key);
         if (v == null)
@@ -231,7 +316,7 @@ public class SeleniumFactory {
      * @return 'this' instance to facilitate the fluent API pattern.
      */
     public SeleniumFactory setProperty(String key, Object value) {
-        this.properties.put(key, value);
+        ownProperties().put(key, value);
         return this;
     }
 
@@ -249,21 +334,124 @@ public class SeleniumFactory {
      * @return never null
      */
     public Map<String, Object> getProperties() {
-        return this.properties;
+        Map<String, Object> m = ownProperties();
+        propertiesEscaped = true;
+        return m;
+    }
+
+    private Map<String, Object> ownProperties() {
+        if (propertiesShared) {
+            properties = new HashMap<String, Object>(properties);
+            propertiesShared = false;
+        }
+        return properties;
+    }
+
+    /**
+     * Gets the hedging policy set by {@link #setHedgingPolicy(HedgingPolicy)}.
+     *
+     * @return null if hedging is off.
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Turns on hedged WebDriver creation, where a slow creation gets raced against a second identical request.
+     * Off by default.
+     *
+     * @param policy
+     *      null to turn hedging off. Factories that talk to the same grid should share the same policy.
+     * @return 'this' instance to facilitate the fluent API pattern.
+     * @see HedgingPolicy
+     */
+    public SeleniumFactory setHedgingPolicy(HedgingPolicy policy) {
+        this.hedgingPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Gets the retry policy set by {@link #setRetryPolicy(RetryPolicy)}.
+     *
+     * @return null if failed creations aren't retried.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Turns on circuit breakers and retries for WebDriver creation. Off by default.
+     *
+     * @param policy
+     *      null to turn it off. All the factories in the JVM should share the same policy.
+     * @return 'this' instance to facilitate the fluent API pattern.
+     * @see RetryPolicy
+     */
+    public SeleniumFactory setRetryPolicy(RetryPolicy policy) {
+        this.retryPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Gets the admission scheduler set by {@link #setAdmissionScheduler(AdmissionScheduler)}.
+     *
+     * @return null if the number of open sessions isn't limited.
+     */
+    public AdmissionScheduler getAdmissionScheduler() {
+        return admissionScheduler;
+    }
+
+    /**
+     * Limits the number of sessions open at the same time, by having the driver creations wait for a permit.
+     * Initially set to {@link AdmissionScheduler#getDefault()}, which is off unless the
+     * 'SELENIUM_MAX_SESSIONS' system property or the environment variable is set.
+     *
+     * <p>
+     * The "admission.priority" property, an integer that defaults to 0, sets the priority of the creations
+     * made by this factory. For example, smoke tests can use a higher priority to go ahead of the rest.
+     *
+     * @param scheduler
+     *      null to turn it off. Factories that share the same quota should share the same scheduler.
+     * @return 'this' instance to facilitate the fluent API pattern.
+     * @see AdmissionScheduler
+     */
+    public SeleniumFactory setAdmissionScheduler(AdmissionScheduler scheduler) {
+        this.admissionScheduler = scheduler;
+        return this;
     }
 
     /**
      * Creates a clone of this factory that's identically configured.
      * <p/>
-     * Properties are only shallowly copied.
+     * Properties are only shallowly copied. The clone shares the property map with this factory
+     * until either side modifies it, so cloning is cheap, unless the map has been handed out
+     * by {@link #getProperties()}, in which case the clone gets its own copy.
      */
     public SeleniumFactory clone() {
-        SeleniumFactory f = new SeleniumFactory();
-        f.uri = uri;
-        f.cl = cl;
-        f.properties.clear();
-        f.properties.putAll(properties);
-        return f;
+        if (propertiesEscaped)
+            return new SeleniumFactory(uri, cl, new HashMap<String, Object>(properties), hedgingPolicy, retryPolicy, admissionScheduler);
+        propertiesShared = true;
+        return new SeleniumFactory(uri, cl, properties, hedgingPolicy, retryPolicy, admissionScheduler);
+    }
+
+    /**
+     * Freezes the current configuration of this factory, including the starting URL
+     * that would be read from the 'SELENIUM_STARTING_URL' system property or the environment variable.
+     * <p/>
+     * The {@linkplain #ENDPOINT_SETTINGS endpoint settings} are resolved into the properties of the snapshot
+     * as well, unless they are set as properties already, with the empty string standing for a setting
+     * that's defined nowhere. Drivers look for these properties before they consult system properties
+     * and environment variables.
+     * <p/>
+     * A factory is not thread-safe, but a snapshot can be shared by any number of threads.
+     */
+    public FactorySnapshot snapshot() {
+        Map<String, Object> copy = new HashMap<String, Object>(properties);
+        for (String key : ENDPOINT_SETTINGS) {
+            if (!copy.containsKey(key))
+                copy.put(key, readPropertyOrEnv(key, ""));
+        }
+        return new FactorySnapshot(uri, cl, Collections.unmodifiableMap(copy), readStartingUrl(), hedgingPolicy, retryPolicy, admissionScheduler);
     }
 
     /**
@@ -279,7 +467,7 @@ public class SeleniumFactory {
      * @throws IllegalArgumentException if the configuration is invalid, or the driver failed to instantiate.
      */
     public Selenium createSelenium() {
-        String url = readPropertyOrEnv("SELENIUM_STARTING_URL", readPropertyOrEnv("DEFAULT_SELENIUM_STARTING_URL", null));
+        String url = readStartingUrl();
         if (url == null)
             throw new IllegalArgumentException("Neither SELENIUM_STARTING_URL/DEFAULT_SELENIUM_STARTING_URL system property nor environment variable exists");
         return createSelenium(url);
@@ -299,39 +487,307 @@ public class SeleniumFactory {
      * @throws IllegalArgumentException if the configuration is invalid, or the driver failed to instantiate.
      */
     public WebDriver createWebDriverInstance(DesiredCapabilities capabilities) {
-        String url = readPropertyOrEnv("SELENIUM_STARTING_URL", readPropertyOrEnv("DEFAULT_SELENIUM_STARTING_URL", null));
+        String url = readStartingUrl();
         return createWebDriverInstance(url, capabilities);
     }
 
 
     public Selenium createSelenium(String browserURL) {
         SeleniumFactorySPI seleniumFactory = createSeleniumFactory();
-        Selenium selenium = seleniumFactory.createSelenium(this, browserURL);
+        AdmissionScheduler.Permit permit = seleniumFactory.isAdmitted() ? admit() : null;
+        DriverMetrics metrics = MetricsRegistry.forUri(uri);
+        long start = metrics.creationStarted();
+        Object creation = SessionRegistry.beginCreation();
+        Selenium selenium = null;
+        try {
+            selenium = seleniumFactory.createSelenium(this, browserURL);
+        } finally {
+            metrics.creationEnded(start, selenium != null);
+            SessionRegistry.endCreation(creation, selenium, uri, permit);
+            if (permit != null)
+                endAdmission(permit, selenium != null);
+        }
+        Management.register(metrics);
         if (selenium == null) {
-            throw new IllegalArgumentException(String.format(
-                    "Unrecognized Selenium driver URI '%s'. Make sure you got the proper driver jars in your classpath, or increase the logging level to get more information.", uri));
+            throw new UnrecognizedDriverException(uri);
         } else {
             return selenium;
         }
     }
 
-    public WebDriver createWebDriverInstance(String browserURL, DesiredCapabilities capabilities) {
+    public WebDriver createWebDriverInstance(final String browserURL, final DesiredCapabilities capabilities) {
+        HedgingPolicy policy = hedgingPolicy;
+        if (policy != null) {
+            // the attempts themselves don't hedge any further
+            SeleniumFactory f = clone().setHedgingPolicy(null);
+            return policy.create(f.webDriverCreation(browserURL, copy(capabilities)),
+                                 f.webDriverCreation(browserURL, copy(capabilities)));
+        }
+
+        RetryPolicy retry = retryPolicy;
+        if (retry != null) {
+            // nor do they retry
+            final SeleniumFactory f = clone().setRetryPolicy(null);
+            return retry.create(getDialedUri(), new Callable<WebDriver>() {
+                public WebDriver call() {
+                    return f.createWebDriverInstance(browserURL, copy(capabilities));
+                }
+            });
+        }
+
         SeleniumFactorySPI seleniumFactory = createSeleniumFactory();
-        WebDriver webDriver = seleniumFactory.createWebDriver(this, browserURL, capabilities);
+        AdmissionScheduler.Permit permit = seleniumFactory.isAdmitted() ? admit() : null;
+        DriverMetrics metrics = MetricsRegistry.forUri(uri);
+        long start = metrics.creationStarted();
+        Object creation = SessionRegistry.beginCreation();
+        WebDriver webDriver = null;
+        try {
+            webDriver = seleniumFactory.createWebDriver(this, browserURL, capabilities);
+        } finally {
+            metrics.creationEnded(start, webDriver != null);
+            SessionRegistry.endCreation(creation, webDriver, uri, permit);
+            if (permit != null)
+                endAdmission(permit, webDriver != null);
+        }
+        Management.register(metrics);
         if (webDriver == null) {
-            throw new IllegalArgumentException(String.format(
-                    "Unrecognized Selenium driver URI '%s'. Make sure you got the proper driver jars in your classpath, or increase the logging level to get more information.", uri));
+            throw new UnrecognizedDriverException(uri);
         } else {
             return webDriver;
         }
     }
 
+    /**
+     * Waits for the admission scheduler to let a new session in.
+     *
+     * @return null if there's no scheduler, or if this is a nested creation, which is covered by
+     *      the permit of the creation it's nested in.
+     */
+    private AdmissionScheduler.Permit admit() {
+        AdmissionScheduler scheduler = admissionScheduler;
+        if (scheduler == null || ADMITTED.get() != null)
+            return null;
+        AdmissionScheduler.Permit permit = scheduler.acquire(getAdmissionPriority());
+        ADMITTED.set(Boolean.TRUE);
+        return permit;
+    }
+
+    /**
+     * Once the session is created, its permit is held by {@link TrackedSession}.
+     */
+    private static void endAdmission(AdmissionScheduler.Permit permit, boolean created) {
+        ADMITTED.remove();
+        if (!created)
+            permit.release();
+    }
+
+    private int getAdmissionPriority() {
+        Object v = getProperty("admission.priority");
+        if (v == null)
+            return 0;
+        if (v instanceof Number)
+            return ((Number) v).intValue();
+        try {
+            return Integer.parseInt(v.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new DriverConfigurationException("Invalid admission.priority: " + v, e);
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #createSelenium()}.
+     *
+     * @see #createSeleniumAsync(String)
+     */
+    public Future<Selenium> createSeleniumAsync() {
+        String url = readStartingUrl();
+        if (url == null)
+            throw new IllegalArgumentException("Neither SELENIUM_STARTING_URL/DEFAULT_SELENIUM_STARTING_URL system property nor environment variable exists");
+        return createSeleniumAsync(url);
+    }
+
+    /**
+     * Instantiates a Selenium driver in the background with the current configuration,
+     * and returns immediately.
+     *
+     * <p>
+     * The configuration of this factory is captured when this method is called, so changing the factory
+     * afterward doesn't affect the driver being created. The creation runs on {@link #getExecutor()}.
+     * Cancelling the returned {@link Future} stops the driver if it still gets created.
+     *
+     * @return
+     *      {@link Future#get()} throws {@link java.util.concurrent.ExecutionException} wrapping
+     *      the {@link IllegalArgumentException} that {@link #createSelenium(String)} would throw.
+     */
+    public Future<Selenium> createSeleniumAsync(final String browserURL) {
+        final SeleniumFactory f = clone();
+        return submit(SessionRegistry.inheritOwner(new Callable<Selenium>() {
+            public Selenium call() {
+                return f.createSelenium(browserURL);
+            }
+        }));
+    }
+
+    /**
+     * Asynchronous version of {@link #createWebDriverInstance(DesiredCapabilities)}.
+     *
+     * @see #createWebDriverAsync(String, DesiredCapabilities)
+     */
+    public Future<WebDriver> createWebDriverAsync(DesiredCapabilities capabilities) {
+        String url = readStartingUrl();
+        return createWebDriverAsync(url, capabilities);
+    }
+
+    /**
+     * Instantiates a WebDriver in the background with the current configuration,
+     * and returns immediately. This allows the calling application to do other things,
+     * such as preparing test fixtures, while the browser session is being started.
+     *
+     * <p>
+     * The configuration of this factory is captured when this method is called, so changing the factory
+     * afterward doesn't affect the driver being created. The creation runs on {@link #getExecutor()}.
+     * Cancelling the returned {@link Future} quits the driver if it still gets created.
+     *
+     * @return
+     *      {@link Future#get()} throws {@link java.util.concurrent.ExecutionException} wrapping
+     *      the exception that {@link #createWebDriverInstance(String, DesiredCapabilities)} would throw.
+     */
+    public Future<WebDriver> createWebDriverAsync(String browserURL, DesiredCapabilities capabilities) {
+        return submit(webDriverCreation(browserURL, capabilities));
+    }
+
+    /**
+     * Same as {@link #createWebDriverAsync(String, DesiredCapabilities)}, except that the creation runs on
+     * the given executor. This is for the creations that are waited for by another creation, which may itself
+     * be running on {@link #getExecutor()}, where waiting for the bounded pool from within could deadlock.
+     */
+    public Future<WebDriver> createWebDriverAsync(String browserURL, DesiredCapabilities capabilities, Executor executor) {
+        DriverFuture<WebDriver> future = new DriverFuture<WebDriver>(webDriverCreation(browserURL, capabilities));
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Captures the current configuration into a task that creates a WebDriver.
+     * The session is attributed to the current thread, even though the task runs elsewhere.
+     */
+    private Callable<WebDriver> webDriverCreation(final String browserURL, final DesiredCapabilities capabilities) {
+        final SeleniumFactory f = clone();
+        return SessionRegistry.inheritOwner(new Callable<WebDriver>() {
+            public WebDriver call() {
+                return f.createWebDriverInstance(browserURL, capabilities);
+            }
+        });
+    }
+
+    /**
+     * Drivers may modify the capabilities they are given, so concurrent creations each get their own copy.
+     */
+    private static DesiredCapabilities copy(DesiredCapabilities capabilities) {
+        return capabilities == null ? null : new DesiredCapabilities((Capabilities) capabilities);
+    }
+
+    private static <T> Future<T> submit(Callable<T> creation) {
+        DriverFuture<T> future = new DriverFuture<T>(creation);
+        getExecutor().execute(future);
+        return future;
+    }
+
+    /**
+     * Gets the executor that creates drivers in the background.
+     *
+     * <p>
+     * Unless {@link #setExecutor(ExecutorService)} is called, this is a thread pool shared within the JVM,
+     * whose size is controlled by the "com.saucelabs.selenium.client.factory.SeleniumFactory.threads"
+     * system property (defaults to 16.) Idle threads go away, so the pool costs nothing when unused.
+     */
+    public static ExecutorService getExecutor() {
+        ExecutorService e = executor;
+        if (e == null) {
+            synchronized (SeleniumFactory.class) {
+                e = executor;
+                if (e == null)
+                    executor = e = createDefaultExecutor();
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Sets the executor that creates drivers in the background.
+     *
+     * @param e
+     *      null to go back to the default executor.
+     */
+    public static void setExecutor(ExecutorService e) {
+        executor = e;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        int n = Integer.getInteger(SeleniumFactory.class.getName() + ".threads", 16);
+        ThreadPoolExecutor e = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SeleniumFactory driver creation #" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        e.allowCoreThreadTimeOut(true);
+        return e;
+    }
+
+    private static volatile ExecutorService executor;
+
+    /**
+     * Instantiates multiple WebDrivers in parallel, one for each driver URI, with the rest of the configuration
+     * taken from this factory.
+     *
+     * <p>
+     * Drivers are created on {@link #getExecutor()}. A failure to create one driver doesn't affect the others,
+     * and is reported in the corresponding {@link CreationResult}.
+     *
+     * @param driverUris
+     *      The URIs indicating the drivers to be instantiated. Any driver available in the system can be used.
+     * @param browserURL
+     *      This specifies the domain name in the format of "http://foo.example.com" where the test occurs.
+     * @param capabilities
+     *      The desired driver capabilities to use, browser, browser version and os will be override.
+     *      Each driver gets its own copy.
+     * @return
+     *      Results in the same order as the driver URIs.
+     * @throws IllegalArgumentException
+     *      if the calling thread is interrupted while waiting. Drivers being created are quit in this case.
+     */
+    public List<CreationResult<WebDriver>> createWebDriverInstances(List<String> driverUris, String browserURL, DesiredCapabilities capabilities) {
+        return streamWebDriverInstances(driverUris, browserURL, capabilities).toList();
+    }
+
+    /**
+     * Instantiates multiple WebDrivers in parallel, just like {@link #createWebDriverInstances(List, String, DesiredCapabilities)},
+     * but hands out each driver as soon as it becomes ready, instead of waiting for all of them.
+     *
+     * <p>
+     * This lets the application start testing with fast browsers while the slow ones are still starting.
+     *
+     * @return
+     *      Iterator that returns the drivers in the order they become ready.
+     */
+    public CreationStream<WebDriver> streamWebDriverInstances(List<String> driverUris, String browserURL, DesiredCapabilities capabilities) {
+        List<Callable<WebDriver>> creations = new ArrayList<Callable<WebDriver>>(driverUris.size());
+        for (String driverUri : driverUris) {
+            creations.add(clone().setUri(driverUri).webDriverCreation(browserURL, copy(capabilities)));
+        }
+        return new CreationStream<WebDriver>(getExecutor(), driverUris, creations);
+    }
+
     private List<WebDriver> createWebDriverInstances(String browserURL) {
         SeleniumFactorySPI seleniumFactory = createSeleniumFactory();
         List<WebDriver> webDrivers = seleniumFactory.createWebDrivers(this, browserURL);
         if (webDrivers == null) {
-            throw new IllegalArgumentException(String.format(
-                    "Unrecognized Selenium driver URI '%s'. Make sure you got the proper driver jars in your classpath, or increase the logging level to get more information.", uri));
+            throw new UnrecognizedDriverException(uri);
         } else {
             return webDrivers;
         }
@@ -344,68 +800,51 @@ public class SeleniumFactory {
      * @return never null
      * @throws IllegalArgumentException if the configuration is invalid, or the driver failed to instantiate.
      */
-    private SeleniumFactorySPI createSeleniumFactory() {
-        try {
-            if (uri == null)
-                throw new IllegalArgumentException("Selenium driver URI is not set");
-
-            Enumeration<URL> e = cl.getResources("META-INF/services/" + SeleniumFactorySPI.class.getName());
-            SeleniumFactorySPI seleniumFactory = null;
-            while (e.hasMoreElements()) {
-                URL url = e.nextElement();
-                LOGGER.fine("Reading " + url + " looking for " + SeleniumFactorySPI.class.getName());
-                BufferedReader in = new LineNumberReader(new InputStreamReader(url.openStream(), "UTF-8"));
-                try {
-                    String line;
-                    while ((line = in.readLine()) != null) {
-                        line = line.trim();
-                        if (line.startsWith("#")) continue;   // comment
-
-                        // otherwise treat this as FQCN
-                        LOGGER.fine("Found " + line);
-                        try {
-                            Class<?> c = cl.loadClass(line);
-                            LOGGER.fine("Loaded " + c);
-
-                            Object _spi = c.newInstance();
-                            boolean canHandleRequest = false;
-                            if (_spi instanceof SeleniumFactorySPI) {
-                                seleniumFactory = (SeleniumFactorySPI) _spi;
-                                if (seleniumFactory.canHandle(uri)) {
-                                    return seleniumFactory;
-                                }
-                            }
-                            if (!canHandleRequest) {
-                                URL img = c.getClassLoader().getResource(SeleniumFactorySPI.class.getName().replace('.', '/') + ".class");
-                                LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class isn't assignable to " + SeleniumFactorySPI.class + ". It's loading SPI from " + img);
-                            }
-                        } catch (ClassNotFoundException x) {
-                            LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class failed to load", x);
-                        } catch (InstantiationException x) {
-                            LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class failed to instantiate", x);
-                        } catch (IllegalAccessException x) {
-                            LOGGER.log(WARNING, url + " specifies an SPI class " + line + " but the class failed to instantiate", x);
-                        }
-
-                    }
-                } finally {
-                    in.close();
-                }
-            }
+    /**
+     * Follows the SPIs that wrap another driver, like "log:...", to the URI of the driver that's actually connected to.
+     */
+    private String getDialedUri() {
+        SPIRegistry registry = SPIRegistry.get(cl);
+        String u = uri;
+        SeleniumFactorySPI spi;
+        String delegate;
+        while (u != null && (spi = registry.find(u)) != null && (delegate = spi.getDelegateUri(u)) != null && !delegate.equals(u))
+            u = delegate;
+        return u;
+    }
 
-            if (seleniumFactory == null) {
-                throw new IllegalArgumentException(String.format(
-                        "Unrecognized Selenium driver URI '%s'. Make sure you got the proper driver jars in your classpath, or increase the logging level to get more information.", uri));
-            } else {
-                return seleniumFactory;
-            }
+    private SeleniumFactorySPI createSeleniumFactory() {
+        if (uri == null)
+            throw new DriverConfigurationException("Selenium driver URI is not set");
 
-        } catch (IOException x) {
-            throw new IllegalArgumentException("Failed to instantiate the driver", x);
+        SeleniumFactorySPI seleniumFactory = SPIRegistry.get(cl).find(uri);
+        if (seleniumFactory == null) {
+            throw new UnrecognizedDriverException(uri);
+        } else {
+            return seleniumFactory;
         }
+    }
+
+    /**
+     * System properties or environment variables that tell drivers which server to talk to,
+     * resolved once by {@link #snapshot()} rather than on every creation.
+     */
+    public static final List<String> ENDPOINT_SETTINGS = Collections.unmodifiableList(Arrays.asList("SELENIUM_HOST", "SELENIUM_PORT"));
+
+    /**
+     * Set while the current thread creates a driver under a permit of {@link AdmissionScheduler}.
+     */
+    private static final ThreadLocal<Boolean> ADMITTED = new ThreadLocal<Boolean>();
 
+    static {
+        // end the remote sessions that the JVMs killed earlier left open
+        SessionJournal.reclaimOrphansAsync();
     }
 
-    private static final Logger LOGGER = Logger.getLogger(SeleniumFactory.class.getName());
+    /**
+     * Sessions started in the background as soon as this class is loaded.
+     * Initialized last, since the pre-warming uses the rest of this class.
+     */
+    private static final Prewarmer PREWARMER = Prewarmer.start(readPropertyOrEnv("SELENIUM_PREWARM", null));
 
 }
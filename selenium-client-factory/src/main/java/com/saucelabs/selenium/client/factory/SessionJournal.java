@@ -0,0 +1,469 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Records the remote sessions open in this JVM on disk, so that the sessions left behind by a JVM that got killed
+ * can be ended by the next JVM, instead of holding on to the concurrency slots of the grid until they time out.
+ *
+ * <p>
+ * Each JVM appends to its own journal file in a shared directory, and holds an exclusive lock on it until it exits.
+ * The operating system releases the lock when the process dies, however it dies, so a journal file that can be locked
+ * belongs to a JVM that's gone. When {@link SeleniumFactory} is loaded, it looks for such journals in the background,
+ * ends the sessions that they say are still open, and deletes them.
+ *
+ * <p>
+ * The journal is memory-mapped, so recording a session is a few memory writes that survive the process crash,
+ * without any system call on the path of the session creation. A record only becomes visible once it's
+ * completely written, and the journal starts over whenever no session is open.
+ *
+ * <p>
+ * The journals are kept in "~/.selenium-client-factory/sessions", or the directory specified by
+ * the "com.saucelabs.selenium.client.factory.SessionJournal.dir" system property. Set the
+ * "com.saucelabs.selenium.client.factory.SessionJournal.enabled" system property to false to disable the journal.
+ * The endpoint URLs are recorded as they are, including the credentials in them, so the directory and the journals
+ * are made readable only by their owner. A journal is left alone until it's a minute old, so that it isn't
+ * mistaken for an orphan in the moment between its creation and its locking.
+ *
+ * <p>
+ * Closing any channel to a file may release all the locks the JVM holds on that file, so the journals of this JVM,
+ * including those of other class loaders, are listed in a system property and never opened to check their locks.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class SessionJournal {
+    /**
+     * Kind of a WebDriver session, whose endpoint is the URL of the remote server, such as "http://localhost:4444/wd/hub".
+     */
+    public static final String WEBDRIVER = "webdriver";
+    /**
+     * Kind of a Selenium RC session, whose endpoint is the URL of the server, such as "http://localhost:4444".
+     */
+    public static final String SELENIUM_RC = "rc";
+
+    /**
+     * Null if the journal is disabled.
+     */
+    private final File dir;
+    /**
+     * Milliseconds a journal has to be left alone for, before it can be reclaimed.
+     */
+    private final long minAge;
+
+    private File file;
+    private RandomAccessFile raf;
+    private FileLock lock;
+    private MappedByteBuffer buf;
+    private int pos;
+    private final Set<String> open = new HashSet<String>();
+    private boolean broken;
+
+    SessionJournal(File dir) {
+        this(dir, MIN_AGE);
+    }
+
+    SessionJournal(File dir, long minAge) {
+        this.dir = dir;
+        this.minAge = minAge;
+    }
+
+    /**
+     * Records that a session has started.
+     *
+     * @param kind
+     *      Either {@link #WEBDRIVER} or {@link #SELENIUM_RC}.
+     * @param sessionId
+     *      ID of the session assigned by the server.
+     * @param endpoint
+     *      URL of the server to end the session with.
+     */
+    public synchronized void opened(String kind, String sessionId, String endpoint) {
+        if (sessionId == null || !open.add(sessionId))
+            return;
+        append("O\t" + kind + '\t' + sessionId + '\t' + endpoint + '\n');
+    }
+
+    /**
+     * Records that a session has ended. Calling this with a session that isn't recorded is a no-op.
+     */
+    public synchronized void closed(String sessionId) {
+        if (sessionId == null || !open.remove(sessionId))
+            return;
+        if (open.isEmpty())
+            reset();
+        else
+            append("C\t" + sessionId + '\n');
+    }
+
+    /**
+     * IDs of the sessions recorded as open.
+     */
+    public synchronized Set<String> getOpenSessions() {
+        return new HashSet<String>(open);
+    }
+
+    private void append(String record) {
+        if (dir == null || broken) return;
+        try {
+            if (buf == null)
+                create();
+
+            byte[] data = record.getBytes("UTF-8");
+            if (pos + data.length + 1 > buf.capacity())
+                remap(Math.max(buf.capacity() * 2, pos + data.length + 1));
+
+            // write the terminator first and the first byte last, so that a crash in between
+            // leaves the previous terminator in place and the record invisible
+            buf.put(pos + data.length, (byte) 0);
+            for (int i = 1; i < data.length; i++)
+                buf.put(pos + i, data[i]);
+            buf.put(pos, data[0]);
+            pos += data.length;
+        } catch (IOException e) {
+            LOGGER.log(WARNING, "Failed to write to the session journal " + file + ". Disabling it", e);
+            broken = true;
+        }
+    }
+
+    /**
+     * Starts over from the beginning of the file, since nothing is open.
+     */
+    private void reset() {
+        if (buf != null) {
+            buf.put(0, (byte) 0);
+            pos = 0;
+        }
+    }
+
+    private void create() throws IOException {
+        if (!dir.isDirectory()) {
+            if (!dir.mkdirs())
+                throw new IOException("Unable to create " + dir);
+            restrict(dir);
+        }
+        String name = ManagementFactory.getRuntimeMXBean().getName().replaceAll("[^A-Za-z0-9@.-]", "_");
+        file = File.createTempFile(name + '-', SUFFIX, dir);
+        restrict(file);     // before anything is written to it
+        own(file);
+        raf = new RandomAccessFile(file, "rw");
+        lock = raf.getChannel().tryLock();
+        if (lock == null)
+            throw new IOException("Unable to lock " + file);
+        remap(INITIAL_SIZE);
+    }
+
+    /**
+     * Journal file of this instance, or null if it hasn't been created yet.
+     */
+    synchronized File getFile() {
+        return file;
+    }
+
+    /**
+     * Lists the journal among those of this JVM.
+     */
+    private static void own(File f) {
+        String path = f.getAbsolutePath();
+        synchronized (System.getProperties()) {
+            String v = System.getProperty(OWNED);
+            System.setProperty(OWNED, v == null || v.length() == 0 ? path : v + File.pathSeparator + path);
+        }
+    }
+
+    private static void disown(File f) {
+        String path = f.getAbsolutePath();
+        synchronized (System.getProperties()) {
+            StringBuilder b = new StringBuilder();
+            for (String p : System.getProperty(OWNED, "").split(File.pathSeparator)) {
+                if (p.length() == 0 || p.equals(path))
+                    continue;
+                if (b.length() > 0)
+                    b.append(File.pathSeparator);
+                b.append(p);
+            }
+            System.setProperty(OWNED, b.toString());
+        }
+    }
+
+    /**
+     * Is the journal written by this JVM, through any class loader?
+     */
+    static boolean isOwned(File f) {
+        String path = f.getAbsolutePath();
+        for (String p : System.getProperty(OWNED, "").split(File.pathSeparator))
+            if (p.equals(path))
+                return true;
+        return false;
+    }
+
+    /**
+     * Makes the file accessible only by its owner, as far as the platform allows.
+     */
+    private static void restrict(File f) {
+        boolean ok = f.setReadable(false, false) & f.setReadable(true, true)
+                & f.setWritable(false, false) & f.setWritable(true, true);
+        if (f.isDirectory())
+            ok &= f.setExecutable(false, false) & f.setExecutable(true, true);
+        if (!ok)
+            LOGGER.log(FINE, "Failed to restrict the access to " + f);
+    }
+
+    private void remap(int size) throws IOException {
+        raf.setLength(size);
+        buf = raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Closes the journal as if this JVM died, leaving the journal for the other JVMs to find.
+     */
+    synchronized void abandon() throws IOException {
+        if (raf != null)
+            raf.close();    // releases the lock
+        if (file != null)
+            disown(file);
+        raf = null;
+        buf = null;
+        broken = true;
+    }
+
+    /**
+     * Ends the sessions recorded in the journals of the JVMs that are gone, and deletes those journals.
+     *
+     * @return number of sessions ended.
+     */
+    public int reclaimOrphans() {
+        if (dir == null) return 0;
+        File[] files = dir.listFiles();
+        if (files == null) return 0;
+
+        int n = 0;
+        for (File f : files) {
+            if (!f.getName().endsWith(SUFFIX) || f.equals(file))
+                continue;
+            if (System.currentTimeMillis() - f.lastModified() < minAge)
+                continue;   // its JVM may not have locked it yet
+            try {
+                n += reclaim(f);
+            } catch (IOException e) {
+                LOGGER.log(WARNING, "Failed to read the session journal " + f, e);
+            }
+        }
+        return n;
+    }
+
+    private int reclaim(File f) throws IOException {
+        if (isOwned(f))
+            return 0;   // alive in this JVM, and closing a channel to it would drop its lock
+
+        Map<String, String[]> sessions;
+        RandomAccessFile r = new RandomAccessFile(f, "rw");
+        try {
+            FileLock l;
+            try {
+                l = r.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                l = null;   // shouldn't happen, since the journals of this JVM aren't opened
+            }
+            if (l == null)
+                return 0;   // the owner is still alive
+            sessions = read(r.getChannel());
+        } finally {
+            r.close();
+        }
+
+        int n = 0;
+        for (Map.Entry<String, String[]> e : sessions.entrySet()) {
+            String[] v = e.getValue();
+            try {
+                terminate(v[0], e.getKey(), v[1]);
+                LOGGER.log(INFO, "Ended the orphaned session " + e.getKey() + " left behind by " + f.getName());
+                n++;
+            } catch (ConnectException x) {
+                // the server is gone, and so is the session. this is always the case with embedded RCs
+                LOGGER.log(FINE, "Server of the orphaned session " + e.getKey() + " is gone", x);
+            } catch (IOException x) {
+                LOGGER.log(WARNING, "Failed to end the orphaned session " + e.getKey(), x);
+            }
+        }
+        if (!f.delete())
+            LOGGER.log(FINE, "Failed to delete " + f);
+        return n;
+    }
+
+    /**
+     * Reads a journal into the map from session IDs to their kinds and endpoints.
+     */
+    private static Map<String, String[]> read(FileChannel ch) throws IOException {
+        Map<String, String[]> sessions = new LinkedHashMap<String, String[]>();
+        int size = (int) ch.size();
+        if (size == 0)
+            return sessions;
+
+        MappedByteBuffer b = ch.map(MapMode.READ_ONLY, 0, size);
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            byte c = b.get(i);
+            if (c == 0)
+                break;
+            if (c != '\n')
+                continue;
+
+            byte[] line = new byte[i - start];
+            for (int j = 0; j < line.length; j++)
+                line[j] = b.get(start + j);
+            start = i + 1;
+
+            String[] tokens = new String(line, "UTF-8").split("\t");
+            if (tokens[0].equals("O") && tokens.length == 4)
+                sessions.put(tokens[2], new String[]{tokens[1], tokens[3]});
+            else if (tokens[0].equals("C") && tokens.length == 2)
+                sessions.remove(tokens[1]);
+        }
+        return sessions;
+    }
+
+    /**
+     * Ends a session on the server.
+     */
+    static void terminate(String kind, String sessionId, String endpoint) throws IOException {
+        URL url;
+        String method;
+        if (kind.equals(WEBDRIVER)) {
+            url = new URL(endpoint + "/session/" + sessionId);
+            method = "DELETE";
+        } else {
+            url = new URL(endpoint + "/selenium-server/driver/?cmd=testComplete&sessionId=" + URLEncoder.encode(sessionId, "UTF-8"));
+            method = "GET";
+        }
+
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        con.setRequestMethod(method);
+        con.setConnectTimeout(TIMEOUT);
+        con.setReadTimeout(TIMEOUT);
+        if (url.getUserInfo() != null)  // userinfo in the URL doesn't result in the BASIC auth
+            con.setRequestProperty("Authorization", "Basic " + base64(url.getUserInfo()));
+        try {
+            int code = con.getResponseCode();
+            if (code >= 500)
+                throw new IOException("Server responded " + code + " to " + method + " " + url.getPath());
+            InputStream in = code >= 400 ? con.getErrorStream() : con.getInputStream();
+            if (in != null) {
+                byte[] tmp = new byte[1024];
+                while (in.read(tmp) >= 0)
+                    ;
+                in.close();
+            }
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    private static String base64(String s) throws UnsupportedEncodingException {
+        byte[] data = s.getBytes("UTF-8");
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < data.length; i += 3) {
+            int b = (data[i] & 0xFF) << 16;
+            if (i + 1 < data.length) b |= (data[i + 1] & 0xFF) << 8;
+            if (i + 2 < data.length) b |= data[i + 2] & 0xFF;
+            buf.append(BASE64.charAt(b >> 18 & 63));
+            buf.append(BASE64.charAt(b >> 12 & 63));
+            buf.append(i + 1 < data.length ? BASE64.charAt(b >> 6 & 63) : '=');
+            buf.append(i + 2 < data.length ? BASE64.charAt(b & 63) : '=');
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Gets the journal of this JVM.
+     */
+    public static SessionJournal getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Ends the sessions left behind by the JVMs that are gone, in the background.
+     */
+    static void reclaimOrphansAsync() {
+        if (DEFAULT.dir == null) return;
+        Thread t = new Thread("Selenium orphaned session cleanup") {
+            @Override
+            public void run() {
+                try {
+                    DEFAULT.reclaimOrphans();
+                } catch (RuntimeException e) {
+                    LOGGER.log(WARNING, "Failed to end the orphaned sessions", e);
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static final String SUFFIX = ".journal";
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    private static final long MIN_AGE = 60 * 1000;
+
+    private static final int TIMEOUT = 10000;
+
+    private static final String BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    /**
+     * System property that lists the journals of this JVM, separated by {@link File#pathSeparator}.
+     */
+    private static final String OWNED = SessionJournal.class.getName() + ".owned";
+
+    private static final Logger LOGGER = Logger.getLogger(SessionJournal.class.getName());
+
+    private static final SessionJournal DEFAULT = new SessionJournal(
+            !Boolean.valueOf(System.getProperty(SessionJournal.class.getName() + ".enabled", "true")) ? null
+            : new File(System.getProperty(SessionJournal.class.getName() + ".dir",
+                    System.getProperty("user.home") + "/.selenium-client-factory/sessions")));
+}
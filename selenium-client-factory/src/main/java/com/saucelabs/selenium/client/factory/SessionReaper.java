@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Ends the sessions that the tests forgot to quit, so that they don't hold on to remote browsers,
+ * embedded Selenium RC servers, or HtmlUnit threads until the JVM exits.
+ *
+ * <p>
+ * Once {@link SeleniumFactory} hands out the first session, a background thread periodically looks
+ * at the sessions in {@link SessionRegistry} and:
+ * <ul>
+ * <li>quits sessions that haven't been used for longer than the {@linkplain #setIdleTimeout(long) idle timeout}.
+ *     Drivers that don't report their use through {@link SessionRegistry#touch(Object)} are considered idle
+ *     since their creation, so pick a timeout longer than the longest test. The timeout is off by default.
+ * <li>ends the sessions of drivers that have been garbage collected without being quit,
+ *     if the driver {@linkplain com.saucelabs.selenium.client.factory.spi.Reclaimable knows how to}.
+ * </ul>
+ * When the JVM exits, all the sessions still open are quit in parallel.
+ *
+ * <p>
+ * The following system properties, prefixed by "com.saucelabs.selenium.client.factory.SessionReaper.",
+ * control the behavior: "idleTimeout" (milliseconds, 0 to disable), "interval" (milliseconds between checks,
+ * defaults to 10 seconds), and "exitTimeout" (milliseconds to wait for the sessions to quit when the JVM exits,
+ * defaults to 30 seconds, 0 to leave them open.)
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class SessionReaper {
+    private SessionReaper() {}
+
+    /**
+     * Milliseconds a session can stay unused before it gets quit, or 0 if sessions never time out.
+     */
+    public static long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public static void setIdleTimeout(long millis) {
+        idleTimeout = millis;
+    }
+
+    /**
+     * Checks all the sessions right now, rather than waiting for the background thread to do so.
+     *
+     * @return number of sessions ended.
+     */
+    public static int reap() {
+        int n = 0;
+
+        TrackedSession s;
+        while ((s = SessionRegistry.pollUnreachable()) != null) {
+            if (reclaim(s))
+                n++;
+        }
+
+        long timeout = idleTimeout;
+        if (timeout > 0) {
+            List<TrackedSession> idle = new ArrayList<TrackedSession>();
+            for (TrackedSession t : SessionRegistry.getSessions()) {
+                if (t.getIdleTime() > timeout) {
+                    LOGGER.log(WARNING, "Quitting " + t + ", which has been idle for " + t.getIdleTime() / 1000 + " seconds");
+                    idle.add(t);
+                }
+            }
+            n += quitAll(idle, INTERVAL > 0 ? INTERVAL : timeout);
+        }
+        return n;
+    }
+
+    private static boolean reclaim(TrackedSession s) {
+        try {
+            if (s.reclaim()) {
+                LOGGER.log(WARNING, "Ended " + s + ", which was garbage collected without being quit");
+                return true;
+            }
+            LOGGER.log(WARNING, s + " was garbage collected without being quit, and its driver doesn't know how to end it");
+        } catch (RuntimeException e) {
+            LOGGER.log(WARNING, "Failed to end " + s + ", which was garbage collected without being quit", e);
+        }
+        return false;
+    }
+
+    /**
+     * Quits the given sessions in parallel, so that a few slow remote browsers don't hold up the rest.
+     *
+     * @param timeout
+     *      Milliseconds to wait for the sessions to quit. Sessions still quitting then are left behind.
+     * @return number of sessions quit.
+     */
+    static int quitAll(List<TrackedSession> sessions, long timeout) {
+        if (sessions.isEmpty())
+            return 0;
+
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger threads = new AtomicInteger();
+        ExecutorService es = Executors.newFixedThreadPool(Math.min(sessions.size(), MAX_THREADS), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Selenium session reaper #" + threads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        for (final TrackedSession s : sessions) {
+            es.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (s.quit())
+                            count.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(FINE, "Failed to quit " + s, e);
+                    }
+                }
+            });
+        }
+        es.shutdown();
+        try {
+            if (!es.awaitTermination(timeout, TimeUnit.MILLISECONDS))
+                LOGGER.log(WARNING, "Gave up waiting for " + (sessions.size() - count.get()) + " sessions to quit");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return count.get();
+    }
+
+    /**
+     * Starts the background thread and the shutdown hook, unless they have already been started.
+     */
+    static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        if (INTERVAL > 0) {
+            ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Selenium session reaper");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            reaper.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        reap();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(WARNING, "Failed to reap the sessions", e);
+                    }
+                }
+            }, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+        }
+
+        if (EXIT_TIMEOUT > 0) {
+            Runtime.getRuntime().addShutdownHook(new Thread("Selenium session cleanup") {
+                @Override
+                public void run() {
+                    List<TrackedSession> open = SessionRegistry.getSessions();
+                    if (!open.isEmpty())
+                        LOGGER.info("Quitting " + open.size() + " sessions that are still open");
+                    quitAll(open, EXIT_TIMEOUT);
+
+                    TrackedSession s;
+                    while ((s = SessionRegistry.pollUnreachable()) != null)
+                        reclaim(s);
+                }
+            });
+        }
+    }
+
+    private static boolean started;
+
+    private static volatile long idleTimeout = Long.getLong(SessionReaper.class.getName() + ".idleTimeout", 0);
+
+    private static final long INTERVAL = Long.getLong(SessionReaper.class.getName() + ".interval", 10000);
+
+    private static final long EXIT_TIMEOUT = Long.getLong(SessionReaper.class.getName() + ".exitTimeout", 30000);
+
+    private static final int MAX_THREADS = 16;
+
+    private static final Logger LOGGER = Logger.getLogger(SessionReaper.class.getName());
+}
@@ -0,0 +1,355 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the {@link WebDriver} and {@link Selenium} sessions that {@link SeleniumFactory} handed out
+ * and that haven't been quit yet, so that leaked sessions can be found and quit while the tests are running.
+ *
+ * <p>
+ * Drivers are only weakly referenced, so tracking never keeps a driver alive. A session leaves the registry
+ * when its driver is quit, or when the driver is garbage collected, in which case {@link SessionReaper} ends
+ * the session. Drivers report their quit by calling {@link #ended(Object)}, and their use by calling
+ * {@link #touch(Object)}. When one driver wraps another, like "log:..." does, only the outer driver
+ * that the application gets to see is tracked.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class SessionRegistry {
+    private SessionRegistry() {}
+
+    /**
+     * Returns all the sessions that are still alive, oldest first.
+     */
+    public static List<TrackedSession> getSessions() {
+        List<TrackedSession> r = new ArrayList<TrackedSession>();
+        for (TrackedSession s : SESSIONS.values()) {
+            if (s.isAlive())
+                r.add(s);
+        }
+        Collections.sort(r, new Comparator<TrackedSession>() {
+            public int compare(TrackedSession o1, TrackedSession o2) {
+                return o1.getId() < o2.getId() ? -1 : o1.getId() == o2.getId() ? 0 : 1;
+            }
+        });
+        return r;
+    }
+
+    /**
+     * Finds a live session by its {@linkplain TrackedSession#getId() ID}.
+     *
+     * @return null if no such session is alive.
+     */
+    public static TrackedSession get(long id) {
+        TrackedSession s = SESSIONS.get(id);
+        return s != null && s.isAlive() ? s : null;
+    }
+
+    /**
+     * Finds the live session of the given driver.
+     *
+     * <p>
+     * This is called on every command of every driver, so it looks the driver up by its identity
+     * instead of going through all the sessions.
+     *
+     * @return null if the driver isn't tracked.
+     */
+    public static TrackedSession find(Object driver) {
+        if (driver == null)
+            return null;
+        TrackedSession[] candidates = BY_DRIVER.get(System.identityHashCode(driver));
+        if (candidates != null) {
+            for (TrackedSession s : candidates) {
+                if (s.getDriver() == driver)
+                    return s;
+            }
+        }
+        return null;
+    }
+
+    private static void index(TrackedSession s) {
+        synchronized (BY_DRIVER) {
+            TrackedSession[] old = BY_DRIVER.get(s.driverHash);
+            int n = old == null ? 0 : old.length;
+            TrackedSession[] r = new TrackedSession[n + 1];
+            if (old != null)
+                System.arraycopy(old, 0, r, 0, n);
+            r[n] = s;
+            BY_DRIVER.put(s.driverHash, r);
+        }
+    }
+
+    private static void unindex(TrackedSession s) {
+        synchronized (BY_DRIVER) {
+            TrackedSession[] old = BY_DRIVER.get(s.driverHash);
+            if (old == null)
+                return;
+            List<TrackedSession> r = new ArrayList<TrackedSession>(old.length);
+            for (TrackedSession o : old) {
+                if (o != s)
+                    r.add(o);
+            }
+            if (r.isEmpty())
+                BY_DRIVER.remove(s.driverHash);
+            else
+                BY_DRIVER.put(s.driverHash, r.toArray(new TrackedSession[r.size()]));
+        }
+    }
+
+    /**
+     * Drivers call this method when they are quit or stopped.
+     *
+     * @param driver
+     *      The driver object that the application holds. Calling this with a driver that isn't tracked is a no-op.
+     */
+    public static void ended(Object driver) {
+        TrackedSession s = find(driver);
+        if (s != null)
+            remove(s);
+    }
+
+    private static void remove(TrackedSession s) {
+        s.end();
+        SESSIONS.remove(s.getId());
+        unindex(s);
+    }
+
+    /**
+     * Drivers call this method when they are used, so that {@link SessionReaper} can tell idle sessions apart.
+     * Calling this with a driver that isn't tracked is a no-op.
+     */
+    public static void touch(Object driver) {
+        TrackedSession s = find(driver);
+        if (s != null)
+            s.touch();
+    }
+
+    /**
+     * Takes away the {@link AdmissionScheduler} permit held by the session of the given driver, so that it's not
+     * given back when the driver is quit. This is for drivers that keep the remote session open after
+     * they are quit, like "pool:...", which then give the permit back when they really end the session.
+     *
+     * @return null if the driver isn't tracked or holds no permit.
+     */
+    public static AdmissionScheduler.Permit takePermit(Object driver) {
+        TrackedSession s = find(driver);
+        return s != null ? s.takePermit() : null;
+    }
+
+    /**
+     * Stops tracking the given driver, for drivers that wrap a session created outside
+     * {@link SeleniumFactory#createWebDriverInstance(String, org.openqa.selenium.remote.DesiredCapabilities)}
+     * and have it tracked under their own identity.
+     */
+    public static void untrack(Object driver) {
+        ended(driver);
+    }
+
+    /**
+     * Marks the beginning of a driver creation on the current thread.
+     *
+     * @return the value to be passed to {@link #endCreation(Object, Object, String, AdmissionScheduler.Permit)}.
+     */
+    static Object beginCreation() {
+        List<TrackedSession> outer = NESTED.get();
+        NESTED.set(new ArrayList<TrackedSession>());
+        return outer;
+    }
+
+    /**
+     * Marks the end of a driver creation, and starts tracking the driver that was created.
+     * Sessions created by the nested driver creations are taken over by the new driver.
+     *
+     * @param driver
+     *      null if the creation failed, in which case the sessions created by the nested driver creations
+     *      remain tracked, as nobody else is going to quit them.
+     * @param permit
+     *      Permit the new session holds until it ends, or null.
+     */
+    @SuppressWarnings("unchecked")
+    static void endCreation(Object marker, Object driver, String uri, AdmissionScheduler.Permit permit) {
+        List<TrackedSession> outer = (List<TrackedSession>) marker;
+        List<TrackedSession> nested = NESTED.get();
+        NESTED.set(outer);
+
+        if (driver == null) {
+            if (outer != null)
+                outer.addAll(nested);
+            return;
+        }
+
+        TrackedSession s = find(driver);
+        for (TrackedSession n : nested) {
+            if (n != s)
+                remove(n);
+        }
+        if (s == null) {
+            s = new TrackedSession(ID.incrementAndGet(), driver, uri, OWNER.get() != null ? OWNER.get() : computeOwner(),
+                    createReclaimer(driver), QUEUE);
+            SESSIONS.put(s.getId(), s);
+            index(s);
+            SessionReaper.start();
+        }
+        if (permit != null)
+            s.hold(permit);
+        if (outer != null)
+            outer.add(s);
+    }
+
+    /**
+     * Takes out the next session whose driver has been garbage collected without being quit.
+     *
+     * @return null if there's none.
+     */
+    static TrackedSession pollUnreachable() {
+        TrackedSession.Phantom p;
+        while ((p = (TrackedSession.Phantom) QUEUE.poll()) != null) {
+            TrackedSession s = p.session;
+            unindex(s);
+            if (SESSIONS.remove(s.getId()) != null && !s.isEnded()) {
+                s.end();
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decides how to end the session once the driver is gone. This must not refer to the driver.
+     */
+    private static Runnable createReclaimer(Object driver) {
+        // check proxies first, since they also implement the interfaces of the driver they wrap
+        if (Proxy.isProxyClass(driver.getClass()))
+            return createReclaimer(Proxy.getInvocationHandler(driver), driver instanceof WebDriver ? QUIT : STOP);
+        if (driver instanceof Reclaimable)
+            return ((Reclaimable) driver).getReclaimer();
+        return null;
+    }
+
+    private static Runnable createReclaimer(final InvocationHandler handler, final Method quit) {
+        return new Runnable() {
+            public void run() {
+                try {
+                    handler.invoke(null, quit, null);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Failed to " + quit.getName() + " the session", t);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a driver creation that runs on another thread, so that the session is attributed to the current thread.
+     */
+    static <T> Callable<T> inheritOwner(final Callable<T> task) {
+        final String owner = OWNER.get() != null ? OWNER.get() : computeOwner();
+        return new Callable<T>() {
+            public T call() throws Exception {
+                String old = OWNER.get();
+                OWNER.set(owner);
+                try {
+                    return task.call();
+                } finally {
+                    OWNER.set(old);
+                }
+            }
+        };
+    }
+
+    private static String computeOwner() {
+        Thread t = Thread.currentThread();
+        for (StackTraceElement e : t.getStackTrace()) {
+            if (!isLibraryFrame(e.getClassName()))
+                return t.getName() + " at " + e;
+        }
+        return t.getName();
+    }
+
+    private static boolean isLibraryFrame(String className) {
+        for (String p : LIBRARY_PACKAGES) {
+            if (className.startsWith(p))
+                return true;
+        }
+        return className.contains("$Proxy");
+    }
+
+    private static final String[] LIBRARY_PACKAGES = {
+        "java.", "javax.", "sun.", "com.sun.", "jdk.",
+        "com.saucelabs.selenium.client.", "com.saucelabs.sauce_ondemand.",
+        "org.openqa.selenium.", "com.thoughtworks.selenium."
+    };
+
+    private static final Map<Long, TrackedSession> SESSIONS = new ConcurrentHashMap<Long, TrackedSession>();
+
+    /**
+     * The same sessions keyed by the identity hash code of their drivers. Hash codes can collide, so each
+     * entry holds all the sessions with the same hash code. The arrays are replaced, never modified.
+     */
+    private static final Map<Integer, TrackedSession[]> BY_DRIVER = new ConcurrentHashMap<Integer, TrackedSession[]>();
+
+    private static final AtomicLong ID = new AtomicLong();
+
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+
+    private static final Method QUIT;
+    private static final Method STOP;
+
+    static {
+        try {
+            QUIT = WebDriver.class.getMethod("quit");
+            STOP = Selenium.class.getMethod("stop");
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Sessions created so far by the driver creations in progress on the current thread.
+     */
+    private static final ThreadLocal<List<TrackedSession>> NESTED = new ThreadLocal<List<TrackedSession>>();
+
+    /**
+     * Owner inherited from the thread that asked for the driver, when the driver is created on another thread.
+     */
+    private static final ThreadLocal<String> OWNER = new ThreadLocal<String>();
+}
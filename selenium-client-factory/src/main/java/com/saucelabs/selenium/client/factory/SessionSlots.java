@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session permits shared by the JVMs on the same machine, in the form of lock files in a shared directory.
+ *
+ * <p>
+ * Slot N is the file "slot-N.lock", and a JVM holds the slot while it holds an exclusive lock on the file.
+ * The operating system releases the lock when the process dies, so slots are never lost to a crashed JVM.
+ * JVMs waiting for a slot poll with a random delay, which spreads the slots among them without
+ * a broker process.
+ *
+ * <p>
+ * Closing any channel to a file may release all the locks the JVM holds on that file,
+ * so there's only one instance per directory, and it never touches a slot it holds.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see AdmissionScheduler#setSharedDirectory(File)
+ */
+final class SessionSlots {
+    private final File dir;
+    /**
+     * Slots held by this JVM.
+     */
+    private final Map<Integer, FileLock> held = new HashMap<Integer, FileLock>();
+    private final Random random = new Random();
+
+    private SessionSlots(File dir) {
+        this.dir = dir;
+    }
+
+    File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Waits for one of the slots to become available, and takes it.
+     *
+     * @param count
+     *      Number of slots.
+     * @param deadline
+     *      {@link System#nanoTime()} to give up at, or 0 to wait forever.
+     * @return the slot number, or -1 if the deadline has passed.
+     */
+    int acquire(int count, long deadline) throws InterruptedException {
+        while (true) {
+            int start = nextInt(count);
+            for (int i = 0; i < count; i++) {
+                int slot = (start + i) % count;
+                if (tryLock(slot))
+                    return slot;
+            }
+
+            long delay = TimeUnit.MILLISECONDS.toNanos(MIN_POLL + nextInt(MAX_POLL - MIN_POLL));
+            if (deadline != 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return -1;
+                delay = Math.min(delay, remaining);
+            }
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    private synchronized int nextInt(int n) {
+        return random.nextInt(n);
+    }
+
+    private synchronized boolean tryLock(int slot) {
+        if (held.containsKey(slot))
+            return false;
+
+        RandomAccessFile raf = null;
+        try {
+            dir.mkdirs();
+            raf = new RandomAccessFile(new File(dir, "slot-" + slot + ".lock"), "rw");
+            FileLock lock = raf.getChannel().tryLock();
+            if (lock == null)
+                return false;
+            held.put(slot, lock);
+            raf = null;
+            return true;
+        } catch (OverlappingFileLockException e) {
+            // shouldn't happen, since we don't touch the slots we hold
+            return false;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to lock a session slot in " + dir, e);
+        } finally {
+            close(raf);
+        }
+    }
+
+    synchronized void release(int slot) {
+        FileLock lock = held.remove(slot);
+        if (lock != null) {
+            try {
+                // this releases the lock
+                lock.channel().close();
+            } catch (IOException e) {
+                // the lock goes away when the process exits anyway
+            }
+        }
+    }
+
+    /**
+     * Number of slots held by this JVM.
+     */
+    synchronized int getHeldCount() {
+        return held.size();
+    }
+
+    private static void close(RandomAccessFile raf) {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Gets the only instance for the given directory.
+     */
+    static SessionSlots forDirectory(File dir) {
+        dir = dir.getAbsoluteFile();
+        synchronized (INSTANCES) {
+            SessionSlots s = INSTANCES.get(dir);
+            if (s == null)
+                INSTANCES.put(dir, s = new SessionSlots(dir));
+            return s;
+        }
+    }
+
+    private static final Map<File, SessionSlots> INSTANCES = new HashMap<File, SessionSlots>();
+
+    private static final int MIN_POLL = 50;
+    private static final int MAX_POLL = 250;
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link WebDriver} or {@link Selenium} session handed out by {@link SeleniumFactory}, as tracked by {@link SessionRegistry}.
+ *
+ * <p>
+ * The driver is only weakly referenced, so a session whose driver got garbage collected
+ * disappears from the registry, and {@link SessionReaper} ends it if the driver knows how to.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class TrackedSession {
+    private final long id;
+    private final String uri;
+    private final String owner;
+    private final long creationTime = System.currentTimeMillis();
+    private final WeakReference<Object> driver;
+    /**
+     * {@link System#identityHashCode(Object)} of the driver, which {@link SessionRegistry} indexes sessions by.
+     */
+    final int driverHash;
+    /**
+     * Enqueued once the driver is really gone, to have the session reclaimed.
+     */
+    private final Phantom phantom;
+    /**
+     * Ends the session without the driver, or null if the driver doesn't support that.
+     */
+    private final Runnable reclaimer;
+    private volatile long lastActivity = creationTime;
+    private volatile boolean ended;
+    /**
+     * Given back when the session ends, or null if the session wasn't admitted by {@link AdmissionScheduler}.
+     */
+    private final AtomicReference<AdmissionScheduler.Permit> permit = new AtomicReference<AdmissionScheduler.Permit>();
+
+    TrackedSession(long id, Object driver, String uri, String owner, Runnable reclaimer, ReferenceQueue<Object> queue) {
+        this.id = id;
+        this.driver = new WeakReference<Object>(driver);
+        this.driverHash = System.identityHashCode(driver);
+        this.phantom = new Phantom(driver, queue, this);
+        this.uri = uri;
+        this.owner = owner;
+        this.reclaimer = reclaimer;
+    }
+
+    /**
+     * Number that identifies this session within the JVM.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Driver URI the session was created from.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Driver URI without the query parameters.
+     */
+    public String getEndpoint() {
+        int q = uri.indexOf('?');
+        return q < 0 ? uri : uri.substring(0, q);
+    }
+
+    /**
+     * Who created this session, which is the name of the thread followed by the first stack frame
+     * outside Selenium and this library, such as "main at com.example.LoginTest.testLogin(LoginTest.java:42)".
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * When the session was created, in {@link System#currentTimeMillis()}.
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * Milliseconds since the session was created.
+     */
+    public long getAge() {
+        return System.currentTimeMillis() - creationTime;
+    }
+
+    /**
+     * When the driver last reported its use, in {@link System#currentTimeMillis()}.
+     * Drivers that don't report their use stay at the creation time.
+     *
+     * @see SessionRegistry#touch(Object)
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Milliseconds since the driver was last used.
+     */
+    public long getIdleTime() {
+        return System.currentTimeMillis() - lastActivity;
+    }
+
+    void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the driver of this session.
+     *
+     * @return null if the driver has been garbage collected.
+     */
+    public Object getDriver() {
+        return driver.get();
+    }
+
+    /**
+     * Whether the session is neither quit nor garbage collected.
+     */
+    public boolean isAlive() {
+        return !ended && driver.get() != null;
+    }
+
+    void end() {
+        ended = true;
+        phantom.clear();
+        AdmissionScheduler.Permit p = permit.getAndSet(null);
+        if (p != null)
+            p.release();
+    }
+
+    /**
+     * Makes the session hold the given permit until it ends.
+     */
+    void hold(AdmissionScheduler.Permit p) {
+        AdmissionScheduler.Permit old = permit.getAndSet(p);
+        if (old != null && old != p)
+            old.release();
+        if (ended)
+            end();
+    }
+
+    /**
+     * Takes away the permit of this session, so that it's not given back when the session ends.
+     *
+     * @return null if the session holds no permit.
+     */
+    AdmissionScheduler.Permit takePermit() {
+        return permit.getAndSet(null);
+    }
+
+    boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Ends the session of a driver that has been garbage collected.
+     *
+     * @return false if the driver doesn't know how to do that.
+     */
+    boolean reclaim() {
+        if (reclaimer == null)
+            return false;
+        reclaimer.run();
+        return true;
+    }
+
+    /**
+     * Quits the session on behalf of its owner, for example because it has been leaked.
+     *
+     * @return false if the session has already ended.
+     */
+    public boolean quit() {
+        Object d = driver.get();
+        if (ended || d == null)
+            return false;
+        try {
+            if (d instanceof WebDriver)
+                ((WebDriver) d).quit();
+            else if (d instanceof Selenium)
+                ((Selenium) d).stop();
+        } finally {
+            SessionRegistry.ended(d);
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + id + " " + uri + " created by " + owner;
+    }
+
+    static final class Phantom extends PhantomReference<Object> {
+        final TrackedSession session;
+
+        Phantom(Object driver, ReferenceQueue<Object> queue, TrackedSession session) {
+            super(driver, queue);
+            this.session = session;
+        }
+    }
+}
@@ -23,24 +23,65 @@
  */
 package com.saucelabs.selenium.client.factory.impl;
 
+import com.saucelabs.selenium.client.factory.DriverConfigurationException;
 import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionJournal;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.metrics.DriverMetrics;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
 import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+import com.thoughtworks.selenium.CommandProcessor;
 import com.thoughtworks.selenium.DefaultSelenium;
+import com.thoughtworks.selenium.HttpCommandProcessor;
 import com.thoughtworks.selenium.Selenium;
 import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.DriverCommand;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.UnreachableBrowserException;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * {@link SeleniumFactorySPI} that connects to Selenium RCs over its standard HTTP-based protocol.
  *
+ * <p>
+ * The URI can list multiple hubs separated by ',', as in "http://hubA:4444,hubB:4444/*firefox",
+ * or the hubs can be given in the "hubs" factory property in the "host:port,host:port" format.
+ * New sessions are then spread across the hubs of the {@link HubCluster}, according to the
+ * {@link HubStrategy} given in the "hubStrategy" factory property (or the
+ * "com.saucelabs.selenium.client.factory.impl.DefaultSeleniumSPIImpl.hubStrategy" system property.)
+ * Hubs that can't be reached are taken out of rotation until they recover.
+ *
+ * <p>
+ * A URI with a single hub is connected to as is, but what happens to the hub is tracked just the same.
+ *
+ * <p>
+ * {@link HubHealthMonitor} keeps checking the hubs in the background, and a session requested
+ * when all the hubs are known to be down fails right away, except that one session per probe interval
+ * is still sent to find out if a hub has come back.
+ *
  * @author Kohsuke Kawaguchi
  */
 @MetaInfServices
@@ -49,26 +90,23 @@ public class DefaultSeleniumSPIImpl extends SeleniumFactorySPI {
     public Selenium createSelenium(SeleniumFactory factory,String browserURL) {
         if (!canHandle(factory.getUri()))  return null;    // doesn't belong to us
 
+        HubCluster cluster = getCluster(factory);
+        if (cluster!=null) {
+            HubEndpoint hub = select(cluster, factory);
+            return new BalancedSelenium(hub, hub.getHost(), hub.getPort(), MetricsRegistry.forUri(factory.getUri()),
+                    getBrowserStartCommand(factory, getPath(factory.getUri())), browserURL);
+        }
+
         try {
             URL url = new URL(factory.getUri());
 
             int p = url.getPort();
             if (p==-1)  p = DEFAULT_PORT;
 
-            // since the browser start command parameter can contain arbitrary character that may
-            // potentially interfere with the rules of the URL, allow the user to specify it through a property.
-            String browserStartCommand = (String)factory.getProperty("browserStartCommand");
-            if (browserStartCommand==null)
-                // getPath starts with '/', so trim it off
-                // do URL decode, so that arbitrary strings can be passed in.
-                browserStartCommand = URLDecoder.decode(url.getPath().substring(1), "UTF-8");
-
-            return new DefaultSelenium(url.getHost(), p, browserStartCommand, browserURL);
+            return new BalancedSelenium(select(getCluster(url, DEFAULT_PORT), factory), url.getHost(), p,
+                    MetricsRegistry.forUri(factory.getUri()), getBrowserStartCommand(factory, url.getPath()), browserURL);
         } catch (MalformedURLException e) {
-            throw new IllegalArgumentException("Invalid URL: "+factory.getUri(),e);
-        } catch (UnsupportedEncodingException e) {
-            // impossible
-            throw new Error(e);
+            throw new DriverConfigurationException("Invalid URL: "+factory.getUri(),e);
         }
     }
 
@@ -77,42 +115,341 @@ public class DefaultSeleniumSPIImpl extends SeleniumFactorySPI {
         if (!canHandle(factory.getUri()))  return null;    // doesn't belong to us
 
         try {
-            URL url = new URL(factory.getUri());
-
-            // since the browser start command parameter can contain arbitrary character that may
-            // potentially interfere with the rules of the URL, allow the user to specify it through a property.
-            String browserStartCommand = (String)factory.getProperty("browserStartCommand");
-            if (browserStartCommand==null)
-                // getPath starts with '/', so trim it off
-                // do URL decode, so that arbitrary strings can be passed in.
-                browserStartCommand = URLDecoder.decode(url.getPath().substring(1), "UTF-8");
+            HubCluster cluster = getCluster(factory);
+            URL url = cluster==null ? new URL(factory.getUri()) : null;
+            if (url!=null)
+                cluster = getCluster(url, url.getDefaultPort());
 
             //todo translate browserStartCommand to DesiredCapabilities
 
-            DesiredCapabilities desiredCapabilities = capabilities;
+            // work on a copy, as the capabilities may be shared by drivers being created concurrently
+            DesiredCapabilities desiredCapabilities = new DesiredCapabilities((Capabilities) capabilities);
             desiredCapabilities.merge(DesiredCapabilities.firefox());
-            WebDriver driver = new RemoteWebDriver(url, desiredCapabilities);
+            WebDriver driver = createWebDriver(cluster, getStrategy(factory), MetricsRegistry.forUri(factory.getUri()),
+                                               getPath(factory.getUri()), url, desiredCapabilities);
             if (browserURL != null) {
                 driver.get(browserURL);
             }
             return driver;
         } catch (MalformedURLException e) {
-            throw new IllegalArgumentException("Invalid URL: "+factory.getUri(),e);
+            throw new DriverConfigurationException("Invalid URL: "+factory.getUri(),e);
+        }
+    }
+
+    /**
+     * Starts a session on one of the hubs, moving on to the next hub if one can't be reached.
+     *
+     * @param url
+     *      URL to connect to as is, when the cluster is the single hub of the driver URI. Otherwise null,
+     *      and the URL is built from the hub and the path.
+     */
+    private WebDriver createWebDriver(HubCluster cluster, HubStrategy strategy, DriverMetrics metrics, String path, URL url, DesiredCapabilities capabilities) throws MalformedURLException {
+        Set<HubEndpoint> tried = new HashSet<HubEndpoint>();
+        RuntimeException failure = null;
+        HubEndpoint hub;
+        while ((hub=cluster.select(strategy,tried))!=null) {
+            tried.add(hub);
+            hub.sessionStarted();
+            long start = System.currentTimeMillis();
+            try {
+                WebDriver driver = new BalancedRemoteWebDriver(hub, metrics, url!=null ? url : hub.toURL(path), capabilities);
+                hub.recordSuccess(System.currentTimeMillis()-start);
+                return driver;
+            } catch (RuntimeException e) {
+                hub.sessionEnded();
+                if (!isUnreachable(e))
+                    throw e;    // the hub is fine, but the request is not
+                LOGGER.log(Level.FINE, "Failed to reach "+hub, e);
+                hub.recordFailure();
+                failure = e;
+            }
+        }
+        if (failure==null)  // the cluster had no hub to try
+            throw new UnreachableBrowserException("All the hubs in "+cluster+" are down");
+        throw failure;
+    }
+
+    /**
+     * Gets the hubs listed in the driver URI or the "hubs" property.
+     *
+     * @return null unless multiple hubs are listed in the URI or the "hubs" property is set,
+     *      in which case the URI is connected to as is.
+     */
+    private HubCluster getCluster(SeleniumFactory factory) {
+        Object hubs = factory.getProperty("hubs");
+        if (hubs!=null)
+            return HubCluster.get(Arrays.asList(hubs.toString().split(",")));
+
+        String uri = factory.getUri();
+        if (!uri.startsWith(SCHEME))
+            return null;
+        int end = uri.indexOf('/', SCHEME.length());
+        String authority = uri.substring(SCHEME.length(), end<0 ? uri.length() : end);
+        if (authority.indexOf(',')<0)
+            return null;    // a single hub
+        return HubCluster.get(Arrays.asList(authority.split(",")));
+    }
+
+    /**
+     * Gets the cluster that consists of the single hub of a driver URL, to keep track of the hub.
+     */
+    private static HubCluster getCluster(URL url, int defaultPort) {
+        int p = url.getPort();
+        String hub = url.getHost()+':'+(p==-1 ? defaultPort : p);
+        if (url.getUserInfo()!=null)
+            hub = url.getUserInfo()+'@'+hub;
+        return HubCluster.get(Collections.singletonList(hub));
+    }
+
+    /**
+     * Picks the hub for a new Selenium RC session, which is started later, so the next hub can't be tried.
+     */
+    private HubEndpoint select(HubCluster cluster, SeleniumFactory factory) {
+        HubEndpoint hub = cluster.select(getStrategy(factory), Collections.<HubEndpoint>emptySet());
+        if (hub==null)
+            throw new IllegalArgumentException("All the hubs in "+cluster+" are down");
+        return hub;
+    }
+
+    private HubStrategy getStrategy(SeleniumFactory factory) {
+        Object v = factory.getProperty("hubStrategy");
+        if (v==null)
+            v = System.getProperty(DefaultSeleniumSPIImpl.class.getName()+".hubStrategy");
+        return HubStrategy.of(v, factory.getClassLoader());
+    }
+
+    /**
+     * Gets the path portion of a driver URI, which can't be parsed as {@link URL} when it lists multiple hubs.
+     */
+    private static String getPath(String uri) {
+        int idx = uri.indexOf('/', SCHEME.length());
+        return idx<0 ? "" : uri.substring(idx);
+    }
+
+    private static String getBrowserStartCommand(SeleniumFactory factory, String path) {
+        // since the browser start command parameter can contain arbitrary character that may
+        // potentially interfere with the rules of the URL, allow the user to specify it through a property.
+        String browserStartCommand = (String)factory.getProperty("browserStartCommand");
+        if (browserStartCommand!=null)
+            return browserStartCommand;
+
+        try {
+            // getPath starts with '/', so trim it off
+            // do URL decode, so that arbitrary strings can be passed in.
+            return URLDecoder.decode(path.length()>0 ? path.substring(1) : path, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             // impossible
             throw new Error(e);
         }
     }
 
+    /**
+     * Does this failure indicate that the hub couldn't be reached?
+     */
+    private static boolean isUnreachable(Throwable t) {
+        for (; t!=null; t=t.getCause())
+            if (t instanceof UnreachableBrowserException || t instanceof IOException)
+                return true;
+        return false;
+    }
+
     @Override
     public boolean canHandle(String uri) {
         return uri.startsWith("http:");
     }
 
-    public static final int DEFAULT_PORT = Integer.getInteger(DefaultSeleniumSPIImpl.class.getName()+".defaultPort",4444);
-
     @Override
-    public List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, String browserURL) {
-        throw new IllegalArgumentException("Not Supported");
+    public List<String> getSchemes() {
+        return Collections.singletonList("http");
     }
+
+    /**
+     * {@link RemoteWebDriver} that lets its {@link HubEndpoint} know when the session ends.
+     */
+    private static class BalancedRemoteWebDriver extends RemoteWebDriver implements Reclaimable {
+        private final HubEndpoint hub;
+        private final DriverMetrics metrics;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+
+        BalancedRemoteWebDriver(HubEndpoint hub, DriverMetrics metrics, URL url, Capabilities capabilities) {
+            super(url, capabilities);
+            this.hub = hub;
+            this.metrics = metrics;
+            SessionJournal.getDefault().opened(SessionJournal.WEBDRIVER, getSessionId().toString(), url.toString());
+        }
+
+        @Override
+        public void quit() {
+            long start = System.nanoTime();
+            SessionId id = getSessionId();
+            try {
+                super.quit();
+            } finally {
+                metrics.quitEnded(start);
+                SessionRegistry.ended(this);
+                if (id!=null)
+                    SessionJournal.getDefault().closed(id.toString());
+                if (running.compareAndSet(true,false))
+                    hub.sessionEnded();
+            }
+        }
+
+        @Override
+        protected Response execute(String driverCommand, Map<String, ?> parameters) {
+            SessionRegistry.touch(this);
+            return super.execute(driverCommand, parameters);
+        }
+
+        public Runnable getReclaimer() {
+            return createReclaimer(getCommandExecutor(), getSessionId(), hub, running);
+        }
+
+        private static Runnable createReclaimer(final CommandExecutor executor, final SessionId id, final HubEndpoint hub, final AtomicBoolean running) {
+            return new Runnable() {
+                public void run() {
+                    try {
+                        executor.execute(new Command(id, DriverCommand.QUIT));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Failed to quit session " + id, e);
+                    } finally {
+                        SessionJournal.getDefault().closed(id.toString());
+                        if (running.compareAndSet(true,false))
+                            hub.sessionEnded();
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link DefaultSelenium} that lets its {@link HubEndpoint} know how the session is doing.
+     */
+    private static class BalancedSelenium extends DefaultSelenium implements Reclaimable {
+        private final HubEndpoint hub;
+        private final String endpoint;
+        private final DriverMetrics metrics;
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        BalancedSelenium(HubEndpoint hub, String host, int port, DriverMetrics metrics, String browserStartCommand, String browserURL) {
+            super(host, port, browserStartCommand, browserURL);
+            this.hub = hub;
+            this.endpoint = "http://"+host+":"+port;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void start() {
+            long start = begin();
+            try {
+                super.start();
+            } catch (RuntimeException e) {
+                throw failed(e);
+            }
+            started(start);
+        }
+
+        @Override
+        public void start(String optionsString) {
+            long start = begin();
+            try {
+                super.start(optionsString);
+            } catch (RuntimeException e) {
+                throw failed(e);
+            }
+            started(start);
+        }
+
+        @Override
+        public void start(Object optionsObject) {
+            long start = begin();
+            try {
+                super.start(optionsObject);
+            } catch (RuntimeException e) {
+                throw failed(e);
+            }
+            started(start);
+        }
+
+        @Override
+        public void stop() {
+            long start = System.nanoTime();
+            String id = getSessionId(commandProcessor);
+            try {
+                super.stop();
+            } finally {
+                metrics.quitEnded(start);
+                SessionRegistry.ended(this);
+                SessionJournal.getDefault().closed(id);
+                end();
+            }
+        }
+
+        public Runnable getReclaimer() {
+            return createReclaimer(commandProcessor, hub, running);
+        }
+
+        private static Runnable createReclaimer(final CommandProcessor processor, final HubEndpoint hub, final AtomicBoolean running) {
+            return new Runnable() {
+                public void run() {
+                    String id = getSessionId(processor);
+                    try {
+                        processor.stop();
+                    } finally {
+                        SessionJournal.getDefault().closed(id);
+                        if (running.compareAndSet(true,false))
+                            hub.sessionEnded();
+                    }
+                }
+            };
+        }
+
+        private void started(long start) {
+            hub.recordSuccess(System.currentTimeMillis()-start);
+            SessionJournal.getDefault().opened(SessionJournal.SELENIUM_RC, getSessionId(commandProcessor), endpoint);
+        }
+
+        /**
+         * {@link HttpCommandProcessor} doesn't expose the session ID.
+         *
+         * @return null if the session isn't started.
+         */
+        private static String getSessionId(CommandProcessor processor) {
+            try {
+                Field f = HttpCommandProcessor.class.getDeclaredField("sessionId");
+                f.setAccessible(true);
+                Object id = f.get(processor);
+                return id!=null ? id.toString() : null;
+            } catch (NoSuchFieldException e) {
+                return null;
+            } catch (IllegalAccessException e) {
+                return null;
+            } catch (IllegalArgumentException e) {
+                return null;    // not an HttpCommandProcessor
+            }
+        }
+
+        private long begin() {
+            if (running.compareAndSet(false,true))
+                hub.sessionStarted();
+            return System.currentTimeMillis();
+        }
+
+        private void end() {
+            if (running.compareAndSet(true,false))
+                hub.sessionEnded();
+        }
+
+        private RuntimeException failed(RuntimeException e) {
+            end();
+            if (isUnreachable(e))
+                hub.recordFailure();
+            return e;
+        }
+    }
+
+    private static final String SCHEME = "http://";
+
+    private static final Logger LOGGER = Logger.getLogger(DefaultSeleniumSPIImpl.class.getName());
+
+    public static final int DEFAULT_PORT = Integer.getInteger(DefaultSeleniumSPIImpl.class.getName()+".defaultPort",4444);
 }
@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.impl;
+
+import com.saucelabs.selenium.client.factory.DriverConfigurationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Set of Selenium hubs that new sessions are spread across.
+ *
+ * <p>
+ * Clusters are shared within the JVM, so that all the factories using the same set of hubs
+ * see the same session counts and failures.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class HubCluster {
+    private final String name;
+    private final List<HubEndpoint> endpoints;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private HubCluster(String name, List<HubEndpoint> endpoints) {
+        this.name = name;
+        this.endpoints = Collections.unmodifiableList(endpoints);
+    }
+
+    public List<HubEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Returns the hubs that are currently in rotation.
+     */
+    public List<HubEndpoint> getAvailableEndpoints() {
+        List<HubEndpoint> r = new ArrayList<HubEndpoint>(endpoints.size());
+        for (HubEndpoint h : endpoints)
+            if (h.isAvailable())
+                r.add(h);
+        return r;
+    }
+
+    /**
+     * Picks the hub for the next session.
+     *
+     * @param exclude
+     *      Hubs that have already been tried for this session.
+     * @return
+     *      null if all the hubs are excluded. If none of the remaining hubs is in rotation,
+     *      one of those backing off from failures is returned anyway. When all of them are
+     *      considered dead by the health probes, one is returned only if it's due for
+     *      {@linkplain HubEndpoint#claimTrial(long) a trial}, and null otherwise, so that
+     *      sessions fail right away instead of waiting for a dead hub to time out.
+     */
+    public HubEndpoint select(HubStrategy strategy, Collection<HubEndpoint> exclude) {
+        List<HubEndpoint> available = new ArrayList<HubEndpoint>();
+        List<HubEndpoint> down = new ArrayList<HubEndpoint>();
+        List<HubEndpoint> dead = new ArrayList<HubEndpoint>();
+        for (HubEndpoint h : endpoints) {
+            if (exclude.contains(h))
+                continue;
+            (!h.isAlive() ? dead : h.isAvailable() ? available : down).add(h);
+        }
+        if (available.isEmpty())
+            available = down;
+        if (available.isEmpty()) {
+            for (HubEndpoint h : dead)
+                if (h.claimTrial(HubHealthMonitor.getInterval()))
+                    return h;
+            return null;
+        }
+        return strategy.select(this, available);
+    }
+
+    /**
+     * Rotating counter for {@link HubStrategy#ROUND_ROBIN}.
+     */
+    int nextCursor() {
+        return cursor.getAndIncrement() & Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Gets the cluster of the given hubs.
+     *
+     * @param hubs
+     *      Hubs in the "[user:key@]host[:port]" format. As in "http:" URLs, the port defaults to 80.
+     */
+    public static HubCluster get(List<String> hubs) {
+        List<HubEndpoint> endpoints = new ArrayList<HubEndpoint>(hubs.size());
+        StringBuilder name = new StringBuilder();
+        StringBuilder key = new StringBuilder();
+        for (String hub : hubs) {
+            hub = hub.trim();
+            if (hub.length() == 0)
+                continue;
+            HubEndpoint h = parse(hub);
+            if (name.length() > 0) {
+                name.append(',');
+                key.append(',');
+            }
+            name.append(h);
+            // hubs used with different credentials are different clusters, but keep the credentials out of the name
+            if (h.getUserInfo()!=null)
+                key.append(h.getUserInfo()).append('@');
+            key.append(h);
+            endpoints.add(h);
+        }
+        if (endpoints.isEmpty())
+            throw new DriverConfigurationException("No hub is specified: " + hubs);
+
+        synchronized (CLUSTERS) {
+            HubCluster c = CLUSTERS.get(key.toString());
+            if (c == null) {
+                CLUSTERS.put(key.toString(), c = new HubCluster(name.toString(), endpoints));
+                HubHealthMonitor.getDefault().watch(c);
+            }
+            return c;
+        }
+    }
+
+    /**
+     * Returns all the clusters used in this JVM so far.
+     */
+    public static List<HubCluster> getClusters() {
+        synchronized (CLUSTERS) {
+            return new ArrayList<HubCluster>(CLUSTERS.values());
+        }
+    }
+
+    private static HubEndpoint parse(String hub) {
+        String userInfo = null;
+        String hostPort = hub;
+        int at = hub.lastIndexOf('@');
+        if (at >= 0) {
+            userInfo = hub.substring(0, at);
+            hostPort = hub.substring(at + 1);
+        }
+
+        // the colon that separates the port comes after the closing bracket of an IPv6 address
+        int idx = hostPort.lastIndexOf(':');
+        if (idx < 0 || idx < hostPort.lastIndexOf(']'))
+            return new HubEndpoint(userInfo, hostPort, DEFAULT_PORT);
+        try {
+            return new HubEndpoint(userInfo, hostPort.substring(0, idx), Integer.parseInt(hostPort.substring(idx + 1)));
+        } catch (NumberFormatException e) {
+            throw new DriverConfigurationException("Invalid hub: " + hostPort, e);
+        }
+    }
+
+    /**
+     * Port of "http:" URLs.
+     */
+    private static final int DEFAULT_PORT = 80;
+
+    private static final Map<String, HubCluster> CLUSTERS = new HashMap<String, HubCluster>();
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Periodically checks if the hubs are up, so that sessions aren't sent to a hub that's known to be dead.
+ *
+ * <p>
+ * Without this, creating a session on a dead hub blocks until the TCP connection times out, and every
+ * test queued behind it pays the same price. A probe is a cheap HTTP request to the hub. Any HTTP response
+ * counts as alive. A hub is considered dead only after several probes in a row fail to connect or to get
+ * a response in time, so that a hub that's just busy for a moment isn't taken out of rotation.
+ *
+ * <p>
+ * The {@linkplain #getDefault() default monitor} watches the hubs of all the {@link HubCluster}s, including
+ * the single hub of a driver URI, so that sessions fail right away rather than wait for a dead hub.
+ * It probes them every 10 seconds by default. The interval is controlled by the
+ * "com.saucelabs.selenium.client.factory.impl.HubHealthMonitor.interval" system property in milliseconds,
+ * and 0 disables probing. The number of failed probes that makes a hub dead is controlled by the
+ * ".threshold" system property, which defaults to 3.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class HubHealthMonitor {
+    private final String path;
+    private final int timeout;
+    private final int threshold;
+    private final List<HubEndpoint> watched = new CopyOnWriteArrayList<HubEndpoint>();
+
+    /**
+     * @param path
+     *      Path of the URL to request from hubs, such as "/wd/hub/status".
+     * @param timeout
+     *      Milliseconds to wait for a hub to connect and respond.
+     * @param threshold
+     *      Number of probes in a row that need to fail before a hub is considered dead.
+     */
+    public HubHealthMonitor(String path, int timeout, int threshold) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        this.path = path;
+        this.timeout = timeout;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Starts watching all the hubs in the given cluster.
+     */
+    public void watch(HubCluster cluster) {
+        for (HubEndpoint h : cluster.getEndpoints())
+            if (!watched.contains(h))
+                watched.add(h);
+    }
+
+    public List<HubEndpoint> getWatched() {
+        return Collections.unmodifiableList(watched);
+    }
+
+    /**
+     * Probes a hub right now and records the result.
+     *
+     * @return true if the hub responded.
+     */
+    public boolean probe(HubEndpoint hub) {
+        boolean alive;
+        try {
+            HttpURLConnection con = (HttpURLConnection) hub.toURL(path).openConnection();
+            con.setConnectTimeout(timeout);
+            con.setReadTimeout(timeout);
+            con.setUseCaches(false);
+            try {
+                con.getResponseCode();  // any response means the hub is there
+                drain(con);
+            } finally {
+                con.disconnect();
+            }
+            alive = true;
+        } catch (IOException e) {
+            LOGGER.log(FINE, "Probe to " + hub + " failed", e);
+            alive = false;
+        }
+
+        boolean wasAlive = hub.isAlive();
+        hub.recordProbe(alive, threshold);
+        if (wasAlive != hub.isAlive())
+            LOGGER.log(INFO, "Hub " + hub + " is " + (alive ? "back up" : "down"));
+        return alive;
+    }
+
+    /**
+     * Probes all the hubs being watched.
+     */
+    public void probeAll() {
+        for (HubEndpoint h : watched) {
+            try {
+                probe(h);
+            } catch (RuntimeException e) {
+                LOGGER.log(WARNING, "Failed to probe " + h, e);
+            }
+        }
+    }
+
+    private static void drain(HttpURLConnection con) throws IOException {
+        InputStream in = con.getResponseCode() >= 400 ? con.getErrorStream() : con.getInputStream();
+        if (in == null) return;
+        try {
+            byte[] buf = new byte[1024];
+            while (in.read(buf) >= 0)
+                ;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Gets the monitor that watches all the hubs used in this JVM.
+     */
+    public static synchronized HubHealthMonitor getDefault() {
+        if (DEFAULT == null) {
+            DEFAULT = new HubHealthMonitor(
+                    System.getProperty(HubHealthMonitor.class.getName() + ".path", "/wd/hub/status"),
+                    Integer.getInteger(HubHealthMonitor.class.getName() + ".timeout", 2000),
+                    Integer.getInteger(HubHealthMonitor.class.getName() + ".threshold", 3));
+            if (INTERVAL > 0)
+                startProber(DEFAULT);
+        }
+        return DEFAULT;
+    }
+
+    private static void startProber(final HubHealthMonitor monitor) {
+        ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Selenium hub health monitor");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        prober.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                monitor.probeAll();
+            }
+        }, 0, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Milliseconds between the probes of the default monitor, or 0 if it doesn't probe.
+     */
+    static long getInterval() {
+        return INTERVAL;
+    }
+
+    private static HubHealthMonitor DEFAULT;
+
+    private static final long INTERVAL = Long.getLong(HubHealthMonitor.class.getName() + ".interval", 10000);
+
+    private static final Logger LOGGER = Logger.getLogger(HubHealthMonitor.class.getName());
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.impl;
+
+import com.saucelabs.selenium.client.factory.DriverConfigurationException;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Decides which hub in a {@link HubCluster} gets the next session.
+ *
+ * <p>
+ * Besides the built-in strategies, applications can plug in their own by subclassing this class
+ * and specifying the class name (or an instance) in the "hubStrategy" factory property.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public abstract class HubStrategy {
+    /**
+     * Picks a hub for the next session.
+     *
+     * @param cluster
+     *      The cluster the hubs belong to.
+     * @param candidates
+     *      Hubs to choose from, which are all available. Never empty.
+     * @return
+     *      One of the candidates.
+     */
+    public abstract HubEndpoint select(HubCluster cluster, List<HubEndpoint> candidates);
+
+    /**
+     * Takes turns.
+     */
+    public static final HubStrategy ROUND_ROBIN = new HubStrategy() {
+        @Override
+        public HubEndpoint select(HubCluster cluster, List<HubEndpoint> candidates) {
+            return candidates.get(cluster.nextCursor() % candidates.size());
+        }
+
+        @Override
+        public String toString() {
+            return "round-robin";
+        }
+    };
+
+    /**
+     * Picks the hub with the least sessions being created or running.
+     */
+    public static final HubStrategy LEAST_OUTSTANDING = new HubStrategy() {
+        @Override
+        public HubEndpoint select(HubCluster cluster, List<HubEndpoint> candidates) {
+            HubEndpoint best = null;
+            for (HubEndpoint h : candidates)
+                if (best == null || h.getOutstanding() < best.getOutstanding())
+                    best = h;
+            return best;
+        }
+
+        @Override
+        public String toString() {
+            return "least-outstanding";
+        }
+    };
+
+    /**
+     * Picks hubs randomly, in inverse proportion to how long they take to start a session.
+     * Hubs that haven't started a session yet are treated like the fastest one, so that they get explored.
+     */
+    public static final HubStrategy LATENCY_WEIGHTED = new HubStrategy() {
+        private final Random random = new Random();
+
+        @Override
+        public HubEndpoint select(HubCluster cluster, List<HubEndpoint> candidates) {
+            double fastest = Double.MAX_VALUE;
+            for (HubEndpoint h : candidates) {
+                double l = h.getLatency();
+                if (l >= 0)
+                    fastest = Math.min(fastest, l);
+            }
+            if (fastest == Double.MAX_VALUE)
+                fastest = 1;   // nothing measured yet
+
+            double[] weights = new double[candidates.size()];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                double l = candidates.get(i).getLatency();
+                weights[i] = 1 / Math.max(l >= 0 ? l : fastest, 1);
+                total += weights[i];
+            }
+
+            double r = random.nextDouble() * total;
+            for (int i = 0; i < weights.length; i++) {
+                r -= weights[i];
+                if (r < 0)
+                    return candidates.get(i);
+            }
+            return candidates.get(weights.length - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "latency-weighted";
+        }
+    };
+
+    /**
+     * Resolves the value of the "hubStrategy" property.
+     *
+     * @param v
+     *      A {@link HubStrategy} instance, one of "round-robin", "least-outstanding", and "latency-weighted",
+     *      or the name of a {@link HubStrategy} subclass. Null to get the default, which is round robin.
+     */
+    public static HubStrategy of(Object v, ClassLoader cl) {
+        if (v == null)
+            return ROUND_ROBIN;
+        if (v instanceof HubStrategy)
+            return (HubStrategy) v;
+
+        String name = v.toString().trim();
+        for (HubStrategy s : new HubStrategy[]{ROUND_ROBIN, LEAST_OUTSTANDING, LATENCY_WEIGHTED})
+            if (s.toString().equals(name))
+                return s;
+
+        try {
+            if (cl == null)
+                cl = HubStrategy.class.getClassLoader();
+            return (HubStrategy) Class.forName(name, true, cl).newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new DriverConfigurationException("Unknown hub strategy: " + name, e);
+        } catch (InstantiationException e) {
+            throw new DriverConfigurationException("Failed to instantiate hub strategy " + name, e);
+        } catch (IllegalAccessException e) {
+            throw new DriverConfigurationException("Failed to instantiate hub strategy " + name, e);
+        } catch (ClassCastException e) {
+            throw new DriverConfigurationException(name + " is not a " + HubStrategy.class.getName(), e);
+        }
+    }
+}
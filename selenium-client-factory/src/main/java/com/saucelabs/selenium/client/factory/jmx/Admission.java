@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+import com.saucelabs.selenium.client.factory.AdmissionScheduler;
+
+import java.io.File;
+
+/**
+ * Exposes {@link AdmissionScheduler} as an MBean.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class Admission implements AdmissionMBean {
+    private final AdmissionScheduler scheduler;
+
+    public Admission(AdmissionScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public int getPermits() {
+        return scheduler.getPermits();
+    }
+
+    public void setPermits(int permits) {
+        scheduler.setPermits(permits);
+    }
+
+    public int getAvailablePermits() {
+        return scheduler.getAvailablePermits();
+    }
+
+    public int getQueueLength() {
+        return scheduler.getQueueLength();
+    }
+
+    public String getSharedDirectory() {
+        File dir = scheduler.getSharedDirectory();
+        return dir != null ? dir.getPath() : null;
+    }
+
+    public long getAdmittedCount() {
+        return scheduler.getAdmittedCount();
+    }
+
+    public long getTimedOutCount() {
+        return scheduler.getTimedOutCount();
+    }
+
+    public double getQueueTimeMean() {
+        return scheduler.getQueueTime().getMean();
+    }
+
+    public double getQueueTimeMedian() {
+        return scheduler.getQueueTime().getPercentile(0.5);
+    }
+
+    public double getQueueTime99thPercentile() {
+        return scheduler.getQueueTime().getPercentile(0.99);
+    }
+
+    public double getQueueTimeMax() {
+        return scheduler.getQueueTime().getMax();
+    }
+}
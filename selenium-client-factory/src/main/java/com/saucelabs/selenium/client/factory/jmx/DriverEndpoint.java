@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.TrackedSession;
+import com.saucelabs.selenium.client.factory.metrics.DriverMetrics;
+
+/**
+ * Exposes {@link DriverMetrics} as an MBean.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class DriverEndpoint implements DriverEndpointMBean {
+    private final DriverMetrics metrics;
+    private final long since = System.currentTimeMillis();
+
+    public DriverEndpoint(DriverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public String getScheme() {
+        return metrics.getScheme();
+    }
+
+    public String getEndpoint() {
+        return metrics.getEndpoint();
+    }
+
+    public long getCreatedCount() {
+        return metrics.getSuccessCount();
+    }
+
+    public long getFailedCount() {
+        return metrics.getFailureCount();
+    }
+
+    public int getInFlightCount() {
+        return metrics.getInFlight();
+    }
+
+    public long getQuitCount() {
+        return metrics.getQuitLatency().getCount();
+    }
+
+    public int getLiveSessionCount() {
+        int n = 0;
+        for (TrackedSession s : SessionRegistry.getSessions()) {
+            if (s.getEndpoint().equals(metrics.getEndpoint()))
+                n++;
+        }
+        return n;
+    }
+
+    public double getCreationRate() {
+        return perMinute(metrics.getSuccessCount() + metrics.getFailureCount());
+    }
+
+    public double getQuitRate() {
+        return perMinute(getQuitCount());
+    }
+
+    private double perMinute(long count) {
+        long elapsed = Math.max(System.currentTimeMillis() - since, 1000);
+        return count * 60000.0 / elapsed;
+    }
+
+    public double getCreationLatencyMean() {
+        return metrics.getCreationLatency().getMean();
+    }
+
+    public double getCreationLatencyMedian() {
+        return metrics.getCreationLatency().getPercentile(0.5);
+    }
+
+    public double getCreationLatency99thPercentile() {
+        return metrics.getCreationLatency().getPercentile(0.99);
+    }
+
+    public double getCreationLatencyMax() {
+        return metrics.getCreationLatency().getMax();
+    }
+
+    public double getQuitLatencyMedian() {
+        return metrics.getQuitLatency().getPercentile(0.5);
+    }
+
+    public double getQuitLatency99thPercentile() {
+        return metrics.getQuitLatency().getPercentile(0.99);
+    }
+
+    public double getQuitLatencyMax() {
+        return metrics.getQuitLatency().getMax();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+/**
+ * Creation and quit statistics of one driver endpoint. Latencies are in milliseconds.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see DriverEndpoint
+ */
+public interface DriverEndpointMBean {
+    String getScheme();
+    String getEndpoint();
+
+    long getCreatedCount();
+    long getFailedCount();
+    int getInFlightCount();
+    long getQuitCount();
+    int getLiveSessionCount();
+
+    /**
+     * Average number of driver creations per minute since the endpoint was first used.
+     */
+    double getCreationRate();
+
+    /**
+     * Average number of quits per minute since the endpoint was first used.
+     */
+    double getQuitRate();
+
+    double getCreationLatencyMean();
+    double getCreationLatencyMedian();
+    double getCreationLatency99thPercentile();
+    double getCreationLatencyMax();
+
+    double getQuitLatencyMedian();
+    double getQuitLatency99thPercentile();
+    double getQuitLatencyMax();
+}
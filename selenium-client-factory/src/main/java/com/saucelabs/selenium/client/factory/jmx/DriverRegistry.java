@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+import com.saucelabs.selenium.client.factory.SPIRegistry;
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Exposes the {@link SPIRegistry} of the class loader that loaded this library as an MBean.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class DriverRegistry implements DriverRegistryMBean {
+    public String[] getDrivers() {
+        List<String> r = new ArrayList<String>();
+        for (SeleniumFactorySPI spi : SPIRegistry.get(null).getAll()) {
+            List<String> schemes = spi.getSchemes();
+            r.add(spi.getClass().getName() + (schemes.isEmpty() ? "" : " " + schemes));
+        }
+        return r.toArray(new String[r.size()]);
+    }
+
+    public String[] getSchemes() {
+        Set<String> schemes = new TreeSet<String>(SPIRegistry.get(null).getSchemes());
+        return schemes.toArray(new String[schemes.size()]);
+    }
+
+    public void refresh() {
+        SPIRegistry.refresh();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+import com.saucelabs.selenium.client.factory.metrics.DriverMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Registers the MBeans of this library to the platform MBean server, under the "com.saucelabs.selenium" domain.
+ *
+ * <p>
+ * {@link com.saucelabs.selenium.client.factory.SeleniumFactory} registers {@link Sessions} and {@link DriverRegistry}
+ * when it creates the first driver, and one {@link DriverEndpoint} per driver endpoint as they get used.
+ * Set the "com.saucelabs.selenium.client.factory.jmx.Management.enabled" system property to false
+ * to keep them out of the MBean server.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class Management {
+    private Management() {}
+
+    /**
+     * Registers the MBean of the given endpoint, unless it's already registered.
+     */
+    public static void register(DriverMetrics metrics) {
+        if (ENABLED && ENDPOINTS.putIfAbsent(metrics.getEndpoint(), Boolean.TRUE) == null)
+            register("DriverEndpoint", metrics.getEndpoint(), new DriverEndpoint(metrics));
+    }
+
+    /**
+     * Registers an MBean as "com.saucelabs.selenium:type=...,name=...".
+     * Failures, such as another class loader having registered the same name, are only logged.
+     *
+     * @param name
+     *      null to omit the name.
+     */
+    public static void register(String type, String name, Object mbean) {
+        if (!ENABLED) return;
+
+        try {
+            ObjectName on = new ObjectName(DOMAIN + ":type=" + type + (name != null ? ",name=" + ObjectName.quote(name) : ""));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(on)) {
+                LOGGER.log(FINE, on + " is already registered");
+                return;
+            }
+            server.registerMBean(mbean, on);
+        } catch (JMException e) {
+            LOGGER.log(WARNING, "Failed to register " + mbean + " to JMX", e);
+        } catch (SecurityException e) {
+            LOGGER.log(FINE, "Not allowed to register " + mbean + " to JMX", e);
+        }
+    }
+
+    public static final String DOMAIN = "com.saucelabs.selenium";
+
+    private static final boolean ENABLED = Boolean.valueOf(System.getProperty(Management.class.getName() + ".enabled", "true"));
+
+    private static final ConcurrentMap<String, Boolean> ENDPOINTS = new ConcurrentHashMap<String, Boolean>();
+
+    private static final Logger LOGGER = Logger.getLogger(Management.class.getName());
+
+    static {
+        register("Sessions", null, new Sessions());
+        register("DriverRegistry", null, new DriverRegistry());
+    }
+}
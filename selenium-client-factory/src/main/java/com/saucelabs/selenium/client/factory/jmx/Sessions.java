@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+import com.saucelabs.selenium.client.factory.SessionReaper;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.TrackedSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Exposes {@link SessionRegistry} as an MBean.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class Sessions implements SessionsMBean {
+    public int getLiveSessionCount() {
+        return SessionRegistry.getSessions().size();
+    }
+
+    public String[] getLiveSessions() {
+        List<String> r = new ArrayList<String>();
+        for (TrackedSession s : SessionRegistry.getSessions())
+            r.add("#" + s.getId() + " " + s.getUri() + " (" + s.getAge() / 1000 + "s old, idle "
+                    + s.getIdleTime() / 1000 + "s) created by " + s.getOwner());
+        return r.toArray(new String[r.size()]);
+    }
+
+    public String[] getLiveSessionCountsByEndpoint() {
+        Map<String, Integer> counts = new TreeMap<String, Integer>();
+        for (TrackedSession s : SessionRegistry.getSessions()) {
+            Integer n = counts.get(s.getEndpoint());
+            counts.put(s.getEndpoint(), n == null ? 1 : n + 1);
+        }
+        List<String> r = new ArrayList<String>();
+        for (Map.Entry<String, Integer> e : counts.entrySet())
+            r.add(e.getKey() + "=" + e.getValue());
+        return r.toArray(new String[r.size()]);
+    }
+
+    public boolean quitSession(long id) {
+        TrackedSession s = SessionRegistry.get(id);
+        return s != null && quit(s);
+    }
+
+    public int quitSessionsOlderThan(long seconds) {
+        int n = 0;
+        for (TrackedSession s : SessionRegistry.getSessions()) {
+            if (s.getAge() >= seconds * 1000 && quit(s))
+                n++;
+        }
+        return n;
+    }
+
+    public int quitAllSessions() {
+        return quitSessionsOlderThan(0);
+    }
+
+    public long getIdleTimeout() {
+        return SessionReaper.getIdleTimeout() / 1000;
+    }
+
+    public void setIdleTimeout(long seconds) {
+        SessionReaper.setIdleTimeout(seconds * 1000);
+    }
+
+    public int reap() {
+        return SessionReaper.reap();
+    }
+
+    private boolean quit(TrackedSession s) {
+        LOGGER.info("Quitting " + s + " through JMX");
+        try {
+            return s.quit();
+        } catch (RuntimeException e) {
+            // the session is forgotten regardless, so report it as quit
+            LOGGER.log(WARNING, "Failed to quit " + s, e);
+            return true;
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(Sessions.class.getName());
+}
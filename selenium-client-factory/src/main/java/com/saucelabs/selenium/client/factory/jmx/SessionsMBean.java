@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+/**
+ * Live sessions handed out by {@link com.saucelabs.selenium.client.factory.SeleniumFactory}.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see Sessions
+ */
+public interface SessionsMBean {
+    int getLiveSessionCount();
+
+    /**
+     * One line per live session, listing its ID, driver URI, age and idle time in seconds, and owner.
+     */
+    String[] getLiveSessions();
+
+    /**
+     * Number of live sessions per endpoint, as "endpoint=count".
+     */
+    String[] getLiveSessionCountsByEndpoint();
+
+    /**
+     * Quits the session of the given ID.
+     *
+     * @return false if there's no such live session.
+     */
+    boolean quitSession(long id);
+
+    /**
+     * Quits all the sessions that have been alive longer than the given number of seconds.
+     *
+     * @return number of sessions quit.
+     */
+    int quitSessionsOlderThan(long seconds);
+
+    /**
+     * Quits all the live sessions.
+     *
+     * @return number of sessions quit.
+     */
+    int quitAllSessions();
+
+    /**
+     * Seconds a session can stay unused before it gets quit, or 0 if sessions never time out.
+     *
+     * @see com.saucelabs.selenium.client.factory.SessionReaper
+     */
+    long getIdleTimeout();
+
+    void setIdleTimeout(long seconds);
+
+    /**
+     * Quits the idle sessions and ends the sessions of the drivers that have been garbage collected, right now.
+     *
+     * @return number of sessions ended.
+     */
+    int reap();
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of one driver endpoint, obtained from {@link MetricsRegistry#forUri(String)}.
+ *
+ * <p>
+ * To time an operation, pass the value of {@link System#nanoTime()} taken at its beginning:
+ *
+ * <pre>
+ * long start = metrics.creationStarted();
+ * boolean success = false;
+ * try {
+ *     ...
+ *     success = true;
+ * } finally {
+ *     metrics.creationEnded(start, success);
+ * }
+ * </pre>
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class DriverMetrics {
+    private final String scheme;
+    private final String endpoint;
+
+    private final Histogram creationLatency = new Histogram();
+    private final Histogram quitLatency = new Histogram();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    DriverMetrics(String scheme, String endpoint) {
+        this.scheme = scheme;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * URI scheme of the driver, such as "http" or "sauce-ondemand".
+     */
+    public String getScheme() {
+        return scheme;
+    }
+
+    /**
+     * Driver URI without the query parameters.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Histogram getCreationLatency() {
+        return creationLatency;
+    }
+
+    public Histogram getQuitLatency() {
+        return quitLatency;
+    }
+
+    public long getSuccessCount() {
+        return successes.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Number of drivers being created right now.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Records the beginning of a driver creation.
+     *
+     * @return the value to be passed to {@link #creationEnded(long, boolean)}.
+     */
+    public long creationStarted() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the end of a driver creation.
+     */
+    public void creationEnded(long start, boolean success) {
+        creationLatency.record(System.nanoTime() - start);
+        (success ? successes : failures).incrementAndGet();
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records the end of quitting a driver.
+     *
+     * @param start
+     *      {@link System#nanoTime()} before the driver started quitting.
+     */
+    public void quitEnded(long start) {
+        quitLatency.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public String toString() {
+        return "Metrics of " + endpoint;
+    }
+}
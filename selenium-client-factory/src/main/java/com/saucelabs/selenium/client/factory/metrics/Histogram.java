@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of durations, recorded without locking.
+ *
+ * <p>
+ * Durations are kept in microseconds, in buckets whose width grows with the value (16 buckets per
+ * power of two), so percentiles are accurate within about 6% at any scale while the whole histogram
+ * stays at a fixed, small size.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class Histogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     */
+    public void record(long nanos) {
+        long v = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), MAX_VALUE);
+        buckets.incrementAndGet(indexOf(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while ((m = max.get()) < v && !max.compareAndSet(m, v))
+            ;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return milliseconds, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / 1000.0 / n;
+    }
+
+    /**
+     * @return milliseconds.
+     */
+    public double getMax() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * Gets the duration below which the given fraction of the recorded durations fall.
+     *
+     * @param p
+     *      Between 0 and 1, such as 0.99 for the 99th percentile.
+     * @return milliseconds, or 0 if nothing has been recorded.
+     */
+    public double getPercentile(double p) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += counts[i] = buckets.get(i);
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max((long) Math.ceil(p * total), 1);
+        for (int i = 0; i < BUCKETS; i++) {
+            rank -= counts[i];
+            if (rank <= 0)
+                return Math.min(upperBoundOf(i), max.get()) / 1000.0;
+        }
+        return getMax();
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS)
+            return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (v >>> shift) - SUB_BUCKETS;
+    }
+
+    static long upperBoundOf(int i) {
+        if (i < SUB_BUCKETS)
+            return i;
+        int shift = i / SUB_BUCKETS - 1;
+        long mantissa = i % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Durations are capped at about 25 days.
+     */
+    private static final long MAX_VALUE = (1L << 41) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.metrics;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Keeps the {@link DriverMetrics} of all the driver endpoints used in this JVM.
+ *
+ * <p>
+ * {@link com.saucelabs.selenium.client.factory.SeleniumFactory} records every driver creation here,
+ * and drivers record how long it takes to quit them. The metrics are kept in memory, where the application
+ * can {@linkplain #getAll() inspect them}, and they are handed to the {@linkplain #addExporter(MetricsExporter) exporters}
+ * when the JVM exits.
+ *
+ * <p>
+ * Set the 'SELENIUM_METRICS_DUMP' system property or the environment variable to "stdout", "stderr",
+ * or a file name, to have a table of the metrics printed there when the JVM exits.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class MetricsRegistry {
+    private MetricsRegistry() {}
+
+    /**
+     * Gets the metrics of the endpoint of the given driver URI, which is the URI without the query parameters.
+     */
+    public static DriverMetrics forUri(String uri) {
+        int q = uri.indexOf('?');
+        String endpoint = q < 0 ? uri : uri.substring(0, q);
+
+        DriverMetrics m = METRICS.get(endpoint);
+        if (m == null) {
+            int c = endpoint.indexOf(':');
+            DriverMetrics n = new DriverMetrics(c < 0 ? endpoint : endpoint.substring(0, c), endpoint);
+            m = METRICS.putIfAbsent(endpoint, n);
+            if (m == null)
+                m = n;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the metrics of all the endpoints used so far, sorted by their endpoints.
+     */
+    public static List<DriverMetrics> getAll() {
+        List<DriverMetrics> r = new ArrayList<DriverMetrics>(METRICS.values());
+        Collections.sort(r, new Comparator<DriverMetrics>() {
+            public int compare(DriverMetrics o1, DriverMetrics o2) {
+                return o1.getEndpoint().compareTo(o2.getEndpoint());
+            }
+        });
+        return r;
+    }
+
+    public static void addExporter(MetricsExporter exporter) {
+        EXPORTERS.add(exporter);
+    }
+
+    public static void removeExporter(MetricsExporter exporter) {
+        EXPORTERS.remove(exporter);
+    }
+
+    /**
+     * Hands the current metrics to all the exporters.
+     */
+    public static void export() {
+        List<DriverMetrics> all = getAll();
+        for (MetricsExporter e : EXPORTERS) {
+            try {
+                e.export(all);
+            } catch (RuntimeException x) {
+                LOGGER.log(WARNING, "Failed to export metrics to " + e, x);
+            }
+        }
+    }
+
+    private static MetricsExporter createDumpExporter(String target) {
+        if (target.equals("stdout"))
+            return new TextMetricsExporter(System.out);
+        if (target.equals("stderr"))
+            return new TextMetricsExporter(System.err);
+        try {
+            return new TextMetricsExporter(new PrintStream(new FileOutputStream(target)));
+        } catch (FileNotFoundException e) {
+            LOGGER.log(WARNING, "Unable to write driver metrics to " + target, e);
+            return null;
+        }
+    }
+
+    private static final ConcurrentMap<String, DriverMetrics> METRICS = new ConcurrentHashMap<String, DriverMetrics>();
+
+    private static final List<MetricsExporter> EXPORTERS = new CopyOnWriteArrayList<MetricsExporter>();
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+
+    static {
+        String dump = System.getProperty("SELENIUM_METRICS_DUMP");
+        if (dump == null)
+            dump = System.getenv("SELENIUM_METRICS_DUMP");
+        if (dump != null) {
+            MetricsExporter e = createDumpExporter(dump);
+            if (e != null)
+                EXPORTERS.add(e);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread("Selenium driver metrics export") {
+            @Override
+            public void run() {
+                if (!METRICS.isEmpty())
+                    export();
+            }
+        });
+    }
+}
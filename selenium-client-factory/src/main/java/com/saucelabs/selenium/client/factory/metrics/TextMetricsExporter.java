@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.metrics;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * {@link MetricsExporter} that prints the metrics as a human readable table.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class TextMetricsExporter implements MetricsExporter {
+    private final PrintStream out;
+
+    public TextMetricsExporter(PrintStream out) {
+        this.out = out;
+    }
+
+    public void export(List<DriverMetrics> metrics) {
+        out.print(format(metrics));
+        out.flush();
+    }
+
+    /**
+     * Formats the metrics into a table, with latencies in milliseconds.
+     */
+    public static String format(List<DriverMetrics> metrics) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(String.format("%-40s %8s %8s %8s %10s %10s %10s %10s %10s %10s%n",
+                "endpoint", "ok", "failed", "inflight", "p50", "p90", "p99", "max", "quit p50", "quit max"));
+        for (DriverMetrics m : metrics) {
+            Histogram c = m.getCreationLatency();
+            Histogram q = m.getQuitLatency();
+            buf.append(String.format("%-40s %8d %8d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    m.getEndpoint(), m.getSuccessCount(), m.getFailureCount(), m.getInFlight(),
+                    c.getPercentile(0.5), c.getPercentile(0.9), c.getPercentile(0.99), c.getMax(),
+                    q.getPercentile(0.5), q.getMax()));
+        }
+        return buf.toString();
+    }
+}
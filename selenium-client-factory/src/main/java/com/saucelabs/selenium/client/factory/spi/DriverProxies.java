@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.spi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Helps {@link SeleniumFactorySPI}s that wrap drivers returned from other SPIs.
+ *
+ * <p>
+ * Drivers often implement more than {@link org.openqa.selenium.WebDriver} or
+ * {@link com.thoughtworks.selenium.Selenium}, such as {@code JavascriptExecutor},
+ * {@code TakesScreenshot}, or driver-specific interfaces like {@code SauceOnDemandSelenium}.
+ * A wrapper created by {@link #wrap(Object, InvocationHandler, Class[])} keeps all of them,
+ * so that the application can keep down-casting the driver it gets from the factory.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class DriverProxies {
+    /**
+     * Creates a {@link Proxy} that implements all the interfaces of the given base object
+     * as well as the additional interfaces.
+     *
+     * @param base
+     *      The object being wrapped. Its interfaces are discovered from its class.
+     * @param handler
+     *      Handles all the method invocations on the returned proxy.
+     * @param extras
+     *      Additional interfaces that the proxy implements, typically to let the application
+     *      control the wrapper itself.
+     */
+    public static Object wrap(Object base, InvocationHandler handler, Class<?>... extras) {
+        return wrapAll(Collections.singletonList(base), handler, extras);
+    }
+
+    /**
+     * Creates a {@link Proxy} that stands for all the given objects at once, by implementing
+     * the interfaces that they all have in common, as well as the additional interfaces.
+     *
+     * @param bases
+     *      The objects being wrapped. Must not be empty.
+     */
+    public static Object wrapAll(List<?> bases, InvocationHandler handler, Class<?>... extras) {
+        Set<Class<?>> common = null;
+        for (Object base : bases) {
+            Set<Class<?>> all = new LinkedHashSet<Class<?>>();
+            collectInterfaces(base.getClass(), all);
+            if (common == null)
+                common = all;
+            else
+                common.retainAll(all);
+        }
+
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (Class<?> c : extras)
+            types.add(c);
+        for (Class<?> t : common)
+            if (Modifier.isPublic(t.getModifiers()))  // non-public interfaces can't be implemented from another package
+                types.add(t);
+
+        ClassLoader cl = pickClassLoader(bases.get(0).getClass().getClassLoader(), types);
+        if (cl == null) {
+            // no single class loader sees everything. keep what's visible from our class loader,
+            // which always includes the extra interfaces and the Selenium API.
+            cl = extras.length > 0 ? extras[0].getClassLoader() : DriverProxies.class.getClassLoader();
+            List<Class<?>> visible = new ArrayList<Class<?>>();
+            for (Class<?> t : types)
+                if (isVisible(cl, t))
+                    visible.add(t);
+            types = new LinkedHashSet<Class<?>>(visible);
+        }
+
+        return Proxy.newProxyInstance(cl, types.toArray(new Class[types.size()]), handler);
+    }
+
+    /**
+     * Collects all the interfaces implemented by the given class, including those from the super types.
+     */
+    public static void collectInterfaces(Class<?> c, Set<Class<?>> result) {
+        for (; c != null; c = c.getSuperclass()) {
+            for (Class<?> i : c.getInterfaces()) {
+                if (result.add(i))
+                    collectInterfaces(i, result);
+            }
+        }
+    }
+
+    private static ClassLoader pickClassLoader(ClassLoader preferred, Set<Class<?>> types) {
+        ClassLoader[] candidates = {
+                preferred,
+                DriverProxies.class.getClassLoader(),
+                Thread.currentThread().getContextClassLoader()
+        };
+        OUTER:
+        for (ClassLoader cl : candidates) {
+            if (cl == null) continue;
+            for (Class<?> t : types)
+                if (!isVisible(cl, t))
+                    continue OUTER;
+            return cl;
+        }
+        return null;
+    }
+
+    private static boolean isVisible(ClassLoader cl, Class<?> t) {
+        try {
+            return Class.forName(t.getName(), false, cl) == t;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
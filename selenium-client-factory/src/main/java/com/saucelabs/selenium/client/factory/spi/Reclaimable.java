@@ -0,0 +1,45 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.spi;
+
+/**
+ * Implemented by drivers that can end their sessions even after the application lost all the references to them.
+ *
+ * <p>
+ * When a driver handed out by {@link com.saucelabs.selenium.client.factory.SeleniumFactory} gets garbage collected
+ * without being quit, {@link com.saucelabs.selenium.client.factory.SessionReaper} runs the task returned from
+ * {@link #getReclaimer()} to release the remote browser or whatever else the driver held on to.
+ * Drivers created through {@link DriverProxies} are reclaimed by quitting them through their invocation handler,
+ * so they don't need to implement this.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public interface Reclaimable {
+    /**
+     * Returns the task that ends the session of this driver.
+     * The task must not refer to the driver itself, or else the driver never becomes unreachable.
+     * Create it from a static method to be sure.
+     */
+    Runnable getReclaimer();
+}
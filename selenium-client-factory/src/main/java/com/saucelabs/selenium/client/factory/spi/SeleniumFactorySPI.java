@@ -26,10 +26,13 @@ package com.saucelabs.selenium.client.factory.spi;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
+import com.saucelabs.selenium.client.factory.AdmissionScheduler;
 import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
 import com.thoughtworks.selenium.DefaultSelenium;
 import com.thoughtworks.selenium.Selenium;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,6 +44,11 @@ import java.util.List;
  * see <a href="http://download.oracle.com/docs/cd/E17476_01/javase/1.3/docs/guide/jar/jar.html#Service%20Provider">
  * the spec</a> for details of the service lookup.
  *
+ * <p>
+ * SPIs are instantiated once per {@link ClassLoader} and reused for all the driver creations
+ * (see {@link com.saucelabs.selenium.client.factory.SPIRegistry}), so implementations must be
+ * safe to be called concurrently from multiple threads.
+ *
  * @author Kohsuke Kawaguchi
  */
 public abstract class SeleniumFactorySPI {
@@ -102,5 +110,70 @@ public abstract class SeleniumFactorySPI {
      */
     public abstract boolean canHandle(String uri);
 
-    public abstract List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, String browserURL);
+    /**
+     * Returns the URI schemes owned by this SPI, such as "http" for "http://host:4444/*firefox".
+     *
+     * <p>
+     * {@link SeleniumFactory} indexes SPIs by their declared schemes, so that a driver URI
+     * is dispatched to its SPI without probing every SPI in the system. When an SPI declares
+     * schemes, it is expected to handle all the URIs of those schemes and {@link #canHandle(String)}
+     * is no longer consulted for the dispatch.
+     *
+     * @return
+     *      never null. Scheme names are without the trailing ':'. The default implementation
+     *      returns an empty list, in which case {@link #canHandle(String)} is used to check every URI.
+     */
+    public List<String> getSchemes() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Gets the driver URI that this SPI passes the creation on to, for SPIs that wrap another driver, like "log:...".
+     *
+     * <p>
+     * {@link com.saucelabs.selenium.client.factory.RetryPolicy} follows this to the endpoint that's actually
+     * connected to, so that an endpoint reached with and without a wrapper shares one circuit breaker.
+     *
+     * @return
+     *      null if the SPI doesn't wrap a single driver URI, which is what the default implementation returns.
+     */
+    public String getDelegateUri(String uri) {
+        return null;
+    }
+
+    /**
+     * Whether the driver creations of this SPI take a permit of the {@link AdmissionScheduler} set on the factory.
+     *
+     * <p>
+     * SPIs that hand out sessions they keep open beyond the life of the driver, like "pool:...", return false,
+     * and let the sessions they really start take the permits, which they hold for as long as they keep the sessions.
+     * Such SPIs can take the permit of a session they started with {@link SessionRegistry#takePermit(Object)}.
+     *
+     * @return
+     *      The default implementation returns true.
+     */
+    public boolean isAdmitted() {
+        return true;
+    }
+
+    /**
+     * Instantiates all the drivers that the configuration calls for.
+     *
+     * <p>
+     * This method is invoked in response to {@link SeleniumFactory#createWebDrivers()}. Drivers that
+     * can represent multiple browsers by themselves, such as Sauce OnDemand, override this method
+     * and typically delegate to {@link SeleniumFactory#createWebDriverInstances(List, String, DesiredCapabilities)}
+     * to create them in parallel. The default implementation creates the single driver that
+     * {@link #createWebDriver(SeleniumFactory, String, DesiredCapabilities)} creates.
+     *
+     * @return
+     *      null if the implementation didn't recognize the URI specified in the factory.
+     * @throws IllegalArgumentException
+     *      If the URI was recognized by the SPI but some of its configurations were wrong,
+     *      or if the SPI failed to instantiate the drivers.
+     */
+    public List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, String browserURL) {
+        WebDriver driver = createWebDriver(seleniumFactory, browserURL, null);
+        return driver == null ? null : Collections.singletonList(driver);
+    }
 }
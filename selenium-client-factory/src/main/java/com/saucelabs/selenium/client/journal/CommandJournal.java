@@ -0,0 +1,580 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.OverlappingFileLockException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Binary journal of the commands sent to the drivers, written to memory-mapped segment files.
+ *
+ * <p>
+ * Each JVM writes its own series of segment files, named "&lt;time>-&lt;process>-&lt;segment#>.journal", into the
+ * journal directory, and numbers its sessions within the series. When a segment fills up, the journal moves on to
+ * the next one, and deletes the oldest segments in the directory beyond the configured number, whichever JVM
+ * wrote them, so that the journals of past runs don't pile up. The segment that a JVM is writing is kept locked,
+ * and is left alone. Recording a command is a few memory writes into the mapped segment, without any
+ * system call, and the records survive the process crash, as the operating system writes the pages out on its own.
+ * The command is encoded by the thread that sent it, so that the threads only take turns to copy their records.
+ *
+ * <p>
+ * A segment starts with {@link #MAGIC}, followed by records, each of which consists of a type byte, the length of
+ * the body, and the body. The type byte is written last, so a record only becomes visible once it's completely written,
+ * and the zeros after the last record mark the end. Method and session definitions are written to each segment
+ * before their first use there, so every segment can be read on its own. Commands refer to them by number.
+ * See {@link JournalReader} for reading the journal back.
+ *
+ * <p>
+ * The default journal is configured by the following system properties,
+ * prefixed by "com.saucelabs.selenium.client.journal.CommandJournal.":
+ *
+ * <dl>
+ * <dt>dir
+ * <dd>Directory to write the journal to. Defaults to "~/.selenium-client-factory/commands".
+ * <dt>segmentSize
+ * <dd>Size of a segment file in bytes. Defaults to 16MB.
+ * <dt>maxSegments
+ * <dd>Number of segments to keep in the directory, including those of the other JVMs, but never those
+ * still being written. Defaults to 32. 0 to keep them all.
+ * </dl>
+ *
+ * @author Kohsuke Kawaguchi
+ * @see JournalSPIImpl
+ */
+public final class CommandJournal {
+    private final File dir;
+    private final String name;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final LinkedList<File> segments = new LinkedList<File>();
+    private File current;
+    /**
+     * Keeps {@link #current} open and locked, which tells the other JVMs that the segment is being written.
+     */
+    private RandomAccessFile currentFile;
+    private MappedByteBuffer buf;
+    private int pos;
+    private volatile boolean broken;
+    private int sessionCount;
+    private int segmentCount;
+
+    /**
+     * Numbers of the methods recorded so far, which don't change from one segment to another.
+     */
+    private final ConcurrentMap<Method, Integer> methods = new ConcurrentHashMap<Method, Integer>();
+    private final AtomicInteger methodCount = new AtomicInteger();
+    /**
+     * Sessions and methods defined in the current segment.
+     */
+    private final BitSet definedSessions = new BitSet();
+    private final BitSet definedMethods = new BitSet();
+
+    /**
+     * Commands are encoded by the recording thread, so that the threads only wait for each other to copy them.
+     */
+    private final ThreadLocal<Encoder> encoders = new ThreadLocal<Encoder>() {
+        @Override
+        protected Encoder initialValue() {
+            return new Encoder();
+        }
+    };
+    /**
+     * The definitions that precede a command are encoded here, while holding the lock.
+     */
+    private final Encoder definitions = new Encoder();
+
+    /**
+     * @param dir
+     *      Directory to write the segment files to.
+     * @param segmentSize
+     *      Size of a segment file in bytes. A record bigger than that gets a segment of its own.
+     * @param maxSegments
+     *      Number of segments to keep in the directory, or 0 to keep them all.
+     */
+    public CommandJournal(File dir, int segmentSize, int maxSegments) {
+        this(dir, segmentSize, maxSegments, new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + '-'
+                + ManagementFactory.getRuntimeMXBean().getName().replaceAll("[^A-Za-z0-9@.-]", "_"));
+    }
+
+    /**
+     * @param series
+     *      Prefix of the segment file names, which stands for the JVM in the journal.
+     */
+    CommandJournal(File dir, int segmentSize, int maxSegments, String series) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.name = series;
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Segment files written by this journal that are still kept, oldest first.
+     */
+    public synchronized File[] getSegments() {
+        for (Iterator<File> itr = segments.iterator(); itr.hasNext();)
+            if (!itr.next().exists())
+                itr.remove();   // deleted by another JVM
+        return segments.toArray(new File[segments.size()]);
+    }
+
+    /**
+     * Prefix of the names of the segment files written by this journal, which tells its sessions apart
+     * from those of the other JVMs.
+     */
+    public String getSeries() {
+        return name;
+    }
+
+    /**
+     * Starts recording a new session.
+     *
+     * @param label
+     *      Human readable name of the session, such as the session ID assigned by the server.
+     * @param uri
+     *      URI of the driver that the session was created from.
+     */
+    public synchronized JournalSession openSession(String label, String uri) {
+        return new JournalSession(++sessionCount, label, uri);
+    }
+
+    /**
+     * Records a command.
+     *
+     * @param target
+     *      Number of the object in the session that the command was sent to, 0 for the driver itself.
+     * @param args
+     *      Arguments of the command. {@link JournalEntry.Ref}s stand for objects of the session.
+     * @param start
+     *      When the command was sent, in {@link System#currentTimeMillis()}.
+     * @param duration
+     *      How long the command took, in nanoseconds.
+     * @param result
+     *      The return value, or the exception thrown if {@code failed} is true.
+     */
+    void record(JournalSession session, int target, Method method, Object[] args,
+                long start, long duration, boolean failed, Object result) {
+        if (broken) return;
+        Encoder command = encoders.get();
+        try {
+            Integer m = methods.get(method);
+            if (m == null) {
+                Integer n = methods.putIfAbsent(method, m = methodCount.incrementAndGet());
+                if (n != null)
+                    m = n;
+            }
+            command.reset();
+            command.encodeCommand(session, target, method, m, args, start, duration, failed, result);
+            write(session, method, m, command);
+        } catch (IOException e) {
+            LOGGER.log(WARNING, "Failed to write to the command journal in " + dir + ". Disabling it", e);
+            broken = true;
+        } finally {
+            command.trim();
+        }
+    }
+
+    /**
+     * Copies the encoded command into the segment, preceded by the definitions that the segment doesn't have yet.
+     */
+    private synchronized void write(JournalSession session, Method method, int m, Encoder command) throws IOException {
+        if (broken) return;
+        definitions.reset();
+        definitions.encodeDefinitions(session, definedSessions, method, m, definedMethods);
+        if (buf == null || pos + definitions.length + command.length > buf.capacity()) {
+            // the next segment needs its own definitions
+            definedSessions.clear();
+            definedMethods.clear();
+            definitions.reset();
+            definitions.encodeDefinitions(session, definedSessions, method, m, definedMethods);
+            roll(definitions.length + command.length);
+        }
+
+        // write the first byte last, so that the records only become visible once they are all there
+        Encoder first = definitions.length > 0 ? definitions : command;
+        buf.position(pos + 1);
+        buf.put(first.scratch, 1, first.length - 1);
+        if (first != command)
+            buf.put(command.scratch, 0, command.length);
+        buf.put(pos, first.scratch[0]);
+        pos += definitions.length + command.length;
+        definedSessions.set(session.id);
+        definedMethods.set(m);
+    }
+
+    /**
+     * Starts a new segment.
+     *
+     * @param size
+     *      The size of the record that needs to fit in it.
+     */
+    private void roll(int size) throws IOException {
+        if (segments.isEmpty() && !dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Unable to create " + dir);
+
+        File f = new File(dir, String.format("%s-%05d%s", name, ++segmentCount, SUFFIX));
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        try {
+            raf.setLength(Math.max(segmentSize, MAGIC.length + size));
+            buf = raf.getChannel().map(MapMode.READ_WRITE, 0, raf.length());
+            LIVE.add(f.getAbsoluteFile());
+            try {
+                raf.getChannel().tryLock();
+            } catch (IOException e) {
+                LOGGER.log(FINE, "Failed to lock " + f, e);    // such as on a file system without locks
+            }
+        } catch (IOException e) {
+            raf.close();
+            LIVE.remove(f.getAbsoluteFile());
+            throw e;
+        }
+        // the mapping stays valid without the file, which is only kept open for the lock
+        if (currentFile != null) {
+            LIVE.remove(current.getAbsoluteFile());
+            try {
+                currentFile.close();
+            } catch (IOException e) {
+                LOGGER.log(FINE, "Failed to close " + current, e);
+            }
+        }
+        currentFile = raf;
+        buf.put(MAGIC);
+        pos = MAGIC.length;
+        definedSessions.clear();
+        definedMethods.clear();
+
+        segments.add(f);
+        current = f;
+        prune();
+    }
+
+    /**
+     * Deletes the oldest segments in the directory beyond {@link #maxSegments}, except those being written.
+     */
+    private void prune() {
+        if (maxSegments <= 0) return;
+        File[] all = dir.listFiles();
+        if (all == null) return;
+
+        List<File> found = new ArrayList<File>();
+        Map<String, File> last = new HashMap<String, File>();
+        for (File f : all) {
+            if (!f.getName().endsWith(SUFFIX))
+                continue;
+            found.add(f);
+            // a series only writes its last segment, as the segment numbers are fixed width
+            String series = JournalReader.getSeries(f);
+            File l = last.get(series);
+            if (l == null || l.getName().compareTo(f.getName()) < 0)
+                last.put(series, f);
+        }
+        // the names start with the time the JVM started writing them
+        Collections.sort(found);
+        for (File old : found.subList(0, Math.max(found.size() - maxSegments, 0))) {
+            if (old.equals(last.get(JournalReader.getSeries(old))) && isLive(old))
+                continue;
+            if (old.delete())
+                segments.remove(old);
+            else
+                LOGGER.log(FINE, "Failed to delete " + old);
+        }
+    }
+
+    /**
+     * Checks if the segment is being written, by this JVM or another one that holds its lock.
+     */
+    private static boolean isLive(File segment) {
+        // on POSIX, closing any channel of a file drops all the locks of this JVM on it,
+        // so the segments of this JVM must not be opened to be checked
+        if (LIVE.contains(segment.getAbsoluteFile()))
+            return true;
+        try {
+            RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+            try {
+                return raf.getChannel().tryLock() == null;
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(FINE, "Failed to check " + segment, e);
+            return true;
+        } catch (OverlappingFileLockException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Encodes records into a growing buffer.
+     */
+    private static final class Encoder {
+        private byte[] scratch = new byte[INITIAL_SIZE];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        /**
+         * Lets go of the buffer that grew big for a large record, such as a page source.
+         */
+        void trim() {
+            if (scratch.length > MAX_RETAINED_SIZE)
+                scratch = new byte[INITIAL_SIZE];
+        }
+
+        /**
+         * Encodes the definitions of the session and the method, unless they are defined already.
+         */
+        void encodeDefinitions(JournalSession session, BitSet definedSessions, Method method, int m, BitSet definedMethods) throws IOException {
+            int r;
+            if (!definedSessions.get(session.id)) {
+                r = begin();
+                writeInt(session.id);
+                writeString(session.label);
+                writeValue(session.uri);
+                end(r, SESSION);
+            }
+
+            if (!definedMethods.get(m)) {
+                r = begin();
+                writeInt(m);
+                writeString(method.getDeclaringClass().getName());
+                writeString(method.getName());
+                Class<?>[] params = method.getParameterTypes();
+                writeInt(params.length);
+                for (Class<?> p : params)
+                    writeString(p.getName());
+                end(r, METHOD);
+            }
+        }
+
+        void encodeCommand(JournalSession session, int target, Method method, int m, Object[] args,
+                           long start, long duration, boolean failed, Object result) throws IOException {
+            int r = begin();
+            writeInt(session.id);
+            writeInt(target);
+            writeInt(m);
+            writeLong(start);
+            writeLong(duration);
+            if (args == null) {
+                writeInt(0);
+            } else {
+                writeInt(args.length);
+                for (Object a : args)
+                    writeValue(a);
+            }
+            if (failed) {
+                Throwable t = (Throwable) result;
+                writeByte(EXCEPTION);
+                writeString(t.getClass().getName());
+                writeValue(t.getMessage());
+            } else if (method.getReturnType() == void.class) {
+                writeByte(VOID);
+            } else {
+                writeByte(VALUE);
+                writeValue(result);
+            }
+            end(r, COMMAND);
+        }
+
+        /**
+         * Leaves the room for the type and the length of a record.
+         *
+         * @return where the record starts.
+         */
+        private int begin() {
+            ensure(5);
+            int r = length;
+            length += 5;
+            return r;
+        }
+
+        private void end(int r, byte type) {
+            int body = length - r - 5;
+            scratch[r] = type;
+            scratch[r + 1] = (byte) (body >>> 24);
+            scratch[r + 2] = (byte) (body >>> 16);
+            scratch[r + 3] = (byte) (body >>> 8);
+            scratch[r + 4] = (byte) body;
+        }
+
+        private void writeValue(Object o) throws IOException {
+            if (o == null) {
+                writeByte(NULL);
+            } else if (o instanceof String) {
+                writeByte(STRING);
+                writeString((String) o);
+            } else if (o instanceof Boolean) {
+                writeByte(BOOLEAN);
+                writeByte((byte) ((Boolean) o ? 1 : 0));
+            } else if (o instanceof Integer || o instanceof Short || o instanceof Byte) {
+                writeByte(INT);
+                writeInt(((Number) o).intValue());
+            } else if (o instanceof Long) {
+                writeByte(LONG);
+                writeLong((Long) o);
+            } else if (o instanceof Double || o instanceof Float) {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToLongBits(((Number) o).doubleValue()));
+            } else if (o instanceof JournalEntry.Ref) {
+                writeByte(REF);
+                writeInt(((JournalEntry.Ref) o).getHandle());
+            } else if (o instanceof String[]) {
+                String[] a = (String[]) o;
+                writeByte(STRINGS);
+                writeInt(a.length);
+                for (String e : a)
+                    writeValue(e);
+            } else if (o instanceof Object[] || o instanceof Collection) {
+                Collection<?> c = o instanceof Collection ? (Collection<?>) o : Arrays.asList((Object[]) o);
+                writeByte(LIST);
+                writeInt(c.size());
+                for (Object e : c)
+                    writeValue(e);
+            } else {
+                writeByte(OTHER);
+                writeString(o.getClass().getName());
+                writeString(String.valueOf(o));
+            }
+        }
+
+        private void writeByte(byte b) {
+            ensure(1);
+            scratch[length++] = b;
+        }
+
+        private void writeString(String s) throws UnsupportedEncodingException {
+            byte[] b = s.getBytes("UTF-8");
+            writeInt(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, scratch, length, b.length);
+            length += b.length;
+        }
+
+        private void writeInt(int v) {
+            ensure(4);
+            scratch[length++] = (byte) (v >>> 24);
+            scratch[length++] = (byte) (v >>> 16);
+            scratch[length++] = (byte) (v >>> 8);
+            scratch[length++] = (byte) v;
+        }
+
+        private void writeLong(long v) {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+
+        private void ensure(int n) {
+            if (length + n > scratch.length) {
+                byte[] b = new byte[Math.max(scratch.length * 2, length + n)];
+                System.arraycopy(scratch, 0, b, 0, length);
+                scratch = b;
+            }
+        }
+
+        private static final int INITIAL_SIZE = 4096;
+        private static final int MAX_RETAINED_SIZE = 64 * 1024;
+    }
+
+    /**
+     * Gets the journal that "journal:..." writes to.
+     */
+    public static CommandJournal getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * First bytes of a segment file.
+     */
+    static final byte[] MAGIC = {'S', 'C', 'J', 1};
+
+    static final String SUFFIX = ".journal";
+
+    // record types
+    static final byte SESSION = 'S';
+    static final byte METHOD = 'M';
+    static final byte COMMAND = 'C';
+
+    // outcomes of commands
+    static final byte VOID = 'V';
+    static final byte VALUE = 'R';
+    static final byte EXCEPTION = 'E';
+
+    // types of values
+    static final byte NULL = 'N';
+    static final byte STRING = 'S';
+    static final byte BOOLEAN = 'Z';
+    static final byte INT = 'I';
+    static final byte LONG = 'J';
+    static final byte DOUBLE = 'D';
+    static final byte REF = 'H';
+    static final byte STRINGS = 'A';
+    static final byte LIST = 'L';
+    static final byte OTHER = 'T';
+
+    /**
+     * Segment files being written by the journals of this JVM.
+     */
+    private static final Set<File> LIVE = Collections.synchronizedSet(new HashSet<File>());
+
+    private static final Logger LOGGER = Logger.getLogger(CommandJournal.class.getName());
+
+    private static final CommandJournal DEFAULT = new CommandJournal(
+            new File(System.getProperty(CommandJournal.class.getName() + ".dir",
+                    System.getProperty("user.home") + "/.selenium-client-factory/commands")),
+            Integer.getInteger(CommandJournal.class.getName() + ".segmentSize", 16 * 1024 * 1024),
+            Integer.getInteger(CommandJournal.class.getName() + ".maxSegments", 32));
+}
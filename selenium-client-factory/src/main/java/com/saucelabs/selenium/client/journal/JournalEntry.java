@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A command read back from {@link CommandJournal} by {@link JournalReader}.
+ *
+ * <p>
+ * Arguments and return values are strings, boxed primitives, string arrays, lists of those,
+ * {@link Ref}s to the objects of the session, and {@link Opaque}s for everything else.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class JournalEntry {
+    private final String series;
+    private final int session;
+    private final String sessionLabel;
+    private final String driverUri;
+    private final int target;
+    private final String declaringClass;
+    private final String method;
+    private final String[] parameterTypes;
+    private final List<Object> args;
+    private final long timestamp;
+    private final long duration;
+    private final Outcome outcome;
+    private final Object result;
+    private final String exceptionClass;
+
+    JournalEntry(String series, int session, String sessionLabel, String driverUri, int target,
+                 String declaringClass, String method, String[] parameterTypes, List<Object> args,
+                 long timestamp, long duration, Outcome outcome, Object result, String exceptionClass) {
+        this.series = series;
+        this.session = session;
+        this.sessionLabel = sessionLabel;
+        this.driverUri = driverUri;
+        this.target = target;
+        this.declaringClass = declaringClass;
+        this.method = method;
+        this.parameterTypes = parameterTypes;
+        this.args = args;
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.outcome = outcome;
+        this.result = result;
+        this.exceptionClass = exceptionClass;
+    }
+
+    /**
+     * Name of the series of segment files that the command was recorded into, which is the "&lt;time>-&lt;process>"
+     * prefix of their names. Each JVM writes a series of its own.
+     */
+    public String getSeries() {
+        return series;
+    }
+
+    /**
+     * Number of the session in its {@linkplain #getSeries() series}. Every JVM numbers its sessions from 1,
+     * so use {@link #getSessionKey()} to tell apart the sessions of different JVMs.
+     */
+    public int getSession() {
+        return session;
+    }
+
+    /**
+     * Identifies the session of the command among all the sessions in the journal, in the form of "&lt;series>#&lt;session>".
+     */
+    public String getSessionKey() {
+        return series + '#' + session;
+    }
+
+    /**
+     * Human readable name of the session, such as the session ID assigned by the server.
+     */
+    public String getSessionLabel() {
+        return sessionLabel;
+    }
+
+    /**
+     * URI of the driver that the session was created from.
+     */
+    public String getDriverUri() {
+        return driverUri;
+    }
+
+    /**
+     * Number of the object the command was sent to, such as a {@link org.openqa.selenium.WebElement},
+     * as returned from an earlier command in {@link Ref}. 0 for the driver itself.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Fully qualified name of the interface that declares the method, such as "org.openqa.selenium.WebDriver".
+     */
+    public String getDeclaringClass() {
+        return declaringClass;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Names of the parameter types of the method, as in {@link Class#getName()}.
+     */
+    public String[] getParameterTypes() {
+        return parameterTypes.clone();
+    }
+
+    public List<Object> getArgs() {
+        return args;
+    }
+
+    /**
+     * When the command was sent, in {@link System#currentTimeMillis()}.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * How long the command took, in nanoseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * The return value if {@link #getOutcome()} is {@link Outcome#VALUE}, or
+     * the message of the exception if it's {@link Outcome#EXCEPTION}.
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    /**
+     * Class name of the exception if {@link #getOutcome()} is {@link Outcome#EXCEPTION}.
+     */
+    public String getExceptionClass() {
+        return exceptionClass;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        if (target != 0)
+            buf.append('#').append(target).append('.');
+        buf.append(method).append('(');
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0)  buf.append(',');
+            appendValue(args.get(i), buf);
+        }
+        buf.append(')');
+        switch (outcome) {
+        case VALUE:
+            buf.append(" -> ");
+            appendValue(result, buf);
+            break;
+        case EXCEPTION:
+            buf.append(" threw ").append(exceptionClass);
+            if (result != null)
+                buf.append(": ").append(result);
+            break;
+        }
+        return buf.toString();
+    }
+
+    private static void appendValue(Object o, StringBuilder buf) {
+        if (o instanceof String)
+            buf.append('"').append(o).append('"');
+        else if (o instanceof String[])
+            buf.append(Arrays.toString((String[]) o));
+        else
+            buf.append(o);
+    }
+
+    /**
+     * How a command ended.
+     */
+    public enum Outcome {
+        /**
+         * The method returned void.
+         */
+        VOID,
+        /**
+         * The method returned a value.
+         */
+        VALUE,
+        /**
+         * The method threw an exception.
+         */
+        EXCEPTION
+    }
+
+    /**
+     * An object of the session, such as a {@link org.openqa.selenium.WebElement}, which later commands can refer to.
+     */
+    public static final class Ref {
+        private final int handle;
+
+        public Ref(int handle) {
+            this.handle = handle;
+        }
+
+        /**
+         * Number of the object in the session. 0 is the driver itself.
+         */
+        public int getHandle() {
+            return handle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Ref && ((Ref) o).handle == handle;
+        }
+
+        @Override
+        public int hashCode() {
+            return handle;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + handle;
+        }
+    }
+
+    /**
+     * A value of a type that the journal doesn't know, recorded by its {@link Object#toString()}.
+     */
+    public static final class Opaque {
+        private final String type;
+        private final String text;
+
+        public Opaque(String type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        /**
+         * Name of the class of the value.
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
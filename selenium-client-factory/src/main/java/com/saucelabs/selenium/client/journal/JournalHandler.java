@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.spi.DriverProxies;
+import com.saucelabs.selenium.client.journal.JournalEntry.Ref;
+import org.openqa.selenium.WebElement;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the method invocations on a driver handed out from "journal:...", and on the objects it returned,
+ * into {@link CommandJournal}.
+ *
+ * <p>
+ * Objects returned from the driver, such as {@link WebElement}s, are wrapped into another proxy and numbered,
+ * so that the journal can tell which object a command was sent to, and which objects were passed as arguments.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+class JournalHandler implements InvocationHandler {
+    private final CommandJournal journal;
+    private final JournalSession session;
+    /**
+     * The handler of the driver that this object came from, which is this object for the driver itself.
+     */
+    private final JournalHandler root;
+    private final Object target;
+    /**
+     * Number of {@link #target} in the session.
+     */
+    private final int handle;
+    /**
+     * The proxy of the driver, if this is its handler. Weak, as the driver is reclaimed when the proxy becomes unreachable.
+     */
+    WeakReference<Object> proxy;
+
+    JournalHandler(CommandJournal journal, JournalSession session, Object driver) {
+        this.journal = journal;
+        this.session = session;
+        this.root = this;
+        this.target = driver;
+        this.handle = 0;
+    }
+
+    private JournalHandler(JournalHandler root, Object target, int handle) {
+        this.journal = root.journal;
+        this.session = root.session;
+        this.root = root;
+        this.target = target;
+        this.handle = handle;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            String n = method.getName();
+            if (n.equals("equals"))     return proxy == args[0];
+            if (n.equals("hashCode"))   return System.identityHashCode(proxy);
+            return toString();
+        }
+
+        long start = System.currentTimeMillis();
+        long t = System.nanoTime();
+        Object r;
+        try {
+            if (root == this)
+                SessionRegistry.touch(proxy);
+            r = method.invoke(target, unwrap(args));
+        } catch (InvocationTargetException e) {
+            Throwable x = e.getTargetException();
+            journal.record(session, handle, method, toRefs(args), start, System.nanoTime() - t, true, x);
+            throw x;    // unwrap exception
+        } finally {
+            if (root == this && isQuit(method))
+                SessionRegistry.ended(proxy);
+        }
+        long duration = System.nanoTime() - t;
+
+        Object recorded = r;
+        Class<?> type = method.getReturnType();
+        if (r == root.target) {
+            // such as switchTo().window(...)
+            Object p = root.proxy.get();
+            if (p != null) {
+                r = p;
+                recorded = new Ref(0);
+            }
+        } else if (r != null && type.isInterface() && !type.getName().startsWith("java.")) {
+            int h = session.newHandle();
+            r = DriverProxies.wrap(r, new JournalHandler(root, r, h), type);
+            recorded = new Ref(h);
+        } else if (r instanceof List && isListOfElements((List<?>) r)) {
+            List<Object> wrapped = new ArrayList<Object>();
+            List<Ref> refs = new ArrayList<Ref>();
+            for (Object e : (List<?>) r) {
+                int h = session.newHandle();
+                wrapped.add(DriverProxies.wrap(e, new JournalHandler(root, e, h), WebElement.class));
+                refs.add(new Ref(h));
+            }
+            r = wrapped;
+            recorded = refs;
+        }
+        journal.record(session, handle, method, toRefs(args), start, duration, false, recorded);
+        return r;
+    }
+
+    private static boolean isListOfElements(List<?> l) {
+        for (Object e : l)
+            if (!(e instanceof WebElement))
+                return false;
+        return true;
+    }
+
+    private static boolean isQuit(Method method) {
+        String n = method.getName();
+        return (n.equals("quit") || n.equals("stop")) && method.getParameterTypes().length==0;
+    }
+
+    /**
+     * Replaces the objects of this session among the arguments by what they wrap.
+     */
+    private Object[] unwrap(Object[] args) {
+        if (args == null)
+            return null;
+        Object[] r = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            Object a = args[i];
+            if (a != null && a.getClass() == Object[].class)  // such as the arguments of executeScript
+                a = unwrap((Object[]) a);
+            else {
+                JournalHandler h = getHandler(a);
+                if (h != null)
+                    a = h.target;
+            }
+            r[i] = a;
+        }
+        return r;
+    }
+
+    /**
+     * Replaces the objects of this session among the arguments by their {@link Ref}s, to be recorded.
+     */
+    private Object[] toRefs(Object[] args) {
+        if (args == null)
+            return null;
+        Object[] r = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            Object a = args[i];
+            if (a != null && a.getClass() == Object[].class)
+                a = toRefs((Object[]) a);
+            else {
+                JournalHandler h = getHandler(a);
+                if (h != null)
+                    a = new Ref(h.handle);
+            }
+            r[i] = a;
+        }
+        return r;
+    }
+
+    private JournalHandler getHandler(Object o) {
+        if (o != null && Proxy.isProxyClass(o.getClass())) {
+            InvocationHandler h = Proxy.getInvocationHandler(o);
+            if (h instanceof JournalHandler && ((JournalHandler) h).root == root)
+                return (JournalHandler) h;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "Journaled " + target;
+    }
+}
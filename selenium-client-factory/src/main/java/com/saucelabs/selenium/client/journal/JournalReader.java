@@ -0,0 +1,378 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.journal.JournalEntry.Opaque;
+import com.saucelabs.selenium.client.journal.JournalEntry.Outcome;
+import com.saucelabs.selenium.client.journal.JournalEntry.Ref;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.saucelabs.selenium.client.journal.CommandJournal.*;
+
+/**
+ * Reads the segment files written by {@link CommandJournal}.
+ *
+ * <p>
+ * This class also works as a command line tool that prints the journal as text, or as JSON with "-json",
+ * one command per line:
+ *
+ * <pre>
+ * java -cp selenium-client-factory.jar com.saucelabs.selenium.client.journal.JournalReader [-json] &lt;file or directory>...
+ * </pre>
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class JournalReader {
+    private final List<File> files = new ArrayList<File>();
+    private int next;
+    private File file;
+    private String series;
+    private ByteBuffer buf;
+
+    /**
+     * Sessions of the current segment by their numbers, as {label, driver URI}.
+     */
+    private final Map<Integer, String[]> sessions = new HashMap<Integer, String[]>();
+    /**
+     * Methods of the current segment by their numbers, as {declaring class, method name, parameter types...}.
+     */
+    private final Map<Integer, String[]> methods = new HashMap<Integer, String[]>();
+
+    /**
+     * @param files
+     *      Segment files to read in this order. Directories are replaced by the segment files in them,
+     *      in the order they were written.
+     */
+    public JournalReader(File... files) {
+        for (File f : files) {
+            File[] children = f.listFiles();
+            if (children == null) {
+                this.files.add(f);
+                continue;
+            }
+            // segment file names start with the time the JVM started writing them
+            Arrays.sort(children);
+            for (File c : children)
+                if (c.getName().endsWith(SUFFIX))
+                    this.files.add(c);
+        }
+    }
+
+    /**
+     * Reads the next command.
+     *
+     * @return null if there's no more.
+     */
+    public JournalEntry next() throws IOException {
+        while (true) {
+            if (buf == null) {
+                if (next == files.size())
+                    return null;
+                open(files.get(next++));
+            }
+
+            if (buf.remaining() < 5 || buf.get(buf.position()) == 0) {
+                buf = null;     // end of this segment
+                continue;
+            }
+            byte type = buf.get();
+            int length = buf.getInt();
+            if (length < 0 || length > buf.remaining())
+                throw new IOException("Corrupted record at " + (buf.position() - 5) + " in " + file);
+            int end = buf.position() + length;
+
+            JournalEntry e = null;
+            switch (type) {
+            case SESSION:
+                sessions.put(buf.getInt(), new String[]{readString(), (String) readValue()});
+                break;
+            case METHOD:
+                int id = buf.getInt();
+                String declaringClass = readString();
+                String name = readString();
+                String[] m = new String[2 + buf.getInt()];
+                m[0] = declaringClass;
+                m[1] = name;
+                for (int i = 2; i < m.length; i++)
+                    m[i] = readString();
+                methods.put(id, m);
+                break;
+            case COMMAND:
+                e = readCommand();
+                break;
+            default:
+                // a kind of record added later. skip it
+            }
+            buf.position(end);
+            if (e != null)
+                return e;
+        }
+    }
+
+    /**
+     * Reads all the remaining commands.
+     */
+    public List<JournalEntry> readAll() throws IOException {
+        List<JournalEntry> r = new ArrayList<JournalEntry>();
+        JournalEntry e;
+        while ((e = next()) != null)
+            r.add(e);
+        return r;
+    }
+
+    private void open(File f) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(f, "r");
+        try {
+            buf = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+        file = f;
+        series = getSeries(f);
+        // every segment defines what it uses, and the numbers mean different things in the segments of other JVMs
+        sessions.clear();
+        methods.clear();
+        byte[] magic = new byte[MAGIC.length];
+        if (buf.remaining() < magic.length)
+            throw new IOException("Not a command journal: " + f);
+        buf.get(magic);
+        if (!Arrays.equals(magic, MAGIC))
+            throw new IOException("Not a command journal: " + f);
+    }
+
+    /**
+     * Gets the series of a segment file, by dropping the segment number from its name.
+     */
+    static String getSeries(File segment) {
+        String name = segment.getName();
+        if (name.endsWith(SUFFIX))
+            name = name.substring(0, name.length() - SUFFIX.length());
+        int idx = name.lastIndexOf('-');
+        return idx < 0 ? name : name.substring(0, idx);
+    }
+
+    private JournalEntry readCommand() throws IOException {
+        int session = buf.getInt();
+        String[] s = sessions.get(session);
+        int target = buf.getInt();
+        String[] m = methods.get(buf.getInt());
+        if (s == null || m == null)
+            throw new IOException("Command refers to an undefined session or method in " + file);
+        long timestamp = buf.getLong();
+        long duration = buf.getLong();
+        int n = buf.getInt();
+        List<Object> args = new ArrayList<Object>(n);
+        for (int i = 0; i < n; i++)
+            args.add(readValue());
+
+        Outcome outcome;
+        Object result = null;
+        String exceptionClass = null;
+        switch (buf.get()) {
+        case VOID:
+            outcome = Outcome.VOID;
+            break;
+        case VALUE:
+            outcome = Outcome.VALUE;
+            result = readValue();
+            break;
+        case EXCEPTION:
+            outcome = Outcome.EXCEPTION;
+            exceptionClass = readString();
+            result = readValue();
+            break;
+        default:
+            throw new IOException("Unknown outcome of a command in " + file);
+        }
+
+        String[] params = new String[m.length - 2];
+        System.arraycopy(m, 2, params, 0, params.length);
+        return new JournalEntry(series, session, s[0], s[1], target, m[0], m[1], params, args,
+                timestamp, duration, outcome, result, exceptionClass);
+    }
+
+    private Object readValue() throws IOException {
+        byte type = buf.get();
+        switch (type) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString();
+        case BOOLEAN:
+            return buf.get() != 0;
+        case INT:
+            return buf.getInt();
+        case LONG:
+            return buf.getLong();
+        case DOUBLE:
+            return buf.getDouble();
+        case REF:
+            return new Ref(buf.getInt());
+        case STRINGS:
+            String[] a = new String[buf.getInt()];
+            for (int i = 0; i < a.length; i++)
+                a[i] = (String) readValue();
+            return a;
+        case LIST:
+            int n = buf.getInt();
+            List<Object> l = new ArrayList<Object>(n);
+            for (int i = 0; i < n; i++)
+                l.add(readValue());
+            return l;
+        case OTHER:
+            return new Opaque(readString(), readString());
+        default:
+            throw new IOException("Unknown type of a value " + type + " in " + file);
+        }
+    }
+
+    private String readString() throws IOException {
+        byte[] b = new byte[buf.getInt()];
+        buf.get(b);
+        return new String(b, "UTF-8");
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean json = false;
+        List<File> files = new ArrayList<File>();
+        for (String a : args) {
+            if (a.equals("-json"))
+                json = true;
+            else
+                files.add(new File(a));
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java " + JournalReader.class.getName() + " [-json] <file or directory>...");
+            System.exit(1);
+        }
+
+        JournalReader r = new JournalReader(files.toArray(new File[files.size()]));
+        PrintStream out = System.out;
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        JournalEntry e;
+        while ((e = r.next()) != null) {
+            if (json)
+                out.println(toJson(e));
+            else
+                out.printf("%s %s %8.3fms %s%n", format.format(new Date(e.getTimestamp())), e.getSessionLabel(),
+                        e.getDuration() / 1000000.0, e);
+        }
+    }
+
+    /**
+     * Renders a command as a JSON object.
+     */
+    public static String toJson(JournalEntry e) {
+        StringBuilder buf = new StringBuilder("{");
+        buf.append("\"timestamp\":").append(e.getTimestamp());
+        buf.append(",\"series\":");
+        appendJson(e.getSeries(), buf);
+        buf.append(",\"session\":").append(e.getSession());
+        buf.append(",\"label\":");
+        appendJson(e.getSessionLabel(), buf);
+        buf.append(",\"uri\":");
+        appendJson(e.getDriverUri(), buf);
+        buf.append(",\"target\":").append(e.getTarget());
+        buf.append(",\"class\":");
+        appendJson(e.getDeclaringClass(), buf);
+        buf.append(",\"method\":");
+        appendJson(e.getMethod(), buf);
+        buf.append(",\"args\":");
+        appendJson(e.getArgs(), buf);
+        buf.append(",\"duration\":").append(e.getDuration());
+        switch (e.getOutcome()) {
+        case VALUE:
+            buf.append(",\"result\":");
+            appendJson(e.getResult(), buf);
+            break;
+        case EXCEPTION:
+            buf.append(",\"exception\":");
+            appendJson(e.getExceptionClass(), buf);
+            buf.append(",\"message\":");
+            appendJson(e.getResult(), buf);
+            break;
+        }
+        return buf.append('}').toString();
+    }
+
+    private static void appendJson(Object o, StringBuilder buf) {
+        if (o == null || o instanceof Boolean || o instanceof Integer || o instanceof Long) {
+            buf.append(o);
+        } else if (o instanceof Double) {
+            double d = (Double) o;
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                appendJson(o.toString(), buf);
+            else
+                buf.append(d);
+        } else if (o instanceof String[] || o instanceof List) {
+            List<?> l = o instanceof List ? (List<?>) o : Arrays.asList((String[]) o);
+            buf.append('[');
+            for (int i = 0; i < l.size(); i++) {
+                if (i > 0)  buf.append(',');
+                appendJson(l.get(i), buf);
+            }
+            buf.append(']');
+        } else if (o instanceof Ref) {
+            buf.append("{\"ref\":").append(((Ref) o).getHandle()).append('}');
+        } else if (o instanceof Opaque) {
+            buf.append("{\"type\":");
+            appendJson(((Opaque) o).getType(), buf);
+            buf.append(",\"text\":");
+            appendJson(((Opaque) o).getText(), buf);
+            buf.append('}');
+        } else {
+            String s = o.toString();
+            buf.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                case '"':   buf.append("\\\""); break;
+                case '\\':  buf.append("\\\\"); break;
+                case '\n':  buf.append("\\n"); break;
+                case '\r':  buf.append("\\r"); break;
+                case '\t':  buf.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        buf.append(String.format("\\u%04x", (int) c));
+                    else
+                        buf.append(c);
+                }
+            }
+            buf.append('"');
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.journal.JournalEntry.Opaque;
+import com.saucelabs.selenium.client.journal.JournalEntry.Outcome;
+import com.saucelabs.selenium.client.journal.JournalEntry.Ref;
+import com.saucelabs.selenium.client.journal.ReplayedCommand.Status;
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays the commands recorded in {@link CommandJournal} against fresh drivers, and reports how long each command
+ * took compared to the recording, so that a new grid, browser, or build of the application under test can be
+ * benchmarked without running the original tests.
+ *
+ * <p>
+ * Every session in the journal gets its own driver from the given {@link SeleniumFactory}, created when its first
+ * command is replayed. The commands are replayed one at a time, in the order they were recorded, either as fast
+ * as possible, or at the recorded pace (see {@link #setSpeed(double)}). Objects returned from the commands,
+ * such as {@link org.openqa.selenium.WebElement}s, take the place of the recorded ones in the later commands.
+ * Drivers whose sessions the journal doesn't end are quit at the end of the replay.
+ *
+ * <p>
+ * This class also works as a command line tool that prints the report of the replay:
+ *
+ * <pre>
+ * java -cp ... com.saucelabs.selenium.client.journal.JournalReplayer [-speed N] [-driver URI] &lt;file or directory>...
+ * </pre>
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class JournalReplayer {
+    private final SeleniumFactory factory;
+    private double speed;
+
+    /**
+     * Methods resolved so far, by the declaring class, the name, and the parameter types.
+     */
+    private final Map<String, Method> methods = new HashMap<String, Method>();
+
+    /**
+     * @param factory
+     *      Creates the drivers to replay the sessions with.
+     */
+    public JournalReplayer(SeleniumFactory factory) {
+        this.factory = factory;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the pace of the replay.
+     *
+     * @param speed
+     *      0 to send the commands as fast as possible, which is the default. 1 to send them at the same intervals
+     *      as they were recorded, including the time the test spent between the commands. 2 to send them twice as fast.
+     */
+    public JournalReplayer setSpeed(double speed) {
+        this.speed = speed;
+        return this;
+    }
+
+    /**
+     * Replays the given commands.
+     */
+    public ReplayReport replay(List<JournalEntry> entries) {
+        ReplayReport report = new ReplayReport();
+        // objects of each session by their numbers. the driver is 0
+        Map<String, Map<Integer, Object>> sessions = new HashMap<String, Map<Integer, Object>>();
+        Set<String> ended = new HashSet<String>();
+        try {
+            long first = entries.isEmpty() ? 0 : entries.get(0).getTimestamp();
+            long start = System.currentTimeMillis();
+            for (JournalEntry e : entries) {
+                if (speed > 0)
+                    pace(start + (long) ((e.getTimestamp() - first) / speed));
+
+                Map<Integer, Object> objects = sessions.get(e.getSessionKey());
+                if (objects == null) {
+                    sessions.put(e.getSessionKey(), objects = new HashMap<Integer, Object>());
+                    objects.put(0, createDriver(e));
+                }
+                report.add(replay(e, objects));
+                if (e.getTarget() == 0 && isQuit(e))
+                    ended.add(e.getSessionKey());
+            }
+        } finally {
+            for (Map.Entry<String, Map<Integer, Object>> s : sessions.entrySet())
+                if (!ended.contains(s.getKey()))
+                    quitQuietly(s.getValue().get(0));
+        }
+        return report;
+    }
+
+    private void pace(long due) {
+        long wait;
+        while ((wait = due - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying", e);
+            }
+        }
+    }
+
+    private Object createDriver(JournalEntry e) {
+        if (e.getDeclaringClass().equals(Selenium.class.getName()))
+            return factory.createSelenium();
+        return factory.createWebDriverInstance((DesiredCapabilities) null);
+    }
+
+    private ReplayedCommand replay(JournalEntry e, Map<Integer, Object> objects) {
+        Object target = objects.get(e.getTarget());
+        if (target == null)
+            return skipped(e, "#" + e.getTarget() + " wasn't returned in the replay");
+
+        Method m;
+        Object[] args;
+        try {
+            ClassLoader cl = target.getClass().getClassLoader();
+            m = resolve(e, cl != null ? cl : JournalReplayer.class.getClassLoader());
+            Class<?>[] types = m.getParameterTypes();
+            args = new Object[types.length];
+            for (int i = 0; i < args.length; i++)
+                args[i] = convert(e.getArgs().get(i), types[i], objects);
+        } catch (ClassNotFoundException x) {
+            return skipped(e, "No such class " + x.getMessage());
+        } catch (NoSuchMethodException x) {
+            return skipped(e, "No such method " + x.getMessage());
+        } catch (IllegalArgumentException x) {
+            return skipped(e, x.getMessage());
+        }
+
+        Object r = null;
+        Throwable failure = null;
+        long t = System.nanoTime();
+        try {
+            r = m.invoke(target, args);
+        } catch (InvocationTargetException x) {
+            failure = x.getTargetException();
+        } catch (IllegalAccessException x) {
+            return skipped(e, x.toString());
+        }
+        long duration = System.nanoTime() - t;
+
+        // what the recorded objects stand for from now on
+        Object recorded = e.getResult();
+        if (failure == null && recorded instanceof Ref) {
+            objects.put(((Ref) recorded).getHandle(), r);
+        } else if (failure == null && recorded instanceof List && r instanceof List) {
+            List<?> refs = (List<?>) recorded, values = (List<?>) r;
+            for (int i = 0; i < Math.min(refs.size(), values.size()); i++)
+                if (refs.get(i) instanceof Ref)
+                    objects.put(((Ref) refs.get(i)).getHandle(), values.get(i));
+        }
+
+        boolean threw = e.getOutcome() == Outcome.EXCEPTION;
+        if (failure != null && !threw)
+            return new ReplayedCommand(e, Status.DIVERGED, duration, failure, "Threw " + failure);
+        if (failure == null && threw)
+            return new ReplayedCommand(e, Status.DIVERGED, duration, null, "Returned where the recording threw " + e.getExceptionClass());
+        return new ReplayedCommand(e, Status.REPLAYED, duration, failure, null);
+    }
+
+    private static ReplayedCommand skipped(JournalEntry e, String reason) {
+        return new ReplayedCommand(e, Status.SKIPPED, 0, null, reason);
+    }
+
+    private Method resolve(JournalEntry e, ClassLoader cl) throws ClassNotFoundException, NoSuchMethodException {
+        String[] params = e.getParameterTypes();
+        StringBuilder key = new StringBuilder(e.getDeclaringClass()).append('.').append(e.getMethod());
+        for (String p : params)
+            key.append(',').append(p);
+
+        Method m = methods.get(key.toString());
+        if (m == null) {
+            Class<?>[] types = new Class[params.length];
+            for (int i = 0; i < params.length; i++)
+                types[i] = loadClass(params[i], cl);
+            m = loadClass(e.getDeclaringClass(), cl).getMethod(e.getMethod(), types);
+            methods.put(key.toString(), m);
+        }
+        return m;
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader cl) throws ClassNotFoundException {
+        Class<?> c = PRIMITIVES.get(name);
+        return c != null ? c : Class.forName(name, false, cl);
+    }
+
+    /**
+     * Turns a recorded argument into the one to replay with.
+     *
+     * @throws IllegalArgumentException
+     *      if the argument can't be reconstructed.
+     */
+    private static Object convert(Object v, Class<?> type, Map<Integer, Object> objects) {
+        if (v instanceof Ref) {
+            Object o = objects.get(((Ref) v).getHandle());
+            if (o == null)
+                throw new IllegalArgumentException(v + " wasn't returned in the replay");
+            return o;
+        }
+        if (v instanceof Opaque) {
+            Opaque o = (Opaque) v;
+            if (o.getType().startsWith(By.class.getName()) && type.isAssignableFrom(By.class))
+                return parseBy(o.getText());
+            throw new IllegalArgumentException("Unable to reconstruct " + o.getType() + " " + o);
+        }
+        if (v instanceof List) {
+            List<?> l = (List<?>) v;
+            if (type.isArray()) {
+                Object a = Array.newInstance(type.getComponentType(), l.size());
+                for (int i = 0; i < l.size(); i++)
+                    Array.set(a, i, convert(l.get(i), type.getComponentType(), objects));
+                return a;
+            }
+            List<Object> r = new ArrayList<Object>(l.size());
+            for (Object e : l)
+                r.add(convert(e, Object.class, objects));
+            return r;
+        }
+        if (v instanceof Number) {
+            // short, byte and float are recorded as int and double
+            Number n = (Number) v;
+            if (type == short.class || type == Short.class)    return n.shortValue();
+            if (type == byte.class || type == Byte.class)      return n.byteValue();
+            if (type == float.class || type == Float.class)    return n.floatValue();
+            if (type == long.class || type == Long.class)      return n.longValue();
+        }
+        return v;
+    }
+
+    /**
+     * Parses {@link By#toString()}.
+     */
+    static By parseBy(String s) {
+        int i = s.indexOf(": ");
+        if (i >= 0) {
+            String how = s.substring(0, i), what = s.substring(i + 2);
+            if (how.equals("By.id"))                return By.id(what);
+            if (how.equals("By.name"))              return By.name(what);
+            if (how.equals("By.className"))         return By.className(what);
+            if (how.equals("By.selector"))          return By.cssSelector(what);
+            if (how.equals("By.xpath"))             return By.xpath(what);
+            if (how.equals("By.linkText"))          return By.linkText(what);
+            if (how.equals("By.partialLinkText"))   return By.partialLinkText(what);
+            if (how.equals("By.tagName"))           return By.tagName(what);
+        }
+        throw new IllegalArgumentException("Unable to reconstruct the locator " + s);
+    }
+
+    private static boolean isQuit(JournalEntry e) {
+        String n = e.getMethod();
+        return (n.equals("quit") || n.equals("stop")) && e.getParameterTypes().length == 0;
+    }
+
+    private static void quitQuietly(Object driver) {
+        try {
+            if (driver instanceof WebDriver)
+                ((WebDriver) driver).quit();
+            else
+                ((Selenium) driver).stop();
+        } catch (RuntimeException e) {
+            // the replay is over anyway
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        SeleniumFactory factory = new SeleniumFactory();
+        JournalReplayer replayer = new JournalReplayer(factory);
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-speed") && i + 1 < args.length)
+                replayer.setSpeed(Double.parseDouble(args[++i]));
+            else if (args[i].equals("-driver") && i + 1 < args.length)
+                factory.setUri(args[++i]);
+            else
+                files.add(new File(args[i]));
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java " + JournalReplayer.class.getName() + " [-speed N] [-driver URI] <file or directory>...");
+            System.exit(1);
+        }
+
+        List<JournalEntry> entries = new JournalReader(files.toArray(new File[files.size()])).readAll();
+        replayer.replay(entries).print(System.out);
+    }
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> c : new Class[]{boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class})
+            PRIMITIVES.put(c.getName(), c);
+    }
+}
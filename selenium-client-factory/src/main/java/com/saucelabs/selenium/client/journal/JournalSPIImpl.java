@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.spi.DriverProxies;
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+import com.thoughtworks.selenium.Selenium;
+import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link SeleniumFactorySPI} that handles "journal:...".
+ *
+ * <p>
+ * "journal:&lt;anotherDriverURL>" wraps the driver created from the other URL, and records every command sent to it
+ * into {@link CommandJournal#getDefault() the command journal}: when it was sent, the session, the method,
+ * the arguments, the return value or the exception, and how long it took. The commands sent to the objects
+ * returned from the driver, such as {@link org.openqa.selenium.WebElement}s, are recorded as well.
+ * Use {@link JournalReader} to read the journal.
+ *
+ * <p>
+ * To record into another journal, set it to the "journal" property of the factory.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+@MetaInfServices
+public class JournalSPIImpl extends SeleniumFactorySPI {
+    @Override
+    public Selenium createSelenium(SeleniumFactory factory, String browserURL) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        String inner = uri.substring(SCHEME.length());
+        Selenium base = factory.clone().setUri(inner).createSelenium(browserURL);
+        return (Selenium) wrap(factory, base, inner);
+    }
+
+    @Override
+    public WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        String inner = uri.substring(SCHEME.length());
+        WebDriver base = factory.clone().setUri(inner).createWebDriverInstance(browserURL, capabilities);
+        return (WebDriver) wrap(factory, base, inner);
+    }
+
+    private static Object wrap(SeleniumFactory factory, Object base, String uri) {
+        Object j = factory.getProperty("journal");
+        CommandJournal journal = j instanceof CommandJournal ? (CommandJournal) j : CommandJournal.getDefault();
+        JournalHandler h = new JournalHandler(journal, journal.openSession(getLabel(base), uri), base);
+        Object proxy = DriverProxies.wrap(base, h);
+        h.proxy = new WeakReference<Object>(proxy);
+        return proxy;
+    }
+
+    /**
+     * Names the session after the session ID of the server, if we can find it.
+     */
+    private static String getLabel(Object base) {
+        if (base instanceof RemoteWebDriver) {
+            Object id = ((RemoteWebDriver) base).getSessionId();
+            if (id != null)
+                return id.toString();
+        }
+        return "Selenium" + Integer.toHexString(System.identityHashCode(base));
+    }
+
+    @Override
+    public boolean canHandle(String uri) {
+        return uri.startsWith(SCHEME);
+    }
+
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("journal");
+    }
+
+    @Override
+    public String getDelegateUri(String uri) {
+        return canHandle(uri) ? uri.substring(SCHEME.length()) : null;
+    }
+
+    private static final String SCHEME = "journal:";
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A session whose commands are recorded into {@link CommandJournal}.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see CommandJournal#openSession(String, String)
+ */
+public final class JournalSession {
+    final int id;
+    final String label;
+    final String uri;
+    /**
+     * Numbers the objects handed out from the session, such as {@link org.openqa.selenium.WebElement}s.
+     * The driver itself is 0.
+     */
+    private final AtomicInteger handles = new AtomicInteger();
+
+    JournalSession(int id, String label, String uri) {
+        this.id = id;
+        this.label = label;
+        this.uri = uri;
+    }
+
+    /**
+     * Number of the session in the journal.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    int newHandle() {
+        return handles.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
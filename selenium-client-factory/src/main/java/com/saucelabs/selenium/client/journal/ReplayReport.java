@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.factory.metrics.Histogram;
+import com.saucelabs.selenium.client.journal.ReplayedCommand.Status;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of {@link JournalReplayer#replay(List)}: every replayed command, and their latencies
+ * compared to the recording, per method.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class ReplayReport {
+    private final List<ReplayedCommand> commands = new ArrayList<ReplayedCommand>();
+    private final Map<String, Histogram[]> methods = new TreeMap<String, Histogram[]>();
+    private int skipped, diverged;
+    private long recordedTime, replayedTime;
+
+    void add(ReplayedCommand c) {
+        commands.add(c);
+        if (c.getStatus() == Status.SKIPPED) {
+            skipped++;
+            return;
+        }
+        if (c.getStatus() == Status.DIVERGED)
+            diverged++;
+
+        JournalEntry e = c.getEntry();
+        String name = e.getDeclaringClass();
+        name = name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1) + '.' + e.getMethod();
+        Histogram[] h = methods.get(name);
+        if (h == null)
+            methods.put(name, h = new Histogram[]{new Histogram(), new Histogram()});
+        h[0].record(e.getDuration());
+        h[1].record(c.getDuration());
+        recordedTime += e.getDuration();
+        replayedTime += c.getDuration();
+    }
+
+    /**
+     * All the commands in the order they were replayed.
+     */
+    public List<ReplayedCommand> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    public int getSkippedCount() {
+        return skipped;
+    }
+
+    public int getDivergedCount() {
+        return diverged;
+    }
+
+    /**
+     * Total time that the commands that weren't skipped took in the recording, in nanoseconds.
+     */
+    public long getRecordedTime() {
+        return recordedTime;
+    }
+
+    /**
+     * Total time that the commands that weren't skipped took in the replay, in nanoseconds.
+     */
+    public long getReplayedTime() {
+        return replayedTime;
+    }
+
+    /**
+     * Latencies of the commands that weren't skipped, by the method such as "WebDriver.get".
+     *
+     * @return
+     *      Pairs of the distributions in the recording and in the replay.
+     */
+    public Map<String, Histogram[]> getLatencies() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * Prints the latencies per method, and the totals.
+     */
+    public void print(PrintStream out) {
+        out.printf("%-32s %6s %12s %12s %12s %12s %8s%n", "Method", "Count",
+                "Recorded", "Replayed", "Recorded p95", "Replayed p95", "Delta");
+        for (Map.Entry<String, Histogram[]> e : methods.entrySet()) {
+            Histogram r = e.getValue()[0], p = e.getValue()[1];
+            out.printf("%-32s %6d %10.3fms %10.3fms %10.3fms %10.3fms %7.1f%%%n", e.getKey(), r.getCount(),
+                    r.getMean(), p.getMean(), r.getPercentile(0.95), p.getPercentile(0.95),
+                    percentage(r.getMean(), p.getMean()));
+        }
+        out.printf("%d commands replayed in %.3fms, recorded in %.3fms (%.1f%%). %d diverged, %d skipped.%n",
+                commands.size() - skipped, replayedTime / 1000000.0, recordedTime / 1000000.0,
+                percentage(recordedTime, replayedTime), diverged, skipped);
+    }
+
+    private static double percentage(double recorded, double replayed) {
+        return recorded == 0 ? 0 : (replayed - recorded) * 100 / recorded;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+/**
+ * Outcome of replaying one {@link JournalEntry} by {@link JournalReplayer}.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class ReplayedCommand {
+    private final JournalEntry entry;
+    private final Status status;
+    private final long duration;
+    private final Throwable failure;
+    private final String reason;
+
+    ReplayedCommand(JournalEntry entry, Status status, long duration, Throwable failure, String reason) {
+        this.entry = entry;
+        this.status = status;
+        this.duration = duration;
+        this.failure = failure;
+        this.reason = reason;
+    }
+
+    /**
+     * The recorded command.
+     */
+    public JournalEntry getEntry() {
+        return entry;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * How long the command took in the replay, in nanoseconds. 0 if it was skipped.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * How much longer the command took in the replay than in the recording, in nanoseconds.
+     * Negative if the replay was faster.
+     */
+    public long getDelta() {
+        return duration - entry.getDuration();
+    }
+
+    /**
+     * The exception thrown in the replay, if any.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Why the command diverged or got skipped, or null if it was replayed as recorded.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + entry + (reason != null ? " (" + reason + ")" : "");
+    }
+
+    public enum Status {
+        /**
+         * The command ended the same way as in the recording, by returning or by throwing an exception.
+         */
+        REPLAYED,
+        /**
+         * The command returned where the recording threw an exception, or the other way around.
+         * The timing is still reported, but it may not be comparable.
+         */
+        DIVERGED,
+        /**
+         * The command couldn't be sent, such as because it was sent to an object that
+         * an earlier command failed to return, or its arguments couldn't be reconstructed.
+         */
+        SKIPPED
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.lazy;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+import com.thoughtworks.selenium.Selenium;
+import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.interactions.HasInputDevices;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link SeleniumFactorySPI} that handles "lazy:...".
+ *
+ * <p>
+ * {@link WebDriver}s created from "lazy:&lt;anotherDriverURL>" are returned right away, and the session of
+ * the wrapped driver is only created when the first command is sent. If the driver is quit without being used,
+ * as in a test that gets skipped by an assumption, no session is created at all.
+ *
+ * <p>
+ * Set the "lazy.eager" factory property (or the "com.saucelabs.selenium.client.lazy.LazySPIImpl.eager"
+ * system property) to true to start creating the session in the background right away, so that it overlaps
+ * with the rest of the test setup. The session is then quit as soon as it comes up if the driver is quit unused.
+ *
+ * <p>
+ * The returned driver implements {@link LazyWebDriver}, as well as {@link JavascriptExecutor}, {@link TakesScreenshot},
+ * {@link HasCapabilities} and {@link HasInputDevices}, since it can't tell which interfaces the real driver implements
+ * until the session starts. Calling a method of an interface that the real driver doesn't implement results in
+ * {@link UnsupportedOperationException}.
+ *
+ * <p>
+ * {@link Selenium} RC sessions are started by the application, so "lazy:" simply creates them
+ * from the wrapped driver URI.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+@MetaInfServices
+public class LazySPIImpl extends SeleniumFactorySPI {
+    @Override
+    public Selenium createSelenium(SeleniumFactory factory, String browserURL) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        return factory.clone().setUri(uri.substring(SCHEME.length())).createSelenium(browserURL);
+    }
+
+    @Override
+    public WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        // the caller is free to modify the capabilities once we return
+        DesiredCapabilities dc = capabilities==null ? null : new DesiredCapabilities((Capabilities) capabilities);
+        // the permit of the admission scheduler is taken by the proxy, so starting the session mustn't take another one
+        LazyWebDriverHandler h = new LazyWebDriverHandler(
+                factory.clone().setUri(uri.substring(SCHEME.length())).setAdmissionScheduler(null), browserURL, dc, isEager(factory));
+        return (WebDriver) Proxy.newProxyInstance(LazySPIImpl.class.getClassLoader(), TYPES, h);
+    }
+
+    @Override
+    public boolean canHandle(String uri) {
+        return uri.startsWith(SCHEME);
+    }
+
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("lazy");
+    }
+
+    @Override
+    public String getDelegateUri(String uri) {
+        return canHandle(uri) ? uri.substring(SCHEME.length()) : null;
+    }
+
+    private static boolean isEager(SeleniumFactory factory) {
+        Object v = factory.getProperty("lazy.eager");
+        if (v == null)
+            v = System.getProperty(LazySPIImpl.class.getName() + ".eager");
+        return v != null && Boolean.valueOf(v.toString().trim());
+    }
+
+    private static final String SCHEME = "lazy:";
+
+    private static final Class[] TYPES = {
+            WebDriver.class, LazyWebDriver.class,
+            JavascriptExecutor.class, TakesScreenshot.class, HasCapabilities.class, HasInputDevices.class
+    };
+}
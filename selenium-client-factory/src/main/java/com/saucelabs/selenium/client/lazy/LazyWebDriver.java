@@ -0,0 +1,55 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.lazy;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * {@link WebDriver} returned from "lazy:..." URI will implement this interface
+ * to let you check and control when the real session starts.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public interface LazyWebDriver {
+    /**
+     * Whether the real session has been created, or is being created in the background.
+     */
+    boolean isStarted();
+
+    /**
+     * The actual driver that this lazy driver is delegating to.
+     *
+     * @return null if the session hasn't been created yet.
+     */
+    WebDriver getBaseDriver();
+
+    /**
+     * Creates the real session now, if it hasn't been created yet, and waits for it to come up.
+     *
+     * @return the actual driver.
+     * @throws IllegalArgumentException if the session fails to start.
+     * @throws IllegalStateException if the driver has already been quit.
+     */
+    WebDriver start();
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.lazy;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Implements the behavior of the {@link WebDriver} handed out from "lazy:...".
+ *
+ * @author Kohsuke Kawaguchi
+ */
+class LazyWebDriverHandler implements InvocationHandler, LazyWebDriver {
+    /**
+     * Configured to create the real session.
+     */
+    private final SeleniumFactory factory;
+    private final String browserURL;
+    private final DesiredCapabilities capabilities;
+
+    private WebDriver base;
+    /**
+     * Non-null while the session is being created in the background.
+     */
+    private Future<WebDriver> future;
+    private boolean quit;
+
+    LazyWebDriverHandler(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities, boolean eager) {
+        this.factory = factory;
+        this.browserURL = browserURL;
+        this.capabilities = capabilities;
+        if (eager)
+            future = factory.createWebDriverAsync(browserURL, capabilities);
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Class<?> decl = method.getDeclaringClass();
+
+        if (decl==Object.class || decl==LazyWebDriver.class) {
+            // handle it by ourselves
+            return method.invoke(this,args);
+        }
+
+        if (method.getName().equals("quit") && method.getParameterTypes().length==0) {
+            SessionRegistry.ended(proxy);
+            quit();
+            return null;
+        }
+
+        SessionRegistry.touch(proxy);
+        WebDriver d = start();
+        if (!decl.isInstance(d))
+            throw new UnsupportedOperationException(d+" doesn't implement "+decl.getName());
+
+        try {
+            return method.invoke(d,args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();   // unwrap exception
+        }
+    }
+
+    public synchronized boolean isStarted() {
+        return base!=null || future!=null;
+    }
+
+    public synchronized WebDriver getBaseDriver() {
+        return base;
+    }
+
+    public synchronized WebDriver start() {
+        if (quit)
+            throw new IllegalStateException("This driver has already been quit");
+        if (base==null) {
+            if (future!=null) {
+                try {
+                    base = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalArgumentException("Interrupted while waiting for "+factory.getUri()+" to start",e);
+                } catch (ExecutionException e) {
+                    Throwable t = e.getCause();
+                    if (t instanceof RuntimeException)
+                        throw (RuntimeException) t;
+                    throw new IllegalArgumentException("Failed to start "+factory.getUri(),t);
+                } finally {
+                    // if it failed, the next command will try again
+                    future = null;
+                }
+            } else {
+                base = factory.createWebDriverInstance(browserURL,capabilities);
+            }
+            // the session stays tracked as this lazy driver, which is what the application holds
+            SessionRegistry.untrack(base);
+        }
+        return base;
+    }
+
+    private synchronized void quit() {
+        if (quit)   return;
+        quit = true;
+        if (future!=null) {
+            // a session still being created gets disposed as soon as it comes up
+            if (!future.cancel(false))
+                base = getQuietly(future);
+            future = null;
+        }
+        if (base!=null)
+            base.quit();
+    }
+
+    private static WebDriver getQuietly(Future<WebDriver> f) {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            return null;    // failed to start, so nothing to quit
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);    // impossible, since the creation is already done
+        }
+    }
+
+    @Override
+    public String toString() {
+        WebDriver d = getBaseDriver();
+        return "Lazy WebDriver around "+(d!=null ? d : factory.getUri());
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.saucelabs.selenium.client.factory.jmx.Management;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Hands the command logs of the logging drivers over to a background thread, which passes them to their {@link Logger}s,
+ * so that slow log handlers don't slow down the tests, and parallel tests don't queue up on the locks of the handlers.
+ *
+ * <p>
+ * Records go through a bounded ring buffer whose slots are allocated up front. Any number of threads can add to it
+ * without taking a lock, and one thread drains it. When the buffer is full, the {@link Overflow} policy
+ * decides whether the test thread waits for room, or the record is dropped.
+ *
+ * <p>
+ * The records keep the thread ID of the test thread, and name the driver and the command as their source,
+ * since the background thread can't tell where they came from. String results longer than
+ * {@linkplain #getMaxResultLength() the maximum length}, such as page sources, are cut short before they are queued,
+ * so that a full buffer doesn't hold on to that many pages.
+ *
+ * <p>
+ * Each sink has a thread of its own, which runs until the sink is {@linkplain #close() closed}.
+ * Records published after that are logged on the calling thread, and so are those that slip into the buffer
+ * while the sink is being closed.
+ *
+ * <p>
+ * Logging drivers use the {@linkplain #getDefault() default sink} unless told otherwise.
+ * It's off unless the "com.saucelabs.selenium.client.logging.AsyncLogSink.enabled" system property is true, and
+ * the "capacity" (8192), "overflow" (BLOCK), "sampleRate" (10) and "maxResultLength" (4096) system properties
+ * of the same prefix configure it. Records still in its buffer are written out when the JVM exits, for up to 5 seconds.
+ *
+ * @author Kohsuke Kawaguchi
+ * @see LoggingSelenium#setAsyncSink(AsyncLogSink)
+ */
+public final class AsyncLogSink implements AsyncLogSinkMBean {
+    /**
+     * What to do when the buffer is full.
+     */
+    public enum Overflow {
+        /**
+         * Wait for room, which keeps every record, but slows down the tests as much as the log handlers.
+         */
+        BLOCK,
+        /**
+         * Drop the record.
+         */
+        DROP,
+        /**
+         * Drop most of the records, but wait for room for one out of every {@linkplain AsyncLogSink#getSampleRate() N},
+         * so that the log still tells what the tests were doing.
+         */
+        SAMPLE
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final Overflow overflow;
+    private final int sampleRate;
+    private final int maxResultLength;
+
+    private final LogRecord[] records;
+    private final Logger[] loggers;
+    /**
+     * For the slot of the position P, P while the slot is free to be written,
+     * and P+1 once the record is there to be taken.
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * Position of the next record to be written.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Position of the next record to be taken. Only the drainer takes records until the sink is closed.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    private final Thread drainer;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    public AsyncLogSink(int capacity, Overflow overflow, int sampleRate) {
+        this(capacity, overflow, sampleRate, DEFAULT_MAX_RESULT_LENGTH);
+    }
+
+    /**
+     * @param capacity
+     *      Number of records the buffer holds, rounded up to a power of 2.
+     * @param sampleRate
+     *      For {@link Overflow#SAMPLE}, one out of this many records is kept when the buffer is full.
+     * @param maxResultLength
+     *      String results longer than this many characters are cut short.
+     */
+    public AsyncLogSink(int capacity, Overflow overflow, int sampleRate, int maxResultLength) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        if (sampleRate < 1)
+            throw new IllegalArgumentException("Invalid sample rate: " + sampleRate);
+        if (maxResultLength < 0)
+            throw new IllegalArgumentException("Invalid maximum result length: " + maxResultLength);
+        int n = Integer.highestOneBit(capacity);
+        if (n < capacity)
+            n <<= 1;
+        this.capacity = n;
+        this.mask = n - 1;
+        this.overflow = overflow;
+        this.sampleRate = sampleRate;
+        this.maxResultLength = maxResultLength;
+        this.records = new LogRecord[n];
+        this.loggers = new Logger[n];
+        this.sequences = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++)
+            sequences.set(i, i);
+
+        drainer = new Thread("Selenium command log writer") {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Queues the record to be logged to the given logger, or logs it right away if this sink is closed.
+     *
+     * @return false if the record was dropped.
+     */
+    public boolean publish(Logger logger, LogRecord record) {
+        boolean mustWait = overflow == Overflow.BLOCK;
+        while (true) {
+            if (closed) {
+                published.incrementAndGet();
+                logger.log(record);
+                return true;
+            }
+
+            long pos = tail.get();
+            int slot = (int) pos & mask;
+            long seq = sequences.get(slot);
+            if (seq == pos) {
+                if (!tail.compareAndSet(pos, pos + 1))
+                    continue;   // another thread took this slot
+                records[slot] = record;
+                loggers[slot] = logger;
+                sequences.set(slot, pos + 1);
+                published.incrementAndGet();
+                if (closed) {
+                    // the sink got closed after we checked, and the drainer may be gone already
+                    while (take())
+                        ;
+                } else if (sleeping) {
+                    LockSupport.unpark(drainer);
+                }
+                return true;
+            }
+            if (seq > pos)
+                continue;   // we were behind
+
+            // full
+            if (!mustWait) {
+                long n = overflows.incrementAndGet();
+                if (overflow == Overflow.DROP || n % sampleRate != 0) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                mustWait = true;
+            }
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(WAIT);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            if (take())
+                continue;
+            if (closed)
+                return;
+            // empty. go to sleep, unless a record came in meanwhile
+            sleeping = true;
+            long pos = head.get();
+            if (sequences.get((int) pos & mask) != pos + 1)
+                LockSupport.parkNanos(IDLE);
+            sleeping = false;
+        }
+    }
+
+    /**
+     * Takes the oldest record in the buffer and passes it to its logger.
+     *
+     * @return false if the buffer is empty.
+     */
+    private boolean take() {
+        while (true) {
+            long pos = head.get();
+            int slot = (int) pos & mask;
+            if (sequences.get(slot) != pos + 1)
+                return false;
+            if (!head.compareAndSet(pos, pos + 1))
+                continue;   // taken by another thread while the sink is being closed
+
+            LogRecord record = records[slot];
+            Logger logger = loggers[slot];
+            records[slot] = null;
+            loggers[slot] = null;
+            sequences.set(slot, pos + capacity);
+
+            try {
+                logger.log(record);
+            } catch (Throwable t) {
+                LOGGER.log(WARNING, "Failed to write a command log", t);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Waits until the records published so far have been passed to their loggers.
+     *
+     * @return false if that didn't happen within the timeout.
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (head.get() < target) {
+            if (System.nanoTime() > deadline)
+                return false;
+            LockSupport.unpark(drainer);
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    /**
+     * Writes out the records in the buffer and stops the thread of this sink. Close a sink once the drivers
+     * using it are done, as a sink that's never closed keeps its thread and its buffer until the JVM exits.
+     * Calling this more than once is a no-op.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // what came in after the drainer saw the buffer empty, or everything if the drainer is stuck
+        while (take())
+            ;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getMaxResultLength() {
+        return maxResultLength;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    public String getOverflowPolicy() {
+        return overflow.name();
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getQueueSize() {
+        return (int) Math.max(tail.get() - head.get(), 0);
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncLogSink[" + getQueueSize() + "/" + capacity + ", " + overflow + "]";
+    }
+
+    /**
+     * Gets the sink that logging drivers use unless told otherwise.
+     *
+     * @return null unless enabled through the system properties.
+     */
+    public static AsyncLogSink getDefault() {
+        return DEFAULT;
+    }
+
+    private static AsyncLogSink createDefault() {
+        String prefix = AsyncLogSink.class.getName();
+        if (!Boolean.getBoolean(prefix + ".enabled"))
+            return null;
+
+        final AsyncLogSink sink;
+        try {
+            sink = new AsyncLogSink(Integer.getInteger(prefix + ".capacity", 8192),
+                    Overflow.valueOf(System.getProperty(prefix + ".overflow", "BLOCK").trim().toUpperCase()),
+                    Integer.getInteger(prefix + ".sampleRate", 10),
+                    Integer.getInteger(prefix + ".maxResultLength", DEFAULT_MAX_RESULT_LENGTH));
+        } catch (IllegalArgumentException e) {
+            // failing here would break every logging driver
+            LOGGER.log(WARNING, "Invalid configuration of the asynchronous command log, so logging synchronously", e);
+            return null;
+        }
+        Management.register("CommandLog", null, sink);
+        Runtime.getRuntime().addShutdownHook(new Thread("Selenium command log flush") {
+            @Override
+            public void run() {
+                try {
+                    sink.flush(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // exiting anyway
+                }
+            }
+        });
+        return sink;
+    }
+
+    private static final long WAIT = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long IDLE = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    private static final int DEFAULT_MAX_RESULT_LENGTH = 4096;
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogSink.class.getName());
+
+    private static final AsyncLogSink DEFAULT = createDefault();
+}
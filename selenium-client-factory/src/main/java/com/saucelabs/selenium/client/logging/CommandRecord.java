@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Log record of a command sent to a logging driver, whose message is only rendered when a handler asks for it,
+ * as the return value can be as big as the whole page source.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+final class CommandRecord extends LogRecord {
+    private final String id;
+    private final String method;
+    private final Object[] args;
+    private boolean hasResult;
+    private Object result;
+    /**
+     * Length of the result before it was cut short, or -1.
+     */
+    private int resultLength = -1;
+    private boolean rendered;
+
+    CommandRecord(Level level, String id, String method, Object[] args) {
+        super(level, null);
+        this.id = id;
+        this.method = method;
+        this.args = args;
+    }
+
+    /**
+     * Passes this record to the logger, through the sink if there's one.
+     *
+     * @param source
+     *      The logging driver, which is recorded as the source of this record when it goes through the sink,
+     *      as the thread that writes it out can't tell where it came from.
+     */
+    void log(Logger logger, AsyncLogSink sink, Class<?> source) {
+        setLoggerName(logger.getName());
+        if (sink == null) {
+            logger.log(this);
+            return;
+        }
+        setSourceClassName(source.getName());
+        setSourceMethodName(method);
+        truncateResult(sink.getMaxResultLength());
+        sink.publish(logger, this);
+    }
+
+    /**
+     * Cuts a long string result short, so that a record waiting in the sink doesn't hold on to a whole page source.
+     */
+    private void truncateResult(int max) {
+        if (result instanceof String && ((String) result).length() > max) {
+            String s = (String) result;
+            resultLength = s.length();
+            result = new String(s.substring(0, max));   // a substring may share the characters of the whole string
+        }
+    }
+
+    void setResult(Object result) {
+        this.hasResult = true;
+        this.result = result;
+    }
+
+    @Override
+    public synchronized String getMessage() {
+        if (!rendered) {
+            StringBuilder buf = new StringBuilder();
+            buf.append(id).append(": ");
+            buf.append(method).append('(');
+            if (args!=null) {
+                for (int i=0; i<args.length; i++) {
+                    if (i>0)    buf.append(',');
+                    appendValue(args[i], buf);
+                }
+            }
+            buf.append(')');
+            if (hasResult) {
+                buf.append(" -> ");
+                appendValue(result,buf);
+                if (resultLength>=0)
+                    buf.append("... (").append(resultLength).append(" characters)");
+            }
+            setMessage(buf.toString());
+        }
+        return super.getMessage();
+    }
+
+    @Override
+    public synchronized void setMessage(String message) {
+        rendered = true;
+        super.setMessage(message);
+    }
+
+    /**
+     * The message field of {@link LogRecord} is what gets serialized, so send a plain record with the message rendered.
+     */
+    private Object writeReplace() {
+        LogRecord r = new LogRecord(getLevel(), getMessage());
+        r.setLoggerName(getLoggerName());
+        r.setMillis(getMillis());
+        r.setSequenceNumber(getSequenceNumber());
+        r.setThreadID(getThreadID());
+        r.setSourceClassName(getSourceClassName());
+        r.setSourceMethodName(getSourceMethodName());
+        r.setThrown(getThrown());
+        return r;
+    }
+
+    private static void appendValue(Object o, StringBuilder buf) {
+        if (o instanceof String)
+            buf.append('"').append(o).append('"');
+        else
+            buf.append(o);
+    }
+}
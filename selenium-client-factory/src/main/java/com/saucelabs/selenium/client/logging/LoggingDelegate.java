@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.WebDriver;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Common part of {@link LoggingWebDriverDelegate} and {@link LoggingSeleniumDelegate}, the logging drivers
+ * handed out from "log:...".
+ *
+ * <p>
+ * The subtypes implement each method of the driver interface by calling the base driver directly,
+ * with the hooks in this class around the call. When the log level is disabled, a command costs
+ * a level check on top of the call to the base driver.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+abstract class LoggingDelegate implements LoggingSelenium, Reclaimable {
+    Selenium base;
+    WebDriver webDriver;
+    private volatile Logger logger = Logger.getLogger(LoggingSeleniumProxy.class.getName());
+    private volatile Level level = Level.INFO;
+    private volatile String id = "Selenium"+Integer.toHexString(hashCode());
+    private volatile AsyncLogSink sink = AsyncLogSink.getDefault();
+    /**
+     * What the reclaimer ends, kept up to date by the setters, so that a reclaimer taken before
+     * the base driver is swapped ends the driver in use by then.
+     */
+    private final Target target = new Target();
+
+    /**
+     * Called before every command.
+     *
+     * @return true if the command is to be logged.
+     */
+    final boolean before() {
+        SessionRegistry.touch(this);
+        return logger.isLoggable(level);
+    }
+
+    /**
+     * Logs a command that returned a value.
+     *
+     * @return the given value.
+     */
+    final <T> T returned(String method, Object[] args, T value) {
+        CommandRecord record = new CommandRecord(level, id, method, args);
+        record.setResult(value);
+        log(record);
+        return value;
+    }
+
+    /**
+     * Logs a command that returned void.
+     */
+    final void returned(String method, Object[] args) {
+        log(new CommandRecord(level, id, method, args));
+    }
+
+    /**
+     * Logs a command that failed.
+     *
+     * @return the given problem, to be rethrown.
+     */
+    final <T extends Throwable> T failed(String method, Object[] args, T problem) {
+        CommandRecord record = new CommandRecord(level, id, method, args);
+        record.setThrown(problem);
+        log(record);
+        return problem;
+    }
+
+    /**
+     * Called after the session is quit or stopped, successfully or not.
+     */
+    final void ended() {
+        SessionRegistry.ended(this);
+    }
+
+    private void log(CommandRecord record) {
+        record.log(logger, sink, getClass());
+    }
+
+    public Runnable getReclaimer() {
+        target.base = base;
+        target.webDriver = webDriver;
+        return createReclaimer(target);
+    }
+
+    /**
+     * Static, so that the reclaimer doesn't refer to this driver.
+     */
+    private static Runnable createReclaimer(final Target target) {
+        return new Runnable() {
+            public void run() {
+                Selenium base = target.base;
+                if (base != null)
+                    base.stop();
+                else
+                    target.webDriver.quit();
+            }
+        };
+    }
+
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    public void setLogLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLogLevel() {
+        return level;
+    }
+
+    public Selenium getBaseDriver() {
+        return base;
+    }
+
+    public void setBaseDriver(Selenium selenium) {
+        this.base = selenium;
+        target.base = selenium;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public WebDriver getWebDriver() {
+        return webDriver;
+    }
+
+    public void setWebDriver(WebDriver webDriver) {
+        this.webDriver = webDriver;
+        target.webDriver = webDriver;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setAsyncSink(AsyncLogSink sink) {
+        this.sink = sink;
+    }
+
+    public AsyncLogSink getAsyncSink() {
+        return sink;
+    }
+
+    @Override
+    public String toString() {
+        return "Logging Selenium driver around "+(base!=null ? base : webDriver);
+    }
+
+    /**
+     * The base drivers, apart from the logging driver.
+     */
+    private static final class Target {
+        volatile Selenium base;
+        volatile WebDriver webDriver;
+    }
+
+    static final Object[] NO_ARGS = new Object[0];
+}
@@ -50,4 +50,18 @@ public interface LoggingSelenium {
 
     String getId();
     void setId(String id);
+
+    /**
+     * Sets the sink through which the command logs are written in the background.
+     * Initially set to {@link AsyncLogSink#getDefault()}.
+     *
+     * <p>
+     * A sink runs a thread until it's {@linkplain AsyncLogSink#close() closed}, which is up to whoever created it.
+     * A sink can be shared by any number of drivers, so create one for all of them rather than one per driver.
+     *
+     * @param sink
+     *      null to write the logs on the thread that sends the commands.
+     */
+    void setAsyncSink(AsyncLogSink sink);
+    AsyncLogSink getAsyncSink();
 }
@@ -0,0 +1,2192 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * {@link Selenium} handed out from "log:...".
+ *
+ * <p>
+ * Generated by {@code DelegateGenerator} in the test code. Do not edit by hand.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+final class LoggingSeleniumDelegate extends LoggingDelegate implements Selenium {
+    LoggingSeleniumDelegate(Selenium base) {
+        this.base = base;
+    }
+
+    public void addCustomRequestHeader(String arg0, String arg1) {
+        if (!before()) {
+            base.addCustomRequestHeader(arg0, arg1);
+            return;
+        }
+        try {
+            base.addCustomRequestHeader(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("addCustomRequestHeader", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("addCustomRequestHeader", new Object[]{arg0, arg1}, e);
+        }
+        returned("addCustomRequestHeader", new Object[]{arg0, arg1});
+    }
+
+    public void addLocationStrategy(String arg0, String arg1) {
+        if (!before()) {
+            base.addLocationStrategy(arg0, arg1);
+            return;
+        }
+        try {
+            base.addLocationStrategy(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("addLocationStrategy", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("addLocationStrategy", new Object[]{arg0, arg1}, e);
+        }
+        returned("addLocationStrategy", new Object[]{arg0, arg1});
+    }
+
+    public void addScript(String arg0, String arg1) {
+        if (!before()) {
+            base.addScript(arg0, arg1);
+            return;
+        }
+        try {
+            base.addScript(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("addScript", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("addScript", new Object[]{arg0, arg1}, e);
+        }
+        returned("addScript", new Object[]{arg0, arg1});
+    }
+
+    public void addSelection(String arg0, String arg1) {
+        if (!before()) {
+            base.addSelection(arg0, arg1);
+            return;
+        }
+        try {
+            base.addSelection(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("addSelection", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("addSelection", new Object[]{arg0, arg1}, e);
+        }
+        returned("addSelection", new Object[]{arg0, arg1});
+    }
+
+    public void allowNativeXpath(String arg0) {
+        if (!before()) {
+            base.allowNativeXpath(arg0);
+            return;
+        }
+        try {
+            base.allowNativeXpath(arg0);
+        } catch (RuntimeException e) {
+            throw failed("allowNativeXpath", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("allowNativeXpath", new Object[]{arg0}, e);
+        }
+        returned("allowNativeXpath", new Object[]{arg0});
+    }
+
+    public void altKeyDown() {
+        if (!before()) {
+            base.altKeyDown();
+            return;
+        }
+        try {
+            base.altKeyDown();
+        } catch (RuntimeException e) {
+            throw failed("altKeyDown", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("altKeyDown", NO_ARGS, e);
+        }
+        returned("altKeyDown", NO_ARGS);
+    }
+
+    public void altKeyUp() {
+        if (!before()) {
+            base.altKeyUp();
+            return;
+        }
+        try {
+            base.altKeyUp();
+        } catch (RuntimeException e) {
+            throw failed("altKeyUp", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("altKeyUp", NO_ARGS, e);
+        }
+        returned("altKeyUp", NO_ARGS);
+    }
+
+    public void answerOnNextPrompt(String arg0) {
+        if (!before()) {
+            base.answerOnNextPrompt(arg0);
+            return;
+        }
+        try {
+            base.answerOnNextPrompt(arg0);
+        } catch (RuntimeException e) {
+            throw failed("answerOnNextPrompt", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("answerOnNextPrompt", new Object[]{arg0}, e);
+        }
+        returned("answerOnNextPrompt", new Object[]{arg0});
+    }
+
+    public void assignId(String arg0, String arg1) {
+        if (!before()) {
+            base.assignId(arg0, arg1);
+            return;
+        }
+        try {
+            base.assignId(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("assignId", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("assignId", new Object[]{arg0, arg1}, e);
+        }
+        returned("assignId", new Object[]{arg0, arg1});
+    }
+
+    public void attachFile(String arg0, String arg1) {
+        if (!before()) {
+            base.attachFile(arg0, arg1);
+            return;
+        }
+        try {
+            base.attachFile(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("attachFile", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("attachFile", new Object[]{arg0, arg1}, e);
+        }
+        returned("attachFile", new Object[]{arg0, arg1});
+    }
+
+    public void captureEntirePageScreenshot(String arg0, String arg1) {
+        if (!before()) {
+            base.captureEntirePageScreenshot(arg0, arg1);
+            return;
+        }
+        try {
+            base.captureEntirePageScreenshot(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("captureEntirePageScreenshot", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("captureEntirePageScreenshot", new Object[]{arg0, arg1}, e);
+        }
+        returned("captureEntirePageScreenshot", new Object[]{arg0, arg1});
+    }
+
+    public String captureEntirePageScreenshotToString(String arg0) {
+        if (!before())
+            return base.captureEntirePageScreenshotToString(arg0);
+        try {
+            return returned("captureEntirePageScreenshotToString", new Object[]{arg0}, base.captureEntirePageScreenshotToString(arg0));
+        } catch (RuntimeException e) {
+            throw failed("captureEntirePageScreenshotToString", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("captureEntirePageScreenshotToString", new Object[]{arg0}, e);
+        }
+    }
+
+    public String captureNetworkTraffic(String arg0) {
+        if (!before())
+            return base.captureNetworkTraffic(arg0);
+        try {
+            return returned("captureNetworkTraffic", new Object[]{arg0}, base.captureNetworkTraffic(arg0));
+        } catch (RuntimeException e) {
+            throw failed("captureNetworkTraffic", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("captureNetworkTraffic", new Object[]{arg0}, e);
+        }
+    }
+
+    public void captureScreenshot(String arg0) {
+        if (!before()) {
+            base.captureScreenshot(arg0);
+            return;
+        }
+        try {
+            base.captureScreenshot(arg0);
+        } catch (RuntimeException e) {
+            throw failed("captureScreenshot", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("captureScreenshot", new Object[]{arg0}, e);
+        }
+        returned("captureScreenshot", new Object[]{arg0});
+    }
+
+    public String captureScreenshotToString() {
+        if (!before())
+            return base.captureScreenshotToString();
+        try {
+            return returned("captureScreenshotToString", NO_ARGS, base.captureScreenshotToString());
+        } catch (RuntimeException e) {
+            throw failed("captureScreenshotToString", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("captureScreenshotToString", NO_ARGS, e);
+        }
+    }
+
+    public void check(String arg0) {
+        if (!before()) {
+            base.check(arg0);
+            return;
+        }
+        try {
+            base.check(arg0);
+        } catch (RuntimeException e) {
+            throw failed("check", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("check", new Object[]{arg0}, e);
+        }
+        returned("check", new Object[]{arg0});
+    }
+
+    public void chooseCancelOnNextConfirmation() {
+        if (!before()) {
+            base.chooseCancelOnNextConfirmation();
+            return;
+        }
+        try {
+            base.chooseCancelOnNextConfirmation();
+        } catch (RuntimeException e) {
+            throw failed("chooseCancelOnNextConfirmation", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("chooseCancelOnNextConfirmation", NO_ARGS, e);
+        }
+        returned("chooseCancelOnNextConfirmation", NO_ARGS);
+    }
+
+    public void chooseOkOnNextConfirmation() {
+        if (!before()) {
+            base.chooseOkOnNextConfirmation();
+            return;
+        }
+        try {
+            base.chooseOkOnNextConfirmation();
+        } catch (RuntimeException e) {
+            throw failed("chooseOkOnNextConfirmation", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("chooseOkOnNextConfirmation", NO_ARGS, e);
+        }
+        returned("chooseOkOnNextConfirmation", NO_ARGS);
+    }
+
+    public void click(String arg0) {
+        if (!before()) {
+            base.click(arg0);
+            return;
+        }
+        try {
+            base.click(arg0);
+        } catch (RuntimeException e) {
+            throw failed("click", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("click", new Object[]{arg0}, e);
+        }
+        returned("click", new Object[]{arg0});
+    }
+
+    public void clickAt(String arg0, String arg1) {
+        if (!before()) {
+            base.clickAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.clickAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("clickAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("clickAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("clickAt", new Object[]{arg0, arg1});
+    }
+
+    public void close() {
+        if (!before()) {
+            base.close();
+            return;
+        }
+        try {
+            base.close();
+        } catch (RuntimeException e) {
+            throw failed("close", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("close", NO_ARGS, e);
+        }
+        returned("close", NO_ARGS);
+    }
+
+    public void contextMenu(String arg0) {
+        if (!before()) {
+            base.contextMenu(arg0);
+            return;
+        }
+        try {
+            base.contextMenu(arg0);
+        } catch (RuntimeException e) {
+            throw failed("contextMenu", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("contextMenu", new Object[]{arg0}, e);
+        }
+        returned("contextMenu", new Object[]{arg0});
+    }
+
+    public void contextMenuAt(String arg0, String arg1) {
+        if (!before()) {
+            base.contextMenuAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.contextMenuAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("contextMenuAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("contextMenuAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("contextMenuAt", new Object[]{arg0, arg1});
+    }
+
+    public void controlKeyDown() {
+        if (!before()) {
+            base.controlKeyDown();
+            return;
+        }
+        try {
+            base.controlKeyDown();
+        } catch (RuntimeException e) {
+            throw failed("controlKeyDown", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("controlKeyDown", NO_ARGS, e);
+        }
+        returned("controlKeyDown", NO_ARGS);
+    }
+
+    public void controlKeyUp() {
+        if (!before()) {
+            base.controlKeyUp();
+            return;
+        }
+        try {
+            base.controlKeyUp();
+        } catch (RuntimeException e) {
+            throw failed("controlKeyUp", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("controlKeyUp", NO_ARGS, e);
+        }
+        returned("controlKeyUp", NO_ARGS);
+    }
+
+    public void createCookie(String arg0, String arg1) {
+        if (!before()) {
+            base.createCookie(arg0, arg1);
+            return;
+        }
+        try {
+            base.createCookie(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("createCookie", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("createCookie", new Object[]{arg0, arg1}, e);
+        }
+        returned("createCookie", new Object[]{arg0, arg1});
+    }
+
+    public void deleteAllVisibleCookies() {
+        if (!before()) {
+            base.deleteAllVisibleCookies();
+            return;
+        }
+        try {
+            base.deleteAllVisibleCookies();
+        } catch (RuntimeException e) {
+            throw failed("deleteAllVisibleCookies", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("deleteAllVisibleCookies", NO_ARGS, e);
+        }
+        returned("deleteAllVisibleCookies", NO_ARGS);
+    }
+
+    public void deleteCookie(String arg0, String arg1) {
+        if (!before()) {
+            base.deleteCookie(arg0, arg1);
+            return;
+        }
+        try {
+            base.deleteCookie(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("deleteCookie", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("deleteCookie", new Object[]{arg0, arg1}, e);
+        }
+        returned("deleteCookie", new Object[]{arg0, arg1});
+    }
+
+    public void deselectPopUp() {
+        if (!before()) {
+            base.deselectPopUp();
+            return;
+        }
+        try {
+            base.deselectPopUp();
+        } catch (RuntimeException e) {
+            throw failed("deselectPopUp", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("deselectPopUp", NO_ARGS, e);
+        }
+        returned("deselectPopUp", NO_ARGS);
+    }
+
+    public void doubleClick(String arg0) {
+        if (!before()) {
+            base.doubleClick(arg0);
+            return;
+        }
+        try {
+            base.doubleClick(arg0);
+        } catch (RuntimeException e) {
+            throw failed("doubleClick", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("doubleClick", new Object[]{arg0}, e);
+        }
+        returned("doubleClick", new Object[]{arg0});
+    }
+
+    public void doubleClickAt(String arg0, String arg1) {
+        if (!before()) {
+            base.doubleClickAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.doubleClickAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("doubleClickAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("doubleClickAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("doubleClickAt", new Object[]{arg0, arg1});
+    }
+
+    public void dragAndDrop(String arg0, String arg1) {
+        if (!before()) {
+            base.dragAndDrop(arg0, arg1);
+            return;
+        }
+        try {
+            base.dragAndDrop(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("dragAndDrop", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("dragAndDrop", new Object[]{arg0, arg1}, e);
+        }
+        returned("dragAndDrop", new Object[]{arg0, arg1});
+    }
+
+    public void dragAndDropToObject(String arg0, String arg1) {
+        if (!before()) {
+            base.dragAndDropToObject(arg0, arg1);
+            return;
+        }
+        try {
+            base.dragAndDropToObject(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("dragAndDropToObject", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("dragAndDropToObject", new Object[]{arg0, arg1}, e);
+        }
+        returned("dragAndDropToObject", new Object[]{arg0, arg1});
+    }
+
+    public void dragdrop(String arg0, String arg1) {
+        if (!before()) {
+            base.dragdrop(arg0, arg1);
+            return;
+        }
+        try {
+            base.dragdrop(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("dragdrop", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("dragdrop", new Object[]{arg0, arg1}, e);
+        }
+        returned("dragdrop", new Object[]{arg0, arg1});
+    }
+
+    public void fireEvent(String arg0, String arg1) {
+        if (!before()) {
+            base.fireEvent(arg0, arg1);
+            return;
+        }
+        try {
+            base.fireEvent(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("fireEvent", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("fireEvent", new Object[]{arg0, arg1}, e);
+        }
+        returned("fireEvent", new Object[]{arg0, arg1});
+    }
+
+    public void focus(String arg0) {
+        if (!before()) {
+            base.focus(arg0);
+            return;
+        }
+        try {
+            base.focus(arg0);
+        } catch (RuntimeException e) {
+            throw failed("focus", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("focus", new Object[]{arg0}, e);
+        }
+        returned("focus", new Object[]{arg0});
+    }
+
+    public String getAlert() {
+        if (!before())
+            return base.getAlert();
+        try {
+            return returned("getAlert", NO_ARGS, base.getAlert());
+        } catch (RuntimeException e) {
+            throw failed("getAlert", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAlert", NO_ARGS, e);
+        }
+    }
+
+    public String[] getAllButtons() {
+        if (!before())
+            return base.getAllButtons();
+        try {
+            return returned("getAllButtons", NO_ARGS, base.getAllButtons());
+        } catch (RuntimeException e) {
+            throw failed("getAllButtons", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAllButtons", NO_ARGS, e);
+        }
+    }
+
+    public String[] getAllFields() {
+        if (!before())
+            return base.getAllFields();
+        try {
+            return returned("getAllFields", NO_ARGS, base.getAllFields());
+        } catch (RuntimeException e) {
+            throw failed("getAllFields", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAllFields", NO_ARGS, e);
+        }
+    }
+
+    public String[] getAllLinks() {
+        if (!before())
+            return base.getAllLinks();
+        try {
+            return returned("getAllLinks", NO_ARGS, base.getAllLinks());
+        } catch (RuntimeException e) {
+            throw failed("getAllLinks", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAllLinks", NO_ARGS, e);
+        }
+    }
+
+    public String[] getAllWindowIds() {
+        if (!before())
+            return base.getAllWindowIds();
+        try {
+            return returned("getAllWindowIds", NO_ARGS, base.getAllWindowIds());
+        } catch (RuntimeException e) {
+            throw failed("getAllWindowIds", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAllWindowIds", NO_ARGS, e);
+        }
+    }
+
+    public String[] getAllWindowNames() {
+        if (!before())
+            return base.getAllWindowNames();
+        try {
+            return returned("getAllWindowNames", NO_ARGS, base.getAllWindowNames());
+        } catch (RuntimeException e) {
+            throw failed("getAllWindowNames", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAllWindowNames", NO_ARGS, e);
+        }
+    }
+
+    public String[] getAllWindowTitles() {
+        if (!before())
+            return base.getAllWindowTitles();
+        try {
+            return returned("getAllWindowTitles", NO_ARGS, base.getAllWindowTitles());
+        } catch (RuntimeException e) {
+            throw failed("getAllWindowTitles", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getAllWindowTitles", NO_ARGS, e);
+        }
+    }
+
+    public String getAttribute(String arg0) {
+        if (!before())
+            return base.getAttribute(arg0);
+        try {
+            return returned("getAttribute", new Object[]{arg0}, base.getAttribute(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getAttribute", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getAttribute", new Object[]{arg0}, e);
+        }
+    }
+
+    public String[] getAttributeFromAllWindows(String arg0) {
+        if (!before())
+            return base.getAttributeFromAllWindows(arg0);
+        try {
+            return returned("getAttributeFromAllWindows", new Object[]{arg0}, base.getAttributeFromAllWindows(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getAttributeFromAllWindows", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getAttributeFromAllWindows", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getBodyText() {
+        if (!before())
+            return base.getBodyText();
+        try {
+            return returned("getBodyText", NO_ARGS, base.getBodyText());
+        } catch (RuntimeException e) {
+            throw failed("getBodyText", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getBodyText", NO_ARGS, e);
+        }
+    }
+
+    public String getConfirmation() {
+        if (!before())
+            return base.getConfirmation();
+        try {
+            return returned("getConfirmation", NO_ARGS, base.getConfirmation());
+        } catch (RuntimeException e) {
+            throw failed("getConfirmation", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getConfirmation", NO_ARGS, e);
+        }
+    }
+
+    public String getCookie() {
+        if (!before())
+            return base.getCookie();
+        try {
+            return returned("getCookie", NO_ARGS, base.getCookie());
+        } catch (RuntimeException e) {
+            throw failed("getCookie", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getCookie", NO_ARGS, e);
+        }
+    }
+
+    public String getCookieByName(String arg0) {
+        if (!before())
+            return base.getCookieByName(arg0);
+        try {
+            return returned("getCookieByName", new Object[]{arg0}, base.getCookieByName(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getCookieByName", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getCookieByName", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getCssCount(String arg0) {
+        if (!before())
+            return base.getCssCount(arg0);
+        try {
+            return returned("getCssCount", new Object[]{arg0}, base.getCssCount(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getCssCount", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getCssCount", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getCursorPosition(String arg0) {
+        if (!before())
+            return base.getCursorPosition(arg0);
+        try {
+            return returned("getCursorPosition", new Object[]{arg0}, base.getCursorPosition(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getCursorPosition", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getCursorPosition", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getElementHeight(String arg0) {
+        if (!before())
+            return base.getElementHeight(arg0);
+        try {
+            return returned("getElementHeight", new Object[]{arg0}, base.getElementHeight(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getElementHeight", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getElementHeight", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getElementIndex(String arg0) {
+        if (!before())
+            return base.getElementIndex(arg0);
+        try {
+            return returned("getElementIndex", new Object[]{arg0}, base.getElementIndex(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getElementIndex", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getElementIndex", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getElementPositionLeft(String arg0) {
+        if (!before())
+            return base.getElementPositionLeft(arg0);
+        try {
+            return returned("getElementPositionLeft", new Object[]{arg0}, base.getElementPositionLeft(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getElementPositionLeft", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getElementPositionLeft", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getElementPositionTop(String arg0) {
+        if (!before())
+            return base.getElementPositionTop(arg0);
+        try {
+            return returned("getElementPositionTop", new Object[]{arg0}, base.getElementPositionTop(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getElementPositionTop", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getElementPositionTop", new Object[]{arg0}, e);
+        }
+    }
+
+    public Number getElementWidth(String arg0) {
+        if (!before())
+            return base.getElementWidth(arg0);
+        try {
+            return returned("getElementWidth", new Object[]{arg0}, base.getElementWidth(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getElementWidth", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getElementWidth", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getEval(String arg0) {
+        if (!before())
+            return base.getEval(arg0);
+        try {
+            return returned("getEval", new Object[]{arg0}, base.getEval(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getEval", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getEval", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getExpression(String arg0) {
+        if (!before())
+            return base.getExpression(arg0);
+        try {
+            return returned("getExpression", new Object[]{arg0}, base.getExpression(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getExpression", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getExpression", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getHtmlSource() {
+        if (!before())
+            return base.getHtmlSource();
+        try {
+            return returned("getHtmlSource", NO_ARGS, base.getHtmlSource());
+        } catch (RuntimeException e) {
+            throw failed("getHtmlSource", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getHtmlSource", NO_ARGS, e);
+        }
+    }
+
+    public String getLocation() {
+        if (!before())
+            return base.getLocation();
+        try {
+            return returned("getLocation", NO_ARGS, base.getLocation());
+        } catch (RuntimeException e) {
+            throw failed("getLocation", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getLocation", NO_ARGS, e);
+        }
+    }
+
+    public String getLog() {
+        if (!before())
+            return base.getLog();
+        try {
+            return returned("getLog", NO_ARGS, base.getLog());
+        } catch (RuntimeException e) {
+            throw failed("getLog", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getLog", NO_ARGS, e);
+        }
+    }
+
+    public Number getMouseSpeed() {
+        if (!before())
+            return base.getMouseSpeed();
+        try {
+            return returned("getMouseSpeed", NO_ARGS, base.getMouseSpeed());
+        } catch (RuntimeException e) {
+            throw failed("getMouseSpeed", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getMouseSpeed", NO_ARGS, e);
+        }
+    }
+
+    public String getPrompt() {
+        if (!before())
+            return base.getPrompt();
+        try {
+            return returned("getPrompt", NO_ARGS, base.getPrompt());
+        } catch (RuntimeException e) {
+            throw failed("getPrompt", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getPrompt", NO_ARGS, e);
+        }
+    }
+
+    public String[] getSelectOptions(String arg0) {
+        if (!before())
+            return base.getSelectOptions(arg0);
+        try {
+            return returned("getSelectOptions", new Object[]{arg0}, base.getSelectOptions(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectOptions", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectOptions", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getSelectedId(String arg0) {
+        if (!before())
+            return base.getSelectedId(arg0);
+        try {
+            return returned("getSelectedId", new Object[]{arg0}, base.getSelectedId(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedId", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedId", new Object[]{arg0}, e);
+        }
+    }
+
+    public String[] getSelectedIds(String arg0) {
+        if (!before())
+            return base.getSelectedIds(arg0);
+        try {
+            return returned("getSelectedIds", new Object[]{arg0}, base.getSelectedIds(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedIds", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedIds", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getSelectedIndex(String arg0) {
+        if (!before())
+            return base.getSelectedIndex(arg0);
+        try {
+            return returned("getSelectedIndex", new Object[]{arg0}, base.getSelectedIndex(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedIndex", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedIndex", new Object[]{arg0}, e);
+        }
+    }
+
+    public String[] getSelectedIndexes(String arg0) {
+        if (!before())
+            return base.getSelectedIndexes(arg0);
+        try {
+            return returned("getSelectedIndexes", new Object[]{arg0}, base.getSelectedIndexes(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedIndexes", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedIndexes", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getSelectedLabel(String arg0) {
+        if (!before())
+            return base.getSelectedLabel(arg0);
+        try {
+            return returned("getSelectedLabel", new Object[]{arg0}, base.getSelectedLabel(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedLabel", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedLabel", new Object[]{arg0}, e);
+        }
+    }
+
+    public String[] getSelectedLabels(String arg0) {
+        if (!before())
+            return base.getSelectedLabels(arg0);
+        try {
+            return returned("getSelectedLabels", new Object[]{arg0}, base.getSelectedLabels(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedLabels", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedLabels", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getSelectedValue(String arg0) {
+        if (!before())
+            return base.getSelectedValue(arg0);
+        try {
+            return returned("getSelectedValue", new Object[]{arg0}, base.getSelectedValue(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedValue", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedValue", new Object[]{arg0}, e);
+        }
+    }
+
+    public String[] getSelectedValues(String arg0) {
+        if (!before())
+            return base.getSelectedValues(arg0);
+        try {
+            return returned("getSelectedValues", new Object[]{arg0}, base.getSelectedValues(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getSelectedValues", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getSelectedValues", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getSpeed() {
+        if (!before())
+            return base.getSpeed();
+        try {
+            return returned("getSpeed", NO_ARGS, base.getSpeed());
+        } catch (RuntimeException e) {
+            throw failed("getSpeed", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getSpeed", NO_ARGS, e);
+        }
+    }
+
+    public String getTable(String arg0) {
+        if (!before())
+            return base.getTable(arg0);
+        try {
+            return returned("getTable", new Object[]{arg0}, base.getTable(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getTable", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getTable", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getText(String arg0) {
+        if (!before())
+            return base.getText(arg0);
+        try {
+            return returned("getText", new Object[]{arg0}, base.getText(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getText", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getText", new Object[]{arg0}, e);
+        }
+    }
+
+    public String getTitle() {
+        if (!before())
+            return base.getTitle();
+        try {
+            return returned("getTitle", NO_ARGS, base.getTitle());
+        } catch (RuntimeException e) {
+            throw failed("getTitle", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getTitle", NO_ARGS, e);
+        }
+    }
+
+    public String getValue(String arg0) {
+        if (!before())
+            return base.getValue(arg0);
+        try {
+            return returned("getValue", new Object[]{arg0}, base.getValue(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getValue", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getValue", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean getWhetherThisFrameMatchFrameExpression(String arg0, String arg1) {
+        if (!before())
+            return base.getWhetherThisFrameMatchFrameExpression(arg0, arg1);
+        try {
+            return returned("getWhetherThisFrameMatchFrameExpression", new Object[]{arg0, arg1}, base.getWhetherThisFrameMatchFrameExpression(arg0, arg1));
+        } catch (RuntimeException e) {
+            throw failed("getWhetherThisFrameMatchFrameExpression", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("getWhetherThisFrameMatchFrameExpression", new Object[]{arg0, arg1}, e);
+        }
+    }
+
+    public boolean getWhetherThisWindowMatchWindowExpression(String arg0, String arg1) {
+        if (!before())
+            return base.getWhetherThisWindowMatchWindowExpression(arg0, arg1);
+        try {
+            return returned("getWhetherThisWindowMatchWindowExpression", new Object[]{arg0, arg1}, base.getWhetherThisWindowMatchWindowExpression(arg0, arg1));
+        } catch (RuntimeException e) {
+            throw failed("getWhetherThisWindowMatchWindowExpression", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("getWhetherThisWindowMatchWindowExpression", new Object[]{arg0, arg1}, e);
+        }
+    }
+
+    public Number getXpathCount(String arg0) {
+        if (!before())
+            return base.getXpathCount(arg0);
+        try {
+            return returned("getXpathCount", new Object[]{arg0}, base.getXpathCount(arg0));
+        } catch (RuntimeException e) {
+            throw failed("getXpathCount", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("getXpathCount", new Object[]{arg0}, e);
+        }
+    }
+
+    public void goBack() {
+        if (!before()) {
+            base.goBack();
+            return;
+        }
+        try {
+            base.goBack();
+        } catch (RuntimeException e) {
+            throw failed("goBack", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("goBack", NO_ARGS, e);
+        }
+        returned("goBack", NO_ARGS);
+    }
+
+    public void highlight(String arg0) {
+        if (!before()) {
+            base.highlight(arg0);
+            return;
+        }
+        try {
+            base.highlight(arg0);
+        } catch (RuntimeException e) {
+            throw failed("highlight", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("highlight", new Object[]{arg0}, e);
+        }
+        returned("highlight", new Object[]{arg0});
+    }
+
+    public void ignoreAttributesWithoutValue(String arg0) {
+        if (!before()) {
+            base.ignoreAttributesWithoutValue(arg0);
+            return;
+        }
+        try {
+            base.ignoreAttributesWithoutValue(arg0);
+        } catch (RuntimeException e) {
+            throw failed("ignoreAttributesWithoutValue", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("ignoreAttributesWithoutValue", new Object[]{arg0}, e);
+        }
+        returned("ignoreAttributesWithoutValue", new Object[]{arg0});
+    }
+
+    public boolean isAlertPresent() {
+        if (!before())
+            return base.isAlertPresent();
+        try {
+            return returned("isAlertPresent", NO_ARGS, base.isAlertPresent());
+        } catch (RuntimeException e) {
+            throw failed("isAlertPresent", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("isAlertPresent", NO_ARGS, e);
+        }
+    }
+
+    public boolean isChecked(String arg0) {
+        if (!before())
+            return base.isChecked(arg0);
+        try {
+            return returned("isChecked", new Object[]{arg0}, base.isChecked(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isChecked", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isChecked", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean isConfirmationPresent() {
+        if (!before())
+            return base.isConfirmationPresent();
+        try {
+            return returned("isConfirmationPresent", NO_ARGS, base.isConfirmationPresent());
+        } catch (RuntimeException e) {
+            throw failed("isConfirmationPresent", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("isConfirmationPresent", NO_ARGS, e);
+        }
+    }
+
+    public boolean isCookiePresent(String arg0) {
+        if (!before())
+            return base.isCookiePresent(arg0);
+        try {
+            return returned("isCookiePresent", new Object[]{arg0}, base.isCookiePresent(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isCookiePresent", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isCookiePresent", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean isEditable(String arg0) {
+        if (!before())
+            return base.isEditable(arg0);
+        try {
+            return returned("isEditable", new Object[]{arg0}, base.isEditable(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isEditable", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isEditable", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean isElementPresent(String arg0) {
+        if (!before())
+            return base.isElementPresent(arg0);
+        try {
+            return returned("isElementPresent", new Object[]{arg0}, base.isElementPresent(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isElementPresent", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isElementPresent", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean isOrdered(String arg0, String arg1) {
+        if (!before())
+            return base.isOrdered(arg0, arg1);
+        try {
+            return returned("isOrdered", new Object[]{arg0, arg1}, base.isOrdered(arg0, arg1));
+        } catch (RuntimeException e) {
+            throw failed("isOrdered", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("isOrdered", new Object[]{arg0, arg1}, e);
+        }
+    }
+
+    public boolean isPromptPresent() {
+        if (!before())
+            return base.isPromptPresent();
+        try {
+            return returned("isPromptPresent", NO_ARGS, base.isPromptPresent());
+        } catch (RuntimeException e) {
+            throw failed("isPromptPresent", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("isPromptPresent", NO_ARGS, e);
+        }
+    }
+
+    public boolean isSomethingSelected(String arg0) {
+        if (!before())
+            return base.isSomethingSelected(arg0);
+        try {
+            return returned("isSomethingSelected", new Object[]{arg0}, base.isSomethingSelected(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isSomethingSelected", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isSomethingSelected", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean isTextPresent(String arg0) {
+        if (!before())
+            return base.isTextPresent(arg0);
+        try {
+            return returned("isTextPresent", new Object[]{arg0}, base.isTextPresent(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isTextPresent", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isTextPresent", new Object[]{arg0}, e);
+        }
+    }
+
+    public boolean isVisible(String arg0) {
+        if (!before())
+            return base.isVisible(arg0);
+        try {
+            return returned("isVisible", new Object[]{arg0}, base.isVisible(arg0));
+        } catch (RuntimeException e) {
+            throw failed("isVisible", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("isVisible", new Object[]{arg0}, e);
+        }
+    }
+
+    public void keyDown(String arg0, String arg1) {
+        if (!before()) {
+            base.keyDown(arg0, arg1);
+            return;
+        }
+        try {
+            base.keyDown(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("keyDown", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("keyDown", new Object[]{arg0, arg1}, e);
+        }
+        returned("keyDown", new Object[]{arg0, arg1});
+    }
+
+    public void keyDownNative(String arg0) {
+        if (!before()) {
+            base.keyDownNative(arg0);
+            return;
+        }
+        try {
+            base.keyDownNative(arg0);
+        } catch (RuntimeException e) {
+            throw failed("keyDownNative", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("keyDownNative", new Object[]{arg0}, e);
+        }
+        returned("keyDownNative", new Object[]{arg0});
+    }
+
+    public void keyPress(String arg0, String arg1) {
+        if (!before()) {
+            base.keyPress(arg0, arg1);
+            return;
+        }
+        try {
+            base.keyPress(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("keyPress", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("keyPress", new Object[]{arg0, arg1}, e);
+        }
+        returned("keyPress", new Object[]{arg0, arg1});
+    }
+
+    public void keyPressNative(String arg0) {
+        if (!before()) {
+            base.keyPressNative(arg0);
+            return;
+        }
+        try {
+            base.keyPressNative(arg0);
+        } catch (RuntimeException e) {
+            throw failed("keyPressNative", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("keyPressNative", new Object[]{arg0}, e);
+        }
+        returned("keyPressNative", new Object[]{arg0});
+    }
+
+    public void keyUp(String arg0, String arg1) {
+        if (!before()) {
+            base.keyUp(arg0, arg1);
+            return;
+        }
+        try {
+            base.keyUp(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("keyUp", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("keyUp", new Object[]{arg0, arg1}, e);
+        }
+        returned("keyUp", new Object[]{arg0, arg1});
+    }
+
+    public void keyUpNative(String arg0) {
+        if (!before()) {
+            base.keyUpNative(arg0);
+            return;
+        }
+        try {
+            base.keyUpNative(arg0);
+        } catch (RuntimeException e) {
+            throw failed("keyUpNative", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("keyUpNative", new Object[]{arg0}, e);
+        }
+        returned("keyUpNative", new Object[]{arg0});
+    }
+
+    public void metaKeyDown() {
+        if (!before()) {
+            base.metaKeyDown();
+            return;
+        }
+        try {
+            base.metaKeyDown();
+        } catch (RuntimeException e) {
+            throw failed("metaKeyDown", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("metaKeyDown", NO_ARGS, e);
+        }
+        returned("metaKeyDown", NO_ARGS);
+    }
+
+    public void metaKeyUp() {
+        if (!before()) {
+            base.metaKeyUp();
+            return;
+        }
+        try {
+            base.metaKeyUp();
+        } catch (RuntimeException e) {
+            throw failed("metaKeyUp", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("metaKeyUp", NO_ARGS, e);
+        }
+        returned("metaKeyUp", NO_ARGS);
+    }
+
+    public void mouseDown(String arg0) {
+        if (!before()) {
+            base.mouseDown(arg0);
+            return;
+        }
+        try {
+            base.mouseDown(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseDown", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseDown", new Object[]{arg0}, e);
+        }
+        returned("mouseDown", new Object[]{arg0});
+    }
+
+    public void mouseDownAt(String arg0, String arg1) {
+        if (!before()) {
+            base.mouseDownAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.mouseDownAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("mouseDownAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("mouseDownAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("mouseDownAt", new Object[]{arg0, arg1});
+    }
+
+    public void mouseDownRight(String arg0) {
+        if (!before()) {
+            base.mouseDownRight(arg0);
+            return;
+        }
+        try {
+            base.mouseDownRight(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseDownRight", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseDownRight", new Object[]{arg0}, e);
+        }
+        returned("mouseDownRight", new Object[]{arg0});
+    }
+
+    public void mouseDownRightAt(String arg0, String arg1) {
+        if (!before()) {
+            base.mouseDownRightAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.mouseDownRightAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("mouseDownRightAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("mouseDownRightAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("mouseDownRightAt", new Object[]{arg0, arg1});
+    }
+
+    public void mouseMove(String arg0) {
+        if (!before()) {
+            base.mouseMove(arg0);
+            return;
+        }
+        try {
+            base.mouseMove(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseMove", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseMove", new Object[]{arg0}, e);
+        }
+        returned("mouseMove", new Object[]{arg0});
+    }
+
+    public void mouseMoveAt(String arg0, String arg1) {
+        if (!before()) {
+            base.mouseMoveAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.mouseMoveAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("mouseMoveAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("mouseMoveAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("mouseMoveAt", new Object[]{arg0, arg1});
+    }
+
+    public void mouseOut(String arg0) {
+        if (!before()) {
+            base.mouseOut(arg0);
+            return;
+        }
+        try {
+            base.mouseOut(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseOut", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseOut", new Object[]{arg0}, e);
+        }
+        returned("mouseOut", new Object[]{arg0});
+    }
+
+    public void mouseOver(String arg0) {
+        if (!before()) {
+            base.mouseOver(arg0);
+            return;
+        }
+        try {
+            base.mouseOver(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseOver", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseOver", new Object[]{arg0}, e);
+        }
+        returned("mouseOver", new Object[]{arg0});
+    }
+
+    public void mouseUp(String arg0) {
+        if (!before()) {
+            base.mouseUp(arg0);
+            return;
+        }
+        try {
+            base.mouseUp(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseUp", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseUp", new Object[]{arg0}, e);
+        }
+        returned("mouseUp", new Object[]{arg0});
+    }
+
+    public void mouseUpAt(String arg0, String arg1) {
+        if (!before()) {
+            base.mouseUpAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.mouseUpAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("mouseUpAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("mouseUpAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("mouseUpAt", new Object[]{arg0, arg1});
+    }
+
+    public void mouseUpRight(String arg0) {
+        if (!before()) {
+            base.mouseUpRight(arg0);
+            return;
+        }
+        try {
+            base.mouseUpRight(arg0);
+        } catch (RuntimeException e) {
+            throw failed("mouseUpRight", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("mouseUpRight", new Object[]{arg0}, e);
+        }
+        returned("mouseUpRight", new Object[]{arg0});
+    }
+
+    public void mouseUpRightAt(String arg0, String arg1) {
+        if (!before()) {
+            base.mouseUpRightAt(arg0, arg1);
+            return;
+        }
+        try {
+            base.mouseUpRightAt(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("mouseUpRightAt", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("mouseUpRightAt", new Object[]{arg0, arg1}, e);
+        }
+        returned("mouseUpRightAt", new Object[]{arg0, arg1});
+    }
+
+    public void open(String arg0, String arg1) {
+        if (!before()) {
+            base.open(arg0, arg1);
+            return;
+        }
+        try {
+            base.open(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("open", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("open", new Object[]{arg0, arg1}, e);
+        }
+        returned("open", new Object[]{arg0, arg1});
+    }
+
+    public void open(String arg0) {
+        if (!before()) {
+            base.open(arg0);
+            return;
+        }
+        try {
+            base.open(arg0);
+        } catch (RuntimeException e) {
+            throw failed("open", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("open", new Object[]{arg0}, e);
+        }
+        returned("open", new Object[]{arg0});
+    }
+
+    public void openWindow(String arg0, String arg1) {
+        if (!before()) {
+            base.openWindow(arg0, arg1);
+            return;
+        }
+        try {
+            base.openWindow(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("openWindow", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("openWindow", new Object[]{arg0, arg1}, e);
+        }
+        returned("openWindow", new Object[]{arg0, arg1});
+    }
+
+    public void refresh() {
+        if (!before()) {
+            base.refresh();
+            return;
+        }
+        try {
+            base.refresh();
+        } catch (RuntimeException e) {
+            throw failed("refresh", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("refresh", NO_ARGS, e);
+        }
+        returned("refresh", NO_ARGS);
+    }
+
+    public void removeAllSelections(String arg0) {
+        if (!before()) {
+            base.removeAllSelections(arg0);
+            return;
+        }
+        try {
+            base.removeAllSelections(arg0);
+        } catch (RuntimeException e) {
+            throw failed("removeAllSelections", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("removeAllSelections", new Object[]{arg0}, e);
+        }
+        returned("removeAllSelections", new Object[]{arg0});
+    }
+
+    public void removeScript(String arg0) {
+        if (!before()) {
+            base.removeScript(arg0);
+            return;
+        }
+        try {
+            base.removeScript(arg0);
+        } catch (RuntimeException e) {
+            throw failed("removeScript", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("removeScript", new Object[]{arg0}, e);
+        }
+        returned("removeScript", new Object[]{arg0});
+    }
+
+    public void removeSelection(String arg0, String arg1) {
+        if (!before()) {
+            base.removeSelection(arg0, arg1);
+            return;
+        }
+        try {
+            base.removeSelection(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("removeSelection", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("removeSelection", new Object[]{arg0, arg1}, e);
+        }
+        returned("removeSelection", new Object[]{arg0, arg1});
+    }
+
+    public String retrieveLastRemoteControlLogs() {
+        if (!before())
+            return base.retrieveLastRemoteControlLogs();
+        try {
+            return returned("retrieveLastRemoteControlLogs", NO_ARGS, base.retrieveLastRemoteControlLogs());
+        } catch (RuntimeException e) {
+            throw failed("retrieveLastRemoteControlLogs", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("retrieveLastRemoteControlLogs", NO_ARGS, e);
+        }
+    }
+
+    public void rollup(String arg0, String arg1) {
+        if (!before()) {
+            base.rollup(arg0, arg1);
+            return;
+        }
+        try {
+            base.rollup(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("rollup", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("rollup", new Object[]{arg0, arg1}, e);
+        }
+        returned("rollup", new Object[]{arg0, arg1});
+    }
+
+    public void runScript(String arg0) {
+        if (!before()) {
+            base.runScript(arg0);
+            return;
+        }
+        try {
+            base.runScript(arg0);
+        } catch (RuntimeException e) {
+            throw failed("runScript", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("runScript", new Object[]{arg0}, e);
+        }
+        returned("runScript", new Object[]{arg0});
+    }
+
+    public void select(String arg0, String arg1) {
+        if (!before()) {
+            base.select(arg0, arg1);
+            return;
+        }
+        try {
+            base.select(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("select", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("select", new Object[]{arg0, arg1}, e);
+        }
+        returned("select", new Object[]{arg0, arg1});
+    }
+
+    public void selectFrame(String arg0) {
+        if (!before()) {
+            base.selectFrame(arg0);
+            return;
+        }
+        try {
+            base.selectFrame(arg0);
+        } catch (RuntimeException e) {
+            throw failed("selectFrame", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("selectFrame", new Object[]{arg0}, e);
+        }
+        returned("selectFrame", new Object[]{arg0});
+    }
+
+    public void selectPopUp(String arg0) {
+        if (!before()) {
+            base.selectPopUp(arg0);
+            return;
+        }
+        try {
+            base.selectPopUp(arg0);
+        } catch (RuntimeException e) {
+            throw failed("selectPopUp", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("selectPopUp", new Object[]{arg0}, e);
+        }
+        returned("selectPopUp", new Object[]{arg0});
+    }
+
+    public void selectWindow(String arg0) {
+        if (!before()) {
+            base.selectWindow(arg0);
+            return;
+        }
+        try {
+            base.selectWindow(arg0);
+        } catch (RuntimeException e) {
+            throw failed("selectWindow", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("selectWindow", new Object[]{arg0}, e);
+        }
+        returned("selectWindow", new Object[]{arg0});
+    }
+
+    public void setBrowserLogLevel(String arg0) {
+        if (!before()) {
+            base.setBrowserLogLevel(arg0);
+            return;
+        }
+        try {
+            base.setBrowserLogLevel(arg0);
+        } catch (RuntimeException e) {
+            throw failed("setBrowserLogLevel", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("setBrowserLogLevel", new Object[]{arg0}, e);
+        }
+        returned("setBrowserLogLevel", new Object[]{arg0});
+    }
+
+    public void setContext(String arg0) {
+        if (!before()) {
+            base.setContext(arg0);
+            return;
+        }
+        try {
+            base.setContext(arg0);
+        } catch (RuntimeException e) {
+            throw failed("setContext", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("setContext", new Object[]{arg0}, e);
+        }
+        returned("setContext", new Object[]{arg0});
+    }
+
+    public void setCursorPosition(String arg0, String arg1) {
+        if (!before()) {
+            base.setCursorPosition(arg0, arg1);
+            return;
+        }
+        try {
+            base.setCursorPosition(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("setCursorPosition", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("setCursorPosition", new Object[]{arg0, arg1}, e);
+        }
+        returned("setCursorPosition", new Object[]{arg0, arg1});
+    }
+
+    public void setExtensionJs(String arg0) {
+        if (!before()) {
+            base.setExtensionJs(arg0);
+            return;
+        }
+        try {
+            base.setExtensionJs(arg0);
+        } catch (RuntimeException e) {
+            throw failed("setExtensionJs", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("setExtensionJs", new Object[]{arg0}, e);
+        }
+        returned("setExtensionJs", new Object[]{arg0});
+    }
+
+    public void setMouseSpeed(String arg0) {
+        if (!before()) {
+            base.setMouseSpeed(arg0);
+            return;
+        }
+        try {
+            base.setMouseSpeed(arg0);
+        } catch (RuntimeException e) {
+            throw failed("setMouseSpeed", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("setMouseSpeed", new Object[]{arg0}, e);
+        }
+        returned("setMouseSpeed", new Object[]{arg0});
+    }
+
+    public void setSpeed(String arg0) {
+        if (!before()) {
+            base.setSpeed(arg0);
+            return;
+        }
+        try {
+            base.setSpeed(arg0);
+        } catch (RuntimeException e) {
+            throw failed("setSpeed", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("setSpeed", new Object[]{arg0}, e);
+        }
+        returned("setSpeed", new Object[]{arg0});
+    }
+
+    public void setTimeout(String arg0) {
+        if (!before()) {
+            base.setTimeout(arg0);
+            return;
+        }
+        try {
+            base.setTimeout(arg0);
+        } catch (RuntimeException e) {
+            throw failed("setTimeout", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("setTimeout", new Object[]{arg0}, e);
+        }
+        returned("setTimeout", new Object[]{arg0});
+    }
+
+    public void shiftKeyDown() {
+        if (!before()) {
+            base.shiftKeyDown();
+            return;
+        }
+        try {
+            base.shiftKeyDown();
+        } catch (RuntimeException e) {
+            throw failed("shiftKeyDown", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("shiftKeyDown", NO_ARGS, e);
+        }
+        returned("shiftKeyDown", NO_ARGS);
+    }
+
+    public void shiftKeyUp() {
+        if (!before()) {
+            base.shiftKeyUp();
+            return;
+        }
+        try {
+            base.shiftKeyUp();
+        } catch (RuntimeException e) {
+            throw failed("shiftKeyUp", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("shiftKeyUp", NO_ARGS, e);
+        }
+        returned("shiftKeyUp", NO_ARGS);
+    }
+
+    public void showContextualBanner() {
+        if (!before()) {
+            base.showContextualBanner();
+            return;
+        }
+        try {
+            base.showContextualBanner();
+        } catch (RuntimeException e) {
+            throw failed("showContextualBanner", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("showContextualBanner", NO_ARGS, e);
+        }
+        returned("showContextualBanner", NO_ARGS);
+    }
+
+    public void showContextualBanner(String arg0, String arg1) {
+        if (!before()) {
+            base.showContextualBanner(arg0, arg1);
+            return;
+        }
+        try {
+            base.showContextualBanner(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("showContextualBanner", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("showContextualBanner", new Object[]{arg0, arg1}, e);
+        }
+        returned("showContextualBanner", new Object[]{arg0, arg1});
+    }
+
+    public void shutDownSeleniumServer() {
+        if (!before()) {
+            base.shutDownSeleniumServer();
+            return;
+        }
+        try {
+            base.shutDownSeleniumServer();
+        } catch (RuntimeException e) {
+            throw failed("shutDownSeleniumServer", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("shutDownSeleniumServer", NO_ARGS, e);
+        }
+        returned("shutDownSeleniumServer", NO_ARGS);
+    }
+
+    public void start() {
+        if (!before()) {
+            base.start();
+            return;
+        }
+        try {
+            base.start();
+        } catch (RuntimeException e) {
+            throw failed("start", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("start", NO_ARGS, e);
+        }
+        returned("start", NO_ARGS);
+    }
+
+    public void start(Object arg0) {
+        if (!before()) {
+            base.start(arg0);
+            return;
+        }
+        try {
+            base.start(arg0);
+        } catch (RuntimeException e) {
+            throw failed("start", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("start", new Object[]{arg0}, e);
+        }
+        returned("start", new Object[]{arg0});
+    }
+
+    public void start(String arg0) {
+        if (!before()) {
+            base.start(arg0);
+            return;
+        }
+        try {
+            base.start(arg0);
+        } catch (RuntimeException e) {
+            throw failed("start", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("start", new Object[]{arg0}, e);
+        }
+        returned("start", new Object[]{arg0});
+    }
+
+    public void stop() {
+        try {
+            if (!before()) {
+                base.stop();
+                return;
+            }
+            try {
+                base.stop();
+            } catch (RuntimeException e) {
+                throw failed("stop", NO_ARGS, e);
+            } catch (Error e) {
+                throw failed("stop", NO_ARGS, e);
+            }
+            returned("stop", NO_ARGS);
+        } finally {
+            ended();
+        }
+    }
+
+    public void submit(String arg0) {
+        if (!before()) {
+            base.submit(arg0);
+            return;
+        }
+        try {
+            base.submit(arg0);
+        } catch (RuntimeException e) {
+            throw failed("submit", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("submit", new Object[]{arg0}, e);
+        }
+        returned("submit", new Object[]{arg0});
+    }
+
+    public void type(String arg0, String arg1) {
+        if (!before()) {
+            base.type(arg0, arg1);
+            return;
+        }
+        try {
+            base.type(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("type", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("type", new Object[]{arg0, arg1}, e);
+        }
+        returned("type", new Object[]{arg0, arg1});
+    }
+
+    public void typeKeys(String arg0, String arg1) {
+        if (!before()) {
+            base.typeKeys(arg0, arg1);
+            return;
+        }
+        try {
+            base.typeKeys(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("typeKeys", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("typeKeys", new Object[]{arg0, arg1}, e);
+        }
+        returned("typeKeys", new Object[]{arg0, arg1});
+    }
+
+    public void uncheck(String arg0) {
+        if (!before()) {
+            base.uncheck(arg0);
+            return;
+        }
+        try {
+            base.uncheck(arg0);
+        } catch (RuntimeException e) {
+            throw failed("uncheck", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("uncheck", new Object[]{arg0}, e);
+        }
+        returned("uncheck", new Object[]{arg0});
+    }
+
+    public void useXpathLibrary(String arg0) {
+        if (!before()) {
+            base.useXpathLibrary(arg0);
+            return;
+        }
+        try {
+            base.useXpathLibrary(arg0);
+        } catch (RuntimeException e) {
+            throw failed("useXpathLibrary", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("useXpathLibrary", new Object[]{arg0}, e);
+        }
+        returned("useXpathLibrary", new Object[]{arg0});
+    }
+
+    public void waitForCondition(String arg0, String arg1) {
+        if (!before()) {
+            base.waitForCondition(arg0, arg1);
+            return;
+        }
+        try {
+            base.waitForCondition(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("waitForCondition", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("waitForCondition", new Object[]{arg0, arg1}, e);
+        }
+        returned("waitForCondition", new Object[]{arg0, arg1});
+    }
+
+    public void waitForFrameToLoad(String arg0, String arg1) {
+        if (!before()) {
+            base.waitForFrameToLoad(arg0, arg1);
+            return;
+        }
+        try {
+            base.waitForFrameToLoad(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("waitForFrameToLoad", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("waitForFrameToLoad", new Object[]{arg0, arg1}, e);
+        }
+        returned("waitForFrameToLoad", new Object[]{arg0, arg1});
+    }
+
+    public void waitForPageToLoad(String arg0) {
+        if (!before()) {
+            base.waitForPageToLoad(arg0);
+            return;
+        }
+        try {
+            base.waitForPageToLoad(arg0);
+        } catch (RuntimeException e) {
+            throw failed("waitForPageToLoad", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("waitForPageToLoad", new Object[]{arg0}, e);
+        }
+        returned("waitForPageToLoad", new Object[]{arg0});
+    }
+
+    public void waitForPopUp(String arg0, String arg1) {
+        if (!before()) {
+            base.waitForPopUp(arg0, arg1);
+            return;
+        }
+        try {
+            base.waitForPopUp(arg0, arg1);
+        } catch (RuntimeException e) {
+            throw failed("waitForPopUp", new Object[]{arg0, arg1}, e);
+        } catch (Error e) {
+            throw failed("waitForPopUp", new Object[]{arg0, arg1}, e);
+        }
+        returned("waitForPopUp", new Object[]{arg0, arg1});
+    }
+
+    public void windowFocus() {
+        if (!before()) {
+            base.windowFocus();
+            return;
+        }
+        try {
+            base.windowFocus();
+        } catch (RuntimeException e) {
+            throw failed("windowFocus", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("windowFocus", NO_ARGS, e);
+        }
+        returned("windowFocus", NO_ARGS);
+    }
+
+    public void windowMaximize() {
+        if (!before()) {
+            base.windowMaximize();
+            return;
+        }
+        try {
+            base.windowMaximize();
+        } catch (RuntimeException e) {
+            throw failed("windowMaximize", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("windowMaximize", NO_ARGS, e);
+        }
+        returned("windowMaximize", NO_ARGS);
+    }
+}
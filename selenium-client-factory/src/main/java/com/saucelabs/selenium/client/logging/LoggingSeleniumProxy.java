@@ -23,6 +23,7 @@
  */
 package com.saucelabs.selenium.client.logging;
 
+import com.saucelabs.selenium.client.factory.SessionRegistry;
 import com.thoughtworks.selenium.Selenium;
 import org.openqa.selenium.WebDriver;
 
@@ -33,7 +34,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Implements the behavior of the logging {@link Selenium} object.
+ * Implements the behavior of the logging {@link Selenium} object as a {@link java.lang.reflect.Proxy}.
+ *
+ * <p>
+ * "log:..." hands out {@link LoggingSeleniumSPIImpl#createLoggingWebDriver(WebDriver) generated delegates}
+ * instead, which are cheaper per command. This class remains for wrapping drivers by other means.
  *
  * @author Kohsuke Kawaguchi
  */
@@ -42,6 +47,7 @@ public class LoggingSeleniumProxy implements InvocationHandler, LoggingSelenium
     private Logger logger = Logger.getLogger(LoggingSeleniumProxy.class.getName());
     private Level level = Level.INFO;
     private String id = "Selenium"+Integer.toHexString(hashCode());
+    private AsyncLogSink sink = AsyncLogSink.getDefault();
 
     private WebDriver webDriver;
 
@@ -62,33 +68,44 @@ public class LoggingSeleniumProxy implements InvocationHandler, LoggingSelenium
         }
 
         // otherwise forward it to the base object
-        StringBuilder buf = new StringBuilder();
-        try {
-            buf.append(id).append(": ");
-            buf.append(method.getName()).append('(');
-            if (args!=null) {
-                for (int i=0; i<args.length; i++) {
-                    if (i>0)    buf.append(',');
-                    appendValue(args[i], buf);
-                }
-            }
-            buf.append(')');
-
-            Object r = invokeMethod(method, args);
-
-            // report the return value if the method can return a value.
-            if (method.getReturnType()!=void.class) {
-                buf.append(" -> ");
-                appendValue(r,buf);
+        Logger logger = this.logger;
+        Level level = this.level;
+        if (!logger.isLoggable(level)) {
+            // nothing to report, so don't pay for it
+            try {
+                return forward(proxy, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();   // unwrap exception
             }
-            logger.log(level,buf.toString());
+        }
 
-            return r;
+        Object r;
+        try {
+            r = forward(proxy, method, args);
         } catch (InvocationTargetException e) {
             Throwable target = e.getTargetException();
-            logger.log(level,buf.toString(),target);
+            CommandRecord record = new CommandRecord(level, id, method.getName(), args);
+            record.setThrown(target);
+            record.log(logger, sink, getClass());
             throw target;   // unwrap exception
         }
+
+        CommandRecord record = new CommandRecord(level, id, method.getName(), args);
+        // report the return value if the method can return a value.
+        if (method.getReturnType()!=void.class)
+            record.setResult(r);
+        record.log(logger, sink, getClass());
+        return r;
+    }
+
+    private Object forward(Object proxy, Method method, Object[] args) throws IllegalAccessException, InvocationTargetException {
+        try {
+            SessionRegistry.touch(proxy);
+            return invokeMethod(method, args);
+        } finally {
+            if (isQuit(method))
+                SessionRegistry.ended(proxy);
+        }
     }
 
     private Object invokeMethod(Method method, Object[] args) throws IllegalAccessException, InvocationTargetException {
@@ -101,11 +118,9 @@ public class LoggingSeleniumProxy implements InvocationHandler, LoggingSelenium
         return r;
     }
 
-    private void appendValue(Object o, StringBuilder buf) {
-        if (o instanceof String)
-            buf.append('"').append(o).append('"');
-        else
-            buf.append(o);
+    private boolean isQuit(Method method) {
+        String n = method.getName();
+        return (n.equals("quit") || n.equals("stop")) && method.getParameterTypes().length==0;
     }
 
     public void setLogger(Logger logger) {
@@ -149,6 +164,14 @@ public class LoggingSeleniumProxy implements InvocationHandler, LoggingSelenium
         this.id = id;
     }
 
+    public void setAsyncSink(AsyncLogSink sink) {
+        this.sink = sink;
+    }
+
+    public AsyncLogSink getAsyncSink() {
+        return sink;
+    }
+
     @Override
     public String toString() {
         return "Logging Selenium driver around "+base;
@@ -30,12 +30,16 @@ import org.kohsuke.MetaInfServices;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import java.lang.reflect.Proxy;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * {@link SeleniumFactorySPI} that handles "log:...".
  *
+ * <p>
+ * The drivers it hands out implement {@link LoggingSelenium}, and call the wrapped driver directly,
+ * instead of going through a {@link java.lang.reflect.Proxy}, as they sit on the path of every command.
+ *
  * @author Kohsuke Kawaguchi
  */
 @MetaInfServices
@@ -62,26 +66,27 @@ public class LoggingSeleniumSPIImpl extends SeleniumFactorySPI {
         return uri.startsWith("log:");
     }
 
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("log");
+    }
+
+    @Override
+    public String getDelegateUri(String uri) {
+        return canHandle(uri) ? uri.substring(4) : null;
+    }
+
     /**
      * Creates a logging selenium around the given Selenium driver.
      */
     public static Selenium createLoggingSelenium(Selenium base) {
-        return (Selenium) Proxy.newProxyInstance(LoggingSelenium.class.getClassLoader(),
-                new Class[]{LoggingSelenium.class, Selenium.class},
-                new LoggingSeleniumProxy(base));
+        return new LoggingSeleniumDelegate(base);
     }
 
     /**
      * Creates a logging selenium around the given Selenium driver.
      */
     public static WebDriver createLoggingWebDriver(WebDriver base) {
-        return (WebDriver) Proxy.newProxyInstance(LoggingSelenium.class.getClassLoader(),
-                new Class[]{LoggingSelenium.class, WebDriver.class},
-                new LoggingSeleniumProxy(base));
-    }
-
-    @Override
-    public List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, String browserURL) {
-        throw new IllegalArgumentException("Not Supported");
+        return new LoggingWebDriverDelegate(base);
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link WebDriver} handed out from "log:...".
+ *
+ * <p>
+ * Generated by {@code DelegateGenerator} in the test code. Do not edit by hand.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+final class LoggingWebDriverDelegate extends LoggingDelegate implements WebDriver {
+    LoggingWebDriverDelegate(WebDriver base) {
+        this.webDriver = base;
+    }
+
+    public void close() {
+        if (!before()) {
+            webDriver.close();
+            return;
+        }
+        try {
+            webDriver.close();
+        } catch (RuntimeException e) {
+            throw failed("close", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("close", NO_ARGS, e);
+        }
+        returned("close", NO_ARGS);
+    }
+
+    public WebElement findElement(By arg0) {
+        if (!before())
+            return webDriver.findElement(arg0);
+        try {
+            return returned("findElement", new Object[]{arg0}, webDriver.findElement(arg0));
+        } catch (RuntimeException e) {
+            throw failed("findElement", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("findElement", new Object[]{arg0}, e);
+        }
+    }
+
+    public List<WebElement> findElements(By arg0) {
+        if (!before())
+            return webDriver.findElements(arg0);
+        try {
+            return returned("findElements", new Object[]{arg0}, webDriver.findElements(arg0));
+        } catch (RuntimeException e) {
+            throw failed("findElements", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("findElements", new Object[]{arg0}, e);
+        }
+    }
+
+    public void get(String arg0) {
+        if (!before()) {
+            webDriver.get(arg0);
+            return;
+        }
+        try {
+            webDriver.get(arg0);
+        } catch (RuntimeException e) {
+            throw failed("get", new Object[]{arg0}, e);
+        } catch (Error e) {
+            throw failed("get", new Object[]{arg0}, e);
+        }
+        returned("get", new Object[]{arg0});
+    }
+
+    public String getCurrentUrl() {
+        if (!before())
+            return webDriver.getCurrentUrl();
+        try {
+            return returned("getCurrentUrl", NO_ARGS, webDriver.getCurrentUrl());
+        } catch (RuntimeException e) {
+            throw failed("getCurrentUrl", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getCurrentUrl", NO_ARGS, e);
+        }
+    }
+
+    public String getPageSource() {
+        if (!before())
+            return webDriver.getPageSource();
+        try {
+            return returned("getPageSource", NO_ARGS, webDriver.getPageSource());
+        } catch (RuntimeException e) {
+            throw failed("getPageSource", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getPageSource", NO_ARGS, e);
+        }
+    }
+
+    public String getTitle() {
+        if (!before())
+            return webDriver.getTitle();
+        try {
+            return returned("getTitle", NO_ARGS, webDriver.getTitle());
+        } catch (RuntimeException e) {
+            throw failed("getTitle", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getTitle", NO_ARGS, e);
+        }
+    }
+
+    public String getWindowHandle() {
+        if (!before())
+            return webDriver.getWindowHandle();
+        try {
+            return returned("getWindowHandle", NO_ARGS, webDriver.getWindowHandle());
+        } catch (RuntimeException e) {
+            throw failed("getWindowHandle", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getWindowHandle", NO_ARGS, e);
+        }
+    }
+
+    public Set<String> getWindowHandles() {
+        if (!before())
+            return webDriver.getWindowHandles();
+        try {
+            return returned("getWindowHandles", NO_ARGS, webDriver.getWindowHandles());
+        } catch (RuntimeException e) {
+            throw failed("getWindowHandles", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("getWindowHandles", NO_ARGS, e);
+        }
+    }
+
+    public WebDriver.Options manage() {
+        if (!before())
+            return webDriver.manage();
+        try {
+            return returned("manage", NO_ARGS, webDriver.manage());
+        } catch (RuntimeException e) {
+            throw failed("manage", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("manage", NO_ARGS, e);
+        }
+    }
+
+    public WebDriver.Navigation navigate() {
+        if (!before())
+            return webDriver.navigate();
+        try {
+            return returned("navigate", NO_ARGS, webDriver.navigate());
+        } catch (RuntimeException e) {
+            throw failed("navigate", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("navigate", NO_ARGS, e);
+        }
+    }
+
+    public void quit() {
+        try {
+            if (!before()) {
+                webDriver.quit();
+                return;
+            }
+            try {
+                webDriver.quit();
+            } catch (RuntimeException e) {
+                throw failed("quit", NO_ARGS, e);
+            } catch (Error e) {
+                throw failed("quit", NO_ARGS, e);
+            }
+            returned("quit", NO_ARGS);
+        } finally {
+            ended();
+        }
+    }
+
+    public WebDriver.TargetLocator switchTo() {
+        if (!before())
+            return webDriver.switchTo();
+        try {
+            return returned("switchTo", NO_ARGS, webDriver.switchTo());
+        } catch (RuntimeException e) {
+            throw failed("switchTo", NO_ARGS, e);
+        } catch (Error e) {
+            throw failed("switchTo", NO_ARGS, e);
+        }
+    }
+}
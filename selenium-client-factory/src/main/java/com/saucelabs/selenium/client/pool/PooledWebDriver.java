@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.pool;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * {@link WebDriver} returned from "pool:..." URI will implement this interface
+ * to let you interact with the pool.
+ *
+ * <p>
+ * Calling {@link WebDriver#quit()} on such a driver doesn't end the browser session.
+ * Instead, the browser is cleaned up and returned to the pool, and this driver object
+ * becomes unusable.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public interface PooledWebDriver {
+    /**
+     * The actual driver that this pooled driver is delegating to.
+     *
+     * @return null if the driver is already returned to the pool.
+     */
+    WebDriver getBaseDriver();
+
+    /**
+     * Number of times the underlying browser session has been handed out from the pool,
+     * including this time.
+     */
+    int getUseCount();
+
+    /**
+     * Ends the underlying browser session for real, instead of returning it to the pool.
+     * Use this when the test has left the browser in a state that can't be cleaned up.
+     */
+    void invalidate();
+
+    WebDriverPool getPool();
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.pool;
+
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Implements the behavior of the {@link WebDriver} handed out from {@link WebDriverPool}.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+class PooledWebDriverHandler implements InvocationHandler, PooledWebDriver {
+    private final WebDriverPool pool;
+    private final int uses;
+    private final WebDriver base;
+
+    /**
+     * Set to null once the session is given back to the pool.
+     */
+    private WebDriverPool.Entry entry;
+
+    PooledWebDriverHandler(WebDriverPool pool, WebDriverPool.Entry entry) {
+        this.pool = pool;
+        this.entry = entry;
+        this.uses = entry.uses;
+        this.base = entry.driver;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Class<?> decl = method.getDeclaringClass();
+
+        if (decl==Object.class || decl==PooledWebDriver.class) {
+            // handle it by ourselves
+            if (method.getName().equals("invalidate"))
+                SessionRegistry.ended(proxy);
+            return method.invoke(this,args);
+        }
+
+        if (method.getName().equals("quit") && method.getParameterTypes().length==0) {
+            SessionRegistry.ended(proxy);
+            WebDriverPool.Entry e = takeEntry();
+            if (e!=null) {
+                long start = System.nanoTime();
+                pool.release(e);
+                MetricsRegistry.forUri("pool:"+pool.getUri()).quitEnded(start);
+            }
+            return null;
+        }
+
+        if (getBaseDriver()==null)
+            throw new IllegalStateException("This driver has already been returned to "+pool);
+
+        SessionRegistry.touch(proxy);
+        try {
+            return method.invoke(base,args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();   // unwrap exception
+        }
+    }
+
+    private synchronized WebDriverPool.Entry takeEntry() {
+        WebDriverPool.Entry e = entry;
+        entry = null;
+        return e;
+    }
+
+    public synchronized WebDriver getBaseDriver() {
+        return entry!=null ? entry.driver : null;
+    }
+
+    public int getUseCount() {
+        return uses;
+    }
+
+    public void invalidate() {
+        WebDriverPool.Entry e = takeEntry();
+        if (e!=null)
+            pool.discard(e);
+    }
+
+    public WebDriverPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public String toString() {
+        return "Pooled WebDriver around "+base;
+    }
+}
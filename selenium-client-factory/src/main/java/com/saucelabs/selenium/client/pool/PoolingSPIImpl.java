@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.pool;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+import com.thoughtworks.selenium.Selenium;
+import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link SeleniumFactorySPI} that handles "pool:...".
+ *
+ * <p>
+ * {@link WebDriver}s created from "pool:&lt;anotherDriverURL>" are taken from a pool of live sessions
+ * of the wrapped driver, and going back to the pool when they are quit. The pool is configured
+ * through the following factory properties, which default to the system properties of the same name
+ * prefixed by the fully qualified name of this class (such as "com.saucelabs.selenium.client.pool.PoolingSPIImpl.maxSize"):
+ *
+ * <dl>
+ * <dt>pool.maxSize
+ * <dd>Maximum number of idle sessions kept per driver URI and capabilities. Defaults to 4.
+ * <dt>pool.maxActive
+ * <dd>Maximum number of sessions handed out per driver URI and capabilities at the same time.
+ *     Defaults to 0, which means unlimited. Once that many are out, the next one waits for one of them to be quit.
+ * <dt>pool.maxWait
+ * <dd>Milliseconds to wait for a session when pool.maxActive sessions are out, before failing. Defaults to 5 minutes.
+ * <dt>pool.maxIdleTime
+ * <dd>Milliseconds an idle session stays in the pool before it gets quit. Defaults to 5 minutes. 0 to keep them forever.
+ * <dt>pool.maxUses
+ * <dd>Number of times a session is handed out before it gets quit. Defaults to 0, which means unlimited.
+ * <dt>pool.validateOnBorrow
+ * <dd>Whether to check that an idle session is still alive before handing it out. Defaults to true.
+ * </dl>
+ *
+ * <p>
+ * {@link Selenium} RC sessions are started and stopped by the application, so "pool:" simply
+ * creates them from the wrapped driver URI.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+@MetaInfServices
+public class PoolingSPIImpl extends SeleniumFactorySPI {
+    @Override
+    public Selenium createSelenium(SeleniumFactory factory, String browserURL) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        return factory.clone().setUri(uri.substring(SCHEME.length())).createSelenium(browserURL);
+    }
+
+    @Override
+    public WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities) {
+        String uri = factory.getUri();
+        if (!canHandle(uri))       return null;    // not our URL
+
+        WebDriverPool pool = WebDriverPool.get(uri.substring(SCHEME.length()), capabilities,
+                getInt(factory, "maxSize", 4),
+                getInt(factory, "maxActive", 0),
+                getLong(factory, "maxWait", 5*60*1000L),
+                getLong(factory, "maxIdleTime", 5*60*1000L),
+                getInt(factory, "maxUses", 0),
+                getBoolean(factory, "validateOnBorrow", true));
+        return pool.borrow(factory, browserURL, capabilities);
+    }
+
+    /**
+     * The sessions that the pools start take the permits, and keep them until the pools quit them.
+     */
+    @Override
+    public boolean isAdmitted() {
+        return false;
+    }
+
+    @Override
+    public boolean canHandle(String uri) {
+        return uri.startsWith(SCHEME);
+    }
+
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("pool");
+    }
+
+    @Override
+    public String getDelegateUri(String uri) {
+        return canHandle(uri) ? uri.substring(SCHEME.length()) : null;
+    }
+
+    private static String getProperty(SeleniumFactory factory, String name) {
+        Object v = factory.getProperty("pool." + name);
+        if (v != null)
+            return v.toString();
+        return System.getProperty(PoolingSPIImpl.class.getName() + "." + name);
+    }
+
+    private static int getInt(SeleniumFactory factory, String name, int defaultValue) {
+        return (int) getLong(factory, name, defaultValue);
+    }
+
+    private static long getLong(SeleniumFactory factory, String name, long defaultValue) {
+        String v = getProperty(factory, name);
+        if (v == null)
+            return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for pool." + name + ": " + v, e);
+        }
+    }
+
+    private static boolean getBoolean(SeleniumFactory factory, String name, boolean defaultValue) {
+        String v = getProperty(factory, name);
+        return v == null ? defaultValue : Boolean.valueOf(v.trim());
+    }
+
+    private static final String SCHEME = "pool:";
+}
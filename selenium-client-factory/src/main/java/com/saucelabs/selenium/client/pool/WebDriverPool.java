@@ -0,0 +1,444 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.pool;
+
+import com.saucelabs.selenium.client.factory.AdmissionException;
+import com.saucelabs.selenium.client.factory.AdmissionScheduler;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.jmx.Management;
+import com.saucelabs.selenium.client.factory.spi.DriverProxies;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Idle {@link WebDriver} sessions of one driver URI and capability set.
+ *
+ * <p>
+ * Pools are created on demand by {@link PoolingSPIImpl} and live until the JVM exits,
+ * at which point all the idle sessions are quit.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public final class WebDriverPool implements WebDriverPoolMBean {
+    private final String uri;
+    private final Map<String, ?> capabilities;
+
+    private final int maxSize;
+    private final int maxActive;
+    private final long maxWaitMillis;
+    private final long maxIdleMillis;
+    private final int maxUses;
+    private final boolean validateOnBorrow;
+
+    /**
+     * Idle sessions. The most recently returned session comes first, so that busy pools
+     * keep reusing the same warm sessions and let the rest expire.
+     */
+    private final LinkedList<Entry> idle = new LinkedList<Entry>();
+
+    private int active;
+    private boolean closed;
+
+    WebDriverPool(String uri, Map<String, ?> capabilities, int maxSize, int maxActive, long maxWaitMillis,
+                  long maxIdleMillis, int maxUses, boolean validateOnBorrow) {
+        this.uri = uri;
+        this.capabilities = capabilities;
+        this.maxSize = maxSize;
+        this.maxActive = maxActive;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxUses = maxUses;
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    /**
+     * The driver URI of the sessions in this pool.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    public Map<String, ?> getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Maximum number of idle sessions kept in this pool. Sessions returned to a full pool are quit.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Maximum number of sessions handed out from this pool at the same time, or 0 if unlimited.
+     * Once that many are out, {@link #borrow} waits for one of them to come back.
+     */
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Number of sessions currently handed out from this pool.
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * Hands out a session from the pool, or creates a new one if there's no usable idle session.
+     *
+     * @throws IllegalArgumentException
+     *      if {@link #getMaxActive()} sessions stay handed out for longer than the maximum wait.
+     */
+    WebDriver borrow(SeleniumFactory factory, String browserURL, DesiredCapabilities desiredCapabilities) {
+        evictExpired();
+        reserve();
+
+        boolean leased = false;
+        try {
+            while (true) {
+                Entry e;
+                synchronized (this) {
+                    e = idle.poll();
+                }
+                if (e == null)
+                    break;
+
+                if (validateOnBorrow && !isAlive(e.driver)) {
+                    LOGGER.fine("Discarding a dead session in the pool for " + uri);
+                    quit(e);
+                    continue;
+                }
+
+                e.uses++;
+                if (browserURL != null) {
+                    try {
+                        e.driver.get(browserURL);
+                    } catch (RuntimeException x) {
+                        quit(e);
+                        throw x;
+                    }
+                }
+                leased = true;
+                return lease(e);
+            }
+
+            // give the driver its own copy, since some drivers modify the capabilities we use as the pool key
+            DesiredCapabilities dc = desiredCapabilities == null ? null : new DesiredCapabilities((Capabilities) desiredCapabilities);
+            WebDriver driver = factory.clone().setUri(uri).createWebDriverInstance(browserURL, dc);
+            Entry e = new Entry(driver);
+            // the session keeps its permit while it's in the pool, not just while it's handed out
+            e.permit = SessionRegistry.takePermit(driver);
+            e.uses++;
+            leased = true;
+            return lease(e);
+        } finally {
+            if (!leased)
+                returned();
+        }
+    }
+
+    /**
+     * Counts a session as handed out, waiting for room if {@link #maxActive} sessions already are.
+     */
+    private synchronized void reserve() {
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        while (maxActive > 0 && active >= maxActive) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0)
+                throw new AdmissionException("Timed out waiting for one of the " + maxActive
+                        + " sessions handed out from " + this + " to be quit");
+            try {
+                wait(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AdmissionException("Interrupted while waiting for a session from " + this, e);
+            }
+        }
+        active++;
+    }
+
+    /**
+     * Counts a session as no longer handed out.
+     */
+    private synchronized void returned() {
+        active--;
+        notifyAll();
+    }
+
+    private WebDriver lease(Entry e) {
+        return (WebDriver) DriverProxies.wrap(e.driver, new PooledWebDriverHandler(this, e), PooledWebDriver.class);
+    }
+
+    /**
+     * Called when a handed out session is quit by the application.
+     */
+    void release(Entry e) {
+        if (maxUses > 0 && e.uses >= maxUses) {
+            discard(e);
+            return;
+        }
+
+        try {
+            reset(e.driver);
+        } catch (RuntimeException x) {
+            LOGGER.log(FINE, "Failed to clean up the session for " + uri + ". Discarding", x);
+            discard(e);
+            return;
+        }
+
+        synchronized (this) {
+            returned();
+            if (!closed && idle.size() < maxSize) {
+                e.lastReturned = System.currentTimeMillis();
+                idle.addFirst(e);
+                return;
+            }
+        }
+        quit(e);
+    }
+
+    /**
+     * Ends a handed out session for real.
+     */
+    void discard(Entry e) {
+        returned();
+        quit(e);
+    }
+
+    /**
+     * Brings the browser back to a clean state, so that the next test doesn't see what the previous one did.
+     */
+    private void reset(WebDriver driver) {
+        Set<String> handles = driver.getWindowHandles();
+        String last = null;
+        for (String h : handles) {
+            if (last != null) {
+                driver.switchTo().window(last);
+                driver.close();
+            }
+            last = h;
+        }
+        if (last != null)
+            driver.switchTo().window(last);
+
+        // cookies can only be deleted for the current domain, so do this before leaving the page
+        driver.manage().deleteAllCookies();
+        driver.get("about:blank");
+    }
+
+    private boolean isAlive(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Quits idle sessions that have been sitting in the pool for too long.
+     */
+    void evictExpired() {
+        if (maxIdleMillis <= 0) return;
+
+        List<Entry> expired = new ArrayList<Entry>();
+        long limit = System.currentTimeMillis() - maxIdleMillis;
+        synchronized (this) {
+            for (Iterator<Entry> itr = idle.iterator(); itr.hasNext();) {
+                Entry e = itr.next();
+                if (e.lastReturned < limit) {
+                    itr.remove();
+                    expired.add(e);
+                }
+            }
+        }
+        for (Entry e : expired)
+            quit(e);
+    }
+
+    /**
+     * Quits all the idle sessions, and makes sure sessions returned afterward are quit, too.
+     */
+    public void close() {
+        List<Entry> all;
+        synchronized (this) {
+            closed = true;
+            all = new ArrayList<Entry>(idle);
+            idle.clear();
+        }
+        for (Entry e : all)
+            quit(e);
+    }
+
+    private void quit(Entry e) {
+        try {
+            e.driver.quit();
+        } catch (RuntimeException x) {
+            LOGGER.log(FINE, "Failed to quit a pooled session for " + uri, x);
+        } finally {
+            if (e.permit != null)
+                e.permit.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WebDriver pool for " + uri + " " + capabilities;
+    }
+
+    /**
+     * A session kept by the pool.
+     */
+    static final class Entry {
+        final WebDriver driver;
+        /**
+         * Permit of {@link AdmissionScheduler} the session holds until the pool quits it, or null.
+         */
+        AdmissionScheduler.Permit permit;
+        int uses;
+        long lastReturned;
+
+        Entry(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+
+    /**
+     * Obtains the pool for the given driver URI and capabilities, creating one if necessary.
+     * The configuration parameters only take effect when the pool is created.
+     */
+    static WebDriverPool get(String uri, DesiredCapabilities capabilities, int maxSize, int maxActive, long maxWaitMillis,
+                             long maxIdleMillis, int maxUses, boolean validateOnBorrow) {
+        Map<String, ?> caps = capabilities == null
+                ? Collections.<String, Object>emptyMap()
+                : Collections.unmodifiableMap(new HashMap<String, Object>(capabilities.asMap()));
+        Key key = new Key(uri, caps);
+
+        WebDriverPool pool = POOLS.get(key);
+        if (pool == null) {
+            WebDriverPool created = new WebDriverPool(uri, caps, maxSize, maxActive, maxWaitMillis, maxIdleMillis, maxUses, validateOnBorrow);
+            pool = POOLS.putIfAbsent(key, created);
+            if (pool == null) {
+                pool = created;
+                startSweeper();
+                Management.register("WebDriverPool", pool.toString(), pool);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * All the pools in this JVM.
+     */
+    public static List<WebDriverPool> getPools() {
+        return new ArrayList<WebDriverPool>(POOLS.values());
+    }
+
+    private static final class Key {
+        private final String uri;
+        private final Map<String, ?> capabilities;
+
+        Key(String uri, Map<String, ?> capabilities) {
+            this.uri = uri;
+            this.capabilities = capabilities;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return uri.equals(that.uri) && capabilities.equals(that.capabilities);
+        }
+
+        @Override
+        public int hashCode() {
+            return uri.hashCode() * 31 + capabilities.hashCode();
+        }
+    }
+
+    private static synchronized void startSweeper() {
+        if (SWEEPER != null) return;
+
+        SWEEPER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "WebDriver pool idle session sweeper");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        SWEEPER.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                for (WebDriverPool pool : POOLS.values()) {
+                    try {
+                        pool.evictExpired();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(WARNING, "Failed to evict idle sessions from " + pool, e);
+                    }
+                }
+            }
+        }, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread("WebDriver pool shutdown") {
+            @Override
+            public void run() {
+                for (WebDriverPool pool : POOLS.values())
+                    pool.close();
+            }
+        });
+    }
+
+    private static final ConcurrentMap<Key, WebDriverPool> POOLS = new ConcurrentHashMap<Key, WebDriverPool>();
+
+    private static ScheduledExecutorService SWEEPER;
+
+    private static final long SWEEP_INTERVAL = Long.getLong(WebDriverPool.class.getName() + ".sweepInterval", 5000);
+
+    private static final Logger LOGGER = Logger.getLogger(WebDriverPool.class.getName());
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.broadcast;
+
+import com.saucelabs.selenium.client.factory.FakeWebDriver;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class BroadcastTest extends TestCase {
+    public void testCommandsGoToAllBrowsers() {
+        WebDriver d = SeleniumFactory.createWebDriver("broadcast:fake:a|fake:b", null);
+        List<WebDriver> drivers = ((BroadcastWebDriver) d).getWebDrivers();
+        assertEquals(2, drivers.size());
+        FakeWebDriver a = (FakeWebDriver) drivers.get(0);
+        FakeWebDriver b = (FakeWebDriver) drivers.get(1);
+
+        d.get("http://example.com/");
+        assertEquals("http://example.com/", a.currentUrl);
+        assertEquals("http://example.com/", b.currentUrl);
+        assertEquals("Fake", d.getTitle());
+
+        // objects from the browsers broadcast as well
+        d.manage().deleteAllCookies();
+        assertEquals(1, a.cookiesDeleted);
+        assertEquals(1, b.cookiesDeleted);
+        assertSame(d, d.switchTo().window("other"));
+        assertEquals("other", b.currentWindow);
+
+        b.dead = true;
+        try {
+            d.getTitle();
+            fail();
+        } catch (BroadcastException e) {
+            assertEquals(2, e.getResults().size());
+            assertTrue(e.getResults().get(0).isSuccess());
+            assertFalse(e.getResults().get(1).isSuccess());
+        }
+
+        d.quit();
+        assertTrue(a.quit);
+        assertTrue(b.quit);
+        assertNull(SessionRegistry.find(d));
+    }
+
+    public void testCommandsRunInParallel() {
+        WebDriver d = SeleniumFactory.createWebDriver("broadcast:fake:|fake:|fake:", null);
+        long start = System.currentTimeMillis();
+        List<BroadcastResult<String>> results = ((BroadcastWebDriver) d).execute(new BroadcastWebDriver.Command<String>() {
+            public String execute(WebDriver driver) {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return driver.getTitle();
+            }
+        });
+        assertTrue(System.currentTimeMillis() - start < 800);
+        assertEquals(3, results.size());
+        for (BroadcastResult<String> r : results)
+            assertEquals("Fake", r.get());
+        d.quit();
+    }
+
+    public void testFailedCreationQuitsTheOthers() {
+        int before = FakeWebDriver.INSTANCES.size();
+        try {
+            SeleniumFactory.createWebDriver("broadcast:fake:|fake:fail", null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(before + 1, FakeWebDriver.INSTANCES.size());
+        assertTrue(FakeWebDriver.INSTANCES.get(before).quit);
+    }
+
+    /**
+     * A broadcast created in the background doesn't wait for the pool it's running on.
+     */
+    public void testAsyncCreationOnABusyExecutor() throws Exception {
+        ExecutorService old = SeleniumFactory.getExecutor();
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        SeleniumFactory.setExecutor(single);
+        try {
+            Future<WebDriver> f = new SeleniumFactory().setUri("broadcast:fake:a|fake:b").createWebDriverAsync(null, null);
+            WebDriver d = f.get(10, TimeUnit.SECONDS);
+            assertEquals(2, ((BroadcastWebDriver) d).getWebDrivers().size());
+            d.quit();
+        } finally {
+            SeleniumFactory.setExecutor(old);
+            single.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class AdmissionSchedulerTest extends TestCase {
+    public void testPriorityThenFifo() throws Exception {
+        final AdmissionScheduler s = new AdmissionScheduler(1);
+        AdmissionScheduler.Permit first = s.acquire(0);
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        List<Thread> threads = new ArrayList<Thread>();
+        String[] names = {"a", "b", "smoke"};
+        int[] priorities = {0, 0, 5};
+        for (int i = 0; i < names.length; i++) {
+            final String name = names[i];
+            final int priority = priorities[i];
+            Thread t = new Thread() {
+                public void run() {
+                    AdmissionScheduler.Permit p = s.acquire(priority);
+                    order.add(name);
+                    p.release();
+                }
+            };
+            t.start();
+            threads.add(t);
+            while (s.getQueueLength() < i + 1)
+                Thread.sleep(10);
+        }
+
+        first.release();
+        first.release();    // no-op
+        for (Thread t : threads)
+            t.join(5000);
+
+        assertEquals(Arrays.asList("smoke", "a", "b"), order);
+        assertEquals(1, s.getAvailablePermits());
+        assertEquals(4, s.getAdmittedCount());
+        assertEquals(4, s.getQueueTime().getCount());
+    }
+
+    public void testTimeout() {
+        AdmissionScheduler s = new AdmissionScheduler(1);
+        s.acquire(0);
+        try {
+            s.acquire(0, 50, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, s.getTimedOutCount());
+        assertEquals(0, s.getQueueLength());
+    }
+
+    public void testPermitsFollowSessions() {
+        AdmissionScheduler s = new AdmissionScheduler(1).setTimeout(100, TimeUnit.MILLISECONDS);
+        SeleniumFactory f = new SeleniumFactory().setAdmissionScheduler(s);
+
+        // nested creations share the permit of the outer one
+        WebDriver d = f.clone().setUri("log:fake:admission").createWebDriverInstance(null, null);
+        assertEquals(0, s.getAvailablePermits());
+        try {
+            f.clone().setUri("fake:admission").createWebDriverInstance(null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        d.quit();
+        assertEquals(1, s.getAvailablePermits());
+
+        // failed creations give the permit back
+        try {
+            f.clone().setUri("fake:fail").createWebDriverInstance(null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, s.getAvailablePermits());
+
+        // so does the lazy driver, which only takes one permit
+        d = f.clone().setUri("lazy:fake:admission").createWebDriverInstance(null, null);
+        d.getCurrentUrl();
+        assertEquals(0, s.getAvailablePermits());
+        d.quit();
+        assertEquals(1, s.getAvailablePermits());
+    }
+}
@@ -23,7 +23,19 @@
  */
 package com.saucelabs.selenium.client.factory;
 
+import com.saucelabs.selenium.client.factory.impl.DefaultSeleniumSPIImpl;
+import com.saucelabs.selenium.client.logging.LoggingSeleniumSPIImpl;
 import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Kohsuke Kawaguchi
@@ -52,4 +64,288 @@ public class FactoryTest extends TestCase {
             // success
         }
     }
+
+    public void testRegistryIsCached() {
+        ClassLoader cl = getClass().getClassLoader();
+        SPIRegistry r = SPIRegistry.get(cl);
+        assertFalse(r.getAll().isEmpty());
+        assertSame(r, SPIRegistry.get(cl));
+
+        SPIRegistry.refresh(cl);
+        assertNotSame(r, SPIRegistry.get(cl));
+    }
+
+    public void testSchemeDispatch() {
+        SPIRegistry r = SPIRegistry.get(getClass().getClassLoader());
+        assertTrue(r.getSchemes().contains("http"));
+        assertTrue(r.find("log:http://localhost:4444/*firefox") instanceof LoggingSeleniumSPIImpl);
+        assertTrue(r.find("http://localhost:4444/*firefox") instanceof DefaultSeleniumSPIImpl);
+        assertNull(r.find("bogus:uri"));
+    }
+
+    public void testAsync() throws Exception {
+        Future<WebDriver> f = new SeleniumFactory().setUri("fake:delay=100").createWebDriverAsync(null, null);
+        WebDriver d = f.get();
+        assertTrue(d instanceof FakeWebDriver);
+        d.quit();
+    }
+
+    public void testAsyncCancellationDisposesDriver() throws Exception {
+        int n = FakeWebDriver.INSTANCES.size();
+        Future<WebDriver> f = new SeleniumFactory().setUri("fake:delay=300").createWebDriverAsync(null, null);
+        Thread.sleep(100);  // let the creation start
+        assertTrue(f.cancel(false));
+
+        // the creation completes in the background, and the driver should be quit right away
+        for (int i=0; i<50 && FakeWebDriver.INSTANCES.size()==n; i++)
+            Thread.sleep(100);
+        Thread.sleep(100);
+        assertEquals(n+1, FakeWebDriver.INSTANCES.size());
+        assertTrue(FakeWebDriver.INSTANCES.get(n).quit);
+    }
+
+    public void testPrewarm() throws Exception {
+        System.setProperty("SELENIUM_DRIVER", "fake:");
+        try {
+            Prewarmer p = Prewarmer.start("1");
+            String url = SeleniumFactory.readStartingUrl();
+            assertNull(p.take("htmlunit:", url));
+
+            WebDriver d = null;
+            for (int i=0; i<50 && d==null; i++) {
+                Thread.sleep(100);
+                d = p.take("fake:", url);
+            }
+            assertTrue(d instanceof FakeWebDriver);
+            assertNull("only one session was pre-warmed", p.take("fake:", url));
+        } finally {
+            System.clearProperty("SELENIUM_DRIVER");
+        }
+    }
+
+    public void testParallelCreation() {
+        List<CreationResult<WebDriver>> results = SeleniumFactory.createWebDrivers(
+                Arrays.asList("fake:delay=200", "fake:fail", "log:fake:"), null, new DesiredCapabilities());
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).getDriver() instanceof FakeWebDriver);
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("fake:fail", results.get(1).getDriverUri());
+        assertTrue(results.get(2).isSuccess());
+
+        try {
+            CreationResult.getAll(results);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // the drivers that did get created should have been cleaned up
+            assertTrue(((FakeWebDriver) results.get(0).getDriver()).quit);
+        }
+    }
+
+    public void testStreamingCreation() throws Exception {
+        CreationStream<WebDriver> stream = SeleniumFactory.streamWebDrivers(
+                Arrays.asList("fake:delay=500", "fake:", "fake:fail"), null, null);
+        List<Integer> order = new ArrayList<Integer>();
+        while (stream.hasNext())
+            order.add(stream.next().getIndex());
+        // the slow driver comes out last
+        assertEquals(3, order.size());
+        assertEquals(Integer.valueOf(0), order.get(2));
+
+        stream = SeleniumFactory.streamWebDrivers(Arrays.asList("fake:", "fake:delay=500"), null, null);
+        CreationResult<WebDriver> first = stream.next();
+        assertEquals(0, first.getIndex());
+        int before = FakeWebDriver.INSTANCES.size();
+        assertNull(stream.next(200, TimeUnit.MILLISECONDS));  // the slow one is now being created
+        stream.cancel();
+        assertFalse(stream.hasNext());
+        // the slow driver that nobody is waiting for anymore gets disposed once it's created
+        Thread.sleep(1000);
+        FakeWebDriver late = FakeWebDriver.INSTANCES.get(before);
+        assertTrue(late.quit);
+    }
+
+    public void testHedging() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy().setInitialDelay(100, TimeUnit.MILLISECONDS).setMinDelay(0, TimeUnit.MILLISECONDS);
+        SeleniumFactory f = new SeleniumFactory().setUri("fake:delay=500").setHedgingPolicy(policy);
+
+        int before = FakeWebDriver.INSTANCES.size();
+        WebDriver d = f.createWebDriverInstance(null, null);
+        Thread.sleep(500);
+        // the slow creation got a second request, and the one that came up later was quit
+        List<FakeWebDriver> created = FakeWebDriver.INSTANCES.subList(before, FakeWebDriver.INSTANCES.size());
+        assertEquals(2, created.size());
+        assertFalse(((FakeWebDriver) d).quit);
+        assertTrue(created.get(0) == d ? created.get(1).quit : created.get(0).quit);
+        assertEquals(0, policy.getExtraInFlight());
+
+        // no more hedging once the quota is used up
+        policy.setMaxExtraInFlight(0);
+        before = FakeWebDriver.INSTANCES.size();
+        f.createWebDriverInstance(null, null);
+        Thread.sleep(500);
+        assertEquals(before + 1, FakeWebDriver.INSTANCES.size());
+
+        try {
+            f.setUri("fake:fail").createWebDriverInstance(null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testSnapshot() {
+        SeleniumFactory f = new SeleniumFactory().setUri("fake:").setProperty("a", 1);
+        FactorySnapshot snapshot = f.snapshot();
+        SeleniumFactory c = f.clone();
+        f.setProperty("a", 2);
+        c.setProperty("a", 3);
+        assertEquals(1, snapshot.getProperty("a"));
+        assertEquals(2, f.getProperty("a"));
+        assertEquals(3, c.getProperty("a"));
+
+        FactorySnapshot derived = snapshot.withProperty("a", 4).withUri("log:fake:");
+        assertEquals(1, snapshot.getProperty("a"));
+        assertEquals("fake:", snapshot.getUri());
+        assertEquals(4, derived.getProperty("a"));
+        try {
+            snapshot.getProperties().put("a", 5);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        assertTrue(snapshot.createWebDriver(null) instanceof FakeWebDriver);
+        assertNotNull(derived.createWebDriver(null));
+    }
+
+    public void testSnapshotResolvesEndpointSettings() {
+        String old = System.getProperty("SELENIUM_HOST");
+        System.setProperty("SELENIUM_HOST", "hub.example.com");
+        try {
+            FactorySnapshot snapshot = new SeleniumFactory().setUri("fake:").snapshot();
+            FactorySnapshot explicit = new SeleniumFactory().setUri("fake:").setProperty("SELENIUM_HOST", "other.example.com").snapshot();
+            System.setProperty("SELENIUM_HOST", "changed.example.com");
+
+            assertEquals("hub.example.com", snapshot.getProperty("SELENIUM_HOST"));
+            assertEquals("hub.example.com", snapshot.toFactory().getProperty("SELENIUM_HOST"));
+            assertEquals("other.example.com", explicit.getProperty("SELENIUM_HOST"));
+            if (System.getenv("SELENIUM_PORT") == null)
+                assertEquals("", snapshot.getProperty("SELENIUM_PORT"));
+        } finally {
+            if (old == null)
+                System.clearProperty("SELENIUM_HOST");
+            else
+                System.setProperty("SELENIUM_HOST", old);
+        }
+    }
+
+    public void testLivePropertiesAreNotShared() {
+        SeleniumFactory f = new SeleniumFactory().setUri("fake:");
+        Map<String, Object> m = f.getProperties();
+        FactorySnapshot snapshot = f.snapshot();
+        SeleniumFactory c = f.clone();
+        m.put("a", 1);
+        assertNull(snapshot.getProperty("a"));
+        assertNull(c.getProperty("a"));
+        assertEquals(1, f.getProperty("a"));
+    }
+
+    public void testRetry() {
+        RetryPolicy policy = new RetryPolicy().setBackoff(10, 50, TimeUnit.MILLISECONDS)
+                .setCircuitBreaker(3, 1, TimeUnit.MINUTES);
+        SeleniumFactory f = new SeleniumFactory().setRetryPolicy(policy);
+
+        // transient failures are retried
+        assertTrue(f.setUri("fake:flaky=2").createWebDriverInstance(null, null) instanceof FakeWebDriver);
+
+        // configuration errors aren't
+        try {
+            f.setUri("no-such-driver:").createWebDriverInstance(null, null);
+            fail();
+        } catch (UnrecognizedDriverException e) {
+            assertEquals(CircuitBreaker.State.CLOSED, policy.getCircuitBreaker("no-such-driver:").getState());
+        }
+
+        // an endpoint that keeps failing gets cut off
+        try {
+            f.setUri("fake:fail").createWebDriverInstance(null, null);
+            fail();
+        } catch (EndpointFailureException e) {
+            assertEquals("fake:fail", e.getEndpoint());
+        }
+        try {
+            f.createWebDriverInstance(null, null);
+            fail();
+        } catch (EndpointFailureException e) {
+            assertEquals(CircuitBreaker.State.OPEN, policy.getCircuitBreaker("fake:fail").getState());
+        }
+
+        // retries eat into the budget
+        assertTrue(policy.getAvailableRetries() < 10);
+    }
+
+    public void testFailuresThatSayNothingAboutTheEndpoint() throws Exception {
+        RetryPolicy policy = new RetryPolicy().setBackoff(10, 50, TimeUnit.MILLISECONDS)
+                .setCircuitBreaker(1, 10, TimeUnit.MILLISECONDS);
+        int budget = policy.getAvailableRetries();
+
+        // a wait for admission that times out isn't retried, and doesn't count against the endpoint
+        AdmissionScheduler scheduler = new AdmissionScheduler(1).setTimeout(10, TimeUnit.MILLISECONDS);
+        AdmissionScheduler.Permit permit = scheduler.acquire(0);
+        try {
+            new SeleniumFactory().setUri("fake:admission").setRetryPolicy(policy).setAdmissionScheduler(scheduler)
+                    .createWebDriverInstance(null, null);
+            fail();
+        } catch (AdmissionException e) {
+            // expected
+        } finally {
+            permit.release();
+        }
+        assertEquals(0, policy.getCircuitBreaker("fake:admission").getConsecutiveFailures());
+
+        // nor is a malformed URI
+        try {
+            new SeleniumFactory().setUri("http://localhost:x/wd/hub").setRetryPolicy(policy).createWebDriverInstance(null, null);
+            fail();
+        } catch (DriverConfigurationException e) {
+            // expected
+        }
+        assertEquals(0, policy.getCircuitBreaker("http://localhost:x/wd/hub").getConsecutiveFailures());
+        assertEquals(budget, policy.getAvailableRetries());
+
+        // an Error doesn't leave the trial of a half-open breaker in flight
+        SeleniumFactory f = new SeleniumFactory().setUri("fake:flaky=1").setRetryPolicy(policy.setMaxAttempts(1));
+        try {
+            f.createWebDriverInstance(null, null);
+            fail();
+        } catch (EndpointFailureException e) {
+            assertEquals(CircuitBreaker.State.OPEN, policy.getCircuitBreaker("fake:flaky=1").getState());
+        }
+        Thread.sleep(20);
+        try {
+            policy.create("fake:flaky=1", new Callable<Object>() {
+                public Object call() {
+                    throw new LinkageError();
+                }
+            });
+            fail();
+        } catch (LinkageError e) {
+            // expected
+        }
+        assertTrue(f.createWebDriverInstance(null, null) instanceof FakeWebDriver);
+
+        // the endpoint behind a wrapper shares the breaker of the endpoint itself
+        try {
+            f.setUri("log:fake:fail").createWebDriverInstance(null, null);
+            fail();
+        } catch (EndpointFailureException e) {
+            assertEquals("fake:fail", e.getEndpoint());
+        }
+        try {
+            f.setUri("fake:fail").createWebDriverInstance(null, null);
+            fail();
+        } catch (EndpointFailureException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("keeps failing"));
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
+import com.thoughtworks.selenium.Selenium;
+import org.kohsuke.MetaInfServices;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SeleniumFactorySPI} that handles "fake:..." and creates {@link FakeWebDriver}s.
+ *
+ * <p>
+ * "fake:fail" fails to create the driver, and "fake:delay=N" takes N milliseconds to create one.
+ * "fake:flaky=N" fails the first N times.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+@MetaInfServices
+public class FakeSPIImpl extends SeleniumFactorySPI {
+    @Override
+    public Selenium createSelenium(SeleniumFactory factory, String browserURL) {
+        if (!canHandle(factory.getUri()))  return null;
+        simulate(factory.getUri());
+        return (Selenium) Proxy.newProxyInstance(Selenium.class.getClassLoader(), new Class[]{Selenium.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("toString"))
+                    return "FakeSelenium";
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities) {
+        if (!canHandle(factory.getUri()))  return null;
+        simulate(factory.getUri());
+        WebDriver driver = new FakeWebDriver();
+        if (browserURL != null)
+            driver.get(browserURL);
+        return driver;
+    }
+
+    private void simulate(String uri) {
+        String opt = uri.substring(5);
+        if (opt.equals("fail"))
+            throw new IllegalArgumentException("Failed to create a fake driver");
+        if (opt.startsWith("flaky=")) {
+            AtomicInteger n = FAILURES.putIfAbsent(uri, new AtomicInteger(Integer.parseInt(opt.substring(6))));
+            if (n == null)
+                n = FAILURES.get(uri);
+            if (n.getAndDecrement() > 0)
+                throw new IllegalArgumentException("Flaky fake driver failed");
+        }
+        if (opt.startsWith("delay=")) {
+            try {
+                Thread.sleep(Long.parseLong(opt.substring(6)));
+            } catch (InterruptedException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    private static final ConcurrentMap<String, AtomicInteger> FAILURES = new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Override
+    public boolean canHandle(String uri) {
+        return uri.startsWith("fake:");
+    }
+
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("fake");
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link WebDriver} that doesn't talk to any browser, for testing the factory.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class FakeWebDriver implements WebDriver {
+    /**
+     * All the drivers ever created, so that tests can check what happened to them.
+     */
+    public static final List<FakeWebDriver> INSTANCES = new CopyOnWriteArrayList<FakeWebDriver>();
+
+    public final Set<String> windows = new LinkedHashSet<String>(Collections.singleton("main"));
+    public String currentWindow = "main";
+    public String currentUrl;
+    public int cookiesDeleted;
+    public boolean quit;
+    public boolean dead;
+
+    public FakeWebDriver() {
+        INSTANCES.add(this);
+    }
+
+    public void get(String url) {
+        check();
+        currentUrl = url;
+    }
+
+    public String getCurrentUrl() {
+        check();
+        return currentUrl;
+    }
+
+    public String getTitle() {
+        check();
+        return "Fake";
+    }
+
+    public List<WebElement> findElements(By by) {
+        check();
+        return Collections.emptyList();
+    }
+
+    public WebElement findElement(By by) {
+        check();
+        throw new NoSuchElementException(by.toString());
+    }
+
+    public String getPageSource() {
+        check();
+        return "<html/>";
+    }
+
+    public void close() {
+        check();
+        windows.remove(currentWindow);
+    }
+
+    public void quit() {
+        quit = true;
+        SessionRegistry.ended(this);
+    }
+
+    public Set<String> getWindowHandles() {
+        check();
+        return new LinkedHashSet<String>(windows);
+    }
+
+    public String getWindowHandle() {
+        check();
+        return currentWindow;
+    }
+
+    public TargetLocator switchTo() {
+        check();
+        return fake(TargetLocator.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("window"))
+                    currentWindow = (String) args[0];
+                return FakeWebDriver.this;
+            }
+        });
+    }
+
+    public Navigation navigate() {
+        check();
+        return fake(Navigation.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return null;
+            }
+        });
+    }
+
+    public Options manage() {
+        check();
+        return fake(Options.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("deleteAllCookies"))
+                    cookiesDeleted++;
+                return null;
+            }
+        });
+    }
+
+    private void check() {
+        if (quit || dead)
+            throw new WebDriverException("Session is gone");
+    }
+
+    private static <T> T fake(Class<T> type, InvocationHandler h) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, h));
+    }
+}
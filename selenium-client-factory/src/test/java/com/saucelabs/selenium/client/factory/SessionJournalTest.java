@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class SessionJournalTest extends TestCase {
+    private File dir;
+    private HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<String>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("journal", "dir");
+        dir.delete();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange e) throws IOException {
+                requests.add(e.getRequestMethod() + " " + e.getRequestURI()
+                        + (e.getRequestHeaders().containsKey("Authorization") ? " " + e.getRequestHeaders().getFirst("Authorization") : ""));
+                e.sendResponseHeaders(200, -1);
+                e.close();
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        dir.delete();
+        super.tearDown();
+    }
+
+    public void testOrphanedSessionsAreEnded() throws Exception {
+        String base = "http://localhost:" + server.getAddress().getPort();
+
+        SessionJournal dead = new SessionJournal(dir);
+        dead.opened(SessionJournal.WEBDRIVER, "wd1", base.replace("//", "//user:key@") + "/wd/hub");
+        dead.opened(SessionJournal.WEBDRIVER, "wd2", base + "/wd/hub");
+        dead.opened(SessionJournal.SELENIUM_RC, "rc1", base);
+        dead.closed("wd2");
+
+        SessionJournal alive = new SessionJournal(dir);
+        alive.opened(SessionJournal.WEBDRIVER, "wd3", base + "/wd/hub");
+
+        // the journals of this JVM aren't even opened, as closing them would drop their locks
+        assertTrue(SessionJournal.isOwned(dead.getFile()));
+        assertTrue(SessionJournal.isOwned(alive.getFile()));
+        SessionJournal next = new SessionJournal(dir, 0);
+        assertEquals(0, next.reclaimOrphans());
+        assertTrue(requests.isEmpty());
+
+        dead.abandon();
+        assertFalse(SessionJournal.isOwned(dead.getFile()));
+        assertTrue(SessionJournal.isOwned(alive.getFile()));
+        // too young to tell apart from a journal that's about to be locked
+        assertEquals(0, new SessionJournal(dir).reclaimOrphans());
+        assertTrue(requests.isEmpty());
+
+        assertEquals(2, next.reclaimOrphans());
+        assertEquals("DELETE /wd/hub/session/wd1 Basic dXNlcjprZXk=", requests.get(0));
+        assertEquals("GET /selenium-server/driver/?cmd=testComplete&sessionId=rc1", requests.get(1));
+        assertEquals(1, dir.listFiles().length);
+        assertEquals(Collections.singleton("wd3"), alive.getOpenSessions());
+    }
+
+    /**
+     * The journal starts over once nothing is open, and grows when it's full.
+     */
+    public void testReuseAndGrowth() throws Exception {
+        String base = "http://localhost:" + server.getAddress().getPort();
+
+        SessionJournal j = new SessionJournal(dir);
+        for (int i = 0; i < 10; i++) {
+            j.opened(SessionJournal.WEBDRIVER, "s" + i, base);
+            j.closed("s" + i);
+        }
+        for (int i = 0; i < 5000; i++)
+            j.opened(SessionJournal.WEBDRIVER, "long-session-id-" + i, base);
+        for (int i = 0; i < 4999; i++)
+            j.closed("long-session-id-" + i);
+
+        j.abandon();
+        assertEquals(1, new SessionJournal(dir, 0).reclaimOrphans());
+        assertEquals("DELETE /session/long-session-id-4999", requests.get(0));
+    }
+}
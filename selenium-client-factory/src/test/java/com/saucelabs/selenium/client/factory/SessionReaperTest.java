@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import com.saucelabs.selenium.client.logging.LoggingSelenium;
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class SessionReaperTest extends TestCase {
+    @Override
+    protected void tearDown() throws Exception {
+        SessionReaper.setIdleTimeout(0);
+        super.tearDown();
+    }
+
+    public void testIdleSessionsAreQuit() throws Exception {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:reaper", null);
+        FakeWebDriver base = (FakeWebDriver) ((LoggingSelenium) d).getWebDriver();
+
+        SessionReaper.setIdleTimeout(1000);
+        Thread.sleep(600);
+        d.getCurrentUrl();  // keeps the session in use
+        Thread.sleep(600);
+        SessionReaper.reap();
+        assertFalse(base.quit);
+        assertNotNull(SessionRegistry.find(d));
+
+        Thread.sleep(600);
+        SessionReaper.reap();   // unless the background reaper already did
+        assertTrue(base.quit);
+        assertNull(SessionRegistry.find(d));
+    }
+
+    public void testFind() throws Exception {
+        WebDriver[] drivers = new WebDriver[20];
+        for (int i = 0; i < drivers.length; i++)
+            drivers[i] = SeleniumFactory.createWebDriver("log:fake:find" + i, null);
+        for (WebDriver d : drivers)
+            assertSame(d, SessionRegistry.find(d).getDriver());
+        // the wrapped driver isn't tracked by itself
+        assertNull(SessionRegistry.find(((LoggingSelenium) drivers[0]).getWebDriver()));
+
+        drivers[3].quit();
+        assertNull(SessionRegistry.find(drivers[3]));
+        assertNotNull(SessionRegistry.find(drivers[4]));
+        for (WebDriver d : drivers)
+            d.quit();
+    }
+
+        public void testLeakedSessionsAreReclaimed() throws Exception {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:reaper", null);
+        FakeWebDriver base = (FakeWebDriver) ((LoggingSelenium) d).getWebDriver();
+        d = null;
+
+        for (int i = 0; i < 50 && !base.quit; i++) {
+            System.gc();
+            Thread.sleep(100);
+            SessionReaper.reap();
+        }
+        assertTrue(base.quit);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class SessionSlotsTest extends TestCase {
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("slots", "");
+        dir.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files)
+                f.delete();
+        }
+        dir.delete();
+        super.tearDown();
+    }
+
+    public void testSlotsAreSharedWithOtherJVMs() throws Exception {
+        // another JVM takes the only slot
+        Process p = new ProcessBuilder(System.getProperty("java.home") + "/bin/java",
+                "-cp", System.getProperty("java.class.path"), Holder.class.getName(), dir.getPath())
+                .redirectErrorStream(true).start();
+        try {
+            BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()));
+            assertEquals("locked", r.readLine());
+
+            AdmissionScheduler s = new AdmissionScheduler(1).setSharedDirectory(dir);
+            try {
+                s.acquire(0, 300, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            assertEquals(1, s.getAvailablePermits());
+
+            // the slot becomes available once the other JVM is gone
+            p.getOutputStream().close();
+            p.waitFor();
+            AdmissionScheduler.Permit permit = s.acquire(0, 10, TimeUnit.SECONDS);
+            assertEquals(1, SessionSlots.forDirectory(dir).getHeldCount());
+            permit.release();
+            assertEquals(0, SessionSlots.forDirectory(dir).getHeldCount());
+        } finally {
+            p.destroy();
+        }
+    }
+
+    /**
+     * Takes a slot, and holds it until stdin is closed.
+     */
+    public static class Holder {
+        public static void main(String[] args) throws Exception {
+            new AdmissionScheduler(1).setSharedDirectory(new File(args[0])).acquire(0);
+            System.out.println("locked");
+            System.out.flush();
+            while (System.in.read() >= 0)
+                ;
+        }
+    }
+}
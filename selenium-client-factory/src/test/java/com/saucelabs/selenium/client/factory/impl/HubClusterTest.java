@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.impl;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class HubClusterTest extends TestCase {
+    public void testStrategies() {
+        HubCluster c = HubCluster.get(Arrays.asList("a:1", "b", "c:3"));
+        assertSame(c, HubCluster.get(Arrays.asList("a:1", "b:80", "c:3")));
+        assertEquals(80, c.getEndpoints().get(1).getPort());
+
+        Set<HubEndpoint> picked = new HashSet<HubEndpoint>();
+        for (int i = 0; i < 3; i++)
+            picked.add(c.select(HubStrategy.ROUND_ROBIN, Collections.<HubEndpoint>emptySet()));
+        assertEquals(3, picked.size());
+
+        HubEndpoint a = c.getEndpoints().get(0), b = c.getEndpoints().get(1), z = c.getEndpoints().get(2);
+        a.sessionStarted();
+        z.sessionStarted();
+        assertSame(b, c.select(HubStrategy.LEAST_OUTSTANDING, Collections.<HubEndpoint>emptySet()));
+
+        // a failed hub drops out of rotation
+        b.recordFailure();
+        assertFalse(b.isAvailable());
+        for (int i = 0; i < 10; i++)
+            assertNotSame(b, c.select(HubStrategy.LATENCY_WEIGHTED, Collections.<HubEndpoint>emptySet()));
+        b.recordSuccess(100);
+        assertTrue(b.isAvailable());
+    }
+
+    public void testHubFormats() throws Exception {
+        HubCluster c = HubCluster.get(Arrays.asList("user:key@a:1", "user:key@b", "[::1]", "[::1]:2"));
+        assertEquals("a:1,b:80,[::1]:80,[::1]:2", c.toString());
+        assertEquals("http://user:key@a:1/wd/hub", c.getEndpoints().get(0).toURL("/wd/hub").toString());
+        assertEquals("http://user:key@b:80/wd/hub", c.getEndpoints().get(1).toURL("/wd/hub").toString());
+        assertEquals("b", c.getEndpoints().get(1).toURL("/wd/hub").getHost());
+        assertNull(c.getEndpoints().get(2).getUserInfo());
+        assertEquals(2, c.getEndpoints().get(3).getPort());
+
+        // different credentials for the same hubs make a different cluster
+        assertNotSame(c, HubCluster.get(Arrays.asList("other:key@a:1", "user:key@b", "[::1]", "[::1]:2")));
+    }
+
+    /**
+     * Credentials in the URI reach the hub, whether it's the only one or one of many.
+     */
+    public void testCredentials() throws Exception {
+        final String[] authorization = new String[1];
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange e) throws IOException {
+                String a = e.getRequestHeaders().getFirst("Authorization");
+                if (a == null) {
+                    e.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"hub\"");
+                    e.sendResponseHeaders(401, -1);
+                } else {
+                    authorization[0] = a;
+                    e.sendResponseHeaders(500, -1);
+                }
+                e.close();
+            }
+        });
+        server.start();
+        try {
+            String hub = "user:key@127.0.0.1:" + server.getAddress().getPort();
+            String[] uris = {"http://" + hub + "/wd/hub", "http://" + hub + "," + hub + "/wd/hub"};
+            for (String uri : uris) {
+                authorization[0] = null;
+                try {
+                    new SeleniumFactory().setUri(uri).createWebDriverInstance(null, null);
+                    fail();
+                } catch (WebDriverException e) {
+                    // the hub refuses to start a session
+                }
+                assertEquals(uri, "Basic dXNlcjprZXk=", authorization[0]);
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        // a single hub is connected to as is, but it's still watched
+        HubEndpoint h = HubCluster.get(Collections.singletonList("user:key@127.0.0.1:" + server.getAddress().getPort())).getEndpoints().get(0);
+        assertTrue(HubHealthMonitor.getDefault().getWatched().contains(h));
+        assertEquals(0, h.getOutstanding());
+    }
+
+    public void testUnreachableHubsAreSkipped() {
+        SeleniumFactory f = new SeleniumFactory().setUri("http://127.0.0.1:1,127.0.0.1:2/*firefox");
+        try {
+            f.createWebDriverInstance(null, null);
+            fail();
+        } catch (WebDriverException e) {
+            // both hubs should have been tried
+        }
+        for (HubEndpoint h : HubCluster.get(Arrays.asList("127.0.0.1:1", "127.0.0.1:2")).getEndpoints()) {
+            // unless the health monitor got to them first
+            assertTrue(h.getConsecutiveFailures() == 1 || !h.isAlive());
+            assertEquals(0, h.getOutstanding());
+        }
+    }
+
+    public void testHealthProbe() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange e) throws IOException {
+                e.sendResponseHeaders(200, -1);
+                e.close();
+            }
+        });
+        server.start();
+
+        HubEndpoint h = new HubEndpoint(null, "127.0.0.1", server.getAddress().getPort());
+        HubHealthMonitor monitor = new HubHealthMonitor("/wd/hub/status", 1000, 2);
+        assertTrue(monitor.probe(h));
+        assertTrue(h.isAvailable());
+
+        server.stop(0);
+        // one unanswered probe isn't enough to give up on a hub
+        assertFalse(monitor.probe(h));
+        assertTrue(h.isAvailable());
+        assertFalse(monitor.probe(h));
+        assertFalse(h.isAvailable());
+
+        // a session that starts brings it back
+        h.recordSuccess(100);
+        assertTrue(h.isAvailable());
+    }
+
+    public void testDeadHubs() {
+        HubCluster c = HubCluster.get(Arrays.asList("127.0.0.1:3", "127.0.0.1:4"));
+        HubEndpoint a = c.getEndpoints().get(0), b = c.getEndpoints().get(1);
+        assertTrue(HubHealthMonitor.getDefault().getWatched().contains(a));
+
+        // dead hubs are avoided
+        a.recordProbe(false, 1);
+        for (int i = 0; i < 10; i++)
+            assertSame(b, c.select(HubStrategy.ROUND_ROBIN, Collections.<HubEndpoint>emptySet()));
+
+        // when all of them are dead, sessions fail right away
+        b.recordProbe(false, 1);
+        assertNull(c.select(HubStrategy.ROUND_ROBIN, Collections.<HubEndpoint>emptySet()));
+        try {
+            new SeleniumFactory().setUri("http://127.0.0.1:3,127.0.0.1:4/*firefox").createWebDriverInstance(null, null);
+            fail();
+        } catch (UnreachableBrowserException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("are down"));
+        }
+
+        // except for one trial per interval
+        assertTrue(a.claimTrial(0));
+        assertFalse(a.claimTrial(60000));
+        assertFalse(b.claimTrial(60000));
+    }
+
+    /**
+     * A single hub that accepts connections but never answers doesn't hold up sessions once it's found dead.
+     */
+    public void testDeadSingleHub() throws Exception {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        try {
+            String hub = "127.0.0.1:" + server.getLocalPort();
+            HubEndpoint h = HubCluster.get(Collections.singletonList(hub)).getEndpoints().get(0);
+            assertTrue(HubHealthMonitor.getDefault().getWatched().contains(h));
+            assertFalse(new HubHealthMonitor("/wd/hub/status", 200, 1).probe(h));
+            assertFalse(h.isAlive());
+
+            long start = System.currentTimeMillis();
+            try {
+                new SeleniumFactory().setUri("http://" + hub + "/wd/hub").createWebDriverInstance(null, null);
+                fail();
+            } catch (UnreachableBrowserException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("are down"));
+            }
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertEquals(0, h.getOutstanding());
+        } finally {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.jmx;
+
+import com.saucelabs.selenium.client.factory.FakeWebDriver;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.TrackedSession;
+import com.saucelabs.selenium.client.logging.LoggingSelenium;
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class ManagementTest extends TestCase {
+    public void testSessionsAreTracked() {
+        WebDriver d = SeleniumFactory.createWebDriver("fake:jmx", null);
+        TrackedSession s = SessionRegistry.find(d);
+        assertNotNull(s);
+        assertEquals("fake:jmx", s.getEndpoint());
+        assertTrue(s.getOwner().startsWith(Thread.currentThread().getName()));
+        assertSame(s, SessionRegistry.get(s.getId()));
+
+        d.quit();
+        assertNull(SessionRegistry.find(d));
+        assertFalse(s.isAlive());
+        assertFalse(SessionRegistry.getSessions().contains(s));
+    }
+
+    /**
+     * Only the outer driver that the application holds is tracked.
+     */
+    public void testWrappers() {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:jmx", null);
+        assertNotNull(SessionRegistry.find(d));
+        WebDriver base = ((LoggingSelenium) d).getWebDriver();
+        assertNull(SessionRegistry.find(base));
+        d.quit();
+        assertNull(SessionRegistry.find(d));
+
+        d = SeleniumFactory.createWebDriver("pool:fake:jmx", null);
+        assertNotNull(SessionRegistry.find(d));
+        d.quit();
+        assertNull(SessionRegistry.find(d));
+    }
+
+    public void testMBeans() throws Exception {
+        WebDriver d = SeleniumFactory.createWebDriver("fake:jmx2", null);
+        FakeWebDriver fake = (FakeWebDriver) d;
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName sessions = new ObjectName("com.saucelabs.selenium:type=Sessions");
+        assertTrue((Integer) server.getAttribute(sessions, "LiveSessionCount") >= 1);
+        assertTrue(Arrays.asList((String[]) server.getAttribute(sessions, "LiveSessionCountsByEndpoint")).contains("fake:jmx2=1"));
+
+        ObjectName endpoint = new ObjectName("com.saucelabs.selenium:type=DriverEndpoint,name=" + ObjectName.quote("fake:jmx2"));
+        assertEquals(1L, server.getAttribute(endpoint, "CreatedCount"));
+        assertEquals(1, server.getAttribute(endpoint, "LiveSessionCount"));
+
+        ObjectName registry = new ObjectName("com.saucelabs.selenium:type=DriverRegistry");
+        assertTrue(Arrays.asList((String[]) server.getAttribute(registry, "Schemes")).contains("fake"));
+
+        long id = SessionRegistry.find(d).getId();
+        assertEquals(Boolean.TRUE, server.invoke(sessions, "quitSession", new Object[]{id}, new String[]{"long"}));
+        assertTrue(fake.quit);
+        assertEquals(0, server.getAttribute(endpoint, "LiveSessionCount"));
+        assertEquals(Boolean.FALSE, server.invoke(sessions, "quitSession", new Object[]{id}, new String[]{"long"}));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.factory.metrics;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class MetricsTest extends TestCase {
+    public void testHistogram() {
+        Histogram h = new Histogram();
+        assertEquals(0.0, h.getPercentile(0.5));
+        for (int i = 1; i <= 100; i++)
+            h.record(TimeUnit.MILLISECONDS.toNanos(i));
+        assertEquals(100, h.getCount());
+        assertEquals(100.0, h.getMax());
+        assertEquals(50.5, h.getMean(), 0.01);
+        // within the bucket precision
+        assertEquals(50, h.getPercentile(0.5), 50 * 0.07);
+        assertEquals(99, h.getPercentile(0.99), 99 * 0.07);
+        assertEquals(100.0, h.getPercentile(1));
+    }
+
+    public void testCreationIsRecorded() {
+        DriverMetrics m = MetricsRegistry.forUri("fake:metrics?foo=bar");
+        assertSame(m, MetricsRegistry.forUri("fake:metrics"));
+        assertEquals("fake", m.getScheme());
+
+        new SeleniumFactory().setUri("fake:metrics").createWebDriverInstance(null, null);
+        try {
+            new SeleniumFactory().setUri("fake:fail").createWebDriverInstance(null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, m.getSuccessCount());
+        assertEquals(1, m.getCreationLatency().getCount());
+        assertEquals(0, m.getInFlight());
+        assertTrue(MetricsRegistry.forUri("fake:fail").getFailureCount() > 0);
+
+        new SeleniumFactory().setUri("pool:fake:metrics").createWebDriverInstance(null, null).quit();
+        assertEquals(1, MetricsRegistry.forUri("pool:fake:metrics").getQuitLatency().getCount());
+
+        assertTrue(TextMetricsExporter.format(MetricsRegistry.getAll()).contains("pool:fake:metrics"));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.journal.JournalEntry.Opaque;
+import com.saucelabs.selenium.client.journal.JournalEntry.Outcome;
+import com.saucelabs.selenium.client.journal.JournalEntry.Ref;
+import junit.framework.TestCase;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class JournalTest extends TestCase {
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("journal", "dir");
+        dir.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        dir.delete();
+        super.tearDown();
+    }
+
+    public void testCommandsAreRecorded() throws Exception {
+        CommandJournal journal = new CommandJournal(dir, 64 * 1024, 0);
+        WebDriver d = create(journal);
+        d.get("http://example.com/");
+        assertEquals("Fake", d.getTitle());
+        try {
+            d.findElement(By.id("x"));
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        d.navigate().to("http://example.com/2");
+        assertSame(d, d.switchTo().window("main"));
+        d.quit();
+
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(8, entries.size());
+
+        JournalEntry e = entries.get(0);
+        assertEquals("org.openqa.selenium.WebDriver", e.getDeclaringClass());
+        assertEquals("get", e.getMethod());
+        assertEquals(Arrays.asList("java.lang.String"), Arrays.asList(e.getParameterTypes()));
+        assertEquals(Arrays.<Object>asList("http://example.com/"), e.getArgs());
+        assertEquals("fake:", e.getDriverUri());
+        assertEquals(Outcome.VOID, e.getOutcome());
+        assertEquals(0, e.getTarget());
+        assertTrue(e.getDuration() > 0);
+        assertTrue(Math.abs(e.getTimestamp() - System.currentTimeMillis()) < 60000);
+
+        e = entries.get(1);
+        assertEquals(Outcome.VALUE, e.getOutcome());
+        assertEquals("Fake", e.getResult());
+
+        e = entries.get(2);
+        assertEquals(Outcome.EXCEPTION, e.getOutcome());
+        assertEquals(NoSuchElementException.class.getName(), e.getExceptionClass());
+        Opaque by = (Opaque) e.getArgs().get(0);
+        assertEquals("By.id: x", by.getText());
+
+        // commands sent to the returned objects refer to them by their numbers
+        assertEquals(new Ref(1), entries.get(3).getResult());
+        assertEquals(1, entries.get(4).getTarget());
+        assertEquals("to", entries.get(4).getMethod());
+        assertEquals(new Ref(2), entries.get(5).getResult());
+        assertEquals(2, entries.get(6).getTarget());
+        assertEquals(new Ref(0), entries.get(6).getResult());
+        assertEquals("quit", entries.get(7).getMethod());
+
+        String json = JournalReader.toJson(entries.get(2));
+        assertTrue(json, json.contains("\"method\":\"findElement\",\"args\":[{\"type\":\"org.openqa.selenium.By$ById\",\"text\":\"By.id: x\"}]"));
+    }
+
+    public void testSegmentsRoll() throws Exception {
+        CommandJournal journal = new CommandJournal(dir, 1024, 3);
+        WebDriver d = create(journal);
+        for (int i = 0; i < 100; i++)
+            d.get("http://example.com/" + i);
+        char[] big = new char[4000];
+        Arrays.fill(big, 'x');
+        d.get(new String(big));
+
+        File[] segments = journal.getSegments();
+        assertEquals(3, segments.length);
+        assertEquals(3, dir.listFiles().length);
+
+        // the big record got a segment of its own, and every segment can be read by itself
+        List<JournalEntry> last = new JournalReader(segments[2]).readAll();
+        assertEquals(1, last.size());
+        assertEquals(new String(big), last.get(0).getArgs().get(0));
+        List<JournalEntry> middle = new JournalReader(segments[1]).readAll();
+        assertEquals("http://example.com/99", middle.get(middle.size() - 1).getArgs().get(0));
+
+        List<JournalEntry> all = new JournalReader(dir).readAll();
+        assertEquals(all.size(), new JournalReader(segments).readAll().size());
+        d.quit();
+    }
+
+    public void testSeriesAreKeptApart() throws Exception {
+        // two runs that wrote into the same directory, and numbered their sessions alike
+        CommandJournal first = new CommandJournal(dir, 64 * 1024, 0, "20100101-000000-1@a");
+        CommandJournal second = new CommandJournal(dir, 64 * 1024, 0, "20100102-000000-2@b");
+        create(first).get("http://example.com/1");
+        create(second).get("http://example.com/2");
+
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(2, entries.size());
+        JournalEntry a = entries.get(0), b = entries.get(1);
+        assertEquals("20100101-000000-1@a", a.getSeries());
+        assertEquals("20100102-000000-2@b", b.getSeries());
+        assertEquals(a.getSession(), b.getSession());
+        assertFalse(a.getSessionKey().equals(b.getSessionKey()));
+        assertEquals("http://example.com/2", b.getArgs().get(0));
+        assertTrue(JournalReader.toJson(a).contains("\"series\":\"20100101-000000-1@a\""));
+    }
+
+    public void testRetentionSpansTheDirectory() throws Exception {
+        WebDriver d = create(new CommandJournal(dir, 1024, 3, "20100101-000000-1@a"));
+        for (int i = 0; i < 100; i++)
+            d.get("http://example.com/" + i);
+        assertEquals(3, dir.listFiles().length);
+        File[] previous = dir.listFiles();
+        Arrays.sort(previous);
+        File live = previous[2];
+
+        // left behind by a run that crashed
+        File abandoned = new File(dir, "20090101-000000-0@c-00001.journal");
+        assertTrue(abandoned.createNewFile());
+
+        // the next run deletes the segments of the others to stay within the limit, but not the one being written
+        CommandJournal journal = new CommandJournal(dir, 1024, 3, "20100102-000000-2@b");
+        d = create(journal);
+        for (int i = 0; i < 60; i++)
+            d.get("http://example.com/" + i);
+        List<File> segments = Arrays.asList(journal.getSegments());
+        assertEquals(3, segments.size());
+        assertFalse(abandoned.exists());
+        assertFalse(previous[0].exists());
+        assertFalse(previous[1].exists());
+        assertTrue(live.exists());
+        assertEquals(4, dir.listFiles().length);
+        for (File f : dir.listFiles())
+            assertTrue(f.getName(), f.equals(live) || segments.contains(f));
+    }
+
+    public void testConcurrentRecording() throws Exception {
+        final CommandJournal journal = new CommandJournal(dir, 4096, 0);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    WebDriver d = create(journal);
+                    for (int j = 0; j < 200; j++)
+                        d.get("http://example.com/" + j);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads)
+            t.join();
+
+        // every session got all its commands, in order
+        Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+        for (JournalEntry e : new JournalReader(dir).readAll()) {
+            Integer n = counts.get(e.getSession());
+            n = n == null ? 0 : n;
+            assertEquals("http://example.com/" + n, e.getArgs().get(0));
+            counts.put(e.getSession(), n + 1);
+        }
+        assertEquals(4, counts.size());
+        for (int n : counts.values())
+            assertEquals(200, n);
+    }
+
+    private static WebDriver create(CommandJournal journal) {
+        return new SeleniumFactory().setUri("journal:fake:").setProperty("journal", journal)
+                .createWebDriverInstance(null, null);
+    }
+}
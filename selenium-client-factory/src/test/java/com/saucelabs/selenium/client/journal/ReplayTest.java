@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.journal;
+
+import com.saucelabs.selenium.client.factory.FakeWebDriver;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.journal.ReplayedCommand.Status;
+import junit.framework.TestCase;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class ReplayTest extends TestCase {
+    private File dir;
+    private CommandJournal journal;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("journal", "dir");
+        dir.delete();
+        journal = new CommandJournal(dir, 64 * 1024, 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        dir.delete();
+        super.tearDown();
+    }
+
+    public void testReplay() throws Exception {
+        WebDriver d = record();
+        d.get("http://example.com/");
+        assertEquals("Fake", d.getTitle());
+        try {
+            d.findElement(By.id("x"));
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        d.navigate().to("http://example.com/2");
+        d.switchTo().window("main").get("http://example.com/3");
+        d.quit();
+
+        ReplayReport report = replay(0);
+        List<ReplayedCommand> commands = report.getCommands();
+        assertEquals(9, commands.size());
+        for (ReplayedCommand c : commands)
+            assertEquals(c.toString(), Status.REPLAYED, c.getStatus());
+        assertEquals(0, report.getSkippedCount());
+        assertEquals(0, report.getDivergedCount());
+        assertTrue(report.getReplayedTime() > 0);
+        assertEquals(2, report.getLatencies().get("WebDriver.get")[1].getCount());
+
+        FakeWebDriver replayed = FakeWebDriver.INSTANCES.get(FakeWebDriver.INSTANCES.size() - 1);
+        assertEquals("http://example.com/3", replayed.currentUrl);
+        assertTrue(replayed.quit);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out));
+        assertTrue(out.toString(), out.toString().contains("WebDriver.get"));
+    }
+
+    public void testDivergedAndSkippedCommands() throws Exception {
+        WebDriver d = record();
+        d.manage().addCookie(new Cookie("a", "b"));
+        FakeWebDriver.INSTANCES.get(FakeWebDriver.INSTANCES.size() - 1).dead = true;
+        try {
+            d.get("http://example.com/");
+            fail();
+        } catch (WebDriverException e) {
+            // expected
+        }
+
+        ReplayReport report = replay(0);
+        List<ReplayedCommand> commands = report.getCommands();
+        assertEquals(Status.REPLAYED, commands.get(0).getStatus());    // manage()
+        assertEquals(Status.SKIPPED, commands.get(1).getStatus());     // the cookie can't be reconstructed
+        assertEquals(Status.DIVERGED, commands.get(2).getStatus());    // the replay is alive
+        assertEquals(1, report.getSkippedCount());
+        assertEquals(1, report.getDivergedCount());
+
+        // left open in the recording, but quit after the replay
+        assertTrue(FakeWebDriver.INSTANCES.get(FakeWebDriver.INSTANCES.size() - 1).quit);
+    }
+
+    public void testRecordedPace() throws Exception {
+        WebDriver d = record();
+        d.get("http://example.com/");
+        Thread.sleep(500);
+        d.get("http://example.com/2");
+        d.quit();
+
+        long start = System.currentTimeMillis();
+        replay(0);
+        assertTrue(System.currentTimeMillis() - start < 400);
+
+        start = System.currentTimeMillis();
+        replay(1);
+        assertTrue(System.currentTimeMillis() - start >= 400);
+    }
+
+    public void testSessionsOfDifferentRuns() throws Exception {
+        // both runs number their only session 1
+        journal = new CommandJournal(dir, 64 * 1024, 0, "20100101-000000-1@a");
+        record().get("http://example.com/1");
+        journal = new CommandJournal(dir, 64 * 1024, 0, "20100102-000000-2@b");
+        record().get("http://example.com/2");
+
+        int before = FakeWebDriver.INSTANCES.size();
+        replay(0);
+        List<FakeWebDriver> replayed = FakeWebDriver.INSTANCES.subList(before, FakeWebDriver.INSTANCES.size());
+        assertEquals(2, replayed.size());
+        assertEquals("http://example.com/1", replayed.get(0).currentUrl);
+        assertEquals("http://example.com/2", replayed.get(1).currentUrl);
+    }
+
+    private WebDriver record() {
+        return new SeleniumFactory().setUri("journal:fake:").setProperty("journal", journal)
+                .createWebDriverInstance(null, null);
+    }
+
+    private ReplayReport replay(double speed) throws Exception {
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        return new JournalReplayer(new SeleniumFactory().setUri("fake:")).setSpeed(speed).replay(entries);
+    }
+}
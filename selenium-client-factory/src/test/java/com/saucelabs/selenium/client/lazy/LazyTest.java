@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.lazy;
+
+import com.saucelabs.selenium.client.factory.FakeWebDriver;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import junit.framework.TestCase;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class LazyTest extends TestCase {
+    public void testUnusedDriverCreatesNoSession() {
+        int before = FakeWebDriver.INSTANCES.size();
+        WebDriver d = SeleniumFactory.createWebDriver("lazy:fake:", "http://example.com/");
+        assertFalse(((LazyWebDriver) d).isStarted());
+        d.quit();
+        assertEquals(before, FakeWebDriver.INSTANCES.size());
+    }
+
+    public void testSessionStartsOnFirstCommand() {
+        WebDriver d = SeleniumFactory.createWebDriver("lazy:fake:", "http://example.com/");
+        assertEquals("http://example.com/", d.getCurrentUrl());
+        FakeWebDriver base = (FakeWebDriver) ((LazyWebDriver) d).getBaseDriver();
+        assertNotNull(base);
+
+        try {
+            ((JavascriptExecutor) d).executeScript("1");
+            fail("the real driver doesn't support JavaScript");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        d.quit();
+        assertTrue(base.quit);
+        try {
+            d.getTitle();
+            fail("quit driver should be unusable");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testEagerSessionIsDisposedWhenUnused() throws Exception {
+        int before = FakeWebDriver.INSTANCES.size();
+        WebDriver d = new SeleniumFactory().setUri("lazy:fake:delay=300").setProperty("lazy.eager", true)
+                .createWebDriverInstance(null, null);
+        assertTrue(((LazyWebDriver) d).isStarted());
+        Thread.sleep(100);
+        d.quit();
+
+        Thread.sleep(600);
+        assertEquals(before + 1, FakeWebDriver.INSTANCES.size());
+        assertTrue(FakeWebDriver.INSTANCES.get(before).quit);
+    }
+}
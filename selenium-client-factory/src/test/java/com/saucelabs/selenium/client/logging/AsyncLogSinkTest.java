@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class AsyncLogSinkTest extends TestCase {
+    private final List<LogRecord> records = new CopyOnWriteArrayList<LogRecord>();
+    private final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private Logger logger;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            public void publish(LogRecord record) {
+                entered.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                records.add(record);
+                threads.add(Thread.currentThread());
+            }
+            public void flush() {}
+            public void close() {}
+        });
+    }
+
+    public void testCommandsAreLoggedInTheBackground() throws Exception {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:", null);
+        LoggingSelenium l = (LoggingSelenium) d;
+        l.setLogger(logger);
+        l.setId("wd");
+        l.setAsyncSink(new AsyncLogSink(16, AsyncLogSink.Overflow.BLOCK, 10));
+
+        for (int i = 0; i < 100; i++)
+            d.get("http://example.com/" + i);
+        assertTrue(l.getAsyncSink().flush(10, TimeUnit.SECONDS));
+
+        assertEquals(100, records.size());
+        for (int i = 0; i < 100; i++)
+            assertEquals("wd: get(\"http://example.com/" + i + "\")", records.get(i).getMessage());
+        assertNotSame(Thread.currentThread(), threads.get(0));
+        assertEquals("get", records.get(0).getSourceMethodName());
+        assertEquals(0, l.getAsyncSink().getDroppedCount());
+        d.quit();
+        l.getAsyncSink().close();
+    }
+
+    public void testLongResultsAreCutShort() throws Exception {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:", null);
+        LoggingSelenium l = (LoggingSelenium) d;
+        l.setLogger(logger);
+        l.setId("wd");
+        AsyncLogSink sink = new AsyncLogSink(16, AsyncLogSink.Overflow.BLOCK, 10, 3);
+        l.setAsyncSink(sink);
+
+        d.getPageSource();
+        d.getTitle();
+        sink.close();
+        assertEquals("wd: getPageSource() -> \"<ht\"... (7 characters)", records.get(0).getMessage());
+        assertEquals("wd: getTitle() -> \"Fak\"... (4 characters)", records.get(1).getMessage());
+        d.quit();
+    }
+
+    public void testClose() throws Exception {
+        gate = new CountDownLatch(1);
+        AsyncLogSink sink = new AsyncLogSink(16, AsyncLogSink.Overflow.BLOCK, 10);
+        for (int i = 0; i < 5; i++)
+            sink.publish(logger, record());
+        entered.await();
+        gate.countDown();
+        sink.close();
+        assertTrue(sink.isClosed());
+        // the records in the buffer are written out before the thread goes away
+        assertEquals(5, records.size());
+        assertEquals(0, sink.getQueueSize());
+
+        // and the ones that come afterward are logged right away
+        assertTrue(sink.publish(logger, record()));
+        assertEquals(6, records.size());
+        assertSame(Thread.currentThread(), threads.get(5));
+        assertEquals(6, sink.getPublishedCount());
+        sink.close();
+    }
+
+    /**
+     * Records published while the sink is being closed aren't lost, and publishers waiting for room don't get stuck.
+     */
+    public void testPublishersRacingClose() throws Exception {
+        final AsyncLogSink sink = new AsyncLogSink(2, AsyncLogSink.Overflow.BLOCK, 10);
+        Thread[] publishers = new Thread[4];
+        for (int i = 0; i < publishers.length; i++) {
+            publishers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 500; j++)
+                        sink.publish(logger, record());
+                }
+            };
+            publishers[i].start();
+        }
+        Thread.sleep(5);
+        sink.close();
+        for (Thread t : publishers) {
+            t.join(10000);
+            assertFalse(t.isAlive());
+        }
+        assertEquals(2000, records.size());
+        assertEquals(2000, sink.getPublishedCount());
+        assertEquals(0, sink.getQueueSize());
+    }
+
+    public void testDrop() throws Exception {
+        gate = new CountDownLatch(1);
+        AsyncLogSink sink = new AsyncLogSink(2, AsyncLogSink.Overflow.DROP, 10);
+        assertTrue(sink.publish(logger, record()));
+        entered.await();
+        assertTrue(sink.publish(logger, record()));
+        assertTrue(sink.publish(logger, record()));
+        assertFalse(sink.publish(logger, record()));
+        assertEquals(1, sink.getDroppedCount());
+
+        gate.countDown();
+        assertTrue(sink.flush(10, TimeUnit.SECONDS));
+        assertEquals(3, records.size());
+        sink.close();
+    }
+
+    public void testSample() throws Exception {
+        gate = new CountDownLatch(1);
+        AsyncLogSink sink = new AsyncLogSink(2, AsyncLogSink.Overflow.SAMPLE, 2);
+        sink.publish(logger, record());
+        entered.await();
+        sink.publish(logger, record());
+        sink.publish(logger, record());
+
+        assertFalse(sink.publish(logger, record()));
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // just go ahead
+                }
+                gate.countDown();
+            }
+        }.start();
+        // this one is sampled, so it waits for room
+        assertTrue(sink.publish(logger, record()));
+        assertTrue(sink.flush(10, TimeUnit.SECONDS));
+        assertEquals(4, records.size());
+        assertEquals(1, sink.getDroppedCount());
+        sink.close();
+    }
+
+    private static LogRecord record() {
+        return new LogRecord(Level.INFO, "command");
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.thoughtworks.selenium.Selenium;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates {@link LoggingWebDriverDelegate} and {@link LoggingSeleniumDelegate} from the driver interfaces.
+ * Rerun this when upgrading Selenium, with the source directory of the main code as the argument:
+ *
+ * <pre>
+ * java -cp ... com.saucelabs.selenium.client.logging.DelegateGenerator src/main/java
+ * </pre>
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class DelegateGenerator {
+    private final Class<?> type;
+    private final String className;
+    private final String field;
+    private final Set<String> imports = new TreeSet<String>();
+
+    DelegateGenerator(Class<?> type, String className, String field) {
+        this.type = type;
+        this.className = className;
+        this.field = field;
+    }
+
+    String generate() {
+        StringBuilder body = new StringBuilder();
+        for (Method m : sortedMethods()) {
+            body.append('\n');
+            generate(m, body);
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append(HEADER);
+        out.append("package ").append(DelegateGenerator.class.getPackage().getName()).append(";\n\n");
+        imports.add(type.getName());
+        // the Java platform comes last, like elsewhere in this code base
+        String group = null;
+        for (String i : sortedImports()) {
+            String g = i.startsWith("java.") ? "java" : "";
+            if (group != null && !group.equals(g))
+                out.append('\n');
+            group = g;
+            out.append("import ").append(i).append(";\n");
+        }
+        out.append("\n/**\n");
+        out.append(" * {@link ").append(type.getSimpleName()).append("} handed out from \"log:...\".\n");
+        out.append(" *\n");
+        out.append(" * <p>\n");
+        out.append(" * Generated by {@code DelegateGenerator} in the test code. Do not edit by hand.\n");
+        out.append(" *\n");
+        out.append(" * @author Kohsuke Kawaguchi\n");
+        out.append(" */\n");
+        out.append("final class ").append(className).append(" extends LoggingDelegate implements ").append(type.getSimpleName()).append(" {\n");
+        out.append("    ").append(className).append('(').append(type.getSimpleName()).append(" base) {\n");
+        out.append("        this.").append(field).append(" = base;\n");
+        out.append("    }\n");
+        out.append(body);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private List<String> sortedImports() {
+        List<String> r = new ArrayList<String>();
+        for (String i : imports)
+            if (!i.startsWith("java."))
+                r.add(i);
+        for (String i : imports)
+            if (i.startsWith("java."))
+                r.add(i);
+        return r;
+    }
+
+    private List<Method> sortedMethods() {
+        List<Method> methods = new ArrayList<Method>(Arrays.asList(type.getMethods()));
+        Collections.sort(methods, new Comparator<Method>() {
+            public int compare(Method a, Method b) {
+                int r = a.getName().compareTo(b.getName());
+                return r != 0 ? r : Arrays.toString(a.getParameterTypes()).compareTo(Arrays.toString(b.getParameterTypes()));
+            }
+        });
+        return methods;
+    }
+
+    private void generate(Method m, StringBuilder out) {
+        String name = m.getName();
+        Type[] params = m.getGenericParameterTypes();
+        boolean isVoid = m.getReturnType() == void.class;
+        boolean isQuit = (name.equals("quit") || name.equals("stop")) && params.length == 0;
+
+        StringBuilder decl = new StringBuilder();
+        StringBuilder call = new StringBuilder();
+        StringBuilder args = new StringBuilder();
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                decl.append(", ");
+                call.append(", ");
+                args.append(", ");
+            }
+            decl.append(toString(params[i])).append(" arg").append(i);
+            call.append("arg").append(i);
+            args.append("arg").append(i);
+        }
+        String argArray = params.length == 0 ? "NO_ARGS" : "new Object[]{" + args + "}";
+        String invocation = field + "." + name + "(" + call + ")";
+
+        String indent = isQuit ? "            " : "        ";
+        out.append("    public ");
+        TypeVariable<Method>[] tvs = m.getTypeParameters();
+        if (tvs.length > 0) {
+            out.append('<');
+            for (int i = 0; i < tvs.length; i++) {
+                if (i > 0) out.append(", ");
+                out.append(tvs[i].getName());
+            }
+            out.append("> ");
+        }
+        out.append(toString(m.getGenericReturnType())).append(' ').append(name).append('(').append(decl).append(") {\n");
+        if (isQuit)
+            out.append("        try {\n");
+
+        if (isVoid) {
+            out.append(indent).append("if (!before()) {\n");
+            out.append(indent).append("    ").append(invocation).append(";\n");
+            out.append(indent).append("    return;\n");
+            out.append(indent).append("}\n");
+        } else {
+            out.append(indent).append("if (!before())\n");
+            out.append(indent).append("    return ").append(invocation).append(";\n");
+        }
+        out.append(indent).append("try {\n");
+        if (isVoid) {
+            out.append(indent).append("    ").append(invocation).append(";\n");
+        } else {
+            out.append(indent).append("    return returned(\"").append(name).append("\", ").append(argArray).append(", ").append(invocation).append(");\n");
+        }
+        out.append(indent).append("} catch (RuntimeException e) {\n");
+        out.append(indent).append("    throw failed(\"").append(name).append("\", ").append(argArray).append(", e);\n");
+        out.append(indent).append("} catch (Error e) {\n");
+        out.append(indent).append("    throw failed(\"").append(name).append("\", ").append(argArray).append(", e);\n");
+        out.append(indent).append("}\n");
+        if (isVoid)
+            out.append(indent).append("returned(\"").append(name).append("\", ").append(argArray).append(");\n");
+
+        if (isQuit) {
+            out.append("        } finally {\n");
+            out.append("            ended();\n");
+            out.append("        }\n");
+        }
+        out.append("    }\n");
+    }
+
+    private String toString(Type t) {
+        if (t instanceof Class) {
+            Class<?> c = (Class<?>) t;
+            if (c.isArray())
+                return toString(c.getComponentType()) + "[]";
+            if (c.isPrimitive())
+                return c.getName();
+            Class<?> top = c;
+            while (top.getEnclosingClass() != null)
+                top = top.getEnclosingClass();
+            if (!top.getPackage().getName().equals("java.lang"))
+                imports.add(top.getName());
+            return c.getName().substring(top.getPackage().getName().length() + 1).replace('$', '.');
+        }
+        if (t instanceof ParameterizedType) {
+            ParameterizedType p = (ParameterizedType) t;
+            StringBuilder b = new StringBuilder(toString(p.getRawType())).append('<');
+            Type[] args = p.getActualTypeArguments();
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) b.append(", ");
+                b.append(toString(args[i]));
+            }
+            return b.append('>').toString();
+        }
+        if (t instanceof GenericArrayType)
+            return toString(((GenericArrayType) t).getGenericComponentType()) + "[]";
+        if (t instanceof TypeVariable)
+            return ((TypeVariable<?>) t).getName();
+        if (t instanceof WildcardType) {
+            WildcardType w = (WildcardType) t;
+            if (w.getLowerBounds().length > 0)
+                return "? super " + toString(w.getLowerBounds()[0]);
+            if (w.getUpperBounds()[0] != Object.class)
+                return "? extends " + toString(w.getUpperBounds()[0]);
+            return "?";
+        }
+        throw new IllegalArgumentException("Unexpected type " + t);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = getSourceDir(new File(args[0]));
+        for (Map.Entry<String, String> e : generateAll().entrySet())
+            write(new File(dir, e.getKey()), e.getValue());
+    }
+
+    /**
+     * Generates all the delegates.
+     *
+     * @return map from the file names to their contents.
+     */
+    static Map<String, String> generateAll() {
+        Map<String, String> r = new LinkedHashMap<String, String>();
+        r.put("LoggingWebDriverDelegate.java", new DelegateGenerator(WebDriver.class, "LoggingWebDriverDelegate", "webDriver").generate());
+        r.put("LoggingSeleniumDelegate.java", new DelegateGenerator(Selenium.class, "LoggingSeleniumDelegate", "base").generate());
+        return r;
+    }
+
+    /**
+     * Directory of the delegates, given the source directory of the main code.
+     */
+    static File getSourceDir(File root) {
+        return new File(root, DelegateGenerator.class.getPackage().getName().replace('.', '/'));
+    }
+
+    private static void write(File f, String content) throws IOException {
+        Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+        try {
+            w.write(content);
+        } finally {
+            w.close();
+        }
+    }
+
+    private static final String HEADER =
+        "/*\n" +
+        " * The MIT License\n" +
+        " *\n" +
+        " * Copyright (c) 2010, InfraDNA, Inc.\n" +
+        " *\n" +
+        " * Permission is hereby granted, free of charge, to any person obtaining a copy\n" +
+        " * of this software and associated documentation files (the \"Software\"), to deal\n" +
+        " * in the Software without restriction, including without limitation the rights\n" +
+        " * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell\n" +
+        " * copies of the Software, and to permit persons to whom the Software is\n" +
+        " * furnished to do so, subject to the following conditions:\n" +
+        " *\n" +
+        " * The above copyright notice and this permission notice shall be included in\n" +
+        " * all copies or substantial portions of the Software.\n" +
+        " *\n" +
+        " * THE SOFTWARE IS PROVIDED \"AS IS\", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR\n" +
+        " * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,\n" +
+        " * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE\n" +
+        " * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER\n" +
+        " * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,\n" +
+        " * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN\n" +
+        " * THE SOFTWARE.\n" +
+        " */\n";
+}
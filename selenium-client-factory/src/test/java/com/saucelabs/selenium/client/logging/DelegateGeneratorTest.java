@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Makes sure the committed delegates are what {@link DelegateGenerator} generates,
+ * so that hand edits and Selenium upgrades don't go unnoticed.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class DelegateGeneratorTest extends TestCase {
+    public void testDelegatesAreUpToDate() throws IOException {
+        File dir = DelegateGenerator.getSourceDir(new File(System.getProperty("basedir", "."), "src/main/java"));
+        for (Map.Entry<String, String> e : DelegateGenerator.generateAll().entrySet())
+            assertEquals(e.getKey() + " is out of date. Rerun DelegateGenerator",
+                    e.getValue(), read(new File(dir, e.getKey())));
+    }
+
+    private static String read(File f) throws IOException {
+        Reader r = new InputStreamReader(new FileInputStream(f), "UTF-8");
+        try {
+            StringBuilder buf = new StringBuilder();
+            char[] tmp = new char[8192];
+            int n;
+            while ((n = r.read(tmp)) >= 0)
+                buf.append(tmp, 0, n);
+            return buf.toString();
+        } finally {
+            r.close();
+        }
+    }
+}
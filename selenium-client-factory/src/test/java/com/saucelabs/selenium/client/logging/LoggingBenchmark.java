@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import org.openqa.selenium.WebDriver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Proxy;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Measures the per-command overhead of the logging driver, comparing the generated delegates against
+ * {@link LoggingSeleniumProxy} and against calling the driver directly. The drivers are created through
+ * {@link SeleniumFactory}, so that they are tracked by {@link SessionRegistry} as in real use, and their
+ * commands pay for it. Nothing creates the proxy anymore, so it's compared against a delegate that's
+ * also created outside the factory and isn't tracked. Run it with no argument:
+ *
+ * <pre>
+ * java -cp ... com.saucelabs.selenium.client.logging.LoggingBenchmark
+ * </pre>
+ *
+ * <p>
+ * Each variant is measured in a JVM of its own, so that the call site only ever sees one driver class,
+ * and only after warm-up rounds that let the JIT compiler settle. The results go through a blackhole,
+ * so that the calls can't be optimized away.
+ *
+ * @author Kohsuke Kawaguchi
+ */
+public class LoggingBenchmark {
+    private static final int ITERATIONS = 5000000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    private static final String[] VARIANTS = {"direct", "delegate", "untracked", "proxy"};
+
+    /**
+     * The values that {@link #consume(Object)} compares against, which the JIT compiler can't know.
+     */
+    private static volatile Object b1 = new Object(), b2 = new Object();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2) {
+            // forked to measure one variant
+            System.out.println(run(args[0], Boolean.parseBoolean(args[1])));
+            return;
+        }
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            System.out.println(enabled ? "Logging enabled, records discarded by the handler:" : "Logging disabled:");
+            double base = fork(VARIANTS[0], enabled);
+            System.out.printf("  direct               %6.1f ns/call%n", base);
+            for (int i = 1; i < VARIANTS.length; i++) {
+                double t = fork(VARIANTS[i], enabled);
+                System.out.printf("  %-20s %6.1f ns/call (+%.1f)%n", VARIANTS[i], t, t - base);
+            }
+        }
+    }
+
+    /**
+     * Measures the variant in a new JVM.
+     */
+    private static double fork(String variant, boolean enabled) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"),
+                LoggingBenchmark.class.getName(), variant, String.valueOf(enabled));
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()));
+        String line, last = null;
+        while ((line = r.readLine()) != null)
+            last = line;
+        if (p.waitFor() != 0)
+            throw new IllegalStateException("Failed to measure " + variant + ": " + last);
+        return Double.parseDouble(last);
+    }
+
+    private static double run(String variant, boolean enabled) {
+        WebDriver d;
+        if (variant.equals("direct"))
+            d = SeleniumFactory.createWebDriver("fake:", null);
+        else if (variant.equals("delegate"))
+            d = SeleniumFactory.createWebDriver("log:fake:", null);
+        else if (variant.equals("untracked"))
+            d = LoggingSeleniumSPIImpl.createLoggingWebDriver(SeleniumFactory.createWebDriver("fake:", null));
+        else if (variant.equals("proxy"))
+            d = (WebDriver) Proxy.newProxyInstance(LoggingSelenium.class.getClassLoader(),
+                    new Class[]{LoggingSelenium.class, WebDriver.class},
+                    new LoggingSeleniumProxy(SeleniumFactory.createWebDriver("fake:", null)));
+        else
+            throw new IllegalArgumentException("Unknown variant: " + variant);
+        if (d instanceof LoggingSelenium)
+            ((LoggingSelenium) d).setLogger(createLogger(enabled));
+
+        for (int r = 0; r < WARMUP_ROUNDS; r++)
+            measure(d);
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++)
+            best = Math.min(best, measure(d));
+        return best;
+    }
+
+    private static Logger createLogger(boolean enabled) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.setLevel(enabled ? Level.ALL : Level.OFF);
+        logger.addHandler(new Handler() {
+            public void publish(LogRecord record) {}
+            public void flush() {}
+            public void close() {}
+        });
+        return logger;
+    }
+
+    /**
+     * @return the time per call, in nanoseconds.
+     */
+    private static double measure(WebDriver d) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            consume(d.getTitle());
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+
+    /**
+     * Uses the value in a way that the JIT compiler can't prove to be useless.
+     */
+    private static void consume(Object o) {
+        if (o == b1 & o == b2)
+            throw new IllegalStateException();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.logging;
+
+import com.saucelabs.selenium.client.factory.FakeWebDriver;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
+import junit.framework.TestCase;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class LoggingTest extends TestCase {
+    private final List<LogRecord> records = new ArrayList<LogRecord>();
+    private Logger logger;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+            public void flush() {}
+            public void close() {}
+        });
+    }
+
+    public void testDisabledLevelRendersNothing() {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:", null);
+        LoggingSelenium l = (LoggingSelenium) d;
+        l.setLogger(logger);
+        l.setLogLevel(Level.FINE);
+
+        CountingBy by = new CountingBy();
+        assertTrue(d.findElements(by).isEmpty());
+        assertEquals(0, by.count);
+        assertTrue(records.isEmpty());
+        d.quit();
+    }
+
+    public void testMessageIsRenderedOnDemand() {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:", null);
+        LoggingSelenium l = (LoggingSelenium) d;
+        l.setLogger(logger);
+        l.setId("wd");
+
+        CountingBy by = new CountingBy();
+        d.findElements(by);
+        d.get("http://example.com/");
+        assertEquals(0, by.count);
+        assertEquals(2, records.size());
+
+        assertEquals("wd: findElements(by) -> []", records.get(0).getMessage());
+        assertEquals(1, by.count);
+        assertEquals("wd: get(\"http://example.com/\")", records.get(1).getMessage());
+        assertEquals(logger.getName(), records.get(1).getLoggerName());
+        d.quit();
+    }
+
+    /**
+     * A reclaimer taken before the base driver is swapped ends the new one.
+     */
+    public void testReclaimerFollowsTheBaseDriver() {
+        WebDriver d = SeleniumFactory.createWebDriver("log:fake:", null);
+        Runnable reclaimer = ((Reclaimable) d).getReclaimer();
+        FakeWebDriver old = (FakeWebDriver) ((LoggingSelenium) d).getWebDriver();
+        FakeWebDriver swapped = new FakeWebDriver();
+        ((LoggingSelenium) d).setWebDriver(swapped);
+
+        reclaimer.run();
+        assertTrue(swapped.quit);
+        assertFalse(old.quit);
+        old.quit();
+    }
+
+    private static class CountingBy extends By {
+        int count;
+
+        @Override
+        public List<WebElement> findElements(SearchContext context) {
+            return context.findElements(this);
+        }
+
+        @Override
+        public String toString() {
+            count++;
+            return "by";
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2010, InfraDNA, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.saucelabs.selenium.client.pool;
+
+import com.saucelabs.selenium.client.factory.AdmissionScheduler;
+import com.saucelabs.selenium.client.factory.FakeWebDriver;
+import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import junit.framework.TestCase;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Kohsuke Kawaguchi
+ */
+public class PoolTest extends TestCase {
+    public void testReuse() {
+        WebDriver d = SeleniumFactory.createWebDriver("pool:fake:", "http://example.com/");
+        FakeWebDriver base = (FakeWebDriver) ((PooledWebDriver) d).getBaseDriver();
+        base.windows.add("popup");
+        d.quit();
+
+        assertFalse(base.quit);
+        assertEquals("about:blank", base.currentUrl);
+        assertEquals(1, base.windows.size());
+        assertEquals(1, base.cookiesDeleted);
+
+        try {
+            d.getTitle();
+            fail("returned driver should be unusable");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        WebDriver d2 = SeleniumFactory.createWebDriver("pool:fake:", "http://example.com/");
+        assertSame(base, ((PooledWebDriver) d2).getBaseDriver());
+        assertEquals(2, ((PooledWebDriver) d2).getUseCount());
+        assertEquals("http://example.com/", d2.getCurrentUrl());
+        ((PooledWebDriver) d2).invalidate();
+        assertTrue(base.quit);
+    }
+
+    public void testDeadSessionIsNotHandedOut() {
+        SeleniumFactory f = new SeleniumFactory().setUri("pool:fake:dead");
+        WebDriver d = f.createWebDriverInstance(null, new DesiredCapabilities());
+        FakeWebDriver base = (FakeWebDriver) ((PooledWebDriver) d).getBaseDriver();
+        d.quit();
+        base.dead = true;
+
+        WebDriver d2 = f.createWebDriverInstance(null, new DesiredCapabilities());
+        assertNotSame(base, ((PooledWebDriver) d2).getBaseDriver());
+        d2.quit();
+    }
+
+    public void testMaxUses() {
+        SeleniumFactory f = new SeleniumFactory().setUri("pool:fake:maxUses").setProperty("pool.maxUses", 1);
+        WebDriver d = f.createWebDriverInstance(null, null);
+        FakeWebDriver base = (FakeWebDriver) ((PooledWebDriver) d).getBaseDriver();
+        d.quit();
+        assertTrue(base.quit);
+        assertEquals(0, ((PooledWebDriver) d).getPool().getIdleCount());
+    }
+
+    /**
+     * A session holds its admission permit while it's idle in the pool, and gets reused without another one.
+     */
+    public void testAdmission() {
+        AdmissionScheduler s = new AdmissionScheduler(1).setTimeout(100, TimeUnit.MILLISECONDS);
+        SeleniumFactory f = new SeleniumFactory().setUri("pool:fake:admission").setAdmissionScheduler(s);
+        WebDriver d = f.createWebDriverInstance(null, null);
+        FakeWebDriver base = (FakeWebDriver) ((PooledWebDriver) d).getBaseDriver();
+        assertEquals(0, s.getAvailablePermits());
+        d.quit();
+        assertFalse(base.quit);
+        assertEquals(0, s.getAvailablePermits());
+
+        // the idle session is counted, so nothing else gets in
+        try {
+            new SeleniumFactory().setUri("fake:other").setAdmissionScheduler(s).createWebDriverInstance(null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        WebDriver d2 = f.createWebDriverInstance(null, null);
+        assertSame(base, ((PooledWebDriver) d2).getBaseDriver());
+        ((PooledWebDriver) d2).invalidate();
+        assertTrue(base.quit);
+        assertEquals(1, s.getAvailablePermits());
+    }
+
+        public void testMaxActive() throws Exception {
+        SeleniumFactory f = new SeleniumFactory().setUri("pool:fake:maxActive")
+                .setProperty("pool.maxActive", 1).setProperty("pool.maxWait", 200);
+        final WebDriver d = f.createWebDriverInstance(null, null);
+        FakeWebDriver base = (FakeWebDriver) ((PooledWebDriver) d).getBaseDriver();
+        try {
+            f.createWebDriverInstance(null, null);
+            fail("only one session can be out");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // quit right away
+                }
+                d.quit();
+            }
+        }.start();
+        WebDriver d2 = f.createWebDriverInstance(null, null);
+        assertSame(base, ((PooledWebDriver) d2).getBaseDriver());
+        assertEquals(1, ((PooledWebDriver) d2).getPool().getActiveCount());
+        d2.quit();
+    }
+}
@@ -24,6 +24,10 @@
 package com.saucelabs.selenium.client.embedded_rc;
 
 import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.metrics.DriverMetrics;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
 import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
 import com.thoughtworks.selenium.Selenium;
 import org.kohsuke.MetaInfServices;
@@ -36,6 +40,7 @@ import org.openqa.selenium.server.cli.RemoteControlLauncher;
 import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -62,16 +67,30 @@ public class EmbeddedRcSPIImpl extends SeleniumFactorySPI {
         Selenium base = f.setUri("http://localhost:" + port + "/" + browser).createSelenium(browserURL);
 
         // if the selenium session is shut down, stop the embedded RC
-        return new SeleniumFilter(base) {
+        final DriverMetrics metrics = MetricsRegistry.forUri(uri);
+        final Runnable reclaimer = createReclaimer(base, server);
+        class EmbeddedSelenium extends SeleniumFilter implements Reclaimable {
+            EmbeddedSelenium(Selenium base) {
+                super(base);
+            }
+
             @Override
             public void stop() {
+                long start = System.nanoTime();
                 try {
                     super.stop();
                 } finally {
                     server.stop();
+                    metrics.quitEnded(start);
+                    SessionRegistry.ended(this);
                 }
             }
-        };
+
+            public Runnable getReclaimer() {
+                return reclaimer;
+            }
+        }
+        return new EmbeddedSelenium(base);
     }
 
       private SeleniumServer startSeleniumServer(SeleniumFactory factory, int port) {
@@ -112,16 +131,47 @@ public class EmbeddedRcSPIImpl extends SeleniumFactorySPI {
 
 
         // if the selenium session is shut down, stop the embedded RC
-        return new WebDriverFilter(base) {
+        final DriverMetrics metrics = MetricsRegistry.forUri(uri);
+        final Runnable reclaimer = createReclaimer(base, server);
+        class EmbeddedWebDriver extends WebDriverFilter implements Reclaimable {
+            EmbeddedWebDriver(WebDriver base) {
+                super(base);
+            }
+
             @Override
             public void quit() {
+                long start = System.nanoTime();
                 try {
                     super.quit();
                 } finally {
                     server.stop();
+                    metrics.quitEnded(start);
+                    SessionRegistry.ended(this);
                 }
             }
 
+            public Runnable getReclaimer() {
+                return reclaimer;
+            }
+        }
+        return new EmbeddedWebDriver(base);
+    }
+
+    /**
+     * Ends the session and the embedded RC once the driver that the application had has been garbage collected.
+     */
+    private static Runnable createReclaimer(final Object base, final SeleniumServer server) {
+        return new Runnable() {
+            public void run() {
+                try {
+                    if (base instanceof WebDriver)
+                        ((WebDriver) base).quit();
+                    else
+                        ((Selenium) base).stop();
+                } finally {
+                    server.stop();
+                }
+            }
         };
     }
 
@@ -130,6 +180,11 @@ public class EmbeddedRcSPIImpl extends SeleniumFactorySPI {
         return uri.startsWith(SCHEME);
     }
 
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("embedded-rc");
+    }
+
     private String[] getArguments(SeleniumFactory factory) {
         Object ea = factory.getProperty("embedded_args");
         if (ea instanceof String)
@@ -168,11 +223,6 @@ public class EmbeddedRcSPIImpl extends SeleniumFactorySPI {
         return "*firefox";
     }
 
-    @Override
-    public List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, String browserURL) {
-        throw new IllegalArgumentException("Not Supported");
-    }
-
     private static final String SCHEME = "embedded-rc:";
 
     private static final String JETTY_FORM_SIZE = "org.openqa.jetty.http.HttpRequest.maxFormContentSize";
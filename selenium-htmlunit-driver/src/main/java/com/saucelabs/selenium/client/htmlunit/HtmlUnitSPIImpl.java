@@ -23,15 +23,21 @@
  */
 package com.saucelabs.selenium.client.htmlunit;
 
+import com.gargoylesoftware.htmlunit.WebClient;
 import org.kohsuke.MetaInfServices;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.htmlunit.HtmlUnitDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
 import com.saucelabs.selenium.client.factory.SeleniumFactory;
+import com.saucelabs.selenium.client.factory.SessionRegistry;
+import com.saucelabs.selenium.client.factory.metrics.DriverMetrics;
+import com.saucelabs.selenium.client.factory.metrics.MetricsRegistry;
+import com.saucelabs.selenium.client.factory.spi.Reclaimable;
 import com.saucelabs.selenium.client.factory.spi.SeleniumFactorySPI;
 import com.thoughtworks.selenium.Selenium;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,8 +47,26 @@ import java.util.List;
 public class HtmlUnitSPIImpl extends SeleniumFactorySPI {
     @Override
     public Selenium createSelenium(SeleniumFactory factory, String browserURL) {
-        if (canHandle(factory.getUri()))
-            return new SeleniumHTMLUnit();
+        if (canHandle(factory.getUri())) {
+            final DriverMetrics metrics = MetricsRegistry.forUri(factory.getUri());
+            class ReclaimableSelenium extends SeleniumHTMLUnit implements Reclaimable {
+                @Override
+                public void stop() {
+                    long start = System.nanoTime();
+                    try {
+                        super.stop();
+                    } finally {
+                        metrics.quitEnded(start);
+                        SessionRegistry.ended(this);
+                    }
+                }
+
+                public Runnable getReclaimer() {
+                    return createReclaimer(webClient);
+                }
+            }
+            return new ReclaimableSelenium();
+        }
         return null;
     }
 
@@ -50,20 +74,48 @@ public class HtmlUnitSPIImpl extends SeleniumFactorySPI {
     @Override
     public WebDriver createWebDriver(SeleniumFactory factory, String browserURL, DesiredCapabilities capabilities) {
         if (canHandle(factory.getUri())) {
-            WebDriver driver = new HtmlUnitDriver();
+            final DriverMetrics metrics = MetricsRegistry.forUri(factory.getUri());
+            class ReclaimableDriver extends HtmlUnitDriver implements Reclaimable {
+                @Override
+                public void quit() {
+                    long start = System.nanoTime();
+                    try {
+                        super.quit();
+                    } finally {
+                        metrics.quitEnded(start);
+                        SessionRegistry.ended(this);
+                    }
+                }
+
+                public Runnable getReclaimer() {
+                    return createReclaimer(getWebClient());
+                }
+            }
+            WebDriver driver = new ReclaimableDriver();
             driver.get(browserURL);
             return driver;
         }
         return null;
     }
 
-    @Override
-    public List<WebDriver> createWebDrivers(SeleniumFactory seleniumFactory, String browserURL) {
-        throw new IllegalArgumentException("Not Supported");
+    /**
+     * Closes the windows of an HtmlUnit client whose driver has been garbage collected, stopping its JavaScript threads.
+     */
+    private static Runnable createReclaimer(final WebClient client) {
+        return new Runnable() {
+            public void run() {
+                client.closeAllWindows();
+            }
+        };
     }
 
     @Override
     public boolean canHandle(String uri) {
         return uri.startsWith("htmlunit:");
     }
+
+    @Override
+    public List<String> getSchemes() {
+        return Collections.singletonList("htmlunit");
+    }
 }